@@ -5,9 +5,16 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 import org.springframework.cloud.netflix.hystrix.EnableHystrix;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.context.annotation.Import;
 
-@EnableFeignClients("com.nagp.microservices.accountservices")
+import com.nagp.microservices.accountservices.proxies.AccountStoreProxy;
+import com.nagp.microservices.accountservices.proxies.UserBatchProxy;
+import com.nagp.microservices.common.config.VirtualThreadConfiguration;
+import com.nagp.microservices.common.idempotency.IdempotencyConfiguration;
+
+@EnableFeignClients(clients = { AccountStoreProxy.class, UserBatchProxy.class })
 @SpringBootApplication
+@Import({ IdempotencyConfiguration.class, VirtualThreadConfiguration.class })
 @EnableDiscoveryClient
 @EnableHystrix
 public class AccountServicesApplication {
@@ -0,0 +1,48 @@
+package com.nagp.microservices.accountservices.config;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Bounded executors of the asynchronous controllers. When the queue of an
+ * executor is full, further requests fail right away instead of piling up.
+ * 
+ * @author vinodgodara
+ *
+ */
+@Configuration
+@ConditionalOnProperty(name = "async.enabled", havingValue = "true")
+public class ExecutorConfiguration {
+
+	/**
+	 * Executor for calls to other services, which mostly wait for the network.
+	 * 
+	 * @param threads       Number of threads.
+	 * @param queueCapacity Most tasks waiting for a thread.
+	 * @return The executor.
+	 */
+	@Bean(destroyMethod = "shutdown")
+	public ExecutorService remoteExecutor(@Value("${async.remote.threads:64}") final int threads,
+			@Value("${async.remote.queue-capacity:10000}") final int queueCapacity) {
+		return boundedExecutor("remote-call", threads, queueCapacity);
+	}
+
+	static ExecutorService boundedExecutor(final String name, final int threads, final int queueCapacity) {
+		final AtomicInteger count = new AtomicInteger();
+
+		return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+					final Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}, new ThreadPoolExecutor.AbortPolicy());
+	}
+}
@@ -0,0 +1,64 @@
+package com.nagp.microservices.accountservices.config;
+
+import java.util.concurrent.ExecutorService;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.nagp.microservices.accountservices.hedging.HedgePolicy;
+import com.nagp.microservices.accountservices.hedging.Hedger;
+
+/**
+ * Hedging of calls to user-services, enabled with {@code hedging.enabled=true}.
+ * 
+ * @author vinodgodara
+ *
+ */
+@Configuration
+@ConditionalOnProperty(name = "hedging.enabled", havingValue = "true")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class HedgingConfiguration {
+
+	/**
+	 * Executor running the attempts of hedged calls.
+	 * 
+	 * @param threads       Number of threads.
+	 * @param queueCapacity Most tasks waiting for a thread.
+	 * @return The executor.
+	 */
+	@Bean(destroyMethod = "shutdown")
+	public ExecutorService hedgeExecutor(@Value("${hedging.threads:64}") final int threads,
+			@Value("${hedging.queue-capacity:10000}") final int queueCapacity) {
+		return ExecutorConfiguration.boundedExecutor("hedged-call", threads, queueCapacity);
+	}
+
+	/**
+	 * Hedger of calls to user-services.
+	 * 
+	 * @param hedgeExecutor      Executor running the attempts.
+	 * @param percentile         Latency percentile after which a call is hedged.
+	 * @param minDelayMillis     Shortest hedge delay.
+	 * @param initialDelayMillis Hedge delay until enough latencies are known.
+	 * @param window             Number of recent latencies kept.
+	 * @param budgetPercent      Most hedges per 100 calls.
+	 * @param maxBudget          Most hedges saved up for a burst.
+	 * @param timeoutMillis      Longest wait for an answer.
+	 * @return The hedger.
+	 */
+	@Bean
+	public Hedger userServiceHedger(@Qualifier("hedgeExecutor") final ExecutorService hedgeExecutor,
+			@Value("${hedging.percentile:95}") final double percentile,
+			@Value("${hedging.min-delay-ms:5}") final long minDelayMillis,
+			@Value("${hedging.initial-delay-ms:100}") final long initialDelayMillis,
+			@Value("${hedging.window:1000}") final int window,
+			@Value("${hedging.budget-percent:10}") final double budgetPercent,
+			@Value("${hedging.max-budget:20}") final double maxBudget,
+			@Value("${hedging.timeout-ms:5000}") final long timeoutMillis) {
+		return new Hedger(new HedgePolicy(percentile, minDelayMillis, initialDelayMillis, window, budgetPercent,
+				maxBudget), hedgeExecutor, timeoutMillis);
+	}
+}
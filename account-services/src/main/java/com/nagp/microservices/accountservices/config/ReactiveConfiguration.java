@@ -0,0 +1,65 @@
+package com.nagp.microservices.accountservices.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.cloud.client.loadbalancer.LoadBalanced;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Beans of the reactive build, started on Netty when account-services is built
+ * with {@code -Preactive}. Event-loop threads must never block: user-services
+ * is called through a load-balanced WebClient, while the Feign calls to the
+ * account store run on a bounded scheduler.
+ *
+ * @author vinodgodara
+ *
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveConfiguration {
+
+	/**
+	 * WebClient builder resolving service names through the discovery client.
+	 *
+	 * @return The builder.
+	 */
+	@Bean
+	@LoadBalanced
+	public WebClient.Builder loadBalancedWebClientBuilder() {
+		return WebClient.builder();
+	}
+
+	/**
+	 * Message converters for the Feign encoder and decoder, only configured by
+	 * Spring Boot for the servlet build.
+	 *
+	 * @return The default converters.
+	 */
+	@Bean
+	@ConditionalOnMissingBean
+	public HttpMessageConverters messageConverters() {
+		return new HttpMessageConverters();
+	}
+
+	/**
+	 * Scheduler for calls to the account store, which also serves the
+	 * transaction ledger. When its queue is full, further requests fail right away
+	 * instead of piling up.
+	 *
+	 * @param threads       Most threads.
+	 * @param queueCapacity Most tasks waiting for a thread.
+	 * @return The scheduler.
+	 */
+	@Bean(destroyMethod = "dispose")
+	public Scheduler storageScheduler(@Value("${reactive.storage.threads:64}") final int threads,
+			@Value("${reactive.storage.queue-capacity:10000}") final int queueCapacity) {
+		return Schedulers.newBoundedElastic(threads, queueCapacity, "storage-io");
+	}
+}
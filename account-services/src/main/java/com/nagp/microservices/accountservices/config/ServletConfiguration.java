@@ -0,0 +1,21 @@
+package com.nagp.microservices.accountservices.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.context.annotation.Configuration;
+
+import com.nagp.microservices.accountservices.proxies.UserServiceProxy;
+
+/**
+ * Beans of the servlet build. User-services is called through the blocking
+ * Feign client here; the reactive build uses a WebClient instead.
+ *
+ * @author vinodgodara
+ *
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@EnableFeignClients(clients = UserServiceProxy.class)
+public class ServletConfiguration {
+
+}
@@ -0,0 +1,316 @@
+package com.nagp.microservices.accountservices.controllers;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.nagp.microservices.accountservices.cache.AccountCache;
+import com.nagp.microservices.accountservices.model.Account;
+import com.nagp.microservices.accountservices.model.TransactionPage;
+import com.nagp.microservices.accountservices.outbox.UserLinkOutbox;
+import com.nagp.microservices.accountservices.proxies.AccountStoreProxy;
+import com.nagp.microservices.accountservices.proxies.UserAccountLinks;
+import com.nagp.microservices.accountservices.util.AccountConstants;
+import com.nagp.microservices.accountservices.util.AccountUtil;
+
+/**
+ * Account logic behind {@link AccountService}, {@link AsyncAccountService} and
+ * {@link ReactiveAccountService}, which only differ in the threads it runs on.
+ * The account store, which also serves the ledger, the cache and the outbox
+ * block and run on the executor given by the caller; user-services is called through {@link UserAccountLinks},
+ * which does not hold a thread in the reactive build.
+ * 
+ * @author vinodgodara
+ *
+ */
+@Component
+public class AccountOperations {
+	private final static Logger LOGGER = LoggerFactory.getLogger(AccountOperations.class);
+
+	@Autowired
+	private UserAccountLinks userLinks;
+
+	// Accounts are owned by operation-services.
+	@Autowired
+	private AccountStoreProxy accountStore;
+
+	@Autowired
+	private AccountCache accountCache;
+
+	// Present with outbox.enabled=true.
+	@Autowired(required = false)
+	private UserLinkOutbox userLinkOutbox;
+
+	/**
+	 * Create a new account and add it to the account list for user.
+	 * 
+	 * @param account  The account object to be created.
+	 * @param blocking Executor for the blocking steps.
+	 * @return Success string.
+	 */
+	public CompletableFuture<String> createNewAccount(final Account account, final Executor blocking) {
+		// Check is all fields if account are valid.
+		if (!AccountUtil.isAccountValid(account)) {
+			LOGGER.error("Input Account is invalid.");
+			return failed("Invalid account");
+		}
+
+		return CompletableFuture.supplyAsync(() -> {
+			// Check if account by the same ID already exists.
+			final Account existingAccount = accountCache.find(account.getAccountNO());
+
+			// If user already exists, throw exception.
+			if (Objects.nonNull(existingAccount)) {
+				LOGGER.error("Account already exists.");
+				throw new RuntimeException("Account already exosts.");
+			}
+
+			// Let the outbox update the account list for user once the account is created.
+			if (Objects.nonNull(userLinkOutbox)) {
+				return createAccountLinkedLater(account);
+			}
+			return null;
+		}, blocking).thenCompose(linkedLater -> {
+			if (Objects.nonNull(linkedLater)) {
+				return CompletableFuture.completedFuture(linkedLater);
+			}
+
+			// Update account list for user.
+			return userLinks.addAccount(account.getUserID(), Long.toString(account.getAccountNO()))
+					.thenApplyAsync(response -> {
+						if (Objects.nonNull(response) && response.equals(AccountConstants.SUCCESS)) {
+							// If account does not exist, insert.
+							final String created = accountStore.createAccount(account);
+
+							if (!AccountConstants.ACCOUNT_STORE_SUCCESS.equals(created)) {
+								LOGGER.error("Error while creating account.");
+								throw new RuntimeException("Account could not be created.");
+							}
+						} else {
+							LOGGER.error("Error while updating account list of user.");
+							throw new RuntimeException("User account list could not be updated.");
+						}
+
+						return AccountConstants.SUCCESS;
+					}, blocking);
+		});
+	}
+
+	/**
+	 * Create an account and leave the update of the account list for user to the
+	 * {@link UserLinkOutbox}. The link is on disk before the account is created
+	 * and only delivered once it is.
+	 * 
+	 * @param account The account object to be created.
+	 * @return Success string.
+	 */
+	private String createAccountLinkedLater(final Account account) {
+		final long link = userLinkOutbox.add(account.getUserID(), account.getAccountNO());
+		String created = null;
+
+		try {
+			created = accountStore.createAccount(account);
+		} finally {
+			if (AccountConstants.ACCOUNT_STORE_SUCCESS.equals(created)) {
+				userLinkOutbox.confirm(link);
+			} else {
+				// The account may have been created all the same, e.g. on a timeout.
+				userLinkOutbox.verifyLater(link);
+			}
+		}
+
+		if (!AccountConstants.ACCOUNT_STORE_SUCCESS.equals(created)) {
+			LOGGER.error("Error while creating account.");
+			throw new RuntimeException("Account could not be created.");
+		}
+		return AccountConstants.SUCCESS;
+	}
+
+	/**
+	 * Update account information.
+	 * 
+	 * @param account  Account object containing the information to be updated.
+	 * @param blocking Executor for the blocking steps.
+	 * @return Success string.
+	 */
+	public CompletableFuture<String> updateAccountInfo(final Account account, final Executor blocking) {
+		// Check if all fields of account are valid.
+		if (!AccountUtil.isAccountValid(account)) {
+			LOGGER.error("Input Account is invalid.");
+			return failed("Invalid account");
+		}
+
+		return CompletableFuture.supplyAsync(() -> {
+			// Fetch the existing account.
+			final Account existingAccount = accountCache.find(account.getAccountNO());
+
+			// If user with user ID does not exist, throw exception.
+			if (Objects.isNull(existingAccount) || !existingAccount.isActive()) {
+				LOGGER.error("Account does not exist.");
+				throw new RuntimeException("Account does not exists.");
+			}
+
+			// Update account in the account store.
+			final String updated = accountStore.updateAccount(account);
+			accountCache.invalidate(account.getAccountNO());
+
+			if (!AccountConstants.ACCOUNT_STORE_SUCCESS.equals(updated)) {
+				LOGGER.error("Error while updating account.");
+				throw new RuntimeException("Account could not be updated.");
+			}
+			return AccountConstants.SUCCESS;
+		}, blocking);
+	}
+
+	/**
+	 * Close an account and remove it from the account list for user.
+	 * 
+	 * @param accountNO Account number for the account to be closed.
+	 * @param blocking  Executor for the blocking steps.
+	 * @return Success string.
+	 */
+	public CompletableFuture<String> closeAccount(final String accountNO, final Executor blocking) {
+		// Parse account number to long.
+		final long accountNumber;
+		try {
+			accountNumber = Long.parseLong(accountNO);
+		} catch (NumberFormatException exc) {
+			return failed(exc);
+		}
+
+		// If account number is 0, throw exception.
+		if (accountNumber == 0) {
+			LOGGER.error("Input account number is invalid.");
+			return failed("Invalid account number.");
+		}
+
+		return CompletableFuture.supplyAsync(() -> {
+			// Fetch account detail.
+			final Account account = accountCache.find(accountNumber);
+
+			if (Objects.isNull(account) || !account.isActive()) {
+				LOGGER.error("Account is either inactive or does not exist.");
+				throw new RuntimeException("Acount does not exist.");
+			}
+			return account;
+		}, blocking).thenCompose(account -> {
+			// Nothing to remove from the account list for user if the link is still in the
+			// outbox.
+			final boolean linkPending = Objects.nonNull(userLinkOutbox)
+					&& userLinkOutbox.isPending(account.getAccountNO());
+
+			// Update account list for user.
+			final CompletableFuture<String> response = linkPending
+					? CompletableFuture.completedFuture(AccountConstants.SUCCESS)
+					: userLinks.removeAccount(account.getUserID(), Long.toString(account.getAccountNO()));
+
+			return response.thenApplyAsync(removed -> {
+				if (Objects.isNull(removed) || !removed.equals(AccountConstants.SUCCESS)) {
+					LOGGER.error("Error while updating account list of user.");
+					throw new RuntimeException("User account list could not be updated.");
+				}
+
+				// Set isActive as false for the account in the account store.
+				final String closed = accountStore.closeAccount(Long.toString(accountNumber));
+				accountCache.invalidate(accountNumber);
+
+				if (!AccountConstants.ACCOUNT_STORE_SUCCESS.equals(closed)) {
+					LOGGER.error("Error while closing account.");
+					throw new RuntimeException("Account could not be closed.");
+				}
+
+				// Drop the link only now the account is closed, a failed close keeps it.
+				return linkPending && !userLinkOutbox.dropPending(account.getAccountNO());
+			}, blocking).thenCompose(delivered -> {
+				if (!delivered) {
+					return CompletableFuture.completedFuture(AccountConstants.SUCCESS);
+				}
+
+				// The link was delivered meanwhile, remove the account from the user after all.
+				return userLinks.removeAccount(account.getUserID(), Long.toString(account.getAccountNO()))
+						.thenApply(removed -> {
+							if (!AccountConstants.SUCCESS.equals(removed)) {
+								LOGGER.error("Error while updating account list of user.");
+								throw new RuntimeException("User account list could not be updated.");
+							}
+							return AccountConstants.SUCCESS;
+						});
+			});
+		});
+	}
+
+	/**
+	 * Fetch a page of the transaction summary of an account.
+	 * 
+	 * @param accountNO The account number for the account for which transaction
+	 *                  summary is required.
+	 * @param cursor    Next cursor of the previous page, 0 for the first page.
+	 * @param limit     Maximum number of transactions in the page.
+	 * @param blocking  Executor for the blocking steps.
+	 * @return Page of the transactions.
+	 */
+	public CompletableFuture<TransactionPage> getTransactionSummary(final String accountNO, final long cursor,
+			final int limit, final Executor blocking) {
+		return CompletableFuture.supplyAsync(() -> {
+			// Parse the account number to long.
+			final long accountNumber = Long.parseLong(accountNO);
+
+			// Id account number is 0 or page is invalid, throw exception.
+			if (accountNumber == 0 || cursor < 0 || limit <= 0 || limit > AccountConstants.MAX_PAGE_SIZE) {
+				LOGGER.error("Input account number is invalid.");
+				throw new RuntimeException("Invalid account number.");
+			}
+
+			// Fetch account.
+			final Account account = accountCache.find(accountNumber);
+
+			if (Objects.isNull(account) || !account.isActive()) {
+				LOGGER.error("Account is either inactive or does not exist.");
+				throw new RuntimeException("Transaction details not available.");
+			}
+
+			// Read the page from the account's ledger, kept by operation-services.
+			final TransactionPage page = accountStore.transactions(accountNO, cursor, limit);
+
+			if (cursor == 0 && page.getTransactions().isEmpty()) {
+				LOGGER.error("No transaction details for the account.");
+				throw new RuntimeException("Transaction details not available.");
+			}
+			return page;
+		}, blocking);
+	}
+
+	/**
+	 * Wait for the result of an operation, for callers answering on the request
+	 * thread. Failures are thrown as they were raised.
+	 * 
+	 * @param operation The operation.
+	 * @return Its result.
+	 */
+	public static <T> T await(final CompletableFuture<T> operation) {
+		try {
+			return operation.join();
+		} catch (CompletionException exc) {
+			if (exc.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) exc.getCause();
+			}
+			throw exc;
+		}
+	}
+
+	private static <T> CompletableFuture<T> failed(final String message) {
+		return failed(new RuntimeException(message));
+	}
+
+	private static <T> CompletableFuture<T> failed(final RuntimeException exc) {
+		final CompletableFuture<T> failed = new CompletableFuture<>();
+		failed.completeExceptionally(exc);
+		return failed;
+	}
+}
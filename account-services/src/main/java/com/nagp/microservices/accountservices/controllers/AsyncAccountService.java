@@ -0,0 +1,101 @@
+package com.nagp.microservices.accountservices.controllers;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.cloud.context.config.annotation.RefreshScope;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.nagp.microservices.accountservices.model.Account;
+import com.nagp.microservices.accountservices.model.TransactionPage;
+
+/**
+ * Asynchronous variant of {@link AccountService}, enabled with
+ * {@code async.enabled=true}. The request thread is released right away and
+ * calls to other services run on the remote executor. Without Hystrix, the bounded executors limit the work in flight.
+ * 
+ * @author vinodgodara
+ *
+ */
+@RefreshScope
+@RestController
+@ConditionalOnProperty(name = "async.enabled", havingValue = "true")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class AsyncAccountService {
+	private final static Logger LOGGER = LoggerFactory.getLogger(AsyncAccountService.class);
+
+	@Autowired
+	private AccountOperations accountOperations;
+
+	@Autowired
+	@Qualifier("remoteExecutor")
+	private ExecutorService remoteExecutor;
+
+	/**
+	 * API to create new account.
+	 * 
+	 * @param account The account object to be created.
+	 * @return Either success string or error string, once the account is created.
+	 */
+	@PostMapping(path = "/createNewAccount", consumes = "application/json", produces = "application/json")
+	public CompletableFuture<String> createNewAccount(@RequestBody Account account) {
+		LOGGER.debug("Entering method: createNewAccount");
+
+		return accountOperations.createNewAccount(account, remoteExecutor);
+	}
+
+	/**
+	 * API to update account information.
+	 * 
+	 * @param account Account object containing the information to be updated.
+	 * @return Success string or error string.
+	 */
+	@PostMapping(path = "/updateAccountInfo", consumes = "application/json", produces = "application/json")
+	public CompletableFuture<String> updateAccountInfo(@RequestBody Account account) {
+		LOGGER.debug("Entering method: updateAccountInfo");
+
+		return accountOperations.updateAccountInfo(account, remoteExecutor);
+	}
+
+	/**
+	 * API for closing the coount.
+	 * 
+	 * @param accountNO Account number for the account to be closed.
+	 * @return Success or error string.
+	 */
+	@PostMapping(path = "/closeAccount/{accountNO}", consumes = "application/json", produces = "application/json")
+	public CompletableFuture<String> closeAccount(@PathVariable String accountNO) {
+		LOGGER.info("Entering method: closeAccount");
+
+		return accountOperations.closeAccount(accountNO, remoteExecutor);
+	}
+
+	/**
+	 * API to fetch transaction summary for the provided account number, one page
+	 * at a time.
+	 * 
+	 * @param accountNO The account number for the account for which transaction
+	 *                  summary is required.
+	 * @param cursor    Next cursor of the previous page, 0 for the first page.
+	 * @param limit     Maximum number of transactions in the page.
+	 * @return Page of the transactions.
+	 */
+	@GetMapping(path = "/getTransactionSummary/{accountNO}")
+	public CompletableFuture<TransactionPage> getTransactionSummary(@PathVariable String accountNO,
+			@RequestParam(defaultValue = "0") long cursor, @RequestParam(defaultValue = "100") int limit) {
+		LOGGER.info("Entering method: getTransactionSummary");
+
+		return accountOperations.getTransactionSummary(accountNO, cursor, limit, remoteExecutor);
+	}
+}
@@ -0,0 +1,112 @@
+package com.nagp.microservices.accountservices.controllers;
+
+import java.util.concurrent.Executor;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.cloud.context.config.annotation.RefreshScope;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.nagp.microservices.accountservices.model.Account;
+import com.nagp.microservices.accountservices.model.TransactionPage;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Reactive variant of {@link AccountService}, used by the reactive build.
+ * Requests are handled on the Netty event loop. User-services is called
+ * through the WebClient; the account store and cache block, so the
+ * {@link AccountOperations} run those steps on the storage scheduler.
+ *
+ * @author vinodgodara
+ *
+ */
+@RefreshScope
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveAccountService {
+	private final static Logger LOGGER = LoggerFactory.getLogger(ReactiveAccountService.class);
+
+	@Autowired
+	private AccountOperations accountOperations;
+
+	@Autowired
+	@Qualifier("storageScheduler")
+	private Scheduler storageScheduler;
+
+	// Blocking steps run on the storage scheduler, off the event loop.
+	private Executor onStorage;
+
+	@PostConstruct
+	public void init() {
+		onStorage = storageScheduler::schedule;
+	}
+
+	/**
+	 * API to create new account.
+	 *
+	 * @param account The account object to be created.
+	 * @return Either success string or error string, once the account is created.
+	 */
+	@PostMapping(path = "/createNewAccount", consumes = "application/json", produces = "application/json")
+	public Mono<String> createNewAccount(@RequestBody Account account) {
+		LOGGER.debug("Entering method: createNewAccount");
+
+		return Mono.fromFuture(accountOperations.createNewAccount(account, onStorage));
+	}
+
+	/**
+	 * API to update account information.
+	 *
+	 * @param account Account object containing the information to be updated.
+	 * @return Success string or error string.
+	 */
+	@PostMapping(path = "/updateAccountInfo", consumes = "application/json", produces = "application/json")
+	public Mono<String> updateAccountInfo(@RequestBody Account account) {
+		LOGGER.debug("Entering method: updateAccountInfo");
+
+		return Mono.fromFuture(accountOperations.updateAccountInfo(account, onStorage));
+	}
+
+	/**
+	 * API for closing the coount.
+	 *
+	 * @param accountNO Account number for the account to be closed.
+	 * @return Success or error string.
+	 */
+	@PostMapping(path = "/closeAccount/{accountNO}", consumes = "application/json", produces = "application/json")
+	public Mono<String> closeAccount(@PathVariable String accountNO) {
+		LOGGER.info("Entering method: closeAccount");
+
+		return Mono.fromFuture(accountOperations.closeAccount(accountNO, onStorage));
+	}
+
+	/**
+	 * API to fetch transaction summary for the provided account number, one page
+	 * at a time.
+	 *
+	 * @param accountNO The account number for the account for which transaction
+	 *                  summary is required.
+	 * @param cursor    Next cursor of the previous page, 0 for the first page.
+	 * @param limit     Maximum number of transactions in the page.
+	 * @return Page of the transactions.
+	 */
+	@GetMapping(path = "/getTransactionSummary/{accountNO}")
+	public Mono<TransactionPage> getTransactionSummary(@PathVariable String accountNO,
+			@RequestParam(defaultValue = "0") long cursor, @RequestParam(defaultValue = "100") int limit) {
+		LOGGER.info("Entering method: getTransactionSummary");
+
+		return Mono.fromFuture(accountOperations.getTransactionSummary(accountNO, cursor, limit, onStorage));
+	}
+}
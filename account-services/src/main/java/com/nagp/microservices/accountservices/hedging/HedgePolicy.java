@@ -0,0 +1,120 @@
+package com.nagp.microservices.accountservices.hedging;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * When to send a second attempt of a call. The hedge delay is a percentile of
+ * the latencies of recent attempts, so that only the slowest calls are hedged.
+ * A budget in the manner of a token bucket bounds the extra load: every call
+ * earns a fraction of a hedge, and a hedge is only sent while a whole one is
+ * available.
+ *
+ * @author vinodgodara
+ *
+ */
+public class HedgePolicy {
+
+	// The delay is recomputed after this many new samples.
+	private static final int RECOMPUTE_EVERY = 64;
+
+	// The budget is kept in hundredths of a hedge, so that whole percents add
+	// up without rounding errors.
+	private static final double HEDGE = 100;
+
+	private final double percentile;
+
+	private final long minDelayNanos;
+
+	private final long initialDelayNanos;
+
+	private final long[] samples;
+
+	private final double budgetPercent;
+
+	private final double maxBudget;
+
+	private int sampleCount;
+
+	private int nextSample;
+
+	private int samplesSinceRecompute;
+
+	private long delayNanos;
+
+	private double budget;
+
+	/**
+	 * @param percentile         Latency percentile after which a call is hedged,
+	 *                           between 0 and 100.
+	 * @param minDelayMillis     Shortest hedge delay.
+	 * @param initialDelayMillis Hedge delay until enough latencies are known.
+	 * @param window             Number of recent latencies the percentile is taken
+	 *                           of.
+	 * @param budgetPercent      Most hedges per 100 calls.
+	 * @param maxBudget          Most hedges that can be saved up for a burst of
+	 *                           slow calls.
+	 */
+	public HedgePolicy(final double percentile, final long minDelayMillis, final long initialDelayMillis,
+			final int window, final double budgetPercent, final double maxBudget) {
+		if (percentile <= 0 || percentile > 100 || window <= 0 || budgetPercent < 0 || maxBudget < 1) {
+			throw new IllegalArgumentException("Invalid hedge policy.");
+		}
+		this.percentile = percentile;
+		this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(minDelayMillis);
+		this.initialDelayNanos = TimeUnit.MILLISECONDS.toNanos(initialDelayMillis);
+		this.samples = new long[window];
+		this.budgetPercent = budgetPercent;
+		this.maxBudget = maxBudget * HEDGE;
+		this.delayNanos = Math.max(minDelayNanos, initialDelayNanos);
+	}
+
+	/**
+	 * Count a call towards the hedge budget.
+	 */
+	public synchronized void onCall() {
+		budget = Math.min(maxBudget, budget + budgetPercent);
+	}
+
+	/**
+	 * Take a hedge from the budget.
+	 *
+	 * @return True if a hedge may be sent.
+	 */
+	public synchronized boolean tryHedge() {
+		if (budget < HEDGE) {
+			return false;
+		}
+		budget -= HEDGE;
+		return true;
+	}
+
+	/**
+	 * Record the latency of a finished attempt.
+	 *
+	 * @param latencyNanos The latency.
+	 */
+	public synchronized void record(final long latencyNanos) {
+		samples[nextSample] = latencyNanos;
+		nextSample = (nextSample + 1) % samples.length;
+		sampleCount = Math.min(sampleCount + 1, samples.length);
+
+		if (++samplesSinceRecompute >= RECOMPUTE_EVERY && sampleCount >= Math.min(samples.length, RECOMPUTE_EVERY)) {
+			samplesSinceRecompute = 0;
+
+			final long[] sorted = Arrays.copyOf(samples, sampleCount);
+			Arrays.sort(sorted);
+			final int index = (int) Math.ceil(percentile / 100 * sampleCount) - 1;
+			delayNanos = Math.max(minDelayNanos, sorted[Math.max(0, index)]);
+		}
+	}
+
+	/**
+	 * How long to wait for the first attempt before sending a hedge.
+	 *
+	 * @return The delay in nanoseconds.
+	 */
+	public synchronized long hedgeDelayNanos() {
+		return delayNanos;
+	}
+}
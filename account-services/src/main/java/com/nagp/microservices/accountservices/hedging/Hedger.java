@@ -0,0 +1,235 @@
+package com.nagp.microservices.accountservices.hedging;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Runs a call against one target and, if it has not answered within the hedge
+ * delay of the {@link HedgePolicy}, against a second target as well. The first
+ * successful answer wins and the other attempt is cancelled: it is not sent if
+ * it is still queued, and its thread is interrupted if it is running. A request
+ * already sent may still be applied, so hedged calls must be safe to apply
+ * twice. Callers that must not let it land after a later call wait for the call
+ * to settle.
+ *
+ * @author vinodgodara
+ *
+ */
+public class Hedger {
+
+	/**
+	 * One attempt of a call. Either its task or a cancellation claims it first,
+	 * so an attempt cancelled while queued is never sent.
+	 */
+	private static final class Attempt {
+
+		private final AtomicBoolean claimed = new AtomicBoolean();
+
+		private volatile Future<?> task;
+	}
+
+	private final HedgePolicy policy;
+
+	private final ExecutorService executor;
+
+	private final long timeoutNanos;
+
+	private final AtomicLong calls = new AtomicLong();
+
+	private final AtomicLong hedges = new AtomicLong();
+
+	private final AtomicLong hedgeWins = new AtomicLong();
+
+	/**
+	 * @param policy        When to hedge.
+	 * @param executor      Runs the attempts.
+	 * @param timeoutMillis Longest wait for an answer.
+	 */
+	public Hedger(final HedgePolicy policy, final ExecutorService executor, final long timeoutMillis) {
+		this.policy = policy;
+		this.executor = executor;
+		this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+	}
+
+	/**
+	 * Call a target, hedging with the next one.
+	 *
+	 * @param <T>     Target type.
+	 * @param <R>     Answer type.
+	 * @param targets Targets to choose from, only hedged if there are two or more.
+	 * @param first   Index of the target of the first attempt.
+	 * @param attempt Makes one attempt against a target.
+	 * @param success Whether an answer is successful. If no attempt succeeds, the
+	 *                last answer is returned.
+	 * @return The first successful answer.
+	 */
+	public <T, R> R call(final List<T> targets, final int first, final Function<T, R> attempt,
+			final Predicate<R> success) {
+		return call(targets, first, attempt, success, new CompletableFuture<>());
+	}
+
+	/**
+	 * Call a target, hedging with the next one.
+	 *
+	 * @param <T>     Target type.
+	 * @param <R>     Answer type.
+	 * @param targets Targets to choose from, only hedged if there are two or more.
+	 * @param first   Index of the target of the first attempt.
+	 * @param attempt Makes one attempt against a target.
+	 * @param success Whether an answer is successful. If no attempt succeeds, the
+	 *                last answer is returned.
+	 * @param settled Completed once every attempt started has finished, the
+	 *                losing one included.
+	 * @return The first successful answer.
+	 */
+	public <T, R> R call(final List<T> targets, final int first, final Function<T, R> attempt,
+			final Predicate<R> success, final CompletableFuture<Void> settled) {
+		final CompletableFuture<R> result = new CompletableFuture<>();
+		final AtomicInteger pending = new AtomicInteger(1);
+		// Attempts still running, plus one held by this thread until no more are
+		// started.
+		final AtomicInteger running = new AtomicInteger(1);
+		final List<Attempt> attempts = new CopyOnWriteArrayList<>();
+		final long start = System.nanoTime();
+
+		calls.incrementAndGet();
+		policy.onCall();
+		try {
+			start(targets.get(first), attempt, success, result, pending, running, settled, attempts, false);
+		} catch (RuntimeException exc) {
+			finish(running, settled);
+			throw exc;
+		}
+
+		try {
+			if (targets.size() > 1) {
+				try {
+					return result.get(policy.hedgeDelayNanos(), TimeUnit.NANOSECONDS);
+				} catch (TimeoutException exc) {
+					if (policy.tryHedge()) {
+						hedges.incrementAndGet();
+						pending.incrementAndGet();
+						final T next = targets.get((first + 1) % targets.size());
+						try {
+							start(next, attempt, success, result, pending, running, settled, attempts, true);
+						} catch (RejectedExecutionException rejected) {
+							// Executor saturated, keep waiting for the first attempt.
+							pending.decrementAndGet();
+						}
+					}
+				}
+			}
+			return result.get(Math.max(0, timeoutNanos - (System.nanoTime() - start)), TimeUnit.NANOSECONDS);
+		} catch (TimeoutException exc) {
+			cancel(attempts, null, running, settled);
+			throw new RuntimeException("Call timed out.");
+		} catch (InterruptedException exc) {
+			cancel(attempts, null, running, settled);
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while waiting for the call.");
+		} catch (ExecutionException exc) {
+			throw exc.getCause() instanceof RuntimeException ? (RuntimeException) exc.getCause()
+					: new RuntimeException("Call failed.", exc.getCause());
+		} finally {
+			finish(running, settled);
+		}
+	}
+
+	/**
+	 * Number of calls, of hedges sent and of hedges that answered first.
+	 *
+	 * @return The counts.
+	 */
+	public long[] counts() {
+		return new long[] { calls.get(), hedges.get(), hedgeWins.get() };
+	}
+
+	private static void finish(final AtomicInteger running, final CompletableFuture<Void> settled) {
+		if (running.decrementAndGet() == 0) {
+			settled.complete(null);
+		}
+	}
+
+	/**
+	 * Cancel every attempt but the winner. One still queued is finished here, as
+	 * its task will not run.
+	 */
+	private static void cancel(final List<Attempt> attempts, final Attempt winner, final AtomicInteger running,
+			final CompletableFuture<Void> settled) {
+		for (final Attempt other : attempts) {
+			if (other == winner) {
+				continue;
+			}
+			if (other.claimed.compareAndSet(false, true)) {
+				finish(running, settled);
+			}
+			// Set before the attempt is added to the list.
+			other.task.cancel(true);
+		}
+	}
+
+	private <T, R> void start(final T target, final Function<T, R> attempt, final Predicate<R> success,
+			final CompletableFuture<R> result, final AtomicInteger pending, final AtomicInteger running,
+			final CompletableFuture<Void> settled, final List<Attempt> attempts, final boolean hedge) {
+		final Attempt self = new Attempt();
+
+		running.incrementAndGet();
+		try {
+			self.task = executor.submit(() -> {
+				if (!self.claimed.compareAndSet(false, true)) {
+					// Cancelled while queued.
+					return;
+				}
+
+				final long start = System.nanoTime();
+				R answer = null;
+				RuntimeException failure = null;
+
+				try {
+					answer = attempt.apply(target);
+					policy.record(System.nanoTime() - start);
+				} catch (RuntimeException exc) {
+					failure = exc;
+				}
+
+				if (failure == null && success.test(answer)) {
+					if (result.complete(answer)) {
+						if (hedge) {
+							hedgeWins.incrementAndGet();
+						}
+						cancel(attempts, self, running, settled);
+					}
+				} else if (pending.decrementAndGet() == 0) {
+					// No attempt succeeded, answer with the last one.
+					if (failure == null) {
+						result.complete(answer);
+					} else {
+						result.completeExceptionally(failure);
+					}
+				}
+				finish(running, settled);
+			});
+			attempts.add(self);
+			if (result.isDone() && !self.claimed.get()) {
+				// Answered before this attempt was listed, so the winner missed it.
+				cancel(Collections.singletonList(self), null, running, settled);
+			}
+		} catch (RejectedExecutionException exc) {
+			finish(running, settled);
+			throw exc;
+		}
+	}
+}
@@ -1,12 +1,14 @@
 package com.nagp.microservices.accountservices.model;
 
-import java.util.List;
-
 import org.springframework.stereotype.Component;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
 import io.jsondb.annotation.Document;
 import io.jsondb.annotation.Id;
 
+// Transactions live in the ledger, ignore any still embedded in the document.
+@JsonIgnoreProperties(ignoreUnknown = true)
 @Document(collection = "accounts", schemaVersion = "1.0")
 @Component
 public class Account {
@@ -24,7 +26,8 @@ public class Account {
 
 	private boolean isChecqueBookIssued;
 
-	private List<Transaction> transactions;
+	// Sequence number of the last operation-services journal record applied.
+	private long lastJournalSequence;
 
 	public String getUserID() {
 		return userID;
@@ -74,12 +77,12 @@ public class Account {
 		this.isChecqueBookIssued = inChecqueBookIssued;
 	}
 
-	public List<Transaction> getTransactions() {
-		return transactions;
+	public long getLastJournalSequence() {
+		return lastJournalSequence;
 	}
 
-	public void setTransactions(List<Transaction> transactions) {
-		this.transactions = transactions;
+	public void setLastJournalSequence(long lastJournalSequence) {
+		this.lastJournalSequence = lastJournalSequence;
 	}
 
 }
@@ -0,0 +1,168 @@
+package com.nagp.microservices.accountservices.outbox;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+
+import com.nagp.microservices.accountservices.cache.AccountCache;
+import com.nagp.microservices.accountservices.model.Account;
+import com.nagp.microservices.accountservices.outbox.UserLinkOutbox.UserLink;
+import com.nagp.microservices.accountservices.proxies.AccountLink;
+import com.nagp.microservices.accountservices.proxies.UserBatchProxy;
+import com.nagp.microservices.accountservices.util.AccountConstants;
+
+/**
+ * Background thread delivering the links of the {@link UserLinkOutbox} to
+ * user-services, a batch per request. A failed link is retried with a growing
+ * backoff, capped at {@code outbox.retry.max-ms}, without holding up the
+ * others. Links are never given up: one still failing after
+ * {@code outbox.alert-after-attempts} is logged as an error and retried until
+ * user-services accepts it. Adding an account to a user twice leaves it listed
+ * once, so a link delivered again after a restart does no harm.
+ *
+ * @author vinodgodara
+ *
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.enabled", havingValue = "true")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class UserLinkDispatcher {
+	private final static Logger LOGGER = LoggerFactory.getLogger(UserLinkDispatcher.class);
+
+	@Autowired
+	private UserLinkOutbox outbox;
+
+	@Autowired
+	private UserBatchProxy userBatchProxy;
+
+	@Autowired
+	private AccountCache accountCache;
+
+	@Value("${outbox.batch-size:100}")
+	private int batchSize;
+
+	@Value("${outbox.alert-after-attempts:20}")
+	private int alertAttempts;
+
+	private volatile boolean running = true;
+
+	private Thread dispatcher;
+
+	@PostConstruct
+	public void start() {
+		dispatcher = new Thread(this::dispatch, "user-link-dispatcher");
+		dispatcher.setDaemon(true);
+		dispatcher.start();
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		running = false;
+		dispatcher.interrupt();
+	}
+
+	private void dispatch() {
+		while (running) {
+			try {
+				final List<UserLink> batch = outbox.nextBatch(batchSize, 1000);
+				final List<UserLink> deliverable = new ArrayList<>(batch.size());
+				final List<UserLink> done = new ArrayList<>(batch.size());
+
+				for (final UserLink link : batch) {
+					if (link.isUnverified()) {
+						verify(link, done);
+					} else {
+						deliverable.add(link);
+					}
+				}
+
+				final List<String> results = deliver(deliverable);
+				for (int i = 0; i < deliverable.size(); i++) {
+					final UserLink link = deliverable.get(i);
+
+					if (AccountConstants.SUCCESS.equals(results.get(i))) {
+						done.add(link);
+					} else {
+						if (link.getAttempts() + 1 == alertAttempts) {
+							LOGGER.error("Account {} could not be added to user {} in {} attempts, retrying: {}",
+									link.getAccountNO(), link.getUserID(), alertAttempts, results.get(i));
+						}
+						outbox.failed(link);
+					}
+				}
+
+				if (!done.isEmpty()) {
+					outbox.delivered(done);
+				}
+			} catch (InterruptedException exc) {
+				return;
+			} catch (RuntimeException exc) {
+				LOGGER.error("User links could not be dispatched.", exc);
+			}
+		}
+	}
+
+	/**
+	 * Deliver a link whose account may not have been created only if it was.
+	 */
+	private void verify(final UserLink link, final List<UserLink> done) {
+		final Account account;
+
+		try {
+			account = accountCache.find(link.getAccountNO());
+		} catch (RuntimeException exc) {
+			LOGGER.warn("Account {} could not be checked.", link.getAccountNO(), exc);
+			outbox.failed(link);
+			return;
+		}
+
+		if (Objects.nonNull(account) && account.isActive() && link.getUserID().equals(account.getUserID())) {
+			outbox.verified(link);
+		} else {
+			done.add(link);
+		}
+	}
+
+	/**
+	 * Send links to user-services in one request.
+	 *
+	 * @return Answer for every link, null where the request failed.
+	 */
+	private List<String> deliver(final List<UserLink> links) {
+		if (links.isEmpty()) {
+			return Collections.emptyList();
+		}
+
+		final List<AccountLink> request = new ArrayList<>(links.size());
+		for (final UserLink link : links) {
+			final AccountLink accountLink = new AccountLink();
+			accountLink.setUserID(link.getUserID());
+			accountLink.setAccountNO(link.getAccountNO());
+			request.add(accountLink);
+		}
+
+		try {
+			final List<String> results = userBatchProxy.updateAccounts(request);
+
+			if (Objects.nonNull(results) && results.size() == links.size()) {
+				return results;
+			}
+			LOGGER.warn("User services answered {} account links with {}.", links.size(), results);
+		} catch (RuntimeException exc) {
+			LOGGER.warn("{} account links could not be delivered.", links.size(), exc);
+		}
+		return Collections.nCopies(links.size(), null);
+	}
+}
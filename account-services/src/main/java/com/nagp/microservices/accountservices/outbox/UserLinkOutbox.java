@@ -0,0 +1,504 @@
+package com.nagp.microservices.accountservices.outbox;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+
+/**
+ * Durable queue of accounts still to be added to the account list of their
+ * user, enabled with {@code outbox.enabled=true}. A link is appended and forced
+ * to disk before the account is created, confirmed once the account store
+ * created it and then delivered to user-services by the
+ * {@link UserLinkDispatcher}, so account creation does not wait for
+ * user-services. Links whose account may not exist, because creating it failed
+ * or the process stopped meanwhile, are checked against the account store
+ * before they are delivered.
+ * <p>
+ * The file is a log of length-prefixed records under
+ * {@code db.files-location}; delivered and dropped links are appended as done
+ * and left out when the file is rewritten. New links are written under the
+ * lock and forced outside of it, so concurrent creations share a flush instead
+ * of queueing behind each other's.
+ *
+ * @author vinodgodara
+ *
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.enabled", havingValue = "true")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class UserLinkOutbox {
+	private static final Logger LOGGER = LoggerFactory.getLogger(UserLinkOutbox.class);
+
+	private static final byte LINK = 'L';
+
+	private static final byte DONE = 'D';
+
+	/**
+	 * A pending link of an account to its user.
+	 */
+	public static final class UserLink {
+
+		private final long id;
+
+		private final String userID;
+
+		private final long accountNO;
+
+		// The account store created the account.
+		private boolean confirmed;
+
+		// Whether the account was created is unknown, e.g. written by a previous run.
+		private boolean unverified;
+
+		private boolean inFlight;
+
+		private int attempts;
+
+		private long nextAttemptMillis;
+
+		private UserLink(final long id, final String userID, final long accountNO, final boolean unverified) {
+			this.id = id;
+			this.userID = userID;
+			this.accountNO = accountNO;
+			this.unverified = unverified;
+		}
+
+		public long getId() {
+			return id;
+		}
+
+		public String getUserID() {
+			return userID;
+		}
+
+		public long getAccountNO() {
+			return accountNO;
+		}
+
+		public boolean isUnverified() {
+			return unverified;
+		}
+
+		public int getAttempts() {
+			return attempts;
+		}
+	}
+
+	private final Path file;
+
+	// Pending links in the order they were added.
+	private final Map<Long, UserLink> pending = new LinkedHashMap<>();
+
+	// Pending links by account number, an account has at most one.
+	private final Map<Long, UserLink> byAccount = new HashMap<>();
+
+	private final long retryInitialMillis;
+
+	private final long retryMaxMillis;
+
+	private final int compactAfter;
+
+	private FileChannel channel;
+
+	private long nextId;
+
+	// Done records in the file since it was last rewritten.
+	private int doneRecords;
+
+	// Incremented whenever the file is rewritten, which forces every pending link.
+	private long rewrites;
+
+	public UserLinkOutbox(@Value("${outbox.retry.initial-ms:500}") final long retryInitialMillis,
+			@Value("${outbox.retry.max-ms:60000}") final long retryMaxMillis,
+			@Value("${outbox.compact-after:10000}") final int compactAfter,
+			@Value("${db.files-location:C:\\}") final String dbFilesLocation) throws IOException {
+		this.file = Paths.get(dbFilesLocation, "outbox", "user-links.log");
+		this.retryInitialMillis = retryInitialMillis;
+		this.retryMaxMillis = retryMaxMillis;
+		this.compactAfter = compactAfter;
+
+		Files.createDirectories(file.getParent());
+		if (Files.exists(file)) {
+			replay();
+		}
+		rewrite();
+
+		if (!pending.isEmpty()) {
+			LOGGER.info("Recovered {} pending user links.", pending.size());
+		}
+	}
+
+	/**
+	 * Record a link before the account is created. Returns once it is on disk.
+	 *
+	 * @param userID    User ID.
+	 * @param accountNO Account number.
+	 * @return ID of the link, to confirm or verify it.
+	 */
+	public long add(final String userID, final long accountNO) {
+		final UserLink link;
+		final FileChannel written;
+		final long rewritten;
+
+		synchronized (this) {
+			link = new UserLink(++nextId, userID, accountNO, false);
+
+			try {
+				append(encode(LINK, link.id, userID, accountNO));
+			} catch (IOException exc) {
+				LOGGER.error("User link could not be recorded.", exc);
+				throw new RuntimeException("Account could not be created.", exc);
+			}
+			// Not delivered before it is confirmed, which follows this call.
+			put(link);
+			written = channel;
+			rewritten = rewrites;
+		}
+
+		try {
+			written.force(false);
+		} catch (ClosedChannelException exc) {
+			// A rewrite replaced the file in between, forcing the link with it.
+			synchronized (this) {
+				if (rewrites == rewritten) {
+					forgetUnforced(link, exc);
+				}
+			}
+		} catch (IOException exc) {
+			synchronized (this) {
+				forgetUnforced(link, exc);
+			}
+		}
+		return link.id;
+	}
+
+	/**
+	 * The account was created, the link can be delivered.
+	 *
+	 * @param id ID of the link.
+	 */
+	public synchronized void confirm(final long id) {
+		final UserLink link = pending.get(id);
+
+		if (Objects.nonNull(link)) {
+			link.confirmed = true;
+			notifyAll();
+		}
+	}
+
+	/**
+	 * Creating the account failed, possibly without telling whether it was
+	 * created. The link is delivered only if the account store has the account.
+	 *
+	 * @param id ID of the link.
+	 */
+	public synchronized void verifyLater(final long id) {
+		final UserLink link = pending.get(id);
+
+		if (Objects.nonNull(link)) {
+			link.unverified = true;
+			notifyAll();
+		}
+	}
+
+	/**
+	 * Whether the link of an account being closed was not delivered yet. A
+	 * delivery in progress is waited for. The link stays pending until
+	 * {@link #dropPending(long)}.
+	 *
+	 * @param accountNO Account number.
+	 * @return True if a link is pending, user-services did not hear of the
+	 *         account yet.
+	 */
+	public synchronized boolean isPending(final long accountNO) {
+		return Objects.nonNull(awaitPending(accountNO));
+	}
+
+	/**
+	 * Drop the link of a closed account if it was not delivered yet, so that it
+	 * cannot reach user-services after the account is closed. A delivery in
+	 * progress is waited for.
+	 *
+	 * @param accountNO Account number.
+	 * @return True if a link was dropped, user-services never heard of the
+	 *         account.
+	 */
+	public synchronized boolean dropPending(final long accountNO) {
+		final UserLink link = awaitPending(accountNO);
+
+		if (Objects.isNull(link)) {
+			return false;
+		}
+		done(Collections.singletonList(link));
+		return true;
+	}
+
+	/**
+	 * Wait for links that are due and mark them in flight.
+	 *
+	 * @param maxLinks      Most links to return.
+	 * @param maxWaitMillis Longest wait when none is due.
+	 * @return Due links in the order they were added, empty if none became due.
+	 * @throws InterruptedException If interrupted while waiting.
+	 */
+	public synchronized List<UserLink> nextBatch(final int maxLinks, final long maxWaitMillis)
+			throws InterruptedException {
+		final List<UserLink> batch = new ArrayList<>();
+		final long deadline = System.currentTimeMillis() + maxWaitMillis;
+
+		while (true) {
+			final long now = System.currentTimeMillis();
+			long nextDue = deadline;
+
+			for (final UserLink link : pending.values()) {
+				if (link.inFlight || (!link.confirmed && !link.unverified)) {
+					continue;
+				}
+				if (link.nextAttemptMillis > now) {
+					nextDue = Math.min(nextDue, link.nextAttemptMillis);
+					continue;
+				}
+
+				link.inFlight = true;
+				batch.add(link);
+				if (batch.size() == maxLinks) {
+					break;
+				}
+			}
+
+			if (!batch.isEmpty() || now >= deadline) {
+				return batch;
+			}
+			wait(Math.max(1, nextDue - now));
+		}
+	}
+
+	/**
+	 * Links delivered to user-services, or given up.
+	 *
+	 * @param links Links from {@link #nextBatch(int, long)}.
+	 */
+	public synchronized void delivered(final List<UserLink> links) {
+		done(links);
+	}
+
+	/**
+	 * Delivery failed, try again after a backoff that doubles with every attempt.
+	 *
+	 * @param link Link from {@link #nextBatch(int, long)}.
+	 */
+	public synchronized void failed(final UserLink link) {
+		link.inFlight = false;
+		link.attempts++;
+
+		final long backoff = retryInitialMillis << Math.min(link.attempts - 1, 30);
+		link.nextAttemptMillis = System.currentTimeMillis() + Math.min(backoff, retryMaxMillis);
+		notifyAll();
+	}
+
+	/**
+	 * An unverified link whose account exists, deliver it like any other.
+	 *
+	 * @param link Link from {@link #nextBatch(int, long)}.
+	 */
+	public synchronized void verified(final UserLink link) {
+		link.inFlight = false;
+		link.unverified = false;
+		link.confirmed = true;
+		notifyAll();
+	}
+
+	public synchronized int size() {
+		return pending.size();
+	}
+
+	@PreDestroy
+	public synchronized void shutdown() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * Mark links done in one append. Losing these records only means delivering
+	 * again, which user-services tolerates, so they are not forced.
+	 */
+	private void done(final List<UserLink> links) {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		try {
+			for (final UserLink link : links) {
+				bytes.write(encode(DONE, link.id, "", link.accountNO));
+			}
+			append(bytes.toByteArray());
+		} catch (IOException exc) {
+			LOGGER.warn("Delivered user links could not be recorded, they will be delivered again.", exc);
+		}
+
+		for (final UserLink link : links) {
+			remove(link);
+		}
+		doneRecords += links.size();
+		notifyAll();
+
+		if (doneRecords >= compactAfter) {
+			try {
+				rewrite();
+			} catch (IOException exc) {
+				LOGGER.error("User link outbox could not be rewritten.", exc);
+			}
+		}
+	}
+
+	private UserLink awaitPending(final long accountNO) {
+		UserLink link = byAccount.get(accountNO);
+
+		try {
+			while (Objects.nonNull(link) && link.inFlight) {
+				wait();
+				link = byAccount.get(accountNO);
+			}
+		} catch (InterruptedException exc) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Account could not be closed.", exc);
+		}
+		return link;
+	}
+
+	/**
+	 * The record of a link may not be on disk, the account must not be created.
+	 * Should it still be read after a restart, it is unverified and delivered only
+	 * if the account exists.
+	 */
+	private void forgetUnforced(final UserLink link, final IOException exc) {
+		remove(link);
+		LOGGER.error("User link could not be recorded.", exc);
+		throw new RuntimeException("Account could not be created.", exc);
+	}
+
+	private void put(final UserLink link) {
+		pending.put(link.id, link);
+		byAccount.put(link.accountNO, link);
+	}
+
+	private void remove(final UserLink link) {
+		pending.remove(link.id);
+		byAccount.remove(link.accountNO, link);
+	}
+
+	private void append(final byte[] records) throws IOException {
+		final ByteBuffer buffer = ByteBuffer.wrap(records);
+		final long position = channel.size();
+
+		try {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		} catch (IOException exc) {
+			// Drop a partially written record so that the next append starts on a record
+			// boundary.
+			channel.truncate(position);
+			throw exc;
+		}
+	}
+
+	/**
+	 * Read the links of a previous run. A partially written record at the end of
+	 * the file (crash during append) is ignored.
+	 */
+	private void replay() throws IOException {
+		final ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(file));
+
+		while (content.remaining() >= Integer.BYTES) {
+			final int length = content.getInt();
+
+			if (length > content.remaining()) {
+				break;
+			}
+
+			final DataInputStream input = new DataInputStream(
+					new ByteArrayInputStream(content.array(), content.position(), length));
+			final byte type = input.readByte();
+			final long id = input.readLong();
+			final String userID = input.readUTF();
+			final long accountNO = input.readLong();
+			content.position(content.position() + length);
+
+			nextId = Math.max(nextId, id);
+			if (type == LINK) {
+				put(new UserLink(id, userID, accountNO, true));
+			} else if (pending.containsKey(id)) {
+				remove(pending.get(id));
+			}
+		}
+	}
+
+	/**
+	 * Replace the file with one holding only the pending links.
+	 */
+	private void rewrite() throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		for (final UserLink link : pending.values()) {
+			bytes.write(encode(LINK, link.id, link.userID, link.accountNO));
+		}
+
+		final Path next = file.resolveSibling(file.getFileName() + ".next");
+		try (FileChannel output = FileChannel.open(next, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			final ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+
+			while (buffer.hasRemaining()) {
+				output.write(buffer);
+			}
+			output.force(false);
+		}
+
+		if (Objects.nonNull(channel)) {
+			channel.close();
+		}
+		Files.move(next, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+		doneRecords = 0;
+		rewrites++;
+	}
+
+	private static byte[] encode(final byte type, final long id, final String userID, final long accountNO)
+			throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+		final DataOutputStream output = new DataOutputStream(bytes);
+		output.writeInt(0);
+		output.writeByte(type);
+		output.writeLong(id);
+		output.writeUTF(userID);
+		output.writeLong(accountNO);
+
+		final ByteBuffer record = ByteBuffer.wrap(bytes.toByteArray());
+		record.putInt(0, record.remaining() - Integer.BYTES);
+		return record.array();
+	}
+}
@@ -0,0 +1,48 @@
+package com.nagp.microservices.accountservices.proxies;
+
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import com.nagp.microservices.accountservices.model.Account;
+import com.nagp.microservices.accountservices.model.AccountChanges;
+import com.nagp.microservices.accountservices.model.TransactionPage;
+
+/**
+ * Client of the account store of operation-services. Calls go straight to an
+ * operation-services instance from Eureka, load balanced by Ribbon over pooled
+ * connections. The gateways do not route the account store, it is only for
+ * the other services.
+ * 
+ * @author vinodgodara
+ *
+ */
+@Component
+@FeignClient(name = "${account-store.client.service:operation-services}", path = "${account-store.client.path:}", contextId = "accountStoreProxy")
+public interface AccountStoreProxy {
+
+	@GetMapping(path = "/accountStore/getAccount/{accountNO}", produces = "application/json")
+	public Account getAccount(@PathVariable String accountNO);
+
+	@PostMapping(path = "/accountStore/createAccount", consumes = "application/json", produces = "application/json")
+	public String createAccount(@RequestBody Account account);
+
+	@PostMapping(path = "/accountStore/updateAccount", consumes = "application/json", produces = "application/json")
+	public String updateAccount(@RequestBody Account account);
+
+	@PostMapping(path = "/accountStore/closeAccount/{accountNO}", consumes = "application/json", produces = "application/json")
+	public String closeAccount(@PathVariable String accountNO);
+
+	@GetMapping(path = "/accountStore/transactions/{accountNO}", produces = "application/json")
+	public TransactionPage transactions(@PathVariable String accountNO, @RequestParam("cursor") long cursor,
+			@RequestParam("limit") int limit);
+
+	@GetMapping(path = "/accountStore/changes", produces = "application/json")
+	public AccountChanges changes(@RequestParam("epoch") String epoch, @RequestParam("after") long after,
+			@RequestParam("timeoutMillis") long timeoutMillis);
+
+}
@@ -0,0 +1,47 @@
+package com.nagp.microservices.accountservices.proxies;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@link UserAccountLinks} of the servlet build, calling the
+ * {@link UserServiceProxy} (Feign, hedged, batched or RPC) on the calling
+ * thread. The returned future is already complete.
+ *
+ * @author vinodgodara
+ *
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class BlockingUserAccountLinks implements UserAccountLinks {
+
+	@Autowired
+	private UserServiceProxy userService;
+
+	@Override
+	public CompletableFuture<String> addAccount(final String userID, final String accountNo) {
+		try {
+			return CompletableFuture.completedFuture(userService.addAccount(userID, accountNo));
+		} catch (RuntimeException exc) {
+			return failed(exc);
+		}
+	}
+
+	@Override
+	public CompletableFuture<String> removeAccount(final String userID, final String accountNo) {
+		try {
+			return CompletableFuture.completedFuture(userService.removeAccount(userID, accountNo));
+		} catch (RuntimeException exc) {
+			return failed(exc);
+		}
+	}
+
+	private static CompletableFuture<String> failed(final RuntimeException exc) {
+		final CompletableFuture<String> failed = new CompletableFuture<>();
+		failed.completeExceptionally(exc);
+		return failed;
+	}
+}
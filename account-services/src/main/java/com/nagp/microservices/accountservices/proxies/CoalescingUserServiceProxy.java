@@ -0,0 +1,208 @@
+package com.nagp.microservices.accountservices.proxies;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@link UserServiceProxy} sending concurrent calls to user-services together,
+ * used instead of the Feign client with
+ * {@code user-services.batching.enabled=true}. The first call of a batch waits
+ * at most {@code user-services.batching.window-ms} for others to join, and
+ * calls arriving while a batch is sent form the next one. user-services saves
+ * every user of a batch once, however many of its accounts changed. Batches
+ * are sent one at a time, so changes of a user are applied in the order they
+ * were made. A call that times out while still queued is dropped and never
+ * sent; once its batch is on its way, the caller waits for the answer of
+ * user-services instead. Hedging and the RPC channel take precedence when
+ * enabled.
+ *
+ * @author vinodgodara
+ *
+ */
+@Primary
+@Component
+@ConditionalOnExpression("${user-services.batching.enabled:false} and !${hedging.enabled:false} and !${user-services.rpc.enabled:false}")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class CoalescingUserServiceProxy implements UserServiceProxy {
+	private static final Logger LOGGER = LoggerFactory.getLogger(CoalescingUserServiceProxy.class);
+
+	/**
+	 * A call waiting to be sent.
+	 */
+	private static final class PendingCall {
+
+		private final AccountLink link;
+
+		private final CompletableFuture<String> result = new CompletableFuture<>();
+
+		// Set by whichever comes first: the sender taking the call into a batch or
+		// the caller giving up on it.
+		private final AtomicBoolean taken = new AtomicBoolean();
+
+		private PendingCall(final AccountLink link) {
+			this.link = link;
+		}
+	}
+
+	@Autowired
+	private UserBatchProxy userBatchProxy;
+
+	@Value("${user-services.batching.window-ms:2}")
+	private long windowMillis;
+
+	@Value("${user-services.batching.max-size:500}")
+	private int maxBatchSize;
+
+	@Value("${user-services.timeout-ms:5000}")
+	private int timeoutMillis;
+
+	private final BlockingQueue<PendingCall> queue = new LinkedBlockingQueue<>();
+
+	private volatile boolean running = true;
+
+	private Thread sender;
+
+	@PostConstruct
+	public void start() {
+		sender = new Thread(this::send, "user-services-batcher");
+		sender.setDaemon(true);
+		sender.start();
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		running = false;
+		sender.interrupt();
+	}
+
+	@Override
+	public String addAccount(final String userID, final String accountNo) {
+		return call(userID, accountNo, false);
+	}
+
+	@Override
+	public String removeAccount(final String userID, final String accountNo) {
+		return call(userID, accountNo, true);
+	}
+
+	private String call(final String userID, final String accountNo, final boolean unlink) {
+		final AccountLink link = new AccountLink();
+		link.setUserID(userID);
+		link.setAccountNO(Long.parseLong(accountNo));
+		link.setUnlink(unlink);
+
+		final PendingCall call = new PendingCall(link);
+		queue.add(call);
+
+		try {
+			try {
+				return call.result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+			} catch (TimeoutException exc) {
+				if (call.taken.compareAndSet(false, true)) {
+					// Still queued, the sender skips it.
+					queue.remove(call);
+					throw new RuntimeException("User service did not answer.");
+				}
+				// Already sent, the answer tells whether the link was applied. The batch
+				// call is bounded by the read timeout of the Feign client.
+				return call.result.get();
+			}
+		} catch (InterruptedException exc) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while waiting for user service.");
+		} catch (ExecutionException exc) {
+			throw (RuntimeException) exc.getCause();
+		}
+	}
+
+	/**
+	 * Collect calls into batches and send them until shut down.
+	 */
+	private void send() {
+		final List<PendingCall> batch = new ArrayList<>(maxBatchSize);
+
+		while (running) {
+			try {
+				take(batch, queue.take());
+
+				// Give concurrent calls the window to join the batch.
+				final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(windowMillis);
+				while (batch.size() < maxBatchSize) {
+					final long remaining = deadline - System.nanoTime();
+					final PendingCall next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS)
+							: queue.poll();
+
+					if (Objects.isNull(next)) {
+						break;
+					}
+					take(batch, next);
+				}
+
+				if (!batch.isEmpty()) {
+					sendBatch(batch);
+				}
+			} catch (InterruptedException exc) {
+				break;
+			} finally {
+				batch.clear();
+			}
+		}
+
+		final RuntimeException stopped = new RuntimeException("User service client stopped.");
+		for (PendingCall call = queue.poll(); Objects.nonNull(call); call = queue.poll()) {
+			call.result.completeExceptionally(stopped);
+		}
+	}
+
+	/**
+	 * Add a call to the batch unless its caller already gave up on it.
+	 */
+	private static void take(final List<PendingCall> batch, final PendingCall call) {
+		if (call.taken.compareAndSet(false, true)) {
+			batch.add(call);
+		}
+	}
+
+	private void sendBatch(final List<PendingCall> batch) {
+		final List<AccountLink> links = new ArrayList<>(batch.size());
+		for (final PendingCall call : batch) {
+			links.add(call.link);
+		}
+
+		try {
+			final List<String> results = userBatchProxy.updateAccounts(links);
+
+			if (Objects.isNull(results) || results.size() != batch.size()) {
+				throw new RuntimeException("User account list could not be updated.");
+			}
+			for (int i = 0; i < batch.size(); i++) {
+				batch.get(i).result.complete(results.get(i));
+			}
+		} catch (RuntimeException exc) {
+			LOGGER.warn("Batch of {} account links failed.", batch.size(), exc);
+			for (final PendingCall call : batch) {
+				call.result.completeExceptionally(exc);
+			}
+		}
+	}
+}
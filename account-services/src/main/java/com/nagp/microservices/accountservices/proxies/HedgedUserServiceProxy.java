@@ -0,0 +1,137 @@
+package com.nagp.microservices.accountservices.proxies;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import com.nagp.microservices.accountservices.hedging.Hedger;
+import com.nagp.microservices.accountservices.util.AccountConstants;
+
+/**
+ * {@link UserServiceProxy} hedging its calls, used instead of the Feign client
+ * with {@code hedging.enabled=true}. Calls go straight to user-services
+ * instances found in Eureka, taken in turn; a call that is slower than the
+ * hedge delay is sent to the next instance as well. Adding an account to a user
+ * and removing it are safe to apply twice, but not in another order: a call
+ * for an account waits until every attempt of the previous call for it has
+ * finished, so the losing attempt of an add cannot land after the remove.
+ *
+ * @author vinodgodara
+ *
+ */
+@Primary
+@Component
+@ConditionalOnProperty(name = "hedging.enabled", havingValue = "true")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class HedgedUserServiceProxy implements UserServiceProxy {
+
+	private static final String USER_SERVICES = "user-services";
+
+	@Autowired
+	private DiscoveryClient discoveryClient;
+
+	@Autowired
+	private Hedger userServiceHedger;
+
+	@Value("${hedging.timeout-ms:5000}")
+	private int timeoutMillis;
+
+	private final AtomicInteger nextInstance = new AtomicInteger();
+
+	// Completed once all attempts of the last call for an account have finished.
+	private final ConcurrentMap<String, CompletableFuture<Void>> lastCalls = new ConcurrentHashMap<>();
+
+	private RestTemplate restTemplate;
+
+	@PostConstruct
+	public void init() {
+		final SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+		requestFactory.setConnectTimeout(timeoutMillis);
+		requestFactory.setReadTimeout(timeoutMillis);
+		restTemplate = new RestTemplate(requestFactory);
+	}
+
+	@Override
+	public String addAccount(final String userID, final String accountNo) {
+		return call("/addAccount/{userID}/{accountNo}", userID, accountNo);
+	}
+
+	@Override
+	public String removeAccount(final String userID, final String accountNo) {
+		return call("/removeAccount/{userID}/{accountNo}", userID, accountNo);
+	}
+
+	private String call(final String path, final String userID, final String accountNo) {
+		final CompletableFuture<Void> settled = new CompletableFuture<>();
+		final CompletableFuture<Void> previous = lastCalls.put(accountNo, settled);
+		settled.whenComplete((unused, exc) -> lastCalls.remove(accountNo, settled));
+
+		final List<ServiceInstance> instances;
+		try {
+			awaitSettled(previous);
+
+			instances = discoveryClient.getInstances(USER_SERVICES);
+			if (instances.isEmpty()) {
+				throw new RuntimeException("No user-services instance available.");
+			}
+		} catch (RuntimeException exc) {
+			// Nothing was sent, the next call only has to wait for the previous one.
+			if (Objects.isNull(previous)) {
+				settled.complete(null);
+			} else {
+				previous.whenComplete((unused, failure) -> settled.complete(null));
+			}
+			throw exc;
+		}
+
+		final HttpHeaders headers = new HttpHeaders();
+		headers.setContentType(MediaType.APPLICATION_JSON);
+		final HttpEntity<Void> request = new HttpEntity<>(headers);
+
+		return userServiceHedger.call(instances, Math.floorMod(nextInstance.getAndIncrement(), instances.size()),
+				instance -> restTemplate.postForObject(instance.getUri() + path, request, String.class, userID,
+						accountNo),
+				AccountConstants.SUCCESS::equals, settled);
+	}
+
+	private void awaitSettled(final CompletableFuture<Void> previous) {
+		if (Objects.isNull(previous)) {
+			return;
+		}
+
+		try {
+			// Its attempts give up after the connect and the read timeout.
+			previous.get(2L * timeoutMillis, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException exc) {
+			throw new RuntimeException("An earlier call for the account is still running.");
+		} catch (InterruptedException exc) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while waiting for an earlier call.");
+		} catch (ExecutionException exc) {
+			// Calls settle normally, whatever their answer.
+			throw new RuntimeException("Earlier call failed.", exc.getCause());
+		}
+	}
+}
@@ -0,0 +1,129 @@
+package com.nagp.microservices.accountservices.proxies;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import com.nagp.microservices.accountservices.rpc.RpcChannel;
+import com.nagp.microservices.common.rpc.RpcProtocol;
+
+/**
+ * {@link UserServiceProxy} using the binary RPC channel of user-services, used
+ * instead of the Feign client with {@code user-services.rpc.enabled=true}.
+ * Instances publishing an RPC port in Eureka are taken in turn, with one
+ * connection each shared by all calls. Connections are opened outside of the
+ * channel map, so a slow connect does not hold up calls to other instances.
+ * Hedging takes precedence when both are enabled.
+ *
+ * @author vinodgodara
+ *
+ */
+@Primary
+@Component
+@ConditionalOnExpression("${user-services.rpc.enabled:false} and !${hedging.enabled:false}")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class RpcUserServiceProxy implements UserServiceProxy {
+
+	private static final String USER_SERVICES = "user-services";
+
+	@Autowired
+	private DiscoveryClient discoveryClient;
+
+	@Value("${user-services.timeout-ms:5000}")
+	private int timeoutMillis;
+
+	private final ConcurrentMap<String, RpcChannel> channels = new ConcurrentHashMap<>();
+
+	private final AtomicInteger nextInstance = new AtomicInteger();
+
+	@Override
+	public String addAccount(final String userID, final String accountNo) {
+		return call(RpcProtocol.ADD_ACCOUNT, userID, accountNo);
+	}
+
+	@Override
+	public String removeAccount(final String userID, final String accountNo) {
+		return call(RpcProtocol.REMOVE_ACCOUNT, userID, accountNo);
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		channels.values().forEach(RpcChannel::close);
+	}
+
+	private String call(final byte method, final String userID, final String accountNo) {
+		final List<ServiceInstance> instances = discoveryClient.getInstances(USER_SERVICES).stream()
+				.filter(instance -> Objects.nonNull(instance.getMetadata().get(RpcProtocol.RPC_PORT)))
+				.collect(Collectors.toList());
+
+		if (instances.isEmpty()) {
+			throw new RuntimeException("No user-services instance serves RPC.");
+		}
+
+		final ServiceInstance instance = instances
+				.get(Math.floorMod(nextInstance.getAndIncrement(), instances.size()));
+
+		final CompletableFuture<String> answer = channel(instance).call(method, userID, Long.parseLong(accountNo));
+
+		try {
+			return answer.get(timeoutMillis, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException exc) {
+			// Stop waiting for the answer, the channel forgets the call.
+			answer.cancel(false);
+			throw new RuntimeException("User service did not answer.");
+		} catch (InterruptedException exc) {
+			answer.cancel(false);
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while waiting for user service.");
+		} catch (ExecutionException exc) {
+			throw (RuntimeException) exc.getCause();
+		}
+	}
+
+	/**
+	 * Open connection to an instance, connecting if there is none.
+	 */
+	RpcChannel channel(final ServiceInstance instance) {
+		final String address = instance.getHost() + ":" + instance.getMetadata().get(RpcProtocol.RPC_PORT);
+		final RpcChannel current = channels.get(address);
+
+		if (Objects.nonNull(current) && current.isOpen()) {
+			return current;
+		}
+
+		final RpcChannel connected;
+		try {
+			connected = new RpcChannel(instance.getHost(),
+					Integer.parseInt(instance.getMetadata().get(RpcProtocol.RPC_PORT)), timeoutMillis);
+		} catch (IOException exc) {
+			throw new RuntimeException("User service could not be reached.", exc);
+		}
+
+		// Callers that connected at the same time keep the first open channel.
+		final RpcChannel installed = channels.merge(address, connected,
+				(existing, added) -> existing.isOpen() ? existing : added);
+		if (installed != connected) {
+			connected.close();
+		}
+		return installed;
+	}
+}
@@ -0,0 +1,34 @@
+package com.nagp.microservices.accountservices.proxies;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Updates of the account lists of users in user-services, as used by the
+ * account logic of both builds: {@link BlockingUserAccountLinks} over the
+ * {@link UserServiceProxy} in the servlet build, {@link UserServiceClient}
+ * over a non-blocking WebClient in the reactive build.
+ *
+ * @author vinodgodara
+ *
+ */
+public interface UserAccountLinks {
+
+	/**
+	 * Add an account to the accounts of a user.
+	 *
+	 * @param userID    User ID.
+	 * @param accountNo Account number.
+	 * @return Success or error message of user-services.
+	 */
+	CompletableFuture<String> addAccount(String userID, String accountNo);
+
+	/**
+	 * Remove an account from the accounts of a user.
+	 *
+	 * @param userID    User ID.
+	 * @param accountNo Account number.
+	 * @return Success or error message of user-services.
+	 */
+	CompletableFuture<String> removeAccount(String userID, String accountNo);
+
+}
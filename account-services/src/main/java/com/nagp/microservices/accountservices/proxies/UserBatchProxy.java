@@ -0,0 +1,25 @@
+package com.nagp.microservices.accountservices.proxies;
+
+import java.util.List;
+
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+
+/**
+ * Client of the batch API of user-services, adding accounts to users and
+ * removing them in one request. Reaches user-services like
+ * {@link UserServiceProxy}.
+ * 
+ * @author vinodgodara
+ *
+ */
+@Component
+@FeignClient(name = "${user-services.client.service:user-services}", path = "${user-services.client.path:}", contextId = "userBatchProxy")
+public interface UserBatchProxy {
+
+	@PostMapping(path = "/updateAccounts", consumes = "application/json", produces = "application/json")
+	public List<String> updateAccounts(@RequestBody List<AccountLink> links);
+
+}
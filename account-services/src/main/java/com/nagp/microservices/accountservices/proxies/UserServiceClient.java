@@ -0,0 +1,60 @@
+package com.nagp.microservices.accountservices.proxies;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+
+/**
+ * {@link UserAccountLinks} of the reactive build. Calls go where the Feign
+ * proxy's go, without holding a thread while user-services answers.
+ *
+ * @author vinodgodara
+ *
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class UserServiceClient implements UserAccountLinks {
+
+	@Autowired
+	private WebClient.Builder webClientBuilder;
+
+	@Value("${user-services.client.service:user-services}")
+	private String service;
+
+	@Value("${user-services.client.path:}")
+	private String path;
+
+	@Value("${user-services.timeout-ms:5000}")
+	private long timeoutMillis;
+
+	private WebClient webClient;
+
+	@PostConstruct
+	public void init() {
+		webClient = webClientBuilder.baseUrl("http://" + service + path).build();
+	}
+
+	@Override
+	public CompletableFuture<String> addAccount(final String userID, final String accountNo) {
+		return post("/addAccount/{userID}/{accountNo}", userID, accountNo);
+	}
+
+	@Override
+	public CompletableFuture<String> removeAccount(final String userID, final String accountNo) {
+		return post("/removeAccount/{userID}/{accountNo}", userID, accountNo);
+	}
+
+	private CompletableFuture<String> post(final String endpoint, final String userID, final String accountNo) {
+		return webClient.post().uri(endpoint, userID, accountNo).contentType(MediaType.APPLICATION_JSON)
+				.accept(MediaType.APPLICATION_JSON).retrieve().bodyToMono(String.class)
+				.timeout(Duration.ofMillis(timeoutMillis)).toFuture();
+	}
+}
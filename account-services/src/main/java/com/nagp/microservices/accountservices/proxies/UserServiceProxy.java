@@ -5,14 +5,23 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 
+/**
+ * Client of user-services. Calls go straight to a user-services instance from
+ * Eureka, load balanced by Ribbon over pooled connections. To go through the
+ * gateway instead, set {@code user-services.client.service=zuul-api-gateway}
+ * and {@code user-services.client.path=/user-services}.
+ * 
+ * @author vinodgodara
+ *
+ */
 @Component
-@FeignClient(name = "zuul-api-gateway")
+@FeignClient(name = "${user-services.client.service:user-services}", path = "${user-services.client.path:}", contextId = "userServiceProxy")
 public interface UserServiceProxy {
 
-	@PostMapping(path = "/user-services/addAccount/{userID}/{accountNo}", consumes = "application/json", produces = "application/json")
+	@PostMapping(path = "/addAccount/{userID}/{accountNo}", consumes = "application/json", produces = "application/json")
 	public String addAccount(@PathVariable String userID, @PathVariable String accountNo);
 
-	@PostMapping(path = "/user-services/removeAccount/{userID}/{accountNo}", consumes = "application/json", produces = "application/json")
+	@PostMapping(path = "/removeAccount/{userID}/{accountNo}", consumes = "application/json", produces = "application/json")
 	public String removeAccount(@PathVariable String userID, @PathVariable String accountNo);
 
 }
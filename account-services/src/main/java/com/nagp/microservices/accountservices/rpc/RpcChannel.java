@@ -0,0 +1,163 @@
+package com.nagp.microservices.accountservices.rpc;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.nagp.microservices.common.rpc.FrameWriter;
+import com.nagp.microservices.common.rpc.RpcProtocol;
+
+/**
+ * One connection to the RPC channel of a user-services instance, shared by all
+ * callers. Requests are sent without waiting for earlier answers; a reader
+ * thread matches each answer to its request by ID. A call completed by its
+ * caller, e.g. cancelled after a timeout, stops waiting for its answer.
+ *
+ * @author vinodgodara
+ *
+ */
+public class RpcChannel implements Closeable {
+	private static final Logger LOGGER = LoggerFactory.getLogger(RpcChannel.class);
+
+	private final Socket socket;
+
+	private final FrameWriter writer;
+
+	private final Map<Long, CompletableFuture<String>> pending = new ConcurrentHashMap<>();
+
+	private final AtomicLong nextId = new AtomicLong();
+
+	private volatile boolean open = true;
+
+	/**
+	 * Connect to an instance.
+	 *
+	 * @param host                 Host of the instance.
+	 * @param port                 RPC port of the instance.
+	 * @param connectTimeoutMillis Longest wait for the connection.
+	 * @throws IOException If the instance could not be reached.
+	 */
+	public RpcChannel(final String host, final int port, final int connectTimeoutMillis) throws IOException {
+		socket = new Socket();
+		socket.setTcpNoDelay(true);
+		socket.connect(new InetSocketAddress(host, port), connectTimeoutMillis);
+
+		writer = new FrameWriter(socket.getOutputStream(), this::close);
+		final Thread writerThread = new Thread(writer, "rpc-writer-" + host + ":" + port);
+		writerThread.setDaemon(true);
+		writerThread.start();
+
+		final DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+		final Thread reader = new Thread(() -> read(input), "rpc-reader-" + host + ":" + port);
+		reader.setDaemon(true);
+		reader.start();
+	}
+
+	/**
+	 * Send a request.
+	 *
+	 * @param method    {@link RpcProtocol#ADD_ACCOUNT} or
+	 *                  {@link RpcProtocol#REMOVE_ACCOUNT}.
+	 * @param userID    User ID.
+	 * @param accountNo Account number.
+	 * @return The answer of user-services, failed with its message if the call
+	 *         failed.
+	 */
+	public CompletableFuture<String> call(final byte method, final String userID, final long accountNo) {
+		final long id = nextId.incrementAndGet();
+		final CompletableFuture<String> answer = new CompletableFuture<>();
+		pending.put(id, answer);
+		answer.whenComplete((message, exc) -> pending.remove(id, answer));
+
+		// Closed meanwhile, the reader may already have failed the pending calls.
+		if (!open) {
+			pending.remove(id);
+			answer.completeExceptionally(new RuntimeException("RPC connection closed."));
+			return answer;
+		}
+
+		try {
+			writer.write(RpcProtocol.request(id, method, userID, accountNo));
+		} catch (IOException exc) {
+			pending.remove(id);
+			answer.completeExceptionally(new RuntimeException("Invalid user ID.", exc));
+		}
+		return answer;
+	}
+
+	public boolean isOpen() {
+		return open;
+	}
+
+	/**
+	 * Number of calls waiting for their answer.
+	 *
+	 * @return Calls in flight.
+	 */
+	public int pendingCalls() {
+		return pending.size();
+	}
+
+	@Override
+	public synchronized void close() {
+		if (!open) {
+			return;
+		}
+		open = false;
+		writer.close();
+
+		try {
+			socket.close();
+		} catch (IOException exc) {
+			// Already closed.
+		}
+
+		for (final Long id : pending.keySet()) {
+			final CompletableFuture<String> answer = pending.remove(id);
+
+			if (answer != null) {
+				answer.completeExceptionally(new RuntimeException("RPC connection closed."));
+			}
+		}
+	}
+
+	/**
+	 * Complete calls with their answers until the connection is closed.
+	 */
+	private void read(final DataInputStream input) {
+		try {
+			for (DataInputStream frame = RpcProtocol.readFrame(input); frame != null; frame = RpcProtocol
+					.readFrame(input)) {
+				final long id = frame.readLong();
+				final byte status = frame.readByte();
+				final String message = frame.readUTF();
+				final CompletableFuture<String> answer = pending.remove(id);
+
+				if (answer == null) {
+					continue;
+				}
+				if (status == RpcProtocol.OK) {
+					answer.complete(message);
+				} else {
+					answer.completeExceptionally(new RuntimeException(message));
+				}
+			}
+		} catch (IOException exc) {
+			if (open) {
+				LOGGER.warn("RPC connection could not be read.", exc);
+			}
+		} finally {
+			close();
+		}
+	}
+}
@@ -10,5 +10,11 @@ public class AccountConstants {
 
 	public static final String SUCCESS = "Success";
 
+	// Success message of the operation-services account store.
+	public static final String ACCOUNT_STORE_SUCCESS = "Success.";
+
+	// Most transactions in a page of the ledger, as read by operation-services.
+	public static final int MAX_PAGE_SIZE = 1000;
+
 	public static final String ERROR = "Some internal error occurred. Please try again later after some time.";
 }
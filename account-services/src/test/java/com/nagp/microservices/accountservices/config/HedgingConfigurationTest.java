@@ -0,0 +1,67 @@
+package com.nagp.microservices.accountservices.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+
+import com.nagp.microservices.accountservices.hedging.Hedger;
+import com.nagp.microservices.accountservices.proxies.HedgedUserServiceProxy;
+
+class HedgingConfigurationTest {
+
+	private final WebApplicationContextRunner contextRunner = new WebApplicationContextRunner()
+			.withUserConfiguration(HedgingConfiguration.class, HedgedUserServiceProxy.class)
+			.withBean(DiscoveryClient.class, NoInstances::new);
+
+	@Test
+	void hedgesWhenEnabled() {
+		contextRunner.withPropertyValues("hedging.enabled=true").run(context -> {
+			assertThat(context).hasSingleBean(Hedger.class);
+			assertThat(context).hasSingleBean(HedgedUserServiceProxy.class);
+		});
+	}
+
+	@Test
+	void goesStraightThroughWhenDisabled() {
+		// The Feign client is the only user-services proxy left.
+		contextRunner.withPropertyValues("hedging.enabled=false").run(context -> {
+			assertThat(context).doesNotHaveBean(Hedger.class);
+			assertThat(context).doesNotHaveBean(HedgedUserServiceProxy.class);
+		});
+	}
+
+	@Test
+	void isDisabledByDefault() {
+		contextRunner.run(context -> {
+			assertThat(context).doesNotHaveBean(Hedger.class);
+			assertThat(context).doesNotHaveBean(HedgedUserServiceProxy.class);
+		});
+	}
+
+	/**
+	 * Eureka knowing no instances, the proxy is only created.
+	 */
+	private static final class NoInstances implements DiscoveryClient {
+
+		@Override
+		public String description() {
+			return "test";
+		}
+
+		@Override
+		public List<ServiceInstance> getInstances(final String serviceId) {
+			return Collections.emptyList();
+		}
+
+		@Override
+		public List<String> getServices() {
+			return Collections.emptyList();
+		}
+	}
+}
@@ -0,0 +1,108 @@
+package com.nagp.microservices.accountservices.config;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.nagp.microservices.common.config.VirtualThreadConfiguration;
+
+/**
+ * Latency of requests blocking on a slow downstream call under many concurrent
+ * clients, handled on a fixed pool standing in for the Tomcat request threads
+ * (200 by default) against a virtual thread per request. Each request sleeps
+ * for the downstream latency, as a request does while waiting for user-services
+ * or operation-services. Virtual threads need Java 21, on older runtimes only
+ * the pool is measured. Run with
+ * {@code java -cp target/classes:target/test-classes ...VirtualThreadBenchmark [clients] [seconds] [request threads] [downstream ms]}.
+ *
+ * @author vinodgodara
+ *
+ */
+public class VirtualThreadBenchmark {
+
+	private static final int MAX_SAMPLES_PER_CLIENT = 4096;
+
+	public static void main(final String[] args) throws InterruptedException {
+		final int clients = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+		final long seconds = args.length > 1 ? Long.parseLong(args[1]) : 5;
+		final int requestThreads = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+		final long downstreamMillis = args.length > 3 ? Long.parseLong(args[3]) : 20;
+
+		System.out.printf("Java %s, %d CPUs, %,d clients, %d request threads, %d ms downstream%n",
+				System.getProperty("java.version"), Runtime.getRuntime().availableProcessors(), clients,
+				requestThreads, downstreamMillis);
+		System.out.printf("%-10s %12s %10s %10s %10s%n", "mode", "ops/s", "p50 ms", "p99 ms", "max ms");
+		for (int round = 0; round < 2; round++) {
+			run("pool", Executors.newFixedThreadPool(requestThreads), clients, seconds, downstreamMillis);
+
+			final ExecutorService virtualThreads = VirtualThreadConfiguration.newVirtualThreadExecutor();
+			if (Objects.nonNull(virtualThreads)) {
+				run("virtual", virtualThreads, clients, seconds, downstreamMillis);
+			}
+		}
+	}
+
+	private static void run(final String mode, final ExecutorService requestExecutor, final int clients,
+			final long seconds, final long downstreamMillis) throws InterruptedException {
+		final long[][] samples = new long[clients][MAX_SAMPLES_PER_CLIENT];
+		final int[] sampleCounts = new int[clients];
+		final long[] operations = new long[clients];
+		final CountDownLatch done = new CountDownLatch(clients);
+		final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+
+		for (int i = 0; i < clients; i++) {
+			final int client = i;
+
+			final Thread thread = new Thread(() -> {
+				while (System.nanoTime() < deadline) {
+					final long start = System.nanoTime();
+					final CompletableFuture<String> response = new CompletableFuture<>();
+
+					requestExecutor.execute(() -> {
+						try {
+							// Waiting for the downstream service.
+							Thread.sleep(downstreamMillis);
+							response.complete("Success");
+						} catch (InterruptedException exc) {
+							response.completeExceptionally(exc);
+						}
+					});
+					response.join();
+
+					samples[client][sampleCounts[client]++ % MAX_SAMPLES_PER_CLIENT] = System.nanoTime() - start;
+					operations[client]++;
+				}
+				done.countDown();
+			}, "client-" + i);
+			thread.setDaemon(true);
+			thread.start();
+		}
+
+		done.await();
+		requestExecutor.shutdown();
+
+		long total = 0;
+		int sampleTotal = 0;
+		for (int i = 0; i < clients; i++) {
+			total += operations[i];
+			sampleTotal += Math.min(sampleCounts[i], MAX_SAMPLES_PER_CLIENT);
+		}
+
+		final long[] latencies = new long[sampleTotal];
+		int next = 0;
+		for (int i = 0; i < clients; i++) {
+			final int count = Math.min(sampleCounts[i], MAX_SAMPLES_PER_CLIENT);
+			System.arraycopy(samples[i], 0, latencies, next, count);
+			next += count;
+		}
+		Arrays.sort(latencies);
+
+		System.out.printf("%-10s %,12.0f %10.2f %10.2f %10.2f%n", mode, total / (double) seconds,
+				latencies[latencies.length / 2] / 1e6, latencies[(int) (latencies.length * 0.99)] / 1e6,
+				latencies[latencies.length - 1] / 1e6);
+	}
+}
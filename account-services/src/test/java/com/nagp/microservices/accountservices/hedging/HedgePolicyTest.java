@@ -0,0 +1,76 @@
+package com.nagp.microservices.accountservices.hedging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class HedgePolicyTest {
+
+	@Test
+	void usesTheInitialDelayUntilEnoughLatenciesAreKnown() {
+		final HedgePolicy policy = new HedgePolicy(90, 1, 100, 100, 10, 5);
+
+		for (int i = 1; i < 64; i++) {
+			policy.record(TimeUnit.MILLISECONDS.toNanos(i));
+		}
+		assertEquals(TimeUnit.MILLISECONDS.toNanos(100), policy.hedgeDelayNanos());
+	}
+
+	@Test
+	void hedgesAfterThePercentileOfRecentLatencies() {
+		final HedgePolicy policy = new HedgePolicy(90, 1, 100, 100, 10, 5);
+
+		for (int i = 1; i <= 64; i++) {
+			policy.record(TimeUnit.MILLISECONDS.toNanos(i));
+		}
+		// The 58th of 64 latencies.
+		assertEquals(TimeUnit.MILLISECONDS.toNanos(58), policy.hedgeDelayNanos());
+	}
+
+	@Test
+	void neverHedgesSoonerThanTheMinimumDelay() {
+		final HedgePolicy policy = new HedgePolicy(90, 20, 100, 100, 10, 5);
+
+		for (int i = 0; i < 64; i++) {
+			policy.record(TimeUnit.MILLISECONDS.toNanos(1));
+		}
+		assertEquals(TimeUnit.MILLISECONDS.toNanos(20), policy.hedgeDelayNanos());
+	}
+
+	@Test
+	void earnsAHedgeEveryTenCallsAtTenPercent() {
+		final HedgePolicy policy = new HedgePolicy(90, 1, 100, 100, 10, 5);
+
+		for (int i = 0; i < 9; i++) {
+			policy.onCall();
+		}
+		assertFalse(policy.tryHedge());
+		policy.onCall();
+		assertTrue(policy.tryHedge());
+		assertFalse(policy.tryHedge());
+	}
+
+	@Test
+	void savesUpNoMoreThanTheMaximumBudget() {
+		final HedgePolicy policy = new HedgePolicy(90, 1, 100, 100, 100, 2);
+
+		for (int i = 0; i < 10; i++) {
+			policy.onCall();
+		}
+		assertTrue(policy.tryHedge());
+		assertTrue(policy.tryHedge());
+		assertFalse(policy.tryHedge());
+	}
+
+	@Test
+	void refusesAnInvalidPolicy() {
+		assertThrows(IllegalArgumentException.class, () -> new HedgePolicy(0, 1, 100, 100, 10, 5));
+		assertThrows(IllegalArgumentException.class, () -> new HedgePolicy(90, 1, 100, 0, 10, 5));
+		assertThrows(IllegalArgumentException.class, () -> new HedgePolicy(90, 1, 100, 100, -1, 5));
+	}
+}
@@ -0,0 +1,194 @@
+package com.nagp.microservices.accountservices.hedging;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class HedgerTest {
+
+	private static final List<String> TARGETS = Arrays.asList("a", "b");
+
+	private final List<String> attempted = new CopyOnWriteArrayList<>();
+
+	private ExecutorService executor = Executors.newCachedThreadPool();
+
+	@AfterEach
+	void stop() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void hedgesWithTheNextTargetAfterTheDelay() {
+		final Hedger hedger = hedger(100, 1000);
+		final CountDownLatch release = new CountDownLatch(1);
+
+		final long start = System.nanoTime();
+		assertEquals("b", hedger.call(TARGETS, 0, target -> {
+			attempted.add(target);
+			if (target.equals("a")) {
+				await(release);
+			}
+			return target;
+		}, answer -> true));
+		final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		release.countDown();
+
+		assertEquals(Arrays.asList("a", "b"), attempted);
+		assertTrue(elapsedMillis >= 50, "hedged after " + elapsedMillis + " ms");
+		assertArrayEquals(new long[] { 1, 1, 1 }, hedger.counts());
+	}
+
+	@Test
+	void sendsNoHedgeWhenTheFirstTargetAnswersInTime() {
+		final Hedger hedger = hedger(100, 1000);
+
+		assertEquals("a", hedger.call(TARGETS, 0, target -> {
+			attempted.add(target);
+			return target;
+		}, answer -> true));
+
+		assertEquals(Arrays.asList("a"), attempted);
+		assertArrayEquals(new long[] { 1, 0, 0 }, hedger.counts());
+	}
+
+	@Test
+	void interruptsTheLosingAttempt() throws Exception {
+		final Hedger hedger = hedger(100, 1000);
+		final CountDownLatch interrupted = new CountDownLatch(1);
+		final CompletableFuture<Void> settled = new CompletableFuture<>();
+
+		assertEquals("b", hedger.call(TARGETS, 0, target -> {
+			if (target.equals("a")) {
+				try {
+					Thread.sleep(10_000);
+				} catch (InterruptedException exc) {
+					interrupted.countDown();
+				}
+			}
+			return target;
+		}, answer -> true, settled));
+
+		assertTrue(interrupted.await(1, TimeUnit.SECONDS), "the losing attempt kept running");
+		settled.get(1, TimeUnit.SECONDS);
+	}
+
+	@Test
+	void neverSendsTheLosingAttemptStillQueued() throws Exception {
+		// One thread, so the hedge waits behind the slow first attempt.
+		executor.shutdownNow();
+		executor = Executors.newSingleThreadExecutor();
+		final Hedger hedger = hedger(100, 1000);
+		final CompletableFuture<Void> settled = new CompletableFuture<>();
+
+		assertEquals("a", hedger.call(TARGETS, 0, target -> {
+			attempted.add(target);
+			sleep(300);
+			return target;
+		}, answer -> true, settled));
+		settled.get(1, TimeUnit.SECONDS);
+
+		assertEquals(Arrays.asList("a"), attempted);
+		assertArrayEquals(new long[] { 1, 1, 0 }, hedger.counts());
+	}
+
+	@Test
+	void settlesOnlyOnceTheLosingAttemptHasFinished() throws Exception {
+		final Hedger hedger = hedger(100, 1000);
+		final CountDownLatch finished = new CountDownLatch(1);
+		final CompletableFuture<Void> settled = new CompletableFuture<>();
+
+		assertEquals("b", hedger.call(TARGETS, 0, target -> {
+			if (target.equals("a")) {
+				// An attempt already sent ignores the interrupt.
+				final long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(400);
+				while (System.nanoTime() < end) {
+					Thread.yield();
+				}
+				finished.countDown();
+			}
+			return target;
+		}, answer -> true, settled));
+
+		assertFalse(settled.isDone());
+		settled.get(1, TimeUnit.SECONDS);
+		assertEquals(0, finished.getCount());
+	}
+
+	@Test
+	void answersWithTheLastFailureIfNoAttemptSucceeds() {
+		final Hedger hedger = hedger(100, 1000);
+
+		// The hedge fails first, the first attempt answers last.
+		assertEquals("a", hedger.call(TARGETS, 0, target -> {
+			if (target.equals("a")) {
+				sleep(200);
+			}
+			return target;
+		}, answer -> false));
+	}
+
+	@Test
+	void goesStraightToOneTargetWithoutABudget() {
+		final Hedger hedger = new Hedger(new HedgePolicy(95, 1, 10, 100, 0, 1), executor, 1000);
+
+		assertEquals("a", hedger.call(TARGETS, 0, target -> {
+			attempted.add(target);
+			sleep(100);
+			return target;
+		}, answer -> true));
+
+		assertEquals(Arrays.asList("a"), attempted);
+		assertArrayEquals(new long[] { 1, 0, 0 }, hedger.counts());
+	}
+
+	@Test
+	void givesUpAfterTheTimeout() throws Exception {
+		final Hedger hedger = new Hedger(new HedgePolicy(95, 1, 10, 100, 100, 1), executor, 200);
+		final CompletableFuture<Void> settled = new CompletableFuture<>();
+
+		final RuntimeException exc = assertThrows(RuntimeException.class, () -> hedger.call(TARGETS, 0, target -> {
+			sleep(10_000);
+			return target;
+		}, answer -> true, settled));
+		assertEquals("Call timed out.", exc.getMessage());
+		// Both attempts are interrupted.
+		settled.get(1, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * A hedger whose first call may hedge, with a fixed delay.
+	 */
+	private Hedger hedger(final long delayMillis, final long timeoutMillis) {
+		return new Hedger(new HedgePolicy(95, delayMillis, delayMillis, 100, 100, 1), executor, timeoutMillis);
+	}
+
+	private static void sleep(final long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException exc) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void await(final CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException exc) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
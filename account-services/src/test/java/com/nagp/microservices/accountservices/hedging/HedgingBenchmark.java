@@ -0,0 +1,102 @@
+package com.nagp.microservices.accountservices.hedging;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of calls to simulated user-services instances with and without
+ * hedging. Instances usually answer in a few milliseconds, but now and then an
+ * instance stalls (garbage collection, a slow disk), which makes up the tail.
+ * Run with
+ * {@code java -cp target/classes:target/test-classes ...HedgingBenchmark [clients] [seconds]}.
+ *
+ * @author vinodgodara
+ *
+ */
+public class HedgingBenchmark {
+
+	private static final List<Integer> INSTANCES = Arrays.asList(0, 1, 2, 3);
+
+	private static final int MAX_SAMPLES_PER_CLIENT = 8192;
+
+	public static void main(final String[] args) throws InterruptedException {
+		final int clients = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+		final long seconds = args.length > 1 ? Long.parseLong(args[1]) : 5;
+
+		System.out.printf("%d clients, %d instances%n", clients, INSTANCES.size());
+		System.out.printf("%-10s %10s %10s %10s %10s %10s%n", "mode", "calls/s", "p50 ms", "p99 ms", "p99.9 ms",
+				"hedged %");
+		for (int round = 0; round < 2; round++) {
+			run("plain", 0, clients, seconds);
+			run("hedged", 10, clients, seconds);
+		}
+	}
+
+	private static void run(final String mode, final double budgetPercent, final int clients, final long seconds)
+			throws InterruptedException {
+		final ExecutorService executor = Executors.newFixedThreadPool(clients * 2);
+		final Hedger hedger = new Hedger(new HedgePolicy(95, 1, 20, 1000, budgetPercent, 20), executor, 5000);
+		final long[][] samples = new long[clients][MAX_SAMPLES_PER_CLIENT];
+		final int[] sampleCounts = new int[clients];
+		final CountDownLatch done = new CountDownLatch(clients);
+		final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+
+		for (int i = 0; i < clients; i++) {
+			final int client = i;
+
+			final Thread thread = new Thread(() -> {
+				int next = client;
+
+				while (System.nanoTime() < deadline) {
+					final long start = System.nanoTime();
+					hedger.call(INSTANCES, next++ % INSTANCES.size(), HedgingBenchmark::answer, "Success"::equals);
+					samples[client][sampleCounts[client]++ % MAX_SAMPLES_PER_CLIENT] = System.nanoTime() - start;
+				}
+				done.countDown();
+			}, "client-" + i);
+			thread.setDaemon(true);
+			thread.start();
+		}
+
+		done.await();
+		executor.shutdown();
+
+		int sampleTotal = 0;
+		for (int i = 0; i < clients; i++) {
+			sampleTotal += Math.min(sampleCounts[i], MAX_SAMPLES_PER_CLIENT);
+		}
+
+		final long[] latencies = new long[sampleTotal];
+		int next = 0;
+		for (int i = 0; i < clients; i++) {
+			final int count = Math.min(sampleCounts[i], MAX_SAMPLES_PER_CLIENT);
+			System.arraycopy(samples[i], 0, latencies, next, count);
+			next += count;
+		}
+		Arrays.sort(latencies);
+
+		final long[] counts = hedger.counts();
+		System.out.printf("%-10s %,10.0f %10.2f %10.2f %10.2f %10.1f%n", mode, counts[0] / (double) seconds,
+				latencies[latencies.length / 2] / 1e6, latencies[(int) (latencies.length * 0.99)] / 1e6,
+				latencies[(int) (latencies.length * 0.999)] / 1e6, 100.0 * counts[1] / counts[0]);
+	}
+
+	/**
+	 * One call to a simulated instance: 2-5 ms, and 100 ms in 2% of the calls.
+	 */
+	private static String answer(final int instance) {
+		final ThreadLocalRandom random = ThreadLocalRandom.current();
+
+		try {
+			Thread.sleep(random.nextInt(100) < 2 ? 100 : 2 + random.nextInt(4));
+		} catch (InterruptedException exc) {
+			Thread.currentThread().interrupt();
+		}
+		return "Success";
+	}
+}
@@ -0,0 +1,143 @@
+package com.nagp.microservices.accountservices.outbox;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.nagp.microservices.accountservices.cache.AccountCache;
+import com.nagp.microservices.accountservices.model.Account;
+import com.nagp.microservices.accountservices.proxies.AccountLink;
+import com.nagp.microservices.accountservices.proxies.AccountStoreProxy;
+import com.nagp.microservices.accountservices.proxies.UserBatchProxy;
+import com.nagp.microservices.accountservices.util.AccountConstants;
+
+class UserLinkDispatcherTest {
+
+	@TempDir
+	Path directory;
+
+	// Accounts of the account store, by number.
+	private final Map<Long, Account> accounts = new ConcurrentHashMap<>();
+
+	private final List<AccountLink> delivered = new CopyOnWriteArrayList<>();
+
+	// Requests to user-services still to fail.
+	private final AtomicInteger failures = new AtomicInteger();
+
+	private UserLinkOutbox outbox;
+
+	private UserLinkDispatcher dispatcher;
+
+	@BeforeEach
+	void open() throws IOException {
+		outbox = new UserLinkOutbox(1, 5, 10_000, directory.toString());
+	}
+
+	@AfterEach
+	void close() throws IOException {
+		if (dispatcher != null) {
+			dispatcher.shutdown();
+		}
+		outbox.shutdown();
+	}
+
+	@Test
+	void deliversConfirmedLinks() throws InterruptedException {
+		start();
+		outbox.confirm(outbox.add("user1", 1));
+		outbox.confirm(outbox.add("user2", 2));
+
+		awaitEmpty();
+		assertEquals(2, delivered.size());
+		assertEquals("user1", delivered.get(0).getUserID());
+		assertEquals(2, delivered.get(1).getAccountNO());
+	}
+
+	@Test
+	void keepsRetryingPastTheAlertThreshold() throws InterruptedException {
+		failures.set(10);
+		start();
+		outbox.confirm(outbox.add("user", 1));
+
+		awaitEmpty();
+		assertEquals(1, delivered.size());
+		assertEquals(1, delivered.get(0).getAccountNO());
+	}
+
+	@Test
+	void deliversAnUnverifiedLinkOnlyIfTheAccountExists() throws Exception {
+		outbox.add("user", 1);
+		outbox.add("user", 2);
+		outbox.add("user", 3);
+		accounts.put(1L, account(1, "user", true));
+		accounts.put(2L, account(2, "user", false));
+
+		// Links of a previous run are unverified.
+		outbox.shutdown();
+		outbox = new UserLinkOutbox(1, 5, 10_000, directory.toString());
+		start();
+
+		awaitEmpty();
+		assertEquals(1, delivered.size());
+		assertEquals(1, delivered.get(0).getAccountNO());
+	}
+
+	private void start() {
+		final AccountStoreProxy accountStore = (AccountStoreProxy) Proxy.newProxyInstance(
+				getClass().getClassLoader(), new Class<?>[] { AccountStoreProxy.class }, (proxy, method, args) -> {
+					if (method.getName().equals("getAccount")) {
+						return accounts.get(Long.parseLong((String) args[0]));
+					}
+					throw new UnsupportedOperationException(method.getName());
+				});
+
+		dispatcher = new UserLinkDispatcher();
+		ReflectionTestUtils.setField(dispatcher, "outbox", outbox);
+		ReflectionTestUtils.setField(dispatcher, "accountCache", new AccountCache(accountStore, 500));
+		ReflectionTestUtils.setField(dispatcher, "userBatchProxy", (UserBatchProxy) links -> {
+			if (failures.getAndDecrement() > 0) {
+				throw new RuntimeException("user-services is down");
+			}
+			delivered.addAll(links);
+			final List<String> results = new ArrayList<>();
+			for (int i = 0; i < links.size(); i++) {
+				results.add(AccountConstants.SUCCESS);
+			}
+			return results;
+		});
+		ReflectionTestUtils.setField(dispatcher, "batchSize", 100);
+		ReflectionTestUtils.setField(dispatcher, "alertAttempts", 3);
+		dispatcher.start();
+	}
+
+	private void awaitEmpty() throws InterruptedException {
+		final long deadline = System.currentTimeMillis() + 5000;
+		while (outbox.size() > 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(5);
+		}
+		assertEquals(0, outbox.size());
+	}
+
+	private static Account account(final long accountNO, final String userID, final boolean active) {
+		final Account account = new Account();
+		account.setAccountNO(accountNO);
+		account.setUserID(userID);
+		account.setActive(active);
+		return account;
+	}
+}
@@ -0,0 +1,154 @@
+package com.nagp.microservices.accountservices.outbox;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.nagp.microservices.accountservices.outbox.UserLinkOutbox.UserLink;
+
+class UserLinkOutboxTest {
+
+	@TempDir
+	Path directory;
+
+	private UserLinkOutbox outbox;
+
+	@BeforeEach
+	void open() throws IOException {
+		outbox = reopen();
+	}
+
+	@AfterEach
+	void close() throws IOException {
+		outbox.shutdown();
+	}
+
+	@Test
+	void writesUnderTheDatabaseFilesLocation() {
+		outbox.add("user", 1);
+
+		assertTrue(Files.exists(directory.resolve("outbox").resolve("user-links.log")));
+	}
+
+	@Test
+	void deliversOnlyConfirmedLinks() throws InterruptedException {
+		final long id = outbox.add("user", 1);
+		assertTrue(outbox.nextBatch(10, 10).isEmpty());
+
+		outbox.confirm(id);
+		final List<UserLink> batch = outbox.nextBatch(10, 10);
+		assertEquals(1, batch.size());
+		assertEquals(1, batch.get(0).getAccountNO());
+		assertFalse(batch.get(0).isUnverified());
+	}
+
+	@Test
+	void recoversUndeliveredLinksAsUnverified() throws Exception {
+		outbox.confirm(outbox.add("user", 1));
+		final long delivered = outbox.add("user", 2);
+		outbox.confirm(delivered);
+		outbox.delivered(outbox.nextBatch(10, 10).subList(1, 2));
+
+		outbox.shutdown();
+		outbox = reopen();
+
+		assertEquals(1, outbox.size());
+		final List<UserLink> batch = outbox.nextBatch(10, 10);
+		assertEquals(1, batch.get(0).getAccountNO());
+		assertTrue(batch.get(0).isUnverified());
+		assertTrue(outbox.add("user", 3) > delivered);
+	}
+
+	@Test
+	void retriesAFailedLinkAfterTheBackoff() throws InterruptedException {
+		outbox.confirm(outbox.add("user", 1));
+		final UserLink link = outbox.nextBatch(10, 10).get(0);
+
+		outbox.failed(link);
+		assertEquals(1, link.getAttempts());
+		assertTrue(outbox.nextBatch(10, 0).isEmpty());
+		assertEquals(1, outbox.nextBatch(10, 1000).size());
+	}
+
+	@Test
+	void dropsThePendingLinkOfAClosedAccount() throws Exception {
+		outbox.add("user", 1);
+		outbox.add("user", 2);
+
+		assertTrue(outbox.isPending(1));
+		assertTrue(outbox.dropPending(1));
+		assertFalse(outbox.isPending(1));
+		assertFalse(outbox.dropPending(1));
+		assertTrue(outbox.isPending(2));
+
+		outbox.shutdown();
+		outbox = reopen();
+		assertFalse(outbox.isPending(1));
+		assertTrue(outbox.isPending(2));
+	}
+
+	@Test
+	void keepsEveryLinkAddedConcurrently() throws Exception {
+		final ExecutorService creators = Executors.newFixedThreadPool(8);
+		final List<Future<Long>> ids = new ArrayList<>();
+
+		try {
+			for (int i = 1; i <= 200; i++) {
+				final long accountNO = i;
+				ids.add(creators.submit(() -> outbox.add("user" + accountNO, accountNO)));
+			}
+			final Set<Long> distinct = new HashSet<>();
+			for (final Future<Long> id : ids) {
+				distinct.add(id.get());
+			}
+			assertEquals(200, distinct.size());
+		} finally {
+			creators.shutdownNow();
+		}
+
+		outbox.shutdown();
+		outbox = reopen();
+		assertEquals(200, outbox.size());
+		for (long accountNO = 1; accountNO <= 200; accountNO++) {
+			assertTrue(outbox.isPending(accountNO));
+		}
+	}
+
+	@Test
+	void rewritesTheFileWithoutLosingPendingLinks() throws Exception {
+		outbox.shutdown();
+		outbox = new UserLinkOutbox(1, 5, 2, directory.toString());
+
+		outbox.confirm(outbox.add("user", 1));
+		outbox.confirm(outbox.add("user", 2));
+		outbox.add("user", 3);
+		outbox.delivered(outbox.nextBatch(10, 10));
+		outbox.add("user", 4);
+
+		outbox.shutdown();
+		outbox = reopen();
+		assertEquals(2, outbox.size());
+		assertTrue(outbox.isPending(3));
+		assertTrue(outbox.isPending(4));
+	}
+
+	private UserLinkOutbox reopen() throws IOException {
+		return new UserLinkOutbox(20, 50, 10_000, directory.toString());
+	}
+}
@@ -0,0 +1,180 @@
+package com.nagp.microservices.accountservices.proxies;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class CoalescingUserServiceProxyTest {
+
+	private final List<List<AccountLink>> batches = new CopyOnWriteArrayList<>();
+
+	// A thread per caller, so that all of them wait at once.
+	private final ExecutorService callers = Executors.newCachedThreadPool();
+
+	private CoalescingUserServiceProxy proxy;
+
+	@AfterEach
+	void stop() {
+		callers.shutdownNow();
+		if (proxy != null) {
+			proxy.shutdown();
+		}
+	}
+
+	@Test
+	void answersEveryCallerWithTheResultOfItsOwnLink() throws Exception {
+		start(links -> {
+			final List<String> results = new ArrayList<>();
+			for (final AccountLink link : links) {
+				results.add((link.isUnlink() ? "removed " : "added ") + link.getUserID() + '/' + link.getAccountNO());
+			}
+			return results;
+		}, 50, 500);
+
+		final CountDownLatch ready = new CountDownLatch(1);
+		final List<CompletableFuture<String>> answers = new ArrayList<>();
+		for (int i = 1; i <= 20; i++) {
+			final int accountNO = i;
+			answers.add(CompletableFuture.supplyAsync(() -> {
+				await(ready);
+				return accountNO % 2 == 0 ? proxy.addAccount("user" + accountNO, String.valueOf(accountNO))
+						: proxy.removeAccount("user" + accountNO, String.valueOf(accountNO));
+			}, callers));
+		}
+		ready.countDown();
+
+		for (int i = 1; i <= 20; i++) {
+			assertEquals((i % 2 == 0 ? "added " : "removed ") + "user" + i + '/' + i, answers.get(i - 1).get());
+		}
+		assertTrue(batches.size() < 20, "calls were not batched");
+	}
+
+	@Test
+	void splitsBatchesAtTheMaximumSize() throws Exception {
+		start(links -> Collections.nCopies(links.size(), "Success"), 50, 3);
+
+		final List<CompletableFuture<String>> answers = new ArrayList<>();
+		for (int i = 1; i <= 7; i++) {
+			final String accountNO = String.valueOf(i);
+			answers.add(CompletableFuture.supplyAsync(() -> proxy.addAccount("user", accountNO), callers));
+		}
+		for (final CompletableFuture<String> answer : answers) {
+			assertEquals("Success", answer.get());
+		}
+		for (final List<AccountLink> batch : batches) {
+			assertTrue(batch.size() <= 3);
+		}
+	}
+
+	@Test
+	void failsEveryCallerOfABatchAnsweredWithTheWrongNumberOfResults() {
+		start(links -> Collections.singletonList("Success"), 50, 500);
+
+		final CountDownLatch ready = new CountDownLatch(1);
+		final List<CompletableFuture<String>> answers = new ArrayList<>();
+		for (int i = 1; i <= 2; i++) {
+			final String accountNO = String.valueOf(i);
+			answers.add(CompletableFuture.supplyAsync(() -> {
+				await(ready);
+				return proxy.addAccount("user", accountNO);
+			}, callers));
+		}
+		ready.countDown();
+
+		for (final CompletableFuture<String> answer : answers) {
+			final ExecutionException exc = assertThrows(ExecutionException.class, answer::get);
+			assertEquals("User account list could not be updated.", exc.getCause().getMessage());
+		}
+	}
+
+	@Test
+	void failsEveryCallerOfAFailedBatch() {
+		start(links -> {
+			throw new RuntimeException("user-services is down");
+		}, 0, 500);
+
+		final RuntimeException exc = assertThrows(RuntimeException.class, () -> proxy.removeAccount("user", "1"));
+		assertEquals("user-services is down", exc.getMessage());
+	}
+
+	@Test
+	void dropsACallThatTimedOutInTheQueue() throws Exception {
+		final CountDownLatch release = new CountDownLatch(1);
+		start(links -> {
+			await(release);
+			return Collections.nCopies(links.size(), "Success");
+		}, 0, 500);
+		ReflectionTestUtils.setField(proxy, "timeoutMillis", 50);
+
+		// The first call holds the sender, the second one waits in the queue.
+		final CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> proxy.addAccount("user", "1"),
+				callers);
+		while (batches.isEmpty()) {
+			Thread.sleep(1);
+		}
+		final RuntimeException exc = assertThrows(RuntimeException.class, () -> proxy.addAccount("user", "2"));
+		assertEquals("User service did not answer.", exc.getMessage());
+
+		release.countDown();
+		assertEquals("Success", first.get());
+		assertEquals("Success", proxy.addAccount("user", "3"));
+
+		for (final List<AccountLink> batch : batches) {
+			for (final AccountLink link : batch) {
+				assertTrue(link.getAccountNO() != 2, "the abandoned call was sent");
+			}
+		}
+	}
+
+	@Test
+	void waitsForTheAnswerOfABatchAlreadySent() {
+		start(links -> {
+			try {
+				Thread.sleep(300);
+			} catch (InterruptedException exc) {
+				Thread.currentThread().interrupt();
+			}
+			return Collections.nCopies(links.size(), "Success");
+		}, 0, 500);
+		ReflectionTestUtils.setField(proxy, "timeoutMillis", 50);
+
+		// user-services applies the link, so the caller must not hear otherwise.
+		assertEquals("Success", proxy.addAccount("user", "1"));
+	}
+
+	private void start(final Function<List<AccountLink>, List<String>> userServices, final long windowMillis,
+			final int maxBatchSize) {
+		proxy = new CoalescingUserServiceProxy();
+		ReflectionTestUtils.setField(proxy, "userBatchProxy", (UserBatchProxy) links -> {
+			batches.add(new ArrayList<>(links));
+			return userServices.apply(links);
+		});
+		ReflectionTestUtils.setField(proxy, "windowMillis", windowMillis);
+		ReflectionTestUtils.setField(proxy, "maxBatchSize", maxBatchSize);
+		ReflectionTestUtils.setField(proxy, "timeoutMillis", 5000);
+		proxy.start();
+	}
+
+	private static void await(final CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException exc) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
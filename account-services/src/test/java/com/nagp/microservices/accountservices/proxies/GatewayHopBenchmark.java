@@ -0,0 +1,177 @@
+package com.nagp.microservices.accountservices.proxies;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Latency of a call to user-services made directly against one made through a
+ * gateway that forwards it, both over keep-alive connections on the loopback
+ * interface. The benchmark starts a stand-in for user-services on port 9098.
+ * <p>
+ * Given the URL of a running zuul-api-gateway, calls go through it; it needs a
+ * static route to the stand-in, e.g. {@code zuul.routes.user-services.path=/user-services/**}
+ * and {@code zuul.routes.user-services.url=http://localhost:9098}. Without one,
+ * a forwarding stand-in for the gateway is started instead, reported as
+ * {@code stand-in}. It has none of Zuul's filters, logging and tracing, so its
+ * numbers say nothing about Zuul itself. Run with
+ * {@code java -cp target/classes:target/test-classes ...GatewayHopBenchmark [clients] [seconds] [gateway url]},
+ * e.g. {@code 16 5 http://localhost:8765/user-services}.
+ *
+ * @author vinodgodara
+ *
+ */
+public class GatewayHopBenchmark {
+
+	private static final int USER_SERVICES_PORT = 9098;
+
+	private static final int MAX_SAMPLES_PER_CLIENT = 16384;
+
+	public static void main(final String[] args) throws IOException, InterruptedException {
+		final int clients = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+		final long seconds = args.length > 1 ? Long.parseLong(args[1]) : 5;
+		final String gatewayUrl = args.length > 2 ? args[2] : null;
+		final ExecutorService serverThreads = Executors.newFixedThreadPool(4 * clients);
+
+		// Like Tomcat, answer without waiting for delayed acknowledgements.
+		System.setProperty("sun.net.httpserver.nodelay", "true");
+
+		// Stands in for user-services.
+		final HttpServer userServices = HttpServer.create(new InetSocketAddress("127.0.0.1", USER_SERVICES_PORT),
+				1024);
+		userServices.createContext("/", exchange -> respond(exchange, "Success".getBytes(StandardCharsets.UTF_8)));
+		userServices.setExecutor(serverThreads);
+		userServices.start();
+		final String direct = "http://127.0.0.1:" + USER_SERVICES_PORT;
+
+		HttpServer standIn = null;
+		final String viaGateway;
+		if (gatewayUrl != null) {
+			viaGateway = gatewayUrl;
+		} else {
+			// Stands in for the gateway, forwarding /user-services/** to user-services.
+			standIn = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+			standIn.createContext("/user-services/", exchange -> {
+				drain(exchange.getRequestBody());
+				final String path = exchange.getRequestURI().getPath().substring("/user-services".length());
+				respond(exchange, post(direct + path));
+			});
+			standIn.setExecutor(serverThreads);
+			standIn.start();
+			viaGateway = "http://127.0.0.1:" + standIn.getAddress().getPort() + "/user-services";
+		}
+		final String gatewayName = gatewayUrl != null ? "zuul" : "stand-in";
+
+		System.out.printf("%d clients%n", clients);
+		System.out.printf("%-10s %10s %10s %10s %10s%n", "path", "calls/s", "p50 ms", "p99 ms", "p99.9 ms");
+		for (int round = 0; round < 2; round++) {
+			run(gatewayName, viaGateway, clients, seconds);
+			run("direct", direct, clients, seconds);
+		}
+
+		if (standIn != null) {
+			standIn.stop(0);
+		}
+		userServices.stop(0);
+		serverThreads.shutdown();
+	}
+
+	private static void run(final String mode, final String baseUrl, final int clients, final long seconds)
+			throws InterruptedException {
+		final long[][] samples = new long[clients][MAX_SAMPLES_PER_CLIENT];
+		final int[] sampleCounts = new int[clients];
+		final long[] calls = new long[clients];
+		final CountDownLatch done = new CountDownLatch(clients);
+		final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+
+		for (int i = 0; i < clients; i++) {
+			final int client = i;
+
+			final Thread thread = new Thread(() -> {
+				while (System.nanoTime() < deadline) {
+					final long start = System.nanoTime();
+					try {
+						post(baseUrl + "/addAccount/benchmark/" + (client + 1));
+					} catch (IOException exc) {
+						throw new RuntimeException("Call failed.", exc);
+					}
+					samples[client][sampleCounts[client]++ % MAX_SAMPLES_PER_CLIENT] = System.nanoTime() - start;
+					calls[client]++;
+				}
+				done.countDown();
+			}, "client-" + i);
+			thread.setDaemon(true);
+			thread.start();
+		}
+
+		done.await();
+
+		long total = 0;
+		int sampleTotal = 0;
+		for (int i = 0; i < clients; i++) {
+			total += calls[i];
+			sampleTotal += Math.min(sampleCounts[i], MAX_SAMPLES_PER_CLIENT);
+		}
+
+		final long[] latencies = new long[sampleTotal];
+		int next = 0;
+		for (int i = 0; i < clients; i++) {
+			final int count = Math.min(sampleCounts[i], MAX_SAMPLES_PER_CLIENT);
+			System.arraycopy(samples[i], 0, latencies, next, count);
+			next += count;
+		}
+		Arrays.sort(latencies);
+
+		System.out.printf("%-10s %,10.0f %10.3f %10.3f %10.3f%n", mode, total / (double) seconds,
+				latencies[latencies.length / 2] / 1e6, latencies[(int) (latencies.length * 0.99)] / 1e6,
+				latencies[(int) (latencies.length * 0.999)] / 1e6);
+	}
+
+	/**
+	 * POST without a body over a keep-alive connection.
+	 */
+	private static byte[] post(final String url) throws IOException {
+		final HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+		connection.setRequestMethod("POST");
+		connection.setRequestProperty("Content-Type", "application/json");
+		connection.setDoOutput(true);
+		connection.setFixedLengthStreamingMode(0);
+		connection.getOutputStream().close();
+
+		try (InputStream input = connection.getInputStream()) {
+			return drain(input);
+		}
+	}
+
+	private static void respond(final HttpExchange exchange, final byte[] body) throws IOException {
+		drain(exchange.getRequestBody());
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(200, body.length);
+		try (OutputStream output = exchange.getResponseBody()) {
+			output.write(body);
+		}
+	}
+
+	private static byte[] drain(final InputStream input) throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final byte[] buffer = new byte[4096];
+
+		for (int read = input.read(buffer); read >= 0; read = input.read(buffer)) {
+			bytes.write(buffer, 0, read);
+		}
+		return bytes.toByteArray();
+	}
+}
@@ -0,0 +1,131 @@
+package com.nagp.microservices.accountservices.proxies;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.nagp.microservices.accountservices.rpc.RpcChannel;
+import com.nagp.microservices.common.rpc.RpcProtocol;
+
+class RpcUserServiceProxyTest {
+
+	// Accepts connections and never answers.
+	private ServerSocket server;
+
+	private final List<Socket> connections = new CopyOnWriteArrayList<>();
+
+	private final ExecutorService callers = Executors.newCachedThreadPool();
+
+	private final RpcUserServiceProxy proxy = new RpcUserServiceProxy();
+
+	private ServiceInstance instance;
+
+	@BeforeEach
+	void start() throws IOException {
+		server = new ServerSocket(0, 64, InetAddress.getLoopbackAddress());
+		final Thread acceptor = new Thread(() -> {
+			try {
+				while (true) {
+					connections.add(server.accept());
+				}
+			} catch (IOException exc) {
+				// Closed.
+			}
+		}, "test-acceptor");
+		acceptor.setDaemon(true);
+		acceptor.start();
+
+		instance = new DefaultServiceInstance("user-services-1", "user-services", "127.0.0.1", 8200, false,
+				Collections.singletonMap(RpcProtocol.RPC_PORT, Integer.toString(server.getLocalPort())));
+		ReflectionTestUtils.setField(proxy, "discoveryClient", new DiscoveryClient() {
+			@Override
+			public String description() {
+				return "test";
+			}
+
+			@Override
+			public List<ServiceInstance> getInstances(final String serviceId) {
+				return Collections.singletonList(instance);
+			}
+
+			@Override
+			public List<String> getServices() {
+				return Collections.singletonList("user-services");
+			}
+		});
+		ReflectionTestUtils.setField(proxy, "timeoutMillis", 100);
+	}
+
+	@AfterEach
+	void stop() throws IOException {
+		callers.shutdownNow();
+		proxy.shutdown();
+		server.close();
+		for (final Socket connection : connections) {
+			connection.close();
+		}
+	}
+
+	@Test
+	void forgetsACallThatTimedOut() {
+		final RuntimeException exc = assertThrows(RuntimeException.class, () -> proxy.addAccount("alice", "1"));
+
+		assertEquals("User service did not answer.", exc.getMessage());
+		assertEquals(0, proxy.channel(instance).pendingCalls());
+	}
+
+	@Test
+	void sharesOneChannelBetweenCallersConnectingAtOnce() throws Exception {
+		final CountDownLatch ready = new CountDownLatch(1);
+		final List<CompletableFuture<RpcChannel>> channels = new ArrayList<>();
+
+		for (int i = 0; i < 8; i++) {
+			channels.add(CompletableFuture.supplyAsync(() -> {
+				try {
+					ready.await();
+				} catch (InterruptedException exc) {
+					Thread.currentThread().interrupt();
+				}
+				return proxy.channel(instance);
+			}, callers));
+		}
+		ready.countDown();
+
+		final RpcChannel shared = proxy.channel(instance);
+		for (final CompletableFuture<RpcChannel> channel : channels) {
+			assertSame(shared, channel.get());
+		}
+	}
+
+	@Test
+	void reconnectsOnceTheChannelClosed() {
+		final RpcChannel first = proxy.channel(instance);
+		first.close();
+
+		final RpcChannel second = proxy.channel(instance);
+		assertTrue(second.isOpen());
+		assertSame(second, proxy.channel(instance));
+	}
+}
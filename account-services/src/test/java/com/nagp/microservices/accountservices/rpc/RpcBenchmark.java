@@ -0,0 +1,202 @@
+package com.nagp.microservices.accountservices.rpc;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import com.nagp.microservices.common.rpc.FrameWriter;
+import com.nagp.microservices.common.rpc.RpcProtocol;
+
+/**
+ * Calls answered by a stand-in for user-services over keep-alive HTTP with a
+ * connection per client, against the binary RPC channel with one connection
+ * shared by all clients. Both answer right away, so the numbers are the cost
+ * of the transport. Run with
+ * {@code java -cp target/classes:target/test-classes ...RpcBenchmark [clients] [seconds]}.
+ *
+ * @author vinodgodara
+ *
+ */
+public class RpcBenchmark {
+
+	private static final int MAX_SAMPLES_PER_CLIENT = 16384;
+
+	private static final byte[] SUCCESS = "Success".getBytes(StandardCharsets.UTF_8);
+
+	public static void main(final String[] args) throws IOException, InterruptedException {
+		final int clients = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+		final long seconds = args.length > 1 ? Long.parseLong(args[1]) : 5;
+		final ExecutorService serverThreads = Executors.newFixedThreadPool(2 * clients);
+
+		// Like Tomcat, answer without waiting for delayed acknowledgements.
+		System.setProperty("sun.net.httpserver.nodelay", "true");
+		final HttpServer http = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+		http.createContext("/", RpcBenchmark::respond);
+		http.setExecutor(serverThreads);
+		http.start();
+		final String baseUrl = "http://127.0.0.1:" + http.getAddress().getPort();
+
+		final ServerSocket rpcServer = new ServerSocket(0, 64, InetAddress.getLoopbackAddress());
+		final Thread acceptor = new Thread(() -> accept(rpcServer), "rpc-acceptor");
+		acceptor.setDaemon(true);
+		acceptor.start();
+		final RpcChannel channel = new RpcChannel("127.0.0.1", rpcServer.getLocalPort(), 1000);
+
+		System.out.printf("%d clients%n", clients);
+		System.out.printf("%-10s %10s %10s %10s%n", "transport", "calls/s", "p50 ms", "p99 ms");
+		for (int round = 0; round < 2; round++) {
+			run("http", clients, seconds, client -> post(baseUrl + "/addAccount/benchmark/" + (client + 1)));
+			run("rpc", clients, seconds, client -> {
+				if (!"Success".equals(channel.call(RpcProtocol.ADD_ACCOUNT, "benchmark", client + 1).join())) {
+					throw new IOException("Unexpected answer.");
+				}
+			});
+		}
+
+		channel.close();
+		rpcServer.close();
+		http.stop(0);
+		serverThreads.shutdown();
+	}
+
+	private interface Call {
+		void run(int client) throws IOException;
+	}
+
+	private static void run(final String mode, final int clients, final long seconds, final Call call)
+			throws InterruptedException {
+		final long[][] samples = new long[clients][MAX_SAMPLES_PER_CLIENT];
+		final int[] sampleCounts = new int[clients];
+		final long[] calls = new long[clients];
+		final CountDownLatch done = new CountDownLatch(clients);
+		final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+
+		for (int i = 0; i < clients; i++) {
+			final int client = i;
+
+			final Thread thread = new Thread(() -> {
+				while (System.nanoTime() < deadline) {
+					final long start = System.nanoTime();
+					try {
+						call.run(client);
+					} catch (IOException exc) {
+						throw new RuntimeException("Call failed.", exc);
+					}
+					samples[client][sampleCounts[client]++ % MAX_SAMPLES_PER_CLIENT] = System.nanoTime() - start;
+					calls[client]++;
+				}
+				done.countDown();
+			}, "client-" + i);
+			thread.setDaemon(true);
+			thread.start();
+		}
+
+		done.await();
+
+		long total = 0;
+		int sampleTotal = 0;
+		for (int i = 0; i < clients; i++) {
+			total += calls[i];
+			sampleTotal += Math.min(sampleCounts[i], MAX_SAMPLES_PER_CLIENT);
+		}
+
+		final long[] latencies = new long[sampleTotal];
+		int next = 0;
+		for (int i = 0; i < clients; i++) {
+			final int count = Math.min(sampleCounts[i], MAX_SAMPLES_PER_CLIENT);
+			System.arraycopy(samples[i], 0, latencies, next, count);
+			next += count;
+		}
+		Arrays.sort(latencies);
+
+		System.out.printf("%-10s %,10.0f %10.3f %10.3f%n", mode, total / (double) seconds,
+				latencies[latencies.length / 2] / 1e6, latencies[(int) (latencies.length * 0.99)] / 1e6);
+	}
+
+	/**
+	 * Stand-in for the RPC server of user-services, answering every request on
+	 * the connection's writer.
+	 */
+	private static void accept(final ServerSocket server) {
+		try {
+			while (true) {
+				final Socket socket = server.accept();
+				socket.setTcpNoDelay(true);
+
+				final Thread reader = new Thread(() -> {
+					try (Socket connection = socket) {
+						final DataInputStream input = new DataInputStream(
+								new BufferedInputStream(connection.getInputStream()));
+						final FrameWriter writer = new FrameWriter(connection.getOutputStream(), () -> {
+						});
+						final Thread writerThread = new Thread(writer, "rpc-writer");
+						writerThread.setDaemon(true);
+						writerThread.start();
+
+						for (DataInputStream frame = RpcProtocol.readFrame(input); frame != null; frame = RpcProtocol
+								.readFrame(input)) {
+							final long id = frame.readLong();
+							writer.write(RpcProtocol.response(id, RpcProtocol.OK, "Success"));
+						}
+						writer.close();
+					} catch (IOException exc) {
+						// Connection closed.
+					}
+				}, "rpc-connection");
+				reader.setDaemon(true);
+				reader.start();
+			}
+		} catch (IOException exc) {
+			// Server closed.
+		}
+	}
+
+	private static void post(final String url) throws IOException {
+		final HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+		connection.setRequestMethod("POST");
+		connection.setRequestProperty("Content-Type", "application/json");
+		connection.setDoOutput(true);
+		connection.setFixedLengthStreamingMode(0);
+		connection.getOutputStream().close();
+
+		try (InputStream input = connection.getInputStream()) {
+			drain(input);
+		}
+	}
+
+	private static void respond(final HttpExchange exchange) throws IOException {
+		drain(exchange.getRequestBody());
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(200, SUCCESS.length);
+		try (OutputStream output = exchange.getResponseBody()) {
+			output.write(SUCCESS);
+		}
+	}
+
+	private static void drain(final InputStream input) throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final byte[] buffer = new byte[4096];
+
+		for (int read = input.read(buffer); read >= 0; read = input.read(buffer)) {
+			bytes.write(buffer, 0, read);
+		}
+	}
+}
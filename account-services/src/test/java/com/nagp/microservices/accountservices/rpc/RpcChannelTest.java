@@ -0,0 +1,97 @@
+package com.nagp.microservices.accountservices.rpc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.nagp.microservices.common.rpc.RpcProtocol;
+
+class RpcChannelTest {
+
+	// Stands in for user-services.
+	private ServerSocket server;
+
+	private RpcChannel channel;
+
+	private Socket connection;
+
+	@BeforeEach
+	void connect() throws IOException {
+		server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+		channel = new RpcChannel("127.0.0.1", server.getLocalPort(), 1000);
+		connection = server.accept();
+	}
+
+	@AfterEach
+	void close() throws IOException {
+		channel.close();
+		connection.close();
+		server.close();
+	}
+
+	@Test
+	void matchesAnswersToCallsInAnyOrder() throws Exception {
+		final CompletableFuture<String> first = channel.call(RpcProtocol.ADD_ACCOUNT, "alice", 1);
+		final CompletableFuture<String> second = channel.call(RpcProtocol.REMOVE_ACCOUNT, "bob", 2);
+
+		final DataInputStream input = new DataInputStream(new BufferedInputStream(connection.getInputStream()));
+		final long firstId = readRequest(input, RpcProtocol.ADD_ACCOUNT, "alice", 1);
+		final long secondId = readRequest(input, RpcProtocol.REMOVE_ACCOUNT, "bob", 2);
+
+		final OutputStream output = connection.getOutputStream();
+		output.write(RpcProtocol.response(secondId, RpcProtocol.FAILED, "User does not exist."));
+		output.write(RpcProtocol.response(firstId, RpcProtocol.OK, "Success"));
+		output.flush();
+
+		assertEquals("Success", first.get(5, TimeUnit.SECONDS));
+		final ExecutionException exc = assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+		assertEquals("User does not exist.", exc.getCause().getMessage());
+		assertEquals(0, channel.pendingCalls());
+	}
+
+	@Test
+	void forgetsACallItsCallerCancelled() {
+		final CompletableFuture<String> answer = channel.call(RpcProtocol.ADD_ACCOUNT, "alice", 1);
+		assertEquals(1, channel.pendingCalls());
+
+		answer.cancel(false);
+		assertEquals(0, channel.pendingCalls());
+	}
+
+	@Test
+	void failsTheCallsInFlightWhenTheConnectionCloses() throws IOException {
+		final CompletableFuture<String> answer = channel.call(RpcProtocol.ADD_ACCOUNT, "alice", 1);
+
+		connection.close();
+
+		final ExecutionException exc = assertThrows(ExecutionException.class, () -> answer.get(5, TimeUnit.SECONDS));
+		assertEquals("RPC connection closed.", exc.getCause().getMessage());
+		assertFalse(channel.isOpen());
+		assertEquals(0, channel.pendingCalls());
+	}
+
+	private static long readRequest(final DataInputStream input, final byte method, final String userID,
+			final long accountNo) throws IOException {
+		final DataInputStream frame = RpcProtocol.readFrame(input);
+		final long id = frame.readLong();
+		assertEquals(method, frame.readByte());
+		assertEquals(userID, frame.readUTF());
+		assertEquals(accountNo, frame.readLong());
+		return id;
+	}
+}
@@ -0,0 +1,107 @@
+package com.nagp.microservices.common.accesslog;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Access log of the gateway. Request threads copy their record into an
+ * {@link AccessLogBuffer}; a background writer drains it and logs the lines to
+ * the {@code access-log} logger, so formatting and appender I/O stay off the
+ * request threads.
+ *
+ * @author vinodgodara
+ *
+ */
+@Component
+public class AccessLog {
+	private static final Logger LOGGER = LoggerFactory.getLogger(AccessLog.class);
+
+	private static final Logger ACCESS_LOGGER = LoggerFactory.getLogger("access-log");
+
+	// Most records drained before checking for dropped ones.
+	private static final int DRAIN_BATCH = 1024;
+
+	private final AccessLogBuffer buffer;
+
+	private volatile boolean running = true;
+
+	private Thread writer;
+
+	public AccessLog(@Value("${access-log.buffer-capacity:8192}") final int capacity) {
+		buffer = new AccessLogBuffer(capacity);
+	}
+
+	@PostConstruct
+	public void start() {
+		writer = new Thread(this::write, "access-log-writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	@PreDestroy
+	public void shutdown() throws InterruptedException {
+		running = false;
+		writer.join(1000);
+	}
+
+	/**
+	 * Record a sampled request.
+	 *
+	 * @param timestampMillis When the request was received.
+	 * @param durationMicros  How long it took.
+	 * @param status          Response status.
+	 * @param method          HTTP method.
+	 * @param path            Request path.
+	 * @param route           Gateway route, null if none matched.
+	 */
+	public void record(final long timestampMillis, final long durationMicros, final int status, final String method,
+			final String path, final String route) {
+		buffer.offer(timestampMillis, durationMicros, status, false, method, path, route);
+	}
+
+	/**
+	 * Record a failed request with its query, client and error.
+	 *
+	 * @param timestampMillis When the request was received.
+	 * @param durationMicros  How long it took.
+	 * @param status          Response status.
+	 * @param method          HTTP method.
+	 * @param path            Request path.
+	 * @param route           Gateway route, null if none matched.
+	 * @param query           Query string.
+	 * @param client          Client address.
+	 * @param error           Error message, null if the status is the only error.
+	 */
+	public void recordFull(final long timestampMillis, final long durationMicros, final int status,
+			final String method, final String path, final String route, final String query, final String client,
+			final String error) {
+		buffer.offer(timestampMillis, durationMicros, status, true, method, path, route, query, client, error);
+	}
+
+	private void write() {
+		while (true) {
+			final int drained = buffer.drain(DRAIN_BATCH, ACCESS_LOGGER::info);
+
+			final long dropped = buffer.takeDropped();
+			if (dropped > 0) {
+				LOGGER.warn("Dropped {} access log records, the writer fell behind.", dropped);
+			}
+
+			if (drained == 0) {
+				// Leave once everything recorded before the shutdown is written.
+				if (!running) {
+					return;
+				}
+				LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+			}
+		}
+	}
+}
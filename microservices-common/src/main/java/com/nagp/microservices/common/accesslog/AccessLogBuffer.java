@@ -0,0 +1,198 @@
+package com.nagp.microservices.common.accesslog;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Ring of fixed-size access log records, written by request threads without
+ * locks and read by a single writer thread. A request thread claims the next
+ * slot with a compare-and-set, copies its fields into the slot and publishes
+ * it; records are only formatted by the writer. When the writer
+ * falls behind and the ring is full, records are dropped and counted instead
+ * of making requests wait.
+ * <p>
+ * Slot layout: timestamp (long), duration in microseconds (long), status
+ * (short), full flag (byte), then the text fields, each a length (byte) and up
+ * to that many Latin-1 characters, truncated to fit the slot.
+ *
+ * @author vinodgodara
+ *
+ */
+public class AccessLogBuffer {
+
+	public static final int SLOT_SIZE = 512;
+
+	private static final int TEXT_OFFSET = Long.BYTES + Long.BYTES + Short.BYTES + Byte.BYTES;
+
+	// Longest text field, its length has to fit in a byte.
+	private static final int MAX_FIELD_LENGTH = 255;
+
+	private final ByteBuffer slots;
+
+	// Sequence number of the record last published in every slot.
+	private final AtomicLongArray published;
+
+	private final int mask;
+
+	// Next sequence number to claim.
+	private final AtomicLong tail = new AtomicLong();
+
+	// Next sequence number to read, only advanced by the writer.
+	private volatile long head;
+
+	private final LongAdder dropped = new LongAdder();
+
+	/**
+	 * @param capacity Number of slots, rounded up to a power of two.
+	 */
+	public AccessLogBuffer(final int capacity) {
+		final int slotCount = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+		slots = ByteBuffer.allocate(slotCount * SLOT_SIZE);
+		published = new AtomicLongArray(slotCount);
+		mask = slotCount - 1;
+
+		for (int i = 0; i < slotCount; i++) {
+			published.set(i, -1);
+		}
+	}
+
+	/**
+	 * Copy a record into the ring.
+	 *
+	 * @param timestampMillis When the request was received.
+	 * @param durationMicros  How long it took.
+	 * @param status          Response status.
+	 * @param full            Whether the error fields are filled in.
+	 * @param fields          Text fields: method, path, route and, for full
+	 *                        records, query, client address and error.
+	 * @return False if the ring was full and the record dropped.
+	 */
+	public boolean offer(final long timestampMillis, final long durationMicros, final int status, final boolean full,
+			final String... fields) {
+		long sequence;
+
+		do {
+			sequence = tail.get();
+
+			if (sequence - head > mask) {
+				dropped.increment();
+				return false;
+			}
+		} while (!tail.compareAndSet(sequence, sequence + 1));
+
+		final int slot = (int) (sequence & mask);
+		final int start = slot * SLOT_SIZE;
+		final int end = start + SLOT_SIZE;
+
+		// Absolute puts only, request threads share the buffer but not its slots.
+		slots.putLong(start, timestampMillis);
+		slots.putLong(start + Long.BYTES, durationMicros);
+		slots.putShort(start + 2 * Long.BYTES, (short) status);
+		slots.put(start + 2 * Long.BYTES + Short.BYTES, (byte) (full ? 1 : 0));
+
+		int offset = start + TEXT_OFFSET;
+		for (final String field : fields) {
+			final String text = Objects.nonNull(field) ? field : "";
+			final int length = Math.min(Math.min(text.length(), MAX_FIELD_LENGTH), Math.max(0, end - offset - 1));
+
+			if (offset < end) {
+				slots.put(offset++, (byte) length);
+			}
+			for (int i = 0; i < length; i++) {
+				final char c = text.charAt(i);
+				slots.put(offset++, (byte) (c < 256 ? c : '?'));
+			}
+		}
+
+		// Store with release semantics, the writer sees the fields once it sees this.
+		published.lazySet(slot, sequence);
+		return true;
+	}
+
+	/**
+	 * Format and hand over published records. Only one thread may drain.
+	 *
+	 * @param maxRecords Most records to drain.
+	 * @param consumer   Receives each record as a log line.
+	 * @return Number of records drained.
+	 */
+	public int drain(final int maxRecords, final Consumer<String> consumer) {
+		final StringBuilder line = new StringBuilder(SLOT_SIZE);
+		long next = head;
+		int count = 0;
+
+		while (count < maxRecords) {
+			final int slot = (int) (next & mask);
+
+			if (published.get(slot) != next) {
+				break;
+			}
+
+			line.setLength(0);
+			format(slot * SLOT_SIZE, line);
+
+			// Free the slot before handing the line over.
+			head = ++next;
+			count++;
+			consumer.accept(line.toString());
+		}
+		return count;
+	}
+
+	/**
+	 * Number of records dropped because the ring was full, since the last call.
+	 *
+	 * @return The count.
+	 */
+	public long takeDropped() {
+		return dropped.sumThenReset();
+	}
+
+	private void format(final int start, final StringBuilder line) {
+		final long timestampMillis = slots.getLong(start);
+		final long durationMicros = slots.getLong(start + Long.BYTES);
+		final int status = slots.getShort(start + 2 * Long.BYTES);
+		final boolean full = slots.get(start + 2 * Long.BYTES + Short.BYTES) != 0;
+		final int end = start + SLOT_SIZE;
+		final int[] offset = { start + TEXT_OFFSET };
+
+		line.append(DateTimeFormatter.ISO_INSTANT.format(Instant.ofEpochMilli(timestampMillis))).append(' ');
+		appendField(line, offset, end);
+		line.append(' ');
+		appendField(line, offset, end);
+		line.append(" route=");
+		appendField(line, offset, end);
+		line.append(" status=").append(status);
+
+		final long fraction = durationMicros % 1000;
+		line.append(" time=").append(durationMicros / 1000).append(fraction < 10 ? ".00" : fraction < 100 ? ".0" : ".")
+				.append(fraction).append("ms");
+
+		if (full) {
+			line.append(" query=");
+			appendField(line, offset, end);
+			line.append(" client=");
+			appendField(line, offset, end);
+			line.append(" error=\"");
+			appendField(line, offset, end);
+			line.append('"');
+		}
+	}
+
+	private void appendField(final StringBuilder line, final int[] offset, final int end) {
+		if (offset[0] >= end) {
+			return;
+		}
+
+		final int length = slots.get(offset[0]++) & 0xFF;
+		for (int i = 0; i < length && offset[0] < end; i++) {
+			line.append((char) (slots.get(offset[0]++) & 0xFF));
+		}
+	}
+}
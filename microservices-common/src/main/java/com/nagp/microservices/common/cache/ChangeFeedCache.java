@@ -0,0 +1,190 @@
+package com.nagp.microservices.common.cache;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Local copy of documents owned by another service. Documents are fetched on
+ * first use and kept up to date by following the change feed of their owner,
+ * so reads do not leave the service. Everything cached is dropped when the
+ * owner restarts, its sequence numbers start over then.
+ *
+ * @param <T> Type of the documents.
+ *
+ * @author vinodgodara
+ *
+ */
+public abstract class ChangeFeedCache<T> {
+	private final static Logger LOGGER = LoggerFactory.getLogger(ChangeFeedCache.class);
+
+	/**
+	 * Documents changed since the sequence number passed in.
+	 *
+	 * @param <T> Type of the documents.
+	 */
+	public static final class Changes<T> {
+
+		// The reader fell too far behind and has to drop everything it cached.
+		private final boolean reset;
+
+		// Run of the owner the sequence number belongs to.
+		private final String epoch;
+
+		private final long sequence;
+
+		private final List<T> documents;
+
+		public Changes(final boolean reset, final String epoch, final long sequence, final List<T> documents) {
+			this.reset = reset;
+			this.epoch = epoch;
+			this.sequence = sequence;
+			this.documents = documents;
+		}
+	}
+
+	private final Map<Long, T> documents = new ConcurrentHashMap<>();
+
+	private final String listenerName;
+
+	private final long pollTimeoutMillis;
+
+	// Run of the owner the sequence number belongs to, empty until the feed is
+	// followed.
+	private volatile String epoch = "";
+
+	// Last change applied, -1 until the feed is followed.
+	private volatile long sequence = -1;
+
+	private volatile boolean running = true;
+
+	private Thread listener;
+
+	/**
+	 * @param listenerName      Name of the thread following the change feed.
+	 * @param pollTimeoutMillis Longest wait for changes per request.
+	 */
+	protected ChangeFeedCache(final String listenerName, final long pollTimeoutMillis) {
+		this.listenerName = listenerName;
+		this.pollTimeoutMillis = pollTimeoutMillis;
+	}
+
+	/**
+	 * Fetch a document from its owner.
+	 *
+	 * @param key Key of the document.
+	 * @return The document, null if it does not exist.
+	 */
+	protected abstract T fetch(long key);
+
+	/**
+	 * Wait for changes after a sequence number.
+	 *
+	 * @param epoch         Run of the owner the sequence number belongs to.
+	 * @param after         Last change applied.
+	 * @param timeoutMillis Longest wait when nothing changed.
+	 * @return The changes.
+	 */
+	protected abstract Changes<T> changes(String epoch, long after, long timeoutMillis);
+
+	/**
+	 * Key of a document.
+	 *
+	 * @param document The document.
+	 * @return Its key.
+	 */
+	protected abstract long keyOf(T document);
+
+	@PostConstruct
+	public void start() {
+		listener = new Thread(this::follow, listenerName);
+		listener.setDaemon(true);
+		listener.start();
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		running = false;
+		listener.interrupt();
+	}
+
+	/**
+	 * Fetch a document, from the cache if present.
+	 *
+	 * @param key Key of the document.
+	 * @return The document, null if it does not exist.
+	 */
+	public T find(final long key) {
+		final T cached = documents.get(key);
+
+		if (Objects.nonNull(cached)) {
+			return cached;
+		}
+
+		final String beforeEpoch = epoch;
+		final long before = sequence;
+		final T document = fetch(key);
+
+		// Only keep it if no change came in meanwhile, it might be stale otherwise.
+		synchronized (this) {
+			if (Objects.nonNull(document) && before >= 0 && before == sequence && Objects.equals(beforeEpoch, epoch)) {
+				documents.putIfAbsent(key, document);
+			}
+		}
+		return document;
+	}
+
+	/**
+	 * Drop a document after changing it, the change feed brings it back.
+	 *
+	 * @param key Key of the document.
+	 */
+	public void invalidate(final long key) {
+		documents.remove(key);
+	}
+
+	private void follow() {
+		while (running) {
+			try {
+				final Changes<T> changes = changes(epoch, sequence, pollTimeoutMillis);
+
+				synchronized (this) {
+					// Sequence numbers of another run of the owner say nothing about what
+					// changed.
+					if (changes.reset || !Objects.equals(epoch, changes.epoch)) {
+						documents.clear();
+					} else if (Objects.nonNull(changes.documents)) {
+						for (final T document : changes.documents) {
+							documents.computeIfPresent(keyOf(document), (key, cached) -> document);
+						}
+					}
+					epoch = changes.epoch;
+					sequence = changes.sequence;
+				}
+			} catch (RuntimeException exc) {
+				if (!running) {
+					return;
+				}
+				LOGGER.warn("Changes could not be fetched.", exc);
+
+				// Nothing is known about changes missed while unreachable.
+				synchronized (this) {
+					documents.clear();
+					sequence = -1;
+				}
+				try {
+					Thread.sleep(1000);
+				} catch (InterruptedException interrupted) {
+					return;
+				}
+			}
+		}
+	}
+}
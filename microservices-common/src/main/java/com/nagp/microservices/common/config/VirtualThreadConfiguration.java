@@ -0,0 +1,110 @@
+package com.nagp.microservices.common.config;
+
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.annotation.PostConstruct;
+
+import org.apache.coyote.ProtocolHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.netflix.config.ConfigurationManager;
+
+/**
+ * Opt-in execution mode, enabled with {@code virtual-threads.enabled=true},
+ * that handles every request on its own virtual thread instead of the bounded
+ * Tomcat pool. Hystrix commands then run on the calling virtual thread with
+ * semaphore isolation, so disk I/O and Feign calls made while handling a
+ * request block only that virtual thread, and concurrency is bounded by
+ * {@code virtual-threads.max-concurrent-requests} per command and by what the
+ * services downstream can take.
+ * <p>
+ * Virtual threads need Java 21 or newer at runtime; on older runtimes the mode
+ * logs a warning and the Tomcat pool is kept.
+ * 
+ * @author vinodgodara
+ *
+ */
+@Configuration
+@ConditionalOnProperty(name = "virtual-threads.enabled", havingValue = "true")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class VirtualThreadConfiguration {
+	private static final Logger LOGGER = LoggerFactory.getLogger(VirtualThreadConfiguration.class);
+
+	@Value("${virtual-threads.max-concurrent-requests:10000}")
+	private int maxConcurrentRequests;
+
+	/**
+	 * Keep Hystrix commands on the request thread; thread isolation would move
+	 * them back onto a small pool of platform threads.
+	 */
+	@PostConstruct
+	public void configureHystrix() {
+		if (!virtualThreadsSupported()) {
+			return;
+		}
+
+		ConfigurationManager.getConfigInstance().setProperty("hystrix.command.default.execution.isolation.strategy",
+				"SEMAPHORE");
+		ConfigurationManager.getConfigInstance().setProperty(
+				"hystrix.command.default.execution.isolation.semaphore.maxConcurrentRequests", maxConcurrentRequests);
+		ConfigurationManager.getConfigInstance().setProperty(
+				"hystrix.command.default.fallback.isolation.semaphore.maxConcurrentRequests", maxConcurrentRequests);
+	}
+
+	@Bean
+	public WebServerFactoryCustomizer<TomcatServletWebServerFactory> virtualThreadCustomizer() {
+		return factory -> {
+			final ExecutorService executor = newVirtualThreadExecutor();
+
+			if (Objects.nonNull(executor)) {
+				factory.addProtocolHandlerCustomizers(
+						(TomcatProtocolHandlerCustomizer<ProtocolHandler>) handler -> handler.setExecutor(executor));
+				LOGGER.info("Handling requests on virtual threads.");
+			}
+		};
+	}
+
+	/**
+	 * Whether the runtime has virtual threads.
+	 * 
+	 * @return True on Java 21 or newer.
+	 */
+	public static boolean virtualThreadsSupported() {
+		try {
+			Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return true;
+		} catch (NoSuchMethodException exc) {
+			return false;
+		}
+	}
+
+	/**
+	 * Create an executor starting a virtual thread per task.
+	 * 
+	 * @return The executor, null if the runtime has no virtual threads.
+	 */
+	public static ExecutorService newVirtualThreadExecutor() {
+		if (!virtualThreadsSupported()) {
+			LOGGER.warn("Virtual threads need Java 21 or newer, keeping the request thread pool.");
+			return null;
+		}
+
+		try {
+			// Looked up at runtime, the services are compiled for Java 8.
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException exc) {
+			throw new RuntimeException("Virtual thread executor could not be created.", exc);
+		}
+	}
+}
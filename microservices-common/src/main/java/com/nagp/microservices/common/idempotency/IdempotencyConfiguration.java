@@ -0,0 +1,44 @@
+package com.nagp.microservices.common.idempotency;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Idempotent POST requests for a servlet service, enabled by importing this
+ * configuration in the application class. Services calling others with Feign
+ * also pass the idempotency key on.
+ *
+ * @author vinodgodara
+ *
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class IdempotencyConfiguration {
+
+	@Bean
+	public IdempotencyStore idempotencyStore(@Value("${idempotency.max-entries:100000}") final int maxEntries,
+			@Value("${idempotency.ttl-ms:3600000}") final long ttlMillis) {
+		return new IdempotencyStore(maxEntries, ttlMillis);
+	}
+
+	@Bean
+	public IdempotencyFilter idempotencyFilter() {
+		return new IdempotencyFilter();
+	}
+
+	/**
+	 * Only for services with Feign clients.
+	 */
+	@Configuration
+	@ConditionalOnClass(name = "feign.RequestInterceptor")
+	public static class FeignConfiguration {
+
+		@Bean
+		public IdempotencyKeyInterceptor idempotencyKeyInterceptor() {
+			return new IdempotencyKeyInterceptor();
+		}
+	}
+}
@@ -0,0 +1,395 @@
+package com.nagp.microservices.common.idempotency;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.nagp.microservices.common.idempotency.IdempotencyStore.RecordedResponse;
+
+/**
+ * Runs a POST request carrying an {@code Idempotency-Key} header only once per
+ * key, client and endpoint. A repeated request with the same body gets the
+ * recorded response of the first one, and waits for it while the first one is
+ * still running; a request reusing the key with another body is rejected with
+ * 422. Only successes are recorded: error statuses and 200 responses carrying
+ * an error body, e.g. from a Hystrix fallback, can be retried.
+ *
+ * @author vinodgodara
+ *
+ */
+public class IdempotencyFilter extends OncePerRequestFilter {
+	private static final Logger LOGGER = LoggerFactory.getLogger(IdempotencyFilter.class);
+
+	public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
+	public static final String REPLAYED = "Idempotent-Replayed";
+
+	// Not defined by the servlet API.
+	private static final int SC_UNPROCESSABLE_ENTITY = 422;
+
+	@Autowired
+	private IdempotencyStore idempotencyStore;
+
+	// Larger responses are not kept, repeated requests are rejected instead.
+	@Value("${idempotency.max-response-bytes:65536}")
+	private int maxResponseBytes;
+
+	@Value("${idempotency.wait-ms:5000}")
+	private long waitMillis;
+
+	// Requests without it are told apart by address.
+	@Value("${idempotency.client-header:X-API-Key}")
+	private String clientHeader;
+
+	// Larger request bodies cannot be hashed up front, such requests are rejected.
+	@Value("${idempotency.max-request-bytes:1048576}")
+	private int maxRequestBytes;
+
+	// Bodies of 200 responses reporting a failure.
+	@Value("${idempotency.error-bodies:Some internal error occurred. Please try again later after some time.}")
+	private String[] errorBodies;
+
+	@Override
+	protected boolean shouldNotFilter(final HttpServletRequest request) throws ServletException {
+		return !"POST".equals(request.getMethod()) || Objects.isNull(request.getHeader(IDEMPOTENCY_KEY));
+	}
+
+	@Override
+	protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response,
+			final FilterChain chain) throws ServletException, IOException {
+		final byte[] body = readBody(request);
+
+		if (Objects.isNull(body)) {
+			response.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE,
+					"The request is too large for an Idempotency-Key.");
+			return;
+		}
+
+		final String client = Objects.nonNull(request.getHeader(clientHeader)) ? request.getHeader(clientHeader)
+				: request.getRemoteAddr();
+		final String key = request.getRequestURI() + " " + client + " " + request.getHeader(IDEMPOTENCY_KEY);
+		final byte[] requestHash = sha256(body);
+
+		for (CompletableFuture<RecordedResponse> earlier = idempotencyStore.begin(key, requestHash); Objects
+				.nonNull(earlier); earlier = idempotencyStore.begin(key, requestHash)) {
+			if (earlier == IdempotencyStore.OTHER_REQUEST) {
+				response.sendError(SC_UNPROCESSABLE_ENTITY,
+						"The Idempotency-Key was used for a request with another body.");
+				return;
+			}
+
+			final RecordedResponse recorded;
+
+			try {
+				recorded = earlier.get(waitMillis, TimeUnit.MILLISECONDS);
+			} catch (TimeoutException exc) {
+				response.sendError(HttpServletResponse.SC_CONFLICT,
+						"A request with this Idempotency-Key is in progress.");
+				return;
+			} catch (InterruptedException | ExecutionException exc) {
+				throw new ServletException("Interrupted while waiting for the earlier request.");
+			}
+
+			// Null if the earlier request failed, run it again.
+			if (Objects.nonNull(recorded)) {
+				replay(recorded, response);
+				return;
+			}
+		}
+
+		final RecordingResponse recording = new RecordingResponse(response, maxResponseBytes);
+		try {
+			chain.doFilter(new CachedBodyRequest(request, body), recording);
+		} catch (IOException | ServletException | RuntimeException exc) {
+			idempotencyStore.abandon(key);
+			throw exc;
+		}
+
+		if (request.isAsyncStarted()) {
+			// Written later by the async dispatch, which goes through the same wrapper.
+			request.getAsyncContext().addListener(new AsyncListener() {
+				@Override
+				public void onComplete(final AsyncEvent event) {
+					record(key, recording);
+				}
+
+				@Override
+				public void onTimeout(final AsyncEvent event) {
+					idempotencyStore.abandon(key);
+				}
+
+				@Override
+				public void onError(final AsyncEvent event) {
+					idempotencyStore.abandon(key);
+				}
+
+				@Override
+				public void onStartAsync(final AsyncEvent event) {
+				}
+			});
+		} else {
+			record(key, recording);
+		}
+	}
+
+	private void record(final String key, final RecordingResponse recording) {
+		final byte[] body = recording.body();
+
+		if (isSuccess(recording.getStatus(), body)) {
+			idempotencyStore.complete(key,
+					new RecordedResponse(recording.getStatus(), recording.getContentType(), body));
+		} else {
+			idempotencyStore.abandon(key);
+		}
+	}
+
+	private boolean isSuccess(final int status, final byte[] body) {
+		if (status < 200 || status >= 300) {
+			return false;
+		}
+		if (Objects.isNull(body)) {
+			return true;
+		}
+
+		final String text = new String(body, StandardCharsets.UTF_8).trim();
+		for (final String errorBody : errorBodies) {
+			if (text.equals(errorBody) || text.equals('"' + errorBody + '"')) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Read the request body up to the size limit.
+	 *
+	 * @return Null if the body is larger.
+	 */
+	private byte[] readBody(final HttpServletRequest request) throws IOException {
+		if (request.getContentLength() > maxRequestBytes) {
+			return null;
+		}
+
+		final ByteArrayOutputStream body = new ByteArrayOutputStream();
+		final byte[] buffer = new byte[8192];
+		final InputStream input = request.getInputStream();
+
+		for (int read = input.read(buffer); read >= 0; read = input.read(buffer)) {
+			body.write(buffer, 0, read);
+			if (body.size() > maxRequestBytes) {
+				return null;
+			}
+		}
+		return body.toByteArray();
+	}
+
+	private static byte[] sha256(final byte[] body) {
+		try {
+			return MessageDigest.getInstance("SHA-256").digest(body);
+		} catch (NoSuchAlgorithmException exc) {
+			throw new RuntimeException("SHA-256 is not available.", exc);
+		}
+	}
+
+	private static void replay(final RecordedResponse recorded, final HttpServletResponse response)
+			throws IOException {
+		if (Objects.isNull(recorded.getBody())) {
+			response.sendError(HttpServletResponse.SC_CONFLICT,
+					"The response to this Idempotency-Key was not kept, the request was not repeated.");
+			return;
+		}
+
+		LOGGER.debug("Replaying the recorded response.");
+		response.setStatus(recorded.getStatus());
+		if (Objects.nonNull(recorded.getContentType())) {
+			response.setContentType(recorded.getContentType());
+		}
+		response.setHeader(REPLAYED, "true");
+		response.getOutputStream().write(recorded.getBody());
+	}
+
+	/**
+	 * Request serving the body that was read to hash it.
+	 */
+	private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+		private final byte[] body;
+
+		private CachedBodyRequest(final HttpServletRequest request, final byte[] body) {
+			super(request);
+			this.body = body;
+		}
+
+		@Override
+		public ServletInputStream getInputStream() {
+			final ByteArrayInputStream input = new ByteArrayInputStream(body);
+
+			return new ServletInputStream() {
+				@Override
+				public int read() {
+					return input.read();
+				}
+
+				@Override
+				public int read(final byte[] b, final int off, final int len) {
+					return input.read(b, off, len);
+				}
+
+				@Override
+				public boolean isFinished() {
+					return input.available() == 0;
+				}
+
+				@Override
+				public boolean isReady() {
+					return true;
+				}
+
+				@Override
+				public void setReadListener(final ReadListener listener) {
+					throw new UnsupportedOperationException("The body is already read.");
+				}
+			};
+		}
+
+		@Override
+		public BufferedReader getReader() throws IOException {
+			final String encoding = getCharacterEncoding();
+			return new BufferedReader(
+					new InputStreamReader(getInputStream(), Objects.isNull(encoding) ? "ISO-8859-1" : encoding));
+		}
+	}
+
+	/**
+	 * Response passing everything written to the client and keeping a copy of
+	 * the body up to a size limit.
+	 */
+	private static final class RecordingResponse extends HttpServletResponseWrapper {
+
+		private final ByteArrayOutputStream copy = new ByteArrayOutputStream();
+
+		private final int maxBytes;
+
+		private boolean overflow;
+
+		private ServletOutputStream outputStream;
+
+		private PrintWriter writer;
+
+		private RecordingResponse(final HttpServletResponse response, final int maxBytes) {
+			super(response);
+			this.maxBytes = maxBytes;
+		}
+
+		@Override
+		public synchronized ServletOutputStream getOutputStream() throws IOException {
+			if (outputStream == null) {
+				final ServletOutputStream target = super.getOutputStream();
+
+				outputStream = new ServletOutputStream() {
+					@Override
+					public void write(final int b) throws IOException {
+						target.write(b);
+						keep(new byte[] { (byte) b }, 0, 1);
+					}
+
+					@Override
+					public void write(final byte[] b, final int off, final int len) throws IOException {
+						target.write(b, off, len);
+						keep(b, off, len);
+					}
+
+					@Override
+					public void flush() throws IOException {
+						target.flush();
+					}
+
+					@Override
+					public void close() throws IOException {
+						target.close();
+					}
+
+					@Override
+					public boolean isReady() {
+						return target.isReady();
+					}
+
+					@Override
+					public void setWriteListener(final WriteListener listener) {
+						target.setWriteListener(listener);
+					}
+				};
+			}
+			return outputStream;
+		}
+
+		@Override
+		public synchronized PrintWriter getWriter() throws IOException {
+			if (writer == null) {
+				final String encoding = getCharacterEncoding();
+				writer = new PrintWriter(new OutputStreamWriter(getOutputStream(),
+						Objects.isNull(encoding) ? "ISO-8859-1" : encoding));
+			}
+			return writer;
+		}
+
+		@Override
+		public void flushBuffer() throws IOException {
+			if (writer != null) {
+				writer.flush();
+			}
+			super.flushBuffer();
+		}
+
+		private synchronized void keep(final byte[] b, final int off, final int len) {
+			if (overflow) {
+				return;
+			}
+			if (copy.size() + len > maxBytes) {
+				overflow = true;
+				copy.reset();
+				return;
+			}
+			copy.write(b, off, len);
+		}
+
+		private synchronized byte[] body() {
+			if (writer != null) {
+				writer.flush();
+			}
+			return overflow ? null : copy.toByteArray();
+		}
+	}
+}
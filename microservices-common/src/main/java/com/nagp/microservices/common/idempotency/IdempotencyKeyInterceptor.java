@@ -0,0 +1,36 @@
+package com.nagp.microservices.common.idempotency;
+
+import java.util.Objects;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import feign.RequestInterceptor;
+import feign.RequestTemplate;
+
+/**
+ * Passes the idempotency key of the request being handled on to the calls it
+ * makes to other services, so that retried calls are not applied twice. Keys
+ * are scoped to the endpoint, calls to different endpoints do not collide.
+ * Calls made off the request thread carry no key.
+ *
+ * @author vinodgodara
+ *
+ */
+public class IdempotencyKeyInterceptor implements RequestInterceptor {
+
+	@Override
+	public void apply(final RequestTemplate template) {
+		final RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+
+		if (attributes instanceof ServletRequestAttributes) {
+			final String key = ((ServletRequestAttributes) attributes).getRequest()
+					.getHeader(IdempotencyFilter.IDEMPOTENCY_KEY);
+
+			if (Objects.nonNull(key)) {
+				template.header(IdempotencyFilter.IDEMPOTENCY_KEY, key);
+			}
+		}
+	}
+}
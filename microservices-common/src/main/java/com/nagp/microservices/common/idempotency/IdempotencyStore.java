@@ -0,0 +1,150 @@
+package com.nagp.microservices.common.idempotency;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Responses of requests carrying an idempotency key, kept for a limited time.
+ * Every entry expires the same time after it is started, so the entries are
+ * kept in start order and expired or surplus entries are removed from the
+ * oldest end.
+ *
+ * @author vinodgodara
+ *
+ */
+public class IdempotencyStore {
+
+	/**
+	 * Returned by {@link #begin(String, byte[])} when the key was started with
+	 * another request.
+	 */
+	public static final CompletableFuture<RecordedResponse> OTHER_REQUEST = CompletableFuture.completedFuture(null);
+
+	// Insertion ordered, the oldest entry comes first.
+	private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+	private final int maxEntries;
+
+	private final long ttlMillis;
+
+	/**
+	 * @param maxEntries Most responses kept, the oldest are dropped beyond.
+	 * @param ttlMillis  How long a response is kept after its request started.
+	 */
+	public IdempotencyStore(final int maxEntries, final long ttlMillis) {
+		this.maxEntries = maxEntries;
+		this.ttlMillis = ttlMillis;
+	}
+
+	/**
+	 * Start a request with a key, unless a request with the key was started
+	 * before.
+	 *
+	 * @param key         Idempotency key, scoped to the endpoint and client.
+	 * @param requestHash Hash of the request body.
+	 * @return Null if the request should run, {@link #OTHER_REQUEST} if the key
+	 *         was started with another body, otherwise the response of the
+	 *         earlier request, completed with null if it did not finish.
+	 */
+	public synchronized CompletableFuture<RecordedResponse> begin(final String key, final byte[] requestHash) {
+		final long now = System.currentTimeMillis();
+		expire(now);
+
+		final Entry existing = entries.get(key);
+		if (existing != null) {
+			return Arrays.equals(existing.requestHash, requestHash) ? existing.response : OTHER_REQUEST;
+		}
+
+		entries.put(key, new Entry(now + ttlMillis, requestHash));
+		return null;
+	}
+
+	/**
+	 * Record the response of a started request.
+	 *
+	 * @param key      Idempotency key.
+	 * @param response The response.
+	 */
+	public synchronized void complete(final String key, final RecordedResponse response) {
+		final Entry entry = entries.get(key);
+
+		if (entry != null) {
+			entry.response.complete(response);
+		}
+	}
+
+	/**
+	 * Forget a started request that did not finish, so that it can be retried.
+	 *
+	 * @param key Idempotency key.
+	 */
+	public synchronized void abandon(final String key) {
+		final Entry entry = entries.remove(key);
+
+		if (entry != null) {
+			entry.response.complete(null);
+		}
+	}
+
+	private void expire(final long now) {
+		final Iterator<Entry> iterator = entries.values().iterator();
+
+		while (iterator.hasNext()) {
+			final Entry entry = iterator.next();
+
+			if (entry.expiresAt > now && entries.size() < maxEntries) {
+				break;
+			}
+			iterator.remove();
+			entry.response.complete(null);
+		}
+	}
+
+	/**
+	 * Response of a request as sent to the client.
+	 */
+	public static final class RecordedResponse {
+
+		private final int status;
+
+		private final String contentType;
+
+		// Null if the response was too large to keep.
+		private final byte[] body;
+
+		public RecordedResponse(final int status, final String contentType, final byte[] body) {
+			this.status = status;
+			this.contentType = contentType;
+			this.body = body;
+		}
+
+		public int getStatus() {
+			return status;
+		}
+
+		public String getContentType() {
+			return contentType;
+		}
+
+		public byte[] getBody() {
+			return body;
+		}
+	}
+
+	private static final class Entry {
+
+		private final long expiresAt;
+
+		private final byte[] requestHash;
+
+		private final CompletableFuture<RecordedResponse> response = new CompletableFuture<>();
+
+		private Entry(final long expiresAt, final byte[] requestHash) {
+			this.expiresAt = expiresAt;
+			this.requestHash = requestHash;
+		}
+	}
+}
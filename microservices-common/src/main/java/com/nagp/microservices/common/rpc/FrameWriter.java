@@ -0,0 +1,84 @@
+package com.nagp.microservices.common.rpc;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes the frames of one connection on its own thread. Frames queued while
+ * the previous ones are written go out together with a single flush, so a busy
+ * connection needs far fewer writes than frames.
+ *
+ * @author vinodgodara
+ *
+ */
+public class FrameWriter implements Runnable {
+	private static final Logger LOGGER = LoggerFactory.getLogger(FrameWriter.class);
+
+	private static final byte[] CLOSE = new byte[0];
+
+	private final BlockingQueue<byte[]> frames = new LinkedBlockingQueue<>();
+
+	private final OutputStream output;
+
+	private final Runnable onFailure;
+
+	/**
+	 * @param output    Connection output.
+	 * @param onFailure Called once if the connection could not be written.
+	 */
+	public FrameWriter(final OutputStream output, final Runnable onFailure) {
+		this.output = new BufferedOutputStream(output, 16 << 10);
+		this.onFailure = onFailure;
+	}
+
+	/**
+	 * Queue a frame.
+	 *
+	 * @param frame The frame.
+	 */
+	public void write(final byte[] frame) {
+		frames.add(frame);
+	}
+
+	/**
+	 * Stop the writer once the queued frames are written.
+	 */
+	public void close() {
+		frames.add(CLOSE);
+	}
+
+	@Override
+	public void run() {
+		final List<byte[]> batch = new ArrayList<>();
+
+		try {
+			while (true) {
+				batch.add(frames.take());
+				frames.drainTo(batch);
+
+				for (final byte[] frame : batch) {
+					if (frame == CLOSE) {
+						output.flush();
+						return;
+					}
+					output.write(frame);
+				}
+				batch.clear();
+				output.flush();
+			}
+		} catch (IOException exc) {
+			LOGGER.warn("RPC connection could not be written.", exc);
+			onFailure.run();
+		} catch (InterruptedException exc) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,106 @@
+package com.nagp.microservices.common.rpc;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+
+/**
+ * Frames of the binary channel between account-services and user-services. A
+ * frame is its length followed by the body. Every request carries an ID that
+ * its response repeats, so many requests can be in flight on one connection
+ * and be answered in any order.
+ * <p>
+ * Request: ID (long), method (byte), user ID (UTF), account number (long).
+ * Response: ID (long), status (byte), message (UTF).
+ *
+ * @author vinodgodara
+ *
+ */
+public final class RpcProtocol {
+
+	public static final byte ADD_ACCOUNT = 1;
+
+	public static final byte REMOVE_ACCOUNT = 2;
+
+	public static final byte OK = 0;
+
+	public static final byte FAILED = 1;
+
+	// Eureka metadata key of the port the channel listens on.
+	public static final String RPC_PORT = "rpc-port";
+
+	private static final int MAX_FRAME_SIZE = 64 << 10;
+
+	private RpcProtocol() {
+	}
+
+	/**
+	 * Encode a request frame.
+	 *
+	 * @return The frame.
+	 * @throws IOException If the user ID is too long.
+	 */
+	public static byte[] request(final long id, final byte method, final String userID, final long accountNo)
+			throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+		final DataOutputStream output = new DataOutputStream(bytes);
+		output.writeInt(0);
+		output.writeLong(id);
+		output.writeByte(method);
+		output.writeUTF(userID);
+		output.writeLong(accountNo);
+		return withLength(bytes.toByteArray());
+	}
+
+	/**
+	 * Encode a response frame.
+	 *
+	 * @return The frame.
+	 * @throws IOException If the message is too long.
+	 */
+	public static byte[] response(final long id, final byte status, final String message) throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+		final DataOutputStream output = new DataOutputStream(bytes);
+		output.writeInt(0);
+		output.writeLong(id);
+		output.writeByte(status);
+		output.writeUTF(message);
+		return withLength(bytes.toByteArray());
+	}
+
+	/**
+	 * Read the body of the next frame.
+	 *
+	 * @param input Connection input.
+	 * @return The body, null at the end of the stream.
+	 * @throws IOException If the frame could not be read or is too large.
+	 */
+	public static DataInputStream readFrame(final DataInputStream input) throws IOException {
+		final int length;
+
+		try {
+			length = input.readInt();
+		} catch (EOFException exc) {
+			return null;
+		}
+		if (length < 0 || length > MAX_FRAME_SIZE) {
+			throw new IOException("Invalid frame length " + length);
+		}
+
+		final byte[] body = new byte[length];
+		input.readFully(body);
+		return new DataInputStream(new ByteArrayInputStream(body));
+	}
+
+	private static byte[] withLength(final byte[] frame) {
+		final int length = frame.length - Integer.BYTES;
+		frame[0] = (byte) (length >>> 24);
+		frame[1] = (byte) (length >>> 16);
+		frame[2] = (byte) (length >>> 8);
+		frame[3] = (byte) length;
+		return frame;
+	}
+}
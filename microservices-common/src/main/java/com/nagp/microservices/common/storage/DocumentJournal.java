@@ -0,0 +1,206 @@
+package com.nagp.microservices.common.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Append-only log of whole documents written since the last snapshot. Every
+ * append is forced to disk before it returns. Replaying a document means
+ * storing it again, so segments already part of a snapshot can be replayed
+ * without harm.
+ *
+ * @param <T> Document type.
+ *
+ * @author vinodgodara
+ *
+ */
+public class DocumentJournal<T> implements Closeable {
+
+	private static final String SEGMENT_SUFFIX = ".journal";
+
+	private final Path directory;
+
+	private final String prefix;
+
+	private final SnapshotFile.Codec<T> codec;
+
+	private FileChannel activeSegment;
+
+	private long segmentNumber;
+
+	public DocumentJournal(final Path directory, final String name, final SnapshotFile.Codec<T> codec)
+			throws IOException {
+		this.directory = directory;
+		this.prefix = name + "-";
+		this.codec = codec;
+		Files.createDirectories(directory);
+
+		for (final Path segment : segments()) {
+			segmentNumber = Math.max(segmentNumber, segmentNumber(segment));
+		}
+	}
+
+	/**
+	 * Append a document and force it to disk.
+	 *
+	 * @param document The document.
+	 * @throws IOException If the journal could not be written.
+	 */
+	public synchronized void append(final T document) throws IOException {
+		appendAll(Collections.singletonList(document));
+	}
+
+	/**
+	 * Append documents with one write and force them to disk together.
+	 *
+	 * @param documents The documents.
+	 * @throws IOException If the journal could not be written, none of the
+	 *                     documents is journaled then.
+	 */
+	public synchronized void appendAll(final List<T> documents) throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		for (final T document : documents) {
+			final ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+			final DataOutputStream output = new DataOutputStream(recordBytes);
+			output.writeInt(0);
+			codec.write(output, document);
+
+			final ByteBuffer record = ByteBuffer.wrap(recordBytes.toByteArray());
+			record.putInt(0, record.remaining() - Integer.BYTES);
+			bytes.write(record.array());
+		}
+
+		final ByteBuffer record = ByteBuffer.wrap(bytes.toByteArray());
+
+		if (activeSegment == null) {
+			activeSegment = FileChannel.open(directory.resolve(prefix + (++segmentNumber) + SEGMENT_SUFFIX),
+					StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+		}
+
+		final long position = activeSegment.size();
+		try {
+			while (record.hasRemaining()) {
+				activeSegment.write(record);
+			}
+			activeSegment.force(false);
+		} catch (IOException exc) {
+			// Drop a partially written record so that the next append starts on a record
+			// boundary.
+			activeSegment.truncate(position);
+			throw exc;
+		}
+	}
+
+	/**
+	 * Close the active segment so that the next append starts a new one.
+	 *
+	 * @return All closed segments, oldest first.
+	 * @throws IOException If the active segment could not be closed.
+	 */
+	public synchronized List<Path> rotate() throws IOException {
+		if (activeSegment != null) {
+			activeSegment.close();
+			activeSegment = null;
+		}
+		return segments();
+	}
+
+	/**
+	 * Number of the newest segment, also once it is deleted.
+	 *
+	 * @return The segment number, 0 if no segment was ever started.
+	 */
+	public synchronized long lastSegmentNumber() {
+		return segmentNumber;
+	}
+
+	/**
+	 * Number new segments after the given one, which may already be deleted.
+	 *
+	 * @param lastSegmentNumber Number of a segment started before.
+	 */
+	public synchronized void continueAfter(final long lastSegmentNumber) {
+		segmentNumber = Math.max(segmentNumber, lastSegmentNumber);
+	}
+
+	/**
+	 * Read every complete document of a segment. A partially written record at
+	 * the end of the segment (crash during append) is ignored.
+	 *
+	 * @param segment  Segment file.
+	 * @param consumer Receives the documents in append order.
+	 * @return Number of documents read.
+	 * @throws IOException If the segment could not be read.
+	 */
+	public int read(final Path segment, final Consumer<T> consumer) throws IOException {
+		final ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(segment));
+		int count = 0;
+
+		while (content.remaining() >= Integer.BYTES) {
+			final int length = content.getInt();
+
+			if (length > content.remaining()) {
+				break;
+			}
+
+			final DataInputStream input = new DataInputStream(
+					new ByteArrayInputStream(content.array(), content.position(), length));
+			consumer.accept(codec.read(input));
+			content.position(content.position() + length);
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Delete a segment once its documents are part of a snapshot.
+	 *
+	 * @param segment Segment file.
+	 * @throws IOException If the segment could not be deleted.
+	 */
+	public void delete(final Path segment) throws IOException {
+		Files.deleteIfExists(segment);
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		rotate();
+	}
+
+	private List<Path> segments() throws IOException {
+		final List<Path> segments = new ArrayList<>();
+
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, prefix + "*" + SEGMENT_SUFFIX)) {
+			stream.forEach(segments::add);
+		}
+		segments.sort(Comparator.comparingLong(this::segmentNumber));
+		return segments;
+	}
+
+	/**
+	 * Number of a segment, segments are numbered in the order they were started.
+	 *
+	 * @param segment Segment file.
+	 * @return The segment number.
+	 */
+	public long segmentNumber(final Path segment) {
+		final String name = segment.getFileName().toString();
+		return Long.parseLong(name.substring(prefix.length(), name.length() - SEGMENT_SUFFIX.length()));
+	}
+}
@@ -0,0 +1,138 @@
+package com.nagp.microservices.common.storage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * Compact binary image of a whole collection. A snapshot is written to a
+ * temporary file, synced and moved into place, so the file on disk is always a
+ * complete snapshot. The directory is synced after the move, so that the new
+ * snapshot survives a crash before the journal it replaces is deleted.
+ *
+ * @param <T> Document type.
+ *
+ * @author vinodgodara
+ *
+ */
+public class SnapshotFile<T> {
+
+	private static final int MAGIC = 0x534E4150;
+
+	private static final int VERSION = 1;
+
+	private static final boolean WINDOWS = System.getProperty("os.name", "").startsWith("Windows");
+
+	/**
+	 * Binary encoding of a single document.
+	 */
+	public interface Codec<T> {
+		void write(DataOutputStream output, T document) throws IOException;
+
+		T read(DataInputStream input) throws IOException;
+	}
+
+	private final Path file;
+
+	private final Codec<T> codec;
+
+	public SnapshotFile(final Path file, final Codec<T> codec) {
+		this.file = file;
+		this.codec = codec;
+	}
+
+	public boolean exists() {
+		return Files.exists(file);
+	}
+
+	/**
+	 * Replace the snapshot.
+	 *
+	 * @param sequence  Position in the journal the snapshot includes.
+	 * @param documents All documents of the collection.
+	 * @throws IOException If the snapshot could not be written.
+	 */
+	public void write(final long sequence, final Collection<T> documents) throws IOException {
+		final Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+
+		try (FileOutputStream stream = new FileOutputStream(temporary.toFile());
+				DataOutputStream output = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16))) {
+			output.writeInt(MAGIC);
+			output.writeInt(VERSION);
+			output.writeLong(sequence);
+			output.writeInt(documents.size());
+
+			for (final T document : documents) {
+				codec.write(output, document);
+			}
+			output.flush();
+			stream.getFD().sync();
+		}
+		Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		forceDirectory(file.toAbsolutePath().getParent());
+	}
+
+	/**
+	 * Read every document of the snapshot.
+	 *
+	 * @param consumer Receives the documents.
+	 * @return Position in the journal the snapshot includes.
+	 * @throws IOException If the snapshot could not be read.
+	 */
+	public long read(final Consumer<T> consumer) throws IOException {
+		try (DataInputStream input = new DataInputStream(
+				new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+			if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+				throw new IOException("Unknown snapshot format: " + file);
+			}
+
+			final long sequence = input.readLong();
+			final int count = input.readInt();
+
+			for (int i = 0; i < count; i++) {
+				consumer.accept(codec.read(input));
+			}
+			return sequence;
+		}
+	}
+
+	/**
+	 * Sync the entries of a directory. Windows cannot open a directory as a file,
+	 * there the move is left to the metadata journal of NTFS.
+	 */
+	private static void forceDirectory(final Path directory) throws IOException {
+		if (WINDOWS) {
+			return;
+		}
+		try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+			channel.force(true);
+		}
+	}
+
+	/**
+	 * Write a string that may be null.
+	 */
+	public static void writeNullable(final DataOutputStream output, final String value) throws IOException {
+		output.writeBoolean(value != null);
+		if (value != null) {
+			output.writeUTF(value);
+		}
+	}
+
+	/**
+	 * Read a string written by {@link #writeNullable(DataOutputStream, String)}.
+	 */
+	public static String readNullable(final DataInputStream input) throws IOException {
+		return input.readBoolean() ? input.readUTF() : null;
+	}
+}
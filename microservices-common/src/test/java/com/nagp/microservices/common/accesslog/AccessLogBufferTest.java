@@ -0,0 +1,151 @@
+package com.nagp.microservices.common.accesslog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class AccessLogBufferTest {
+
+	private static final int WRITERS = 4;
+
+	private static final int RECORDS_PER_WRITER = 20_000;
+
+	private final ExecutorService writers = Executors.newFixedThreadPool(WRITERS);
+
+	@AfterEach
+	void stop() {
+		writers.shutdownNow();
+	}
+
+	@Test
+	void losesAndTearsNoRecordWhileTheRingWrapsAround() throws Exception {
+		// Eight slots, so the ring wraps around thousands of times.
+		final AccessLogBuffer buffer = new AccessLogBuffer(8);
+		final CountDownLatch ready = new CountDownLatch(1);
+		final List<Future<?>> done = new ArrayList<>();
+
+		for (int writer = 0; writer < WRITERS; writer++) {
+			final int id = writer;
+			done.add(writers.submit(() -> {
+				ready.await();
+				for (int record = 0; record < RECORDS_PER_WRITER; record++) {
+					// Retry instead of dropping, so every record must come out.
+					while (!buffer.offer(record, record, 200, false, "W" + id, path(id, record), "route")) {
+						Thread.yield();
+					}
+				}
+				return null;
+			}));
+		}
+
+		final int[] next = new int[WRITERS];
+		final List<String> torn = new ArrayList<>();
+		final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+		ready.countDown();
+
+		int drained = 0;
+		while (drained < WRITERS * RECORDS_PER_WRITER && System.nanoTime() < deadline) {
+			drained += buffer.drain(5, line -> {
+				final int writer = line.charAt(line.indexOf(" W") + 2) - '0';
+				final String expected = line(writer, next[writer]++);
+
+				if (!line.equals(expected) && torn.size() < 10) {
+					torn.add(line + " instead of " + expected);
+				}
+			});
+		}
+
+		for (final Future<?> writer : done) {
+			writer.get(1, TimeUnit.SECONDS);
+		}
+		assertEquals(Collections.emptyList(), torn);
+		assertEquals(WRITERS * RECORDS_PER_WRITER, drained);
+		for (final int records : next) {
+			assertEquals(RECORDS_PER_WRITER, records);
+		}
+	}
+
+	@Test
+	void truncatesAnOversizedRecordToItsSlot() {
+		final AccessLogBuffer buffer = new AccessLogBuffer(4);
+		final String long1 = repeat('a', 300);
+		final String long2 = repeat('b', 300);
+
+		assertTrue(buffer.offer(0, 1500, 500, true, long1, long2, "route", "query", "client", "error"));
+		assertTrue(buffer.offer(0, 1500, 200, false, "GET", "/next", "route"));
+
+		final List<String> lines = new ArrayList<>();
+		assertEquals(2, buffer.drain(10, lines::add));
+
+		// 19 bytes of fixed fields, a length byte and 255 characters of the first
+		// field leave 236 characters of the second one; no field follows.
+		assertEquals("1970-01-01T00:00:00Z " + repeat('a', 255) + ' ' + repeat('b', 236)
+				+ " route= status=500 time=1.500ms query= client= error=\"\"", lines.get(0));
+
+		// The next slot is untouched.
+		assertEquals("1970-01-01T00:00:00Z GET /next route=route status=200 time=1.500ms", lines.get(1));
+	}
+
+	@Test
+	void replacesCharactersBeyondLatin1() {
+		final AccessLogBuffer buffer = new AccessLogBuffer(4);
+
+		buffer.offer(0, 0, 200, false, "GET", "/café/€", null);
+
+		final List<String> lines = new ArrayList<>();
+		buffer.drain(10, lines::add);
+		assertEquals(Arrays.asList("1970-01-01T00:00:00Z GET /café/? route= status=200 time=0.000ms"), lines);
+	}
+
+	@Test
+	void dropsAndCountsRecordsWhileTheRingIsFull() {
+		final AccessLogBuffer buffer = new AccessLogBuffer(4);
+
+		for (int i = 0; i < 4; i++) {
+			assertTrue(buffer.offer(i, 0, 200, false, "GET", "/" + i, "route"));
+		}
+		assertFalse(buffer.offer(4, 0, 200, false, "GET", "/4", "route"));
+		assertFalse(buffer.offer(5, 0, 200, false, "GET", "/5", "route"));
+		assertEquals(2, buffer.takeDropped());
+		assertEquals(0, buffer.takeDropped());
+
+		assertEquals(1, buffer.drain(1, line -> {
+		}));
+		assertTrue(buffer.offer(6, 0, 200, false, "GET", "/6", "route"));
+	}
+
+	/**
+	 * Path of a record, up to the longest field, so that torn records differ in
+	 * length as well.
+	 */
+	private static String path(final int writer, final int record) {
+		return "/" + writer + "/" + record + "/" + repeat((char) ('a' + record % 26), record % 240);
+	}
+
+	private static String line(final int writer, final int record) {
+		return DateTimeFormatter.ISO_INSTANT.format(Instant.ofEpochMilli(record)) + " W" + writer + ' '
+				+ path(writer, record) + " route=route status=200 time="
+				+ String.format("%d.%03dms", record / 1000, record % 1000);
+	}
+
+	private static String repeat(final char c, final int count) {
+		final char[] chars = new char[count];
+		Arrays.fill(chars, c);
+		return new String(chars);
+	}
+}
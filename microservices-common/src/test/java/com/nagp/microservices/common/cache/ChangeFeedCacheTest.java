@@ -0,0 +1,244 @@
+package com.nagp.microservices.common.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongFunction;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.nagp.microservices.common.cache.ChangeFeedCache.Changes;
+
+class ChangeFeedCacheTest {
+
+	private final ScriptedCache cache = new ScriptedCache();
+
+	@BeforeEach
+	void start() {
+		cache.start();
+	}
+
+	@AfterEach
+	void stop() {
+		cache.shutdown();
+	}
+
+	@Test
+	void cachesNothingUntilTheFeedIsFollowed() {
+		cache.owner.put(1L, new Document(1, "v1"));
+
+		cache.find(1);
+		cache.find(1);
+		assertEquals(2, cache.fetches.get());
+
+		follow("e1", 5);
+		cache.find(1);
+		assertEquals("v1", cache.find(1).value);
+		assertEquals(3, cache.fetches.get());
+	}
+
+	@Test
+	void appliesChangesToCachedDocumentsOnly() {
+		follow("e1", 5);
+		cache.owner.put(1L, new Document(1, "v1"));
+		cache.owner.put(2L, new Document(2, "v1"));
+		cache.find(1);
+
+		cache.feed.add(new Changes<>(false, "e1", 6, Arrays.asList(new Document(1, "v2"), new Document(2, "v2"))));
+		awaitPoll("e1", 6);
+
+		assertEquals("v2", cache.find(1).value);
+		assertEquals(1, cache.fetches.get());
+		// Not cached before, so fetched from the owner.
+		assertEquals("v1", cache.find(2).value);
+		assertEquals(2, cache.fetches.get());
+	}
+
+	@Test
+	void reloadsEverythingWhenTheOwnerRestarts() {
+		follow("e1", 5);
+		cache.owner.put(1L, new Document(1, "v1"));
+		cache.find(1);
+
+		// Sequence numbers start over, the change of v2 was never seen.
+		cache.owner.put(1L, new Document(1, "v2"));
+		follow("e2", 1);
+
+		assertEquals("v2", cache.find(1).value);
+		assertEquals(2, cache.fetches.get());
+	}
+
+	@Test
+	void reloadsEverythingAfterMissingChanges() {
+		follow("e1", 5);
+		cache.owner.put(1L, new Document(1, "v1"));
+		cache.find(1);
+
+		// The feed no longer holds the changes after 5.
+		cache.owner.put(1L, new Document(1, "v2"));
+		cache.feed.add(new Changes<>(true, "e1", 100, null));
+		awaitPoll("e1", 100);
+
+		assertEquals("v2", cache.find(1).value);
+		assertEquals(2, cache.fetches.get());
+	}
+
+	@Test
+	void keepsNoDocumentFetchedWhileAChangeCameIn() {
+		follow("e1", 5);
+		cache.onFetch = key -> {
+			// The document changes after it was read, before it is returned.
+			cache.owner.put(key, new Document(key, "v2"));
+			cache.feed.add(new Changes<>(false, "e1", 6, Collections.singletonList(new Document(key, "v2"))));
+			awaitPoll("e1", 6);
+			return new Document(key, "v1");
+		};
+
+		assertEquals("v1", cache.find(1).value);
+
+		cache.onFetch = cache.owner::get;
+		assertEquals("v2", cache.find(1).value);
+		assertEquals(2, cache.fetches.get());
+	}
+
+	@Test
+	void dropsEverythingWhileTheFeedIsUnreachable() {
+		follow("e1", 5);
+		cache.owner.put(1L, new Document(1, "v1"));
+		cache.find(1);
+
+		cache.feed.add(ScriptedCache.UNREACHABLE);
+		// Followed from the start again after a second.
+		awaitPoll("e1", -1);
+
+		cache.owner.put(1L, new Document(1, "v2"));
+		assertEquals("v2", cache.find(1).value);
+		assertEquals(2, cache.fetches.get());
+	}
+
+	@Test
+	void cachesNoMissingDocument() {
+		follow("e1", 5);
+
+		assertNull(cache.find(1));
+		assertNull(cache.find(1));
+		assertEquals(2, cache.fetches.get());
+	}
+
+	@Test
+	void fetchesAnInvalidatedDocumentAgain() {
+		follow("e1", 5);
+		cache.owner.put(1L, new Document(1, "v1"));
+		cache.find(1);
+
+		cache.owner.put(1L, new Document(1, "v2"));
+		cache.invalidate(1);
+		assertEquals("v2", cache.find(1).value);
+	}
+
+	/**
+	 * Have the feed answer with a sequence number and wait until it is applied.
+	 */
+	private void follow(final String epoch, final long sequence) {
+		cache.feed.add(new Changes<>(false, epoch, sequence, Collections.emptyList()));
+		awaitPoll(epoch, sequence);
+	}
+
+	/**
+	 * Wait until the cache asks for the changes after a sequence number, so it
+	 * has applied everything before.
+	 */
+	private void awaitPoll(final String epoch, final long after) {
+		final String expected = epoch + '/' + after;
+		final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+
+		try {
+			while (System.nanoTime() < deadline) {
+				if (expected.equals(cache.polls.poll(100, TimeUnit.MILLISECONDS))) {
+					return;
+				}
+			}
+		} catch (InterruptedException exc) {
+			Thread.currentThread().interrupt();
+		}
+		throw new AssertionError("The cache never asked for the changes after " + expected);
+	}
+
+	private static final class Document {
+
+		private final long key;
+
+		private final String value;
+
+		private Document(final long key, final String value) {
+			this.key = key;
+			this.value = value;
+		}
+	}
+
+	/**
+	 * Cache of an owner kept in a map, whose change feed answers what the test
+	 * puts in the feed queue.
+	 */
+	private static final class ScriptedCache extends ChangeFeedCache<Document> {
+
+		// Fails the request for changes instead of answering it.
+		private static final Changes<Document> UNREACHABLE = new Changes<>(false, "", 0, null);
+
+		private final Map<Long, Document> owner = new ConcurrentHashMap<>();
+
+		private final BlockingQueue<Changes<Document>> feed = new LinkedBlockingQueue<>();
+
+		// Every request for changes, as epoch/after.
+		private final BlockingQueue<String> polls = new LinkedBlockingQueue<>();
+
+		private final AtomicInteger fetches = new AtomicInteger();
+
+		private volatile LongFunction<Document> onFetch = owner::get;
+
+		private ScriptedCache() {
+			super("test-change-feed", 20);
+		}
+
+		@Override
+		protected Document fetch(final long key) {
+			fetches.incrementAndGet();
+			return onFetch.apply(key);
+		}
+
+		@Override
+		protected Changes<Document> changes(final String epoch, final long after, final long timeoutMillis) {
+			polls.add(epoch + '/' + after);
+
+			final Changes<Document> changes;
+			try {
+				changes = feed.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException exc) {
+				throw new RuntimeException("Interrupted while waiting for changes.");
+			}
+
+			if (changes == null) {
+				return new Changes<>(false, epoch, after, Collections.emptyList());
+			}
+			if (changes == UNREACHABLE) {
+				throw new RuntimeException("Owner is unreachable.");
+			}
+			return changes;
+		}
+
+		@Override
+		protected long keyOf(final Document document) {
+			return document.key;
+		}
+	}
+}
@@ -0,0 +1,133 @@
+package com.nagp.microservices.common.idempotency;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class IdempotencyFilterTest {
+
+	private static final String ERROR = "Some internal error occurred. Please try again later after some time.";
+
+	private final IdempotencyFilter filter = new IdempotencyFilter();
+
+	private final AtomicInteger runs = new AtomicInteger();
+
+	// Answered by the service for the next request.
+	private int status;
+
+	private String answer;
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(filter, "idempotencyStore", new IdempotencyStore(100, 60_000));
+		ReflectionTestUtils.setField(filter, "maxResponseBytes", 65536);
+		ReflectionTestUtils.setField(filter, "waitMillis", 1000L);
+		ReflectionTestUtils.setField(filter, "clientHeader", "X-API-Key");
+		ReflectionTestUtils.setField(filter, "maxRequestBytes", 1024);
+		ReflectionTestUtils.setField(filter, "errorBodies", new String[] { ERROR });
+		status = HttpServletResponse.SC_OK;
+		answer = "Success";
+	}
+
+	@Test
+	void replaysASuccess() throws Exception {
+		assertEquals("Success", post("key-1", "client", "{\"amount\":10}").getContentAsString());
+		final MockHttpServletResponse replayed = post("key-1", "client", "{\"amount\":10}");
+
+		assertEquals("Success", replayed.getContentAsString());
+		assertEquals("true", replayed.getHeader(IdempotencyFilter.REPLAYED));
+		assertEquals(1, runs.get());
+	}
+
+	@Test
+	void runsAgainAfterAFallback() throws Exception {
+		answer = ERROR;
+		assertEquals(ERROR, post("key-1", "client", "{\"amount\":10}").getContentAsString());
+
+		answer = "Success";
+		assertEquals("Success", post("key-1", "client", "{\"amount\":10}").getContentAsString());
+		assertEquals(2, runs.get());
+	}
+
+	@Test
+	void runsAgainAfterAnErrorStatus() throws Exception {
+		status = HttpServletResponse.SC_CONFLICT;
+		post("key-1", "client", "{\"amount\":10}");
+
+		status = HttpServletResponse.SC_OK;
+		assertEquals("Success", post("key-1", "client", "{\"amount\":10}").getContentAsString());
+		assertEquals(2, runs.get());
+	}
+
+	@Test
+	void refusesTheKeyForAnotherBody() throws Exception {
+		post("key-1", "client", "{\"amount\":10}");
+
+		assertEquals(422, post("key-1", "client", "{\"amount\":20}").getStatus());
+		assertEquals(1, runs.get());
+	}
+
+	@Test
+	void scopesTheKeyToTheClient() throws Exception {
+		post("key-1", "client", "{\"amount\":10}");
+		post("key-1", "other", "{\"amount\":20}");
+
+		assertEquals(2, runs.get());
+	}
+
+	@Test
+	void refusesABodyTooLargeToHash() throws Exception {
+		final MockHttpServletResponse response = post("key-1", "client", new String(new char[2000]));
+
+		assertEquals(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, response.getStatus());
+		assertEquals(0, runs.get());
+	}
+
+	@Test
+	void passesTheBodyOn() throws Exception {
+		final StringBuilder seen = new StringBuilder();
+		final MockHttpServletRequest request = request("key-1", "client", "{\"amount\":10}");
+
+		filter.doFilterInternal(request, new MockHttpServletResponse(), (req, res) -> {
+			final byte[] body = new byte[64];
+			final int read = req.getInputStream().read(body, 0, body.length);
+			seen.append(new String(body, 0, read, StandardCharsets.UTF_8));
+		});
+		assertEquals("{\"amount\":10}", seen.toString());
+	}
+
+	private MockHttpServletResponse post(final String key, final String client, final String body)
+			throws IOException, ServletException {
+		final MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilterInternal(request(key, client, body), response, service());
+		return response;
+	}
+
+	private static MockHttpServletRequest request(final String key, final String client, final String body) {
+		final MockHttpServletRequest request = new MockHttpServletRequest("POST", "/deposit");
+		request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY, key);
+		request.addHeader("X-API-Key", client);
+		request.setContent(body.getBytes(StandardCharsets.UTF_8));
+		return request;
+	}
+
+	private FilterChain service() {
+		return (request, response) -> {
+			runs.incrementAndGet();
+			((HttpServletResponse) response).setStatus(status);
+			response.getOutputStream().write(answer.getBytes(StandardCharsets.UTF_8));
+		};
+	}
+}
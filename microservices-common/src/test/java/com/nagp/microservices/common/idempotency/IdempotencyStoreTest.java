@@ -0,0 +1,96 @@
+package com.nagp.microservices.common.idempotency;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+
+import com.nagp.microservices.common.idempotency.IdempotencyStore.RecordedResponse;
+
+class IdempotencyStoreTest {
+
+	private static final String KEY = "/operations/deposit client key-1";
+
+	private static final byte[] HASH = { 1, 2, 3 };
+
+	private final IdempotencyStore store = new IdempotencyStore(100, 60_000);
+
+	@Test
+	void replaysTheRecordedResponse() throws Exception {
+		assertNull(store.begin(KEY, HASH));
+		final RecordedResponse response = new RecordedResponse(200, "application/json",
+				"Success".getBytes(StandardCharsets.UTF_8));
+		store.complete(KEY, response);
+
+		final CompletableFuture<RecordedResponse> replayed = store.begin(KEY, HASH);
+		assertNotNull(replayed);
+		assertSame(response, replayed.get());
+		assertArrayEquals("Success".getBytes(StandardCharsets.UTF_8), replayed.get().getBody());
+	}
+
+	@Test
+	void repeatedRequestWaitsForTheFirst() throws Exception {
+		assertNull(store.begin(KEY, HASH));
+		final CompletableFuture<RecordedResponse> waiting = store.begin(KEY, HASH);
+		assertFalse(waiting.isDone());
+
+		store.complete(KEY, new RecordedResponse(201, null, new byte[0]));
+		assertEquals(201, waiting.get().getStatus());
+	}
+
+	@Test
+	void abandonedRequestRunsAgain() throws Exception {
+		assertNull(store.begin(KEY, HASH));
+		final CompletableFuture<RecordedResponse> waiting = store.begin(KEY, HASH);
+
+		store.abandon(KEY);
+		assertNull(waiting.get());
+		assertNull(store.begin(KEY, HASH));
+	}
+
+	@Test
+	void keysAreScopedToTheEndpoint() {
+		assertNull(store.begin("/operations/deposit key-1", HASH));
+		assertNull(store.begin("/operations/withdraw key-1", HASH));
+	}
+
+	@Test
+	void refusesTheKeyForAnotherRequest() throws Exception {
+		assertNull(store.begin(KEY, HASH));
+		assertSame(IdempotencyStore.OTHER_REQUEST, store.begin(KEY, new byte[] { 4, 5, 6 }));
+
+		store.complete(KEY, new RecordedResponse(200, null, new byte[0]));
+		assertSame(IdempotencyStore.OTHER_REQUEST, store.begin(KEY, new byte[] { 4, 5, 6 }));
+		assertEquals(200, store.begin(KEY, HASH).get().getStatus());
+	}
+
+	@Test
+	void dropsTheOldestBeyondTheLimit() throws Exception {
+		final IdempotencyStore small = new IdempotencyStore(2, 60_000);
+		assertNull(small.begin("a", HASH));
+		final CompletableFuture<RecordedResponse> first = small.begin("a", HASH);
+		assertNull(small.begin("b", HASH));
+		assertNull(small.begin("c", HASH));
+
+		// "a" was dropped to make room, waiters see it as not finished.
+		assertNull(first.get());
+		assertNull(small.begin("a", HASH));
+	}
+
+	@Test
+	void expiresAfterTheTtl() throws Exception {
+		final IdempotencyStore shortLived = new IdempotencyStore(100, 20);
+		assertNull(shortLived.begin(KEY, HASH));
+		shortLived.complete(KEY, new RecordedResponse(200, null, new byte[0]));
+
+		Thread.sleep(50);
+		assertNull(shortLived.begin(KEY, HASH));
+	}
+}
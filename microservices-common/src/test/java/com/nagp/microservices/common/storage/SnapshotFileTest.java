@@ -0,0 +1,60 @@
+package com.nagp.microservices.common.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SnapshotFileTest {
+
+	private static final SnapshotFile.Codec<String> CODEC = new SnapshotFile.Codec<String>() {
+		@Override
+		public void write(final DataOutputStream output, final String document) throws IOException {
+			SnapshotFile.writeNullable(output, document);
+		}
+
+		@Override
+		public String read(final DataInputStream input) throws IOException {
+			return SnapshotFile.readNullable(input);
+		}
+	};
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void replacesTheSnapshotWithoutLeavingTheTemporaryFile() throws IOException {
+		final SnapshotFile<String> snapshot = new SnapshotFile<>(directory.resolve("users.snapshot"), CODEC);
+		assertFalse(snapshot.exists());
+
+		snapshot.write(5, Arrays.asList("a", null));
+		snapshot.write(7, Arrays.asList("b", "c", null));
+
+		final List<String> documents = new ArrayList<>();
+		assertEquals(7, snapshot.read(documents::add));
+		assertEquals(Arrays.asList("b", "c", null), documents);
+		assertTrue(snapshot.exists());
+		assertFalse(Files.exists(directory.resolve("users.snapshot.tmp")));
+	}
+
+	@Test
+	void refusesAFileOfAnotherFormat() throws IOException {
+		final Path file = directory.resolve("users.snapshot");
+		Files.write(file, new byte[16]);
+
+		assertThrows(IOException.class, () -> new SnapshotFile<>(file, CODEC).read(document -> {
+		}));
+	}
+}
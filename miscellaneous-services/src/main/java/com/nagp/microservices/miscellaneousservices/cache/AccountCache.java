@@ -0,0 +1,44 @@
+package com.nagp.microservices.miscellaneousservices.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.nagp.microservices.common.cache.ChangeFeedCache;
+import com.nagp.microservices.miscellaneousservices.model.Account;
+import com.nagp.microservices.miscellaneousservices.model.AccountChanges;
+import com.nagp.microservices.miscellaneousservices.proxies.AccountStoreProxy;
+
+/**
+ * Local copy of the accounts owned by operation-services, following the change
+ * feed of the account store. Balances are not kept current.
+ *
+ * @author vinodgodara
+ *
+ */
+@Component
+public class AccountCache extends ChangeFeedCache<Account> {
+
+	private final AccountStoreProxy accountStore;
+
+	public AccountCache(final AccountStoreProxy accountStore,
+			@Value("${account-store.change-poll-timeout-ms:500}") final long pollTimeoutMillis) {
+		super("account-change-listener", pollTimeoutMillis);
+		this.accountStore = accountStore;
+	}
+
+	@Override
+	protected Account fetch(final long accountNO) {
+		return accountStore.getAccount(Long.toString(accountNO));
+	}
+
+	@Override
+	protected Changes<Account> changes(final String epoch, final long after, final long timeoutMillis) {
+		final AccountChanges changes = accountStore.changes(epoch, after, timeoutMillis);
+		return new Changes<>(changes.isReset(), changes.getEpoch(), changes.getSequence(), changes.getAccounts());
+	}
+
+	@Override
+	protected long keyOf(final Account account) {
+		return account.getAccountNO();
+	}
+}
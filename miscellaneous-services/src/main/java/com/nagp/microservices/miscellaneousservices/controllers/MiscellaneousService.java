@@ -4,18 +4,18 @@ import java.util.Objects;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.context.config.annotation.RefreshScope;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.nagp.microservices.miscellaneousservices.cache.AccountCache;
 import com.nagp.microservices.miscellaneousservices.model.Account;
+import com.nagp.microservices.miscellaneousservices.proxies.AccountStoreProxy;
 import com.nagp.microservices.miscellaneousservices.util.UserServiceConstants;
 import com.netflix.hystrix.contrib.javanica.annotation.HystrixCommand;
 
-import io.jsondb.InvalidJsonDbApiUsageException;
-import io.jsondb.JsonDBTemplate;
-
 /**
  * Controller for REST APIs related to issuing and blocking checque books.
  * 
@@ -27,22 +27,12 @@ import io.jsondb.JsonDBTemplate;
 public class MiscellaneousService {
 	private final static Logger LOGGER = LoggerFactory.getLogger(MiscellaneousService.class);
 
-	// Actual location on disk for database files, process should have read-write
-	// permissions to this folder
-	private String dbFilesLocation = "C:\\";
-
-	// Java package name where POJO's are present
-	private final String baseScanPackage = "com.nagp.microservices.miscellaneousservices.model";
-
-	private final JsonDBTemplate jsonDBTemplate = new JsonDBTemplate(dbFilesLocation, baseScanPackage, null);
+	// Accounts are owned by operation-services.
+	@Autowired
+	private AccountStoreProxy accountStore;
 
-	public MiscellaneousService() {
-		try {
-			jsonDBTemplate.createCollection(Account.class);
-		} catch (InvalidJsonDbApiUsageException exc) {
-			LOGGER.warn("Collection already exists.");
-		}
-	}
+	@Autowired
+	private AccountCache accountCache;
 
 	/**
 	 * REST API for ordering a checkbook.
@@ -61,13 +51,18 @@ public class MiscellaneousService {
 		// If account number is 0, throw exception.
 		if (accountNumber != 0) {
 
-			// Fetch existing account from DB.
-			final Account account = jsonDBTemplate.findById(accountNumber, Account.class);
+			// Fetch existing account.
+			final Account account = accountCache.find(accountNumber);
 
 			if (Objects.nonNull(account) && account.isActive()) {
-				// Update DB.
-				account.setInChecqueBookIssued(Boolean.TRUE);
-				jsonDBTemplate.upsert(account);
+				// Update the account store.
+				final String response = accountStore.setChequeBookIssued(accountNO, Boolean.TRUE.toString());
+				accountCache.invalidate(accountNumber);
+
+				if (!UserServiceConstants.ACCOUNT_STORE_SUCCESS.equals(response)) {
+					LOGGER.error("Error while updating account.");
+					throw new RuntimeException("Account could not be updated.");
+				}
 				return UserServiceConstants.SUCCESS;
 			} else {
 				LOGGER.error("Account with provided account number does not exist.");
@@ -96,14 +91,19 @@ public class MiscellaneousService {
 		// If account number is 0, throw exception.
 		if (accountNumber != 0) {
 
-			// Fetch account number from DB.
-			final Account account = jsonDBTemplate.findById(accountNumber, Account.class);
+			// Fetch account.
+			final Account account = accountCache.find(accountNumber);
 
 			if (Objects.nonNull(account) && account.isActive()) {
 
-				// Update in DB.
-				account.setInChecqueBookIssued(Boolean.FALSE);
-				jsonDBTemplate.upsert(account);
+				// Update in the account store.
+				final String response = accountStore.setChequeBookIssued(accountNO, Boolean.FALSE.toString());
+				accountCache.invalidate(accountNumber);
+
+				if (!UserServiceConstants.ACCOUNT_STORE_SUCCESS.equals(response)) {
+					LOGGER.error("Error while updating account.");
+					throw new RuntimeException("Account could not be updated.");
+				}
 				return UserServiceConstants.SUCCESS;
 			} else {
 				LOGGER.error("Account is either closed or does not exist.");
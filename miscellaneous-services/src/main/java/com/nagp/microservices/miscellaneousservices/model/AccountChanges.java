@@ -0,0 +1,59 @@
+package com.nagp.microservices.miscellaneousservices.model;
+
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Accounts changed since the sequence number a reader passed in.
+ *
+ * @author vinodgodara
+ *
+ */
+@Component
+public class AccountChanges {
+
+	// Run of the account store the sequence number belongs to, to pass in with
+	// the next request.
+	private String epoch;
+
+	// Sequence number to pass in with the next request.
+	private long sequence;
+
+	// The reader fell too far behind and has to drop everything it cached.
+	private boolean reset;
+
+	private List<Account> accounts;
+
+	public String getEpoch() {
+		return epoch;
+	}
+
+	public void setEpoch(String epoch) {
+		this.epoch = epoch;
+	}
+
+	public long getSequence() {
+		return sequence;
+	}
+
+	public void setSequence(long sequence) {
+		this.sequence = sequence;
+	}
+
+	public boolean isReset() {
+		return reset;
+	}
+
+	public void setReset(boolean reset) {
+		this.reset = reset;
+	}
+
+	public List<Account> getAccounts() {
+		return accounts;
+	}
+
+	public void setAccounts(List<Account> accounts) {
+		this.accounts = accounts;
+	}
+}
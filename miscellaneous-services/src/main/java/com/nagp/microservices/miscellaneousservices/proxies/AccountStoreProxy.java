@@ -0,0 +1,36 @@
+package com.nagp.microservices.miscellaneousservices.proxies;
+
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import com.nagp.microservices.miscellaneousservices.model.Account;
+import com.nagp.microservices.miscellaneousservices.model.AccountChanges;
+
+/**
+ * Client of the account store of operation-services. Calls go straight to an
+ * operation-services instance from Eureka, load balanced by Ribbon over pooled
+ * connections. The gateways do not route the account store, it is only for
+ * the other services.
+ * 
+ * @author vinodgodara
+ *
+ */
+@Component
+@FeignClient(name = "${account-store.client.service:operation-services}", path = "${account-store.client.path:}", contextId = "accountStoreProxy")
+public interface AccountStoreProxy {
+
+	@GetMapping(path = "/accountStore/getAccount/{accountNO}", produces = "application/json")
+	public Account getAccount(@PathVariable String accountNO);
+
+	@PostMapping(path = "/accountStore/setChequeBookIssued/{accountNO}/{issued}", consumes = "application/json", produces = "application/json")
+	public String setChequeBookIssued(@PathVariable String accountNO, @PathVariable String issued);
+
+	@GetMapping(path = "/accountStore/changes", produces = "application/json")
+	public AccountChanges changes(@RequestParam("epoch") String epoch, @RequestParam("after") long after,
+			@RequestParam("timeoutMillis") long timeoutMillis);
+
+}
@@ -9,5 +9,8 @@ package com.nagp.microservices.miscellaneousservices.util;
 public class UserServiceConstants {
 	public static final String SUCCESS = "Success";
 
+	// Success message of the operation-services account store.
+	public static final String ACCOUNT_STORE_SUCCESS = "Success.";
+
 	public static final String ERROR = "Some internal error occurred. Please try again later after some time.";
 }
\ No newline at end of file
@@ -2,8 +2,13 @@ package com.nagp.microservices.operationservices;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Import;
+
+import com.nagp.microservices.common.config.VirtualThreadConfiguration;
+import com.nagp.microservices.common.idempotency.IdempotencyConfiguration;
 
 @SpringBootApplication
+@Import({ IdempotencyConfiguration.class, VirtualThreadConfiguration.class })
 public class OperationServicesApplication {
 
 	public static void main(String[] args) {
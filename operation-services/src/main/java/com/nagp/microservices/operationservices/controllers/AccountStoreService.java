@@ -0,0 +1,299 @@
+package com.nagp.microservices.operationservices.controllers;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.context.config.annotation.RefreshScope;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import com.nagp.microservices.operationservices.ledger.TransactionLedger;
+import com.nagp.microservices.operationservices.model.Account;
+import com.nagp.microservices.operationservices.model.AccountChanges;
+import com.nagp.microservices.operationservices.model.TransactionPage;
+import com.nagp.microservices.operationservices.storage.AccountChangeFeed;
+import com.nagp.microservices.operationservices.storage.AccountStore;
+import com.nagp.microservices.operationservices.util.Constants;
+import com.netflix.hystrix.contrib.javanica.annotation.HystrixCommand;
+
+/**
+ * Controller for REST APIs through which account-services and
+ * miscellaneous-services read and change accounts in the {@link AccountStore},
+ * follow its changes and read the {@link TransactionLedger}.
+ * 
+ * @author vinodgodara
+ *
+ */
+@RefreshScope
+@RestController
+public class AccountStoreService {
+	private static final Logger LOGGER = LoggerFactory.getLogger(AccountStoreService.class);
+
+	// Longest time a change request is held open.
+	private static final long MAX_CHANGE_TIMEOUT_MILLIS = 30_000;
+
+	// Journaled account storage.
+	@Autowired
+	private AccountStore accountStore;
+
+	@Autowired
+	private AccountChangeFeed changeFeed;
+
+	@Autowired
+	private TransactionLedger transactionLedger;
+
+	/**
+	 * API to fetch an account.
+	 * 
+	 * @param accountNO Account number.
+	 * @return The account, null if it does not exist.
+	 */
+	@GetMapping(path = "/accountStore/getAccount/{accountNO}", produces = "application/json")
+	@HystrixCommand(fallbackMethod = "getAccountFallBackMethod")
+	public Account getAccount(@PathVariable String accountNO) {
+		LOGGER.debug("Entering method: getAccount");
+
+		return accountStore.find(Long.parseLong(accountNO));
+	}
+
+	/**
+	 * API to create an account.
+	 * 
+	 * @param account The account to be created.
+	 * @return Success or error message.
+	 */
+	@PostMapping(path = "/accountStore/createAccount", consumes = "application/json", produces = "application/json")
+	@HystrixCommand(fallbackMethod = "createAccountFallBackMethod")
+	public String createAccount(@RequestBody Account account) {
+		LOGGER.debug("Entering method: createAccount");
+
+		// If the account number is taken, throw exception.
+		if (account.getAccountNO() != 0 && accountStore.create(account)) {
+			return Constants.SUCCESS;
+		} else {
+			LOGGER.error("Account already exists.");
+			throw new RuntimeException("Account already exists.");
+		}
+	}
+
+	/**
+	 * API to update user ID and branch of an account.
+	 * 
+	 * @param account The account with the new information.
+	 * @return Success or error message.
+	 */
+	@PostMapping(path = "/accountStore/updateAccount", consumes = "application/json", produces = "application/json")
+	@HystrixCommand(fallbackMethod = "updateAccountFallBackMethod")
+	public String updateAccount(@RequestBody Account account) {
+		LOGGER.debug("Entering method: updateAccount");
+
+		if (accountStore.update(account)) {
+			return Constants.SUCCESS;
+		} else {
+			LOGGER.error("Account is either closed or does not exist.");
+			throw new RuntimeException("Account does not exist.");
+		}
+	}
+
+	/**
+	 * API to close an account.
+	 * 
+	 * @param accountNO Account number.
+	 * @return Success or error message.
+	 */
+	@PostMapping(path = "/accountStore/closeAccount/{accountNO}", consumes = "application/json", produces = "application/json")
+	@HystrixCommand(fallbackMethod = "closeAccountFallBackMethod")
+	public String closeAccount(@PathVariable String accountNO) {
+		LOGGER.debug("Entering method: closeAccount");
+
+		if (accountStore.close(Long.parseLong(accountNO))) {
+			return Constants.SUCCESS;
+		} else {
+			LOGGER.error("Account is either closed or does not exist.");
+			throw new RuntimeException("Account does not exist.");
+		}
+	}
+
+	/**
+	 * API to issue or block the cheque book of an account.
+	 * 
+	 * @param accountNO Account number.
+	 * @param issued    True to issue, false to block.
+	 * @return Success or error message.
+	 */
+	@PostMapping(path = "/accountStore/setChequeBookIssued/{accountNO}/{issued}", consumes = "application/json", produces = "application/json")
+	@HystrixCommand(fallbackMethod = "setChequeBookIssuedFallBackMethod")
+	public String setChequeBookIssued(@PathVariable String accountNO, @PathVariable String issued) {
+		LOGGER.debug("Entering method: setChequeBookIssued");
+
+		if (accountStore.setChequeBookIssued(Long.parseLong(accountNO), Boolean.parseBoolean(issued))) {
+			return Constants.SUCCESS;
+		} else {
+			LOGGER.error("Account is either closed or does not exist.");
+			throw new RuntimeException("Account does not exist.");
+		}
+	}
+
+	/**
+	 * API to read a page of the transactions of an account.
+	 * 
+	 * @param accountNO Account number.
+	 * @param cursor    Next cursor of the previous page, 0 for the first page.
+	 * @param limit     Maximum number of transactions in the page.
+	 * @return The page, empty if there are no transactions after the cursor.
+	 */
+	@GetMapping(path = "/accountStore/transactions/{accountNO}", produces = "application/json")
+	public TransactionPage transactions(@PathVariable String accountNO, @RequestParam(defaultValue = "0") long cursor,
+			@RequestParam(defaultValue = "100") int limit) {
+		LOGGER.debug("Entering method: transactions");
+
+		if (cursor < 0 || limit <= 0 || limit > TransactionLedger.MAX_PAGE_SIZE) {
+			LOGGER.error("Invalid page of the ledger.");
+			throw new RuntimeException("Invalid page.");
+		}
+
+		try {
+			return transactionLedger.readPage(Long.parseLong(accountNO), cursor, limit);
+		} catch (IOException exc) {
+			LOGGER.error("Ledger could not be read.", exc);
+			throw new RuntimeException("Ledger could not be read.", exc);
+		}
+	}
+
+	/**
+	 * API to wait for accounts changed after a sequence number. The request is
+	 * answered as soon as there is a change, or empty after the timeout.
+	 * 
+	 * @param epoch         Epoch of the sequence number, answered with a reset
+	 *                      right away if the service restarted since.
+	 * @param after         Sequence number of the last change seen, -1 to start
+	 *                      following from now.
+	 * @param timeoutMillis How long to wait for a change.
+	 * @return The changed accounts.
+	 */
+	@GetMapping(path = "/accountStore/changes", produces = "application/json")
+	public DeferredResult<AccountChanges> changes(@RequestParam(defaultValue = "") String epoch,
+			@RequestParam(defaultValue = "-1") long after, @RequestParam(defaultValue = "0") long timeoutMillis) {
+		final long timeout = Math.min(Math.max(timeoutMillis, 0), MAX_CHANGE_TIMEOUT_MILLIS);
+
+		// The sequence number belongs to an earlier run.
+		if (after >= 0 && !epoch.isEmpty() && !epoch.equals(changeFeed.getEpoch())) {
+			final DeferredResult<AccountChanges> result = new DeferredResult<>();
+			result.setResult(reset(changeFeed.lastSequence()));
+			return result;
+		}
+
+		// Start following from the current change.
+		if (after < 0 || timeout == 0) {
+			final DeferredResult<AccountChanges> result = new DeferredResult<>();
+			result.setResult(after < 0 ? changesAfter(changeFeed.lastSequence()) : changesAfter(after));
+			return result;
+		}
+
+		final DeferredResult<AccountChanges> result = new DeferredResult<>(timeout, () -> changesAfter(after));
+		final Runnable waiter = () -> result.setResult(changesAfter(after));
+		result.onCompletion(() -> changeFeed.cancel(waiter));
+		changeFeed.await(after, waiter);
+		return result;
+	}
+
+	/**
+	 * Fall back method for {@link AccountStoreService#getAccount(String)}.
+	 * 
+	 * @param accountNO Account number.
+	 * @return Null.
+	 */
+	public Account getAccountFallBackMethod(final String accountNO) {
+		return null;
+	}
+
+	/**
+	 * Fall back method for {@link AccountStoreService#createAccount(Account)}.
+	 * 
+	 * @param account The account.
+	 * @return Error message.
+	 */
+	public String createAccountFallBackMethod(final Account account) {
+		return Constants.ERROR;
+	}
+
+	/**
+	 * Fall back method for {@link AccountStoreService#updateAccount(Account)}.
+	 * 
+	 * @param account The account.
+	 * @return Error message.
+	 */
+	public String updateAccountFallBackMethod(final Account account) {
+		return Constants.ERROR;
+	}
+
+	/**
+	 * Fall back method for {@link AccountStoreService#closeAccount(String)}.
+	 * 
+	 * @param accountNO Account number.
+	 * @return Error message.
+	 */
+	public String closeAccountFallBackMethod(final String accountNO) {
+		return Constants.ERROR;
+	}
+
+	/**
+	 * Fall back method for
+	 * {@link AccountStoreService#setChequeBookIssued(String, String)}.
+	 * 
+	 * @param accountNO Account number.
+	 * @param issued    True to issue, false to block.
+	 * @return Error message.
+	 */
+	public String setChequeBookIssuedFallBackMethod(final String accountNO, final String issued) {
+		return Constants.ERROR;
+	}
+
+	private AccountChanges changesAfter(final long after) {
+		final AccountChanges changes = new AccountChanges();
+		final long sequence = changeFeed.lastSequence();
+		final Set<Long> changed = changeFeed.changedAfter(after);
+		final List<Account> accounts = new ArrayList<>();
+
+		if (Objects.isNull(changed)) {
+			return reset(sequence);
+		}
+
+		changes.setEpoch(changeFeed.getEpoch());
+		changes.setSequence(sequence);
+		changes.setAccounts(accounts);
+
+		for (final Long accountNO : changed) {
+			final Account account = accountStore.find(accountNO);
+
+			if (Objects.nonNull(account)) {
+				accounts.add(account);
+			}
+		}
+		return changes;
+	}
+
+	/**
+	 * Tell the reader to drop everything it cached and to follow from the
+	 * sequence number.
+	 */
+	private AccountChanges reset(final long sequence) {
+		final AccountChanges changes = new AccountChanges();
+		changes.setEpoch(changeFeed.getEpoch());
+		changes.setSequence(sequence);
+		changes.setReset(true);
+		changes.setAccounts(new ArrayList<>());
+		return changes;
+	}
+}
@@ -0,0 +1,184 @@
+package com.nagp.microservices.operationservices.controllers;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.context.config.annotation.RefreshScope;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.nagp.microservices.operationservices.storage.AccountStore;
+import com.nagp.microservices.operationservices.util.Constants;
+
+/**
+ * Asynchronous variant of {@link OperationService}, enabled with
+ * {@code async.enabled=true}. Balances are decided on the request thread, which
+ * is then released; the response is completed by the journal writer once the
+ * journal append is on disk. Without Hystrix, {@code async.max-in-flight}
+ * limits the operations waiting for the disk. Further requests are rejected
+ * before anything is applied, so a client retrying a rejected request never
+ * applies it twice.
+ * 
+ * @author vinodgodara
+ *
+ */
+@RefreshScope
+@RestController
+@ConditionalOnProperty(name = "async.enabled", havingValue = "true")
+public class AsyncOperationService {
+	private static final Logger LOGGER = LoggerFactory.getLogger(AsyncOperationService.class);
+
+	// Journaled account storage.
+	@Autowired
+	private AccountStore accountStore;
+
+	// Operations applied and not yet on disk.
+	private final Semaphore inFlight;
+
+	public AsyncOperationService(@Value("${async.max-in-flight:10000}") final int maxInFlight) {
+		inFlight = new Semaphore(maxInFlight);
+	}
+
+	/**
+	 * Rest API for withdrawing money from the account.
+	 * 
+	 * @param accountNO Account number.
+	 * @param amount    Amount to be withdrawn.
+	 * @return Success or error message, once the withdrawal is on disk.
+	 */
+	@PostMapping(path = "/withdrawMoney/{accountNO}/{amount}", consumes = "application/json", produces = "application/json")
+	public CompletableFuture<String> withdrawMoney(@PathVariable String accountNO, @PathVariable String amount) {
+		LOGGER.debug("Entering method: withdrawMoney");
+
+		// Parse account number and amount to long.
+		final long accountNumber = Long.parseLong(accountNO);
+		final long amountNumber = Long.parseLong(amount);
+
+		// If account number or amount are 0, throw exception.
+		if (accountNumber != 0 && amountNumber != 0) {
+
+			// If account is null or inactive, throw exception.
+			if (accountStore.isActive(accountNumber)) {
+
+				// Debit only if account has enough balance, at least 1 has to remain.
+				return admitted(() -> accountStore.debitAsync(accountNumber, amountNumber, 1).thenApply(debited -> {
+					if (debited) {
+						return Constants.SUCCESS;
+					} else {
+						LOGGER.error("Account does not have enough balance.");
+						throw new RuntimeException("Insufficient Balance.");
+					}
+				}));
+			} else {
+				LOGGER.error("Account with provided number is either closed or does not exist.");
+				throw new RuntimeException("Account does not exist.");
+			}
+		} else {
+			LOGGER.error("Input account number is invalid.");
+			throw new RuntimeException("Invalid account number.");
+		}
+	}
+
+	/**
+	 * API for depositing money in the account.
+	 * 
+	 * @param accountNO Account number.
+	 * @param amount    The amount to be deposited.
+	 * @return Success or error message, once the deposit is on disk.
+	 */
+	@PostMapping(path = "/depositMoney/{accountNO}/{amount}", consumes = "application/json", produces = "application/json")
+	public CompletableFuture<String> depositMoney(@PathVariable String accountNO, @PathVariable String amount) {
+		LOGGER.debug("Entering method: depositMoney");
+
+		// Parse account number and amount to long.
+		final long accountNumber = Long.parseLong(accountNO);
+		final long amountNumber = Long.parseLong(amount);
+
+		// If any of the account number or amount is 0, throw exception.
+		if (accountNumber != 0 && amountNumber != 0) {
+
+			// If account is null or inactive, throw exception.
+			if (accountStore.isActive(accountNumber)) {
+
+				// Update balance and journal the transaction.
+				return admitted(() -> accountStore.creditAsync(accountNumber, amountNumber)
+						.thenApply(durable -> Constants.SUCCESS));
+			} else {
+				LOGGER.error("Account either does not exist or is closed.");
+				throw new RuntimeException("Account does not exist.");
+			}
+		} else {
+			LOGGER.error("Input account number is invalid.");
+			throw new RuntimeException("Invalid account number.");
+		}
+	}
+
+	/**
+	 * API for transferring money from one account to another.
+	 * 
+	 * @param accountNoFrom Account number from which money is to be transferred.
+	 * @param accountNoTo   Account number to which money is to be transferred.
+	 * @param amount        The amount to be transferred.
+	 * @return Success or error message, once the transfer is on disk.
+	 */
+	@PostMapping(path = "/transferMoney/{accountNoFrom}/{accountNoTo}/{amount}", consumes = "application/json", produces = "application/json")
+	public CompletableFuture<String> transferMoney(@PathVariable String accountNoFrom,
+			@PathVariable String accountNoTo, @PathVariable String amount) {
+		LOGGER.debug("Entering method: transferMoney");
+
+		final long accountFromNumber = Long.parseLong(accountNoFrom);
+		final long accountToNumber = Long.parseLong(accountNoTo);
+		final long amountNumber = Long.parseLong(amount);
+
+		// If any of the account numbers or amount is 0, throw exception.
+		if (accountFromNumber != 0 && accountToNumber != 0 && amountNumber != 0) {
+
+			// Check if both accounts are active and user account has enough balance to
+			// transfer.
+			if (accountStore.isActive(accountFromNumber) && accountStore.isActive(accountToNumber)) {
+				return admitted(() -> accountStore.transferAsync(accountFromNumber, accountToNumber, amountNumber, 0)
+						.thenApply(transferred -> {
+							if (transferred) {
+								return Constants.SUCCESS;
+							} else {
+								throw new RuntimeException();
+							}
+						}));
+			} else {
+				throw new RuntimeException();
+			}
+		} else {
+			LOGGER.error("Input account number is invalid.");
+			throw new RuntimeException();
+		}
+	}
+
+	/**
+	 * Apply an operation unless too many are in flight. The answer is mapped on
+	 * the journal writer thread, it takes no more than building a string, so
+	 * nothing can reject it once the operation is applied.
+	 */
+	private CompletableFuture<String> admitted(final Supplier<CompletableFuture<String>> operation) {
+		if (!inFlight.tryAcquire()) {
+			LOGGER.error("Too many operations in flight.");
+			throw new RuntimeException("Too many requests.");
+		}
+
+		final CompletableFuture<String> response;
+		try {
+			response = operation.get();
+		} catch (RuntimeException exc) {
+			inFlight.release();
+			throw exc;
+		}
+		response.whenComplete((result, exc) -> inFlight.release());
+		return response;
+	}
+}
@@ -0,0 +1,176 @@
+package com.nagp.microservices.operationservices.controllers;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.context.config.annotation.RefreshScope;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nagp.microservices.operationservices.model.Operation;
+import com.nagp.microservices.operationservices.storage.AccountStore;
+import com.nagp.microservices.operationservices.util.Constants;
+
+/**
+ * Controller for the REST API applying many deposits, withdrawals and
+ * transfers in one request.
+ * 
+ * @author vinodgodara
+ *
+ */
+@RefreshScope
+@RestController
+public class BatchOperationService {
+	private static final Logger LOGGER = LoggerFactory.getLogger(BatchOperationService.class);
+
+	// Journaled account storage.
+	@Autowired
+	private AccountStore accountStore;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	// Operations of a batch journaled with one append.
+	@Value("${batch-operations.chunk-size:4096}")
+	private int chunkSize;
+
+	/**
+	 * API for applying a JSON array of deposits, withdrawals and transfers in one
+	 * request. The array is read as it arrives; operations are applied in order
+	 * with the same checks as the single operation APIs and journaled in chunks
+	 * that each share one forced write. The response is an array with one result
+	 * per operation, each chunk's results streamed once the chunk is on disk. A
+	 * malformed item ends the response with an error result after the results of
+	 * the operations before it.
+	 * <p>
+	 * Not wrapped in a Hystrix command, a large batch outlasts its timeout.
+	 * 
+	 * @param request  Request with the array of {@link Operation}s.
+	 * @param response Response receiving the array of results.
+	 * @throws IOException If the request could not be read or the response not
+	 *                     written.
+	 */
+	@PostMapping(path = "/batchOperations", consumes = "application/json", produces = "application/json")
+	public void batchOperations(final HttpServletRequest request, final HttpServletResponse response)
+			throws IOException {
+		LOGGER.debug("Entering method: batchOperations");
+
+		response.setContentType("application/json");
+
+		try (JsonParser parser = objectMapper.getFactory().createParser(request.getInputStream());
+				JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+			AccountStore.Batch batch = accountStore.batch();
+			List<String> results = new ArrayList<>();
+			CompletableFuture<Void> previousChunk = CompletableFuture.completedFuture(null);
+			List<String> previousResults = Collections.emptyList();
+			String error = null;
+			int count = 0;
+
+			generator.writeStartArray();
+			try {
+				if (parser.nextToken() != JsonToken.START_ARRAY) {
+					error = "Invalid request.";
+				} else {
+					while (parser.nextToken() == JsonToken.START_OBJECT) {
+						results.add(apply(batch, parser.readValueAs(Operation.class)));
+						count++;
+
+						// Journal the chunk, and answer the previous one while this one is written.
+						if (results.size() >= chunkSize) {
+							final CompletableFuture<Void> chunk = batch.commit();
+							writeResults(generator, previousChunk, previousResults);
+							previousChunk = chunk;
+							previousResults = results;
+							results = new ArrayList<>();
+						}
+					}
+					if (parser.currentToken() != JsonToken.END_ARRAY) {
+						error = "Invalid operation.";
+					}
+				}
+			} catch (IOException exc) {
+				LOGGER.error("Batch could not be read after {} operations.", count, exc);
+				error = "Invalid operation.";
+			} finally {
+				// Balances of every applied operation have changed, always journal them.
+				final CompletableFuture<Void> lastChunk = batch.commit();
+				writeResults(generator, previousChunk, previousResults);
+				writeResults(generator, lastChunk, results);
+			}
+
+			if (error != null) {
+				generator.writeString(error);
+			}
+			generator.writeEndArray();
+			LOGGER.debug("Applied a batch of {} operations.", count);
+		}
+	}
+
+	/**
+	 * Apply one operation of a batch.
+	 * 
+	 * @return Result of the operation.
+	 */
+	private String apply(final AccountStore.Batch batch, final Operation operation) {
+		final long accountNumber = operation.getAccountNO();
+		final long amountNumber = operation.getAmount();
+
+		// If account number or amount are 0, the operation fails.
+		if (accountNumber == 0 || amountNumber == 0) {
+			return "Invalid account number.";
+		}
+
+		if (Operation.DEPOSIT.equals(operation.getOperationType())) {
+			if (!accountStore.isActive(accountNumber)) {
+				return "Account does not exist.";
+			}
+			batch.credit(accountNumber, amountNumber);
+			return Constants.SUCCESS;
+		} else if (Operation.WITHDRAW.equals(operation.getOperationType())) {
+			if (!accountStore.isActive(accountNumber)) {
+				return "Account does not exist.";
+			}
+
+			// Debit only if account has enough balance, at least 1 has to remain.
+			return batch.debit(accountNumber, amountNumber, 1) ? Constants.SUCCESS : "Insufficient Balance.";
+		} else if (Operation.TRANSFER.equals(operation.getOperationType())) {
+			final long accountToNumber = operation.getToAccountNO();
+
+			if (accountToNumber == 0) {
+				return "Invalid account number.";
+			}
+			if (!accountStore.isActive(accountNumber) || !accountStore.isActive(accountToNumber)) {
+				return "Account does not exist.";
+			}
+			return batch.transfer(accountNumber, accountToNumber, amountNumber, 0) ? Constants.SUCCESS
+					: "Insufficient Balance.";
+		} else {
+			return "Invalid operation.";
+		}
+	}
+
+	/**
+	 * Write the results of a chunk once it is on disk.
+	 */
+	private static void writeResults(final JsonGenerator generator, final CompletableFuture<Void> chunk,
+			final List<String> results) throws IOException {
+		chunk.join();
+		for (final String result : results) {
+			generator.writeString(result);
+		}
+	}
+}
@@ -1,24 +1,18 @@
 package com.nagp.microservices.operationservices.controllers;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Objects;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cloud.context.config.annotation.RefreshScope;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import com.nagp.microservices.operationservices.model.Account;
-import com.nagp.microservices.operationservices.model.Transaction;
+import com.nagp.microservices.operationservices.storage.AccountStore;
 import com.nagp.microservices.operationservices.util.Constants;
 import com.netflix.hystrix.contrib.javanica.annotation.HystrixCommand;
 
-import io.jsondb.InvalidJsonDbApiUsageException;
-import io.jsondb.JsonDBTemplate;
-
 /**
  * Controller for REST APIs related to various operations like money deposit,
  * money withdrawal, money transfer etc.
@@ -28,26 +22,13 @@ import io.jsondb.JsonDBTemplate;
  */
 @RefreshScope
 @RestController
+@ConditionalOnProperty(name = "async.enabled", havingValue = "false", matchIfMissing = true)
 public class OperationService {
 	private static final Logger LOGGER = LoggerFactory.getLogger(OperationService.class);
 
-	// Actual location on disk for database files, process should have read-write
-	// permissions to this folder
-	private String dbFilesLocation = "C:\\";
-
-	// Java package name where POJO's are present
-	private final String baseScanPackage = "com.nagp.microservices.operationservices.model";
-
-	// JSON DB template for CRUD operations.
-	private final JsonDBTemplate jsonDBTemplate = new JsonDBTemplate(dbFilesLocation, baseScanPackage, null);
-
-	public OperationService() {
-		try {
-			jsonDBTemplate.createCollection(Account.class);
-		} catch (InvalidJsonDbApiUsageException exc) {
-			LOGGER.warn("Collection already exists.");
-		}
-	}
+	// Journaled account storage.
+	@Autowired
+	private AccountStore accountStore;
 
 	/**
 	 * Rest API for depositing money in the account.
@@ -68,36 +49,16 @@ public class OperationService {
 		// If account number or amount are 0, throw exception.
 		if (accountNumber != 0 && amountNumber != 0) {
 
-			// Fetch account from DB.
-			final Account account = jsonDBTemplate.findById(accountNumber, Account.class);
-
 			// If account is null or inactive, throw exception.
-			if (Objects.nonNull(account) && account.isActive()) {
-
-				// Check if account has enough balance.
-				if (account.getBalance() > amountNumber) {
-					account.setBalance(account.getBalance() - amountNumber);
+			if (accountStore.isActive(accountNumber)) {
 
-					final Transaction transaction = new Transaction();
-					transaction.setAmmount(amountNumber);
-					transaction.setTransactionType("Debit");
-
-					List<Transaction> transactions = account.getTransactions();
-
-					if (Objects.isNull(transactions)) {
-						transactions = new ArrayList<>();
-						account.setTransactions(transactions);
-					}
-
-					transactions.add(transaction);
+				// Debit only if account has enough balance, at least 1 has to remain.
+				if (accountStore.debit(accountNumber, amountNumber, 1)) {
+					return Constants.SUCCESS;
 				} else {
 					LOGGER.error("Account does not have enough balance.");
 					throw new RuntimeException("Insufficient Balance.");
 				}
-
-				// Update transaction detail and balance in DB.
-				jsonDBTemplate.upsert(account);
-				return Constants.SUCCESS;
 			} else {
 				LOGGER.error("Account with provided number is either closed or does not exist.");
 				throw new RuntimeException("Account does not exist.");
@@ -127,28 +88,11 @@ public class OperationService {
 		// If any of the account number or amount is 0, throw exception.
 		if (accountNumber != 0 && amountNumber != 0) {
 
-			// Fetch account from DB.
-			final Account account = jsonDBTemplate.findById(accountNumber, Account.class);
-
 			// If account is null or inactive, throw exception.
-			if (Objects.nonNull(account) && account.isActive()) {
-				account.setBalance(account.getBalance() + amountNumber);
-
-				final Transaction transaction = new Transaction();
-				transaction.setAmmount(amountNumber);
-
-				List<Transaction> transactions = account.getTransactions();
-				transaction.setTransactionType("Credit");
+			if (accountStore.isActive(accountNumber)) {
 
-				if (Objects.isNull(transactions)) {
-					transactions = new ArrayList<>();
-					account.setTransactions(transactions);
-				}
-
-				transactions.add(transaction);
-
-				// Update balance and transaction detail in DB.
-				jsonDBTemplate.upsert(account);
+				// Update balance and journal the transaction.
+				accountStore.credit(accountNumber, amountNumber);
 				return Constants.SUCCESS;
 			} else {
 				LOGGER.error("Account either does not exist or is closed.");
@@ -181,48 +125,10 @@ public class OperationService {
 		// If any of the account numbers or amount is 0, throw exception.
 		if (accountFromNumber != 0 && accountToNumber != 0 && amountNumber != 0) {
 
-			// Fetch accounts from DB.
-			final Account accountFrom = jsonDBTemplate.findById(accountFromNumber, Account.class);
-			final Account accountTo = jsonDBTemplate.findById(accountToNumber, Account.class);
-
 			// Check if both accounts are active and user account has enough balance to
 			// transfer.
-			if (Objects.nonNull(accountFrom) && accountFrom.isActive() && Objects.nonNull(accountTo)
-					&& accountTo.isActive() && accountFrom.getBalance() >= amountNumber) {
-				accountFrom.setBalance(accountFrom.getBalance() - amountNumber);
-
-				final Transaction transaction = new Transaction();
-				transaction.setAmmount(amountNumber);
-
-				List<Transaction> transactions = accountFrom.getTransactions();
-				transaction.setTransactionType("Debit");
-
-				if (Objects.isNull(transactions)) {
-					transactions = new ArrayList<>();
-					accountFrom.setTransactions(transactions);
-				}
-
-				transactions.add(transaction);
-
-				accountTo.setBalance(accountTo.getBalance() + amountNumber);
-
-				final Transaction transactionTo = new Transaction();
-				transactionTo.setAmmount(amountNumber);
-				transactionTo.setTransactionType("Credit");
-
-				List<Transaction> transactionsTo = accountTo.getTransactions();
-
-				if (Objects.isNull(transactionsTo)) {
-					transactionsTo = new ArrayList<>();
-					accountTo.setTransactions(transactionsTo);
-				}
-
-				transactionsTo.add(transactionTo);
-
-				// Update balance and transaction details in DB.
-				jsonDBTemplate.upsert(accountFrom);
-				jsonDBTemplate.upsert(accountTo);
-
+			if (accountStore.isActive(accountFromNumber) && accountStore.isActive(accountToNumber)
+					&& accountStore.transfer(accountFromNumber, accountToNumber, amountNumber, 0)) {
 				return Constants.SUCCESS;
 			} else {
 				throw new RuntimeException();
@@ -0,0 +1,113 @@
+package com.nagp.microservices.operationservices.ledger;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * Layout of binary ledger files. The ledger of an account is a series of
+ * segment files {@code <accountNO>-<segment>.bin} of fixed-width records. The
+ * first segment holds {@link #FIRST_SEGMENT_RECORDS} records and every
+ * following one twice as many, up to {@link #MAX_SEGMENT_RECORDS}, so the many
+ * accounts with few transactions take little space. Segments are allocated at
+ * full size and filled with zeros, a record is written when its type byte is
+ * set.
+ *
+ * @author vinodgodara
+ *
+ */
+final class BinaryLedgerFormat {
+
+	static final int SEQUENCE_OFFSET = 0;
+
+	static final int TIMESTAMP_OFFSET = SEQUENCE_OFFSET + Long.BYTES;
+
+	static final int AMOUNT_OFFSET = TIMESTAMP_OFFSET + Long.BYTES;
+
+	static final int TYPE_OFFSET = AMOUNT_OFFSET + Long.BYTES;
+
+	// sequence + timestamp + amount + type.
+	static final int RECORD_SIZE = TYPE_OFFSET + Byte.BYTES;
+
+	// Records of the first segment of a ledger; every following segment holds
+	// twice as many as the one before, up to MAX_SEGMENT_RECORDS.
+	static final int FIRST_SEGMENT_RECORDS = 16;
+
+	static final int MAX_SEGMENT_RECORDS = 1024;
+
+	// Segments smaller than MAX_SEGMENT_RECORDS and the records they hold.
+	private static final int GROWING_SEGMENTS = Integer
+			.numberOfTrailingZeros(MAX_SEGMENT_RECORDS / FIRST_SEGMENT_RECORDS);
+
+	private static final long GROWING_RECORDS = (long) FIRST_SEGMENT_RECORDS * ((1 << GROWING_SEGMENTS) - 1);
+
+	static final byte DEBIT = 'D';
+
+	static final byte CREDIT = 'C';
+
+	private BinaryLedgerFormat() {
+	}
+
+	static Path segmentFile(final Path directory, final long accountNO, final int segment) {
+		return directory.resolve(accountNO + "-" + segment + ".bin");
+	}
+
+	/**
+	 * @param segment Segment number, from 0.
+	 * @return Number of records the segment holds.
+	 */
+	static int segmentRecords(final int segment) {
+		return segment < GROWING_SEGMENTS ? FIRST_SEGMENT_RECORDS << segment : MAX_SEGMENT_RECORDS;
+	}
+
+	/**
+	 * @param segment Segment number, from 0.
+	 * @return Size of the segment file in bytes.
+	 */
+	static int segmentSize(final int segment) {
+		return segmentRecords(segment) * RECORD_SIZE;
+	}
+
+	/**
+	 * @param segment Segment number, from 0.
+	 * @return Index in the ledger of the first record of the segment.
+	 */
+	static long firstRecord(final int segment) {
+		return segment < GROWING_SEGMENTS ? (long) FIRST_SEGMENT_RECORDS * ((1 << segment) - 1)
+				: GROWING_RECORDS + (long) (segment - GROWING_SEGMENTS) * MAX_SEGMENT_RECORDS;
+	}
+
+	/**
+	 * @param record Index of a record in the ledger.
+	 * @return Number of the segment holding it.
+	 */
+	static int segmentOf(final long record) {
+		if (record >= GROWING_RECORDS) {
+			return GROWING_SEGMENTS + (int) ((record - GROWING_RECORDS) / MAX_SEGMENT_RECORDS);
+		}
+		// Growing segment n starts at FIRST_SEGMENT_RECORDS * (2^n - 1).
+		return 31 - Integer.numberOfLeadingZeros((int) (record / FIRST_SEGMENT_RECORDS) + 1);
+	}
+
+	/**
+	 * Number of records written to a segment. Records are written in order, so
+	 * the written ones form a prefix of the segment.
+	 *
+	 * @param segment Mapped segment.
+	 * @return The number of records.
+	 */
+	static int recordCount(final ByteBuffer segment) {
+		int low = 0;
+		int high = segment.capacity() / RECORD_SIZE;
+
+		while (low < high) {
+			final int middle = (low + high) >>> 1;
+
+			if (segment.get(middle * RECORD_SIZE + TYPE_OFFSET) != 0) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+}
@@ -0,0 +1,339 @@
+package com.nagp.microservices.operationservices.ledger;
+
+import static com.nagp.microservices.operationservices.ledger.BinaryLedgerFormat.AMOUNT_OFFSET;
+import static com.nagp.microservices.operationservices.ledger.BinaryLedgerFormat.CREDIT;
+import static com.nagp.microservices.operationservices.ledger.BinaryLedgerFormat.DEBIT;
+import static com.nagp.microservices.operationservices.ledger.BinaryLedgerFormat.RECORD_SIZE;
+import static com.nagp.microservices.operationservices.ledger.BinaryLedgerFormat.SEQUENCE_OFFSET;
+import static com.nagp.microservices.operationservices.ledger.BinaryLedgerFormat.TIMESTAMP_OFFSET;
+import static com.nagp.microservices.operationservices.ledger.BinaryLedgerFormat.TYPE_OFFSET;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.nagp.microservices.operationservices.model.Transaction;
+import com.nagp.microservices.operationservices.model.TransactionPage;
+
+/**
+ * Transaction ledger of fixed-width binary records in memory-mapped segment
+ * files, see {@link BinaryLedgerFormat}. Records are written straight into the
+ * mapped tail segment of the account, without encoding or an intermediate
+ * buffer. Pages are read from their own read-only mapping, where fields are read
+ * where they lie; cursors are record indexes, so a page starts with a single
+ * offset calculation. Enabled with {@code ledger.format=binary}; accounts that
+ * already have a JSON ledger keep appending to it.
+ *
+ * @author vinodgodara
+ *
+ */
+@Component
+@ConditionalOnProperty(name = "ledger.format", havingValue = "binary")
+public class BinaryTransactionLedger implements TransactionLedger {
+
+	/**
+	 * Receives the fields of every record visited by
+	 * {@link BinaryTransactionLedger#scan(long, long, int, RecordVisitor)}.
+	 */
+	public interface RecordVisitor {
+		void visit(long sequence, byte type, long amount, long timestamp);
+	}
+
+	// Tail segments kept mapped, each maps at most 25 KB.
+	private static final int MAX_MAPPED_TAILS = 1024;
+
+	private final Path directory;
+
+	// Ledgers written before the binary format was enabled.
+	private final JsonTransactionLedger jsonLedger;
+
+	// Mapped tail segments of recently written ledgers, least recently used first.
+	private final Map<Long, Tail> tails = new LinkedHashMap<Long, Tail>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(final Map.Entry<Long, Tail> eldest) {
+			if (size() > MAX_MAPPED_TAILS) {
+				eldest.getValue().force();
+				return true;
+			}
+			return false;
+		}
+	};
+
+	/**
+	 * Tail segment of one ledger and the filled segments not forced yet.
+	 */
+	private static final class Tail {
+		private final boolean json;
+
+		private final List<MappedByteBuffer> unforced = new ArrayList<>();
+
+		private int segment;
+
+		private MappedByteBuffer buffer;
+
+		private int records;
+
+		private Tail(final boolean json) {
+			this.json = json;
+		}
+
+		private void force() {
+			for (final MappedByteBuffer filled : unforced) {
+				filled.force();
+			}
+			unforced.clear();
+
+			if (buffer != null) {
+				buffer.force();
+			}
+		}
+	}
+
+	/**
+	 * @param dbFilesLocation Location of the database files, the ledger is kept in
+	 *                        its ledger folder.
+	 * @throws IOException If the ledger folder cannot be created.
+	 */
+	public BinaryTransactionLedger(@Value("${db.files-location:C:\\}") final String dbFilesLocation)
+			throws IOException {
+		directory = Paths.get(dbFilesLocation, "ledger");
+		Files.createDirectories(directory);
+		jsonLedger = new JsonTransactionLedger(dbFilesLocation);
+	}
+
+	@Override
+	public void append(final long accountNO, final Transaction transaction) throws IOException {
+		append(accountNO, Collections.singletonList(transaction));
+	}
+
+	@Override
+	public synchronized void append(final long accountNO, final List<Transaction> transactions)
+			throws IOException {
+		final Tail tail = tail(accountNO);
+
+		if (tail.json) {
+			jsonLedger.append(accountNO, transactions);
+			return;
+		}
+
+		for (final Transaction transaction : transactions) {
+			if (tail.buffer == null || tail.records == BinaryLedgerFormat.segmentRecords(tail.segment)) {
+				if (tail.buffer != null) {
+					tail.unforced.add(tail.buffer);
+					tail.segment++;
+				}
+				tail.buffer = map(accountNO, tail.segment);
+				tail.records = BinaryLedgerFormat.recordCount(tail.buffer);
+			}
+
+			write(tail.buffer, tail.records++ * RECORD_SIZE, transaction);
+		}
+	}
+
+	@Override
+	public synchronized boolean importTransactions(final long accountNO, final List<Transaction> transactions)
+			throws IOException {
+		if (Files.exists(BinaryLedgerFormat.segmentFile(directory, accountNO, 0)) || jsonLedger.exists(accountNO)) {
+			return false;
+		}
+
+		final int segments = transactions.isEmpty() ? 1
+				: BinaryLedgerFormat.segmentOf(transactions.size() - 1) + 1;
+
+		// The first segment makes the ledger visible, so it is moved into place last.
+		for (int segment = segments - 1; segment >= 0; segment--) {
+			final ByteBuffer content = ByteBuffer.allocate(BinaryLedgerFormat.segmentSize(segment));
+			final int first = (int) BinaryLedgerFormat.firstRecord(segment);
+			final int end = Math.min(transactions.size(), first + BinaryLedgerFormat.segmentRecords(segment));
+
+			for (int index = first; index < end; index++) {
+				write(content, (index - first) * RECORD_SIZE, transactions.get(index));
+			}
+
+			final Path segmentFile = BinaryLedgerFormat.segmentFile(directory, accountNO, segment);
+			if (segment > 0) {
+				Files.write(segmentFile, content.array());
+			} else {
+				final Path importFile = directory.resolve(accountNO + ".import");
+				Files.write(importFile, content.array());
+				Files.move(importFile, segmentFile, StandardCopyOption.ATOMIC_MOVE);
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public synchronized long lastSequence(final long accountNO) throws IOException {
+		if (!tails.containsKey(accountNO) && !Files.exists(BinaryLedgerFormat.segmentFile(directory, accountNO, 0))) {
+			return jsonLedger.lastSequence(accountNO);
+		}
+
+		final Tail tail = tail(accountNO);
+
+		if (tail.json) {
+			return jsonLedger.lastSequence(accountNO);
+		}
+		if (tail.buffer == null || tail.records == 0) {
+			return 0;
+		}
+		return tail.buffer.getLong((tail.records - 1) * RECORD_SIZE + SEQUENCE_OFFSET);
+	}
+
+	@Override
+	public TransactionPage readPage(final long accountNO, final long cursor, final int limit) throws IOException {
+		if (!Files.exists(BinaryLedgerFormat.segmentFile(directory, accountNO, 0))) {
+			return jsonLedger.readPage(accountNO, cursor, limit);
+		}
+
+		final TransactionPage page = new TransactionPage();
+		final List<Transaction> transactions = new ArrayList<>(Math.min(limit, BinaryLedgerFormat.MAX_SEGMENT_RECORDS));
+		page.setTransactions(transactions);
+
+		page.setNextCursor(scan(accountNO, cursor, limit, (sequence, type, amount, timestamp) -> {
+			final Transaction transaction = new Transaction();
+			transaction.setAmmount(amount);
+			transaction.setTransactionType(type == DEBIT ? "Debit" : "Credit");
+			transaction.setSequence(sequence);
+			transaction.setTimestamp(timestamp);
+			transactions.add(transaction);
+		}));
+		return page;
+	}
+
+	/**
+	 * Visit the records of an account following the cursor without creating any
+	 * objects per record, e.g. for audits over the full history. Does not take
+	 * the lock of the appends: a record is only visited once its type byte is
+	 * set.
+	 *
+	 * @param accountNO Account number.
+	 * @param cursor    Index of the first record to visit.
+	 * @param limit     Maximum number of records to visit.
+	 * @param visitor   Receives the records in ledger order.
+	 * @return Cursor following the last visited record.
+	 * @throws IOException If the ledger could not be read.
+	 */
+	public long scan(final long accountNO, final long cursor, final int limit, final RecordVisitor visitor)
+			throws IOException {
+		long next = cursor;
+		int visited = 0;
+
+		while (visited < limit) {
+			final int segment = BinaryLedgerFormat.segmentOf(next);
+			final Path segmentFile = BinaryLedgerFormat.segmentFile(directory, accountNO, segment);
+
+			if (!Files.exists(segmentFile)) {
+				break;
+			}
+
+			final MappedByteBuffer buffer;
+			try (FileChannel channel = FileChannel.open(segmentFile, StandardOpenOption.READ)) {
+				buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+						Math.min(channel.size(), BinaryLedgerFormat.segmentSize(segment)));
+			}
+
+			final int records = buffer.capacity() / RECORD_SIZE;
+			int index = (int) (next - BinaryLedgerFormat.firstRecord(segment));
+
+			// A record without its type byte is still being appended and is left for the
+			// next page.
+			while (visited < limit && index < records && buffer.get(index * RECORD_SIZE + TYPE_OFFSET) != 0) {
+				final int offset = index * RECORD_SIZE;
+				visitor.visit(buffer.getLong(offset + SEQUENCE_OFFSET), buffer.get(offset + TYPE_OFFSET),
+						buffer.getLong(offset + AMOUNT_OFFSET), buffer.getLong(offset + TIMESTAMP_OFFSET));
+				index++;
+				visited++;
+				next++;
+			}
+
+			if (index < BinaryLedgerFormat.segmentRecords(segment)) {
+				break;
+			}
+		}
+		return next;
+	}
+
+	@Override
+	public synchronized void force(final long accountNO) throws IOException {
+		final Tail tail = tails.get(accountNO);
+
+		// Tails are forced when they are unmapped.
+		if (tail == null) {
+			jsonLedger.force(accountNO);
+		} else if (tail.json) {
+			jsonLedger.force(accountNO);
+		} else {
+			tail.force();
+		}
+	}
+
+	/**
+	 * Mapped tail of a ledger, looked up on first use.
+	 */
+	private Tail tail(final long accountNO) throws IOException {
+		Tail tail = tails.get(accountNO);
+
+		if (tail != null) {
+			return tail;
+		}
+
+		if (!Files.exists(BinaryLedgerFormat.segmentFile(directory, accountNO, 0)) && jsonLedger.exists(accountNO)) {
+			tail = new Tail(true);
+		} else {
+			tail = new Tail(false);
+
+			while (Files.exists(BinaryLedgerFormat.segmentFile(directory, accountNO, tail.segment + 1))) {
+				tail.segment++;
+			}
+
+			if (Files.exists(BinaryLedgerFormat.segmentFile(directory, accountNO, tail.segment))) {
+				tail.buffer = map(accountNO, tail.segment);
+				tail.records = BinaryLedgerFormat.recordCount(tail.buffer);
+
+				// A segment allocated right before a crash may still be empty.
+				if (tail.records == 0 && tail.segment > 0) {
+					tail.segment--;
+					tail.buffer = map(accountNO, tail.segment);
+					tail.records = BinaryLedgerFormat.recordCount(tail.buffer);
+				}
+			}
+		}
+
+		tails.put(accountNO, tail);
+		return tail;
+	}
+
+	private MappedByteBuffer map(final long accountNO, final int segment) throws IOException {
+		try (FileChannel channel = FileChannel.open(BinaryLedgerFormat.segmentFile(directory, accountNO, segment),
+				StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			// The mapping stays valid after the channel is closed.
+			return channel.map(FileChannel.MapMode.READ_WRITE, 0, BinaryLedgerFormat.segmentSize(segment));
+		}
+	}
+
+	private static void write(final ByteBuffer segment, final int offset, final Transaction transaction) {
+		segment.putLong(offset + SEQUENCE_OFFSET, transaction.getSequence());
+		segment.putLong(offset + TIMESTAMP_OFFSET, transaction.getTimestamp());
+		segment.putLong(offset + AMOUNT_OFFSET, transaction.getAmmount());
+
+		// The type byte marks the record as written, so it goes last.
+		segment.put(offset + TYPE_OFFSET, "Debit".equals(transaction.getTransactionType()) ? DEBIT : CREDIT);
+	}
+}
@@ -0,0 +1,189 @@
+package com.nagp.microservices.operationservices.ledger;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nagp.microservices.operationservices.model.Transaction;
+import com.nagp.microservices.operationservices.model.TransactionPage;
+
+/**
+ * Append-only transaction ledger, one file per account with one JSON
+ * transaction per line. Appending never reads or rewrites earlier entries, so
+ * it costs the same for a new account as for one with a long history. Cursors
+ * are byte offsets into the file, so reading a page only touches that page.
+ * This is the default ledger format.
+ *
+ * @author vinodgodara
+ *
+ */
+@Component
+@ConditionalOnProperty(name = "ledger.format", havingValue = "json", matchIfMissing = true)
+public class JsonTransactionLedger implements TransactionLedger {
+
+	// Enough to hold the last complete line of a ledger file.
+	private static final int TAIL_SIZE = 1024;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private final Path directory;
+
+	/**
+	 * @param dbFilesLocation Location of the database files, the ledger is kept in
+	 *                        its ledger folder.
+	 * @throws IOException If the ledger folder cannot be created.
+	 */
+	public JsonTransactionLedger(@Value("${db.files-location:C:\\}") final String dbFilesLocation)
+			throws IOException {
+		directory = Paths.get(dbFilesLocation, "ledger");
+		Files.createDirectories(directory);
+	}
+
+	@Override
+	public void append(final long accountNO, final Transaction transaction) throws IOException {
+		append(accountNO, Collections.singletonList(transaction));
+	}
+
+	@Override
+	public void append(final long accountNO, final List<Transaction> transactions) throws IOException {
+		Files.write(ledgerFile(accountNO), encode(transactions), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.APPEND);
+	}
+
+	@Override
+	public boolean importTransactions(final long accountNO, final List<Transaction> transactions)
+			throws IOException {
+		final Path ledgerFile = ledgerFile(accountNO);
+
+		if (Files.exists(ledgerFile)) {
+			return false;
+		}
+
+		final Path importFile = directory.resolve(accountNO + ".import");
+		Files.write(importFile, encode(transactions));
+		Files.move(importFile, ledgerFile, StandardCopyOption.ATOMIC_MOVE);
+		return true;
+	}
+
+	@Override
+	public long lastSequence(final long accountNO) throws IOException {
+		final Path ledgerFile = ledgerFile(accountNO);
+
+		if (!Files.exists(ledgerFile)) {
+			return 0;
+		}
+
+		try (FileChannel channel = FileChannel.open(ledgerFile, StandardOpenOption.READ)) {
+			final long size = channel.size();
+			final ByteBuffer tail = ByteBuffer.allocate((int) Math.min(size, TAIL_SIZE));
+			channel.read(tail, size - tail.capacity());
+
+			final byte[] bytes = tail.array();
+			int end = bytes.length;
+
+			// Ignore an incomplete last line.
+			while (end > 0 && bytes[end - 1] != '\n') {
+				end--;
+			}
+			if (end == 0) {
+				return 0;
+			}
+
+			int start = end - 1;
+			while (start > 0 && bytes[start - 1] != '\n') {
+				start--;
+			}
+			return objectMapper.readValue(bytes, start, end - start - 1, Transaction.class).getSequence();
+		}
+	}
+
+	@Override
+	public TransactionPage readPage(final long accountNO, final long cursor, final int limit) throws IOException {
+		final TransactionPage page = new TransactionPage();
+		final List<Transaction> transactions = new ArrayList<>();
+		page.setTransactions(transactions);
+		page.setNextCursor(cursor);
+
+		final Path ledgerFile = ledgerFile(accountNO);
+
+		if (!Files.exists(ledgerFile)) {
+			return page;
+		}
+
+		try (FileChannel channel = FileChannel.open(ledgerFile, StandardOpenOption.READ)) {
+			channel.position(cursor);
+
+			final InputStream input = new BufferedInputStream(Channels.newInputStream(channel));
+			final ByteArrayOutputStream line = new ByteArrayOutputStream();
+			long position = cursor;
+			int next;
+
+			// A line without its newline is still being appended and is left for the
+			// next page.
+			while (transactions.size() < limit && (next = input.read()) != -1) {
+				position++;
+
+				if (next == '\n') {
+					transactions.add(objectMapper.readValue(line.toByteArray(), Transaction.class));
+					page.setNextCursor(position);
+					line.reset();
+				} else {
+					line.write(next);
+				}
+			}
+		}
+		return page;
+	}
+
+	@Override
+	public void force(final long accountNO) throws IOException {
+		final Path ledgerFile = ledgerFile(accountNO);
+
+		if (Files.exists(ledgerFile)) {
+			try (FileChannel channel = FileChannel.open(ledgerFile, StandardOpenOption.WRITE)) {
+				channel.force(false);
+			}
+		}
+	}
+
+	/**
+	 * Whether the account has a JSON ledger.
+	 *
+	 * @param accountNO Account number.
+	 * @return True if the ledger file exists.
+	 */
+	boolean exists(final long accountNO) {
+		return Files.exists(ledgerFile(accountNO));
+	}
+
+	private byte[] encode(final List<Transaction> transactions) throws IOException {
+		final ByteArrayOutputStream lines = new ByteArrayOutputStream();
+
+		for (final Transaction transaction : transactions) {
+			lines.write(objectMapper.writeValueAsBytes(transaction));
+			lines.write('\n');
+		}
+		return lines.toByteArray();
+	}
+
+	private Path ledgerFile(final long accountNO) {
+		return directory.resolve(accountNO + ".ledger");
+	}
+}
@@ -0,0 +1,81 @@
+package com.nagp.microservices.operationservices.ledger;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.nagp.microservices.operationservices.model.Transaction;
+import com.nagp.microservices.operationservices.model.TransactionPage;
+
+/**
+ * Append-only transaction history of every account, read one page at a time by
+ * account-services through {@code AccountStoreService}. The format is chosen
+ * with the {@code ledger.format} property: {@code json} (default) for
+ * {@link JsonTransactionLedger} or {@code binary} for
+ * {@link BinaryTransactionLedger}.
+ *
+ * @author vinodgodara
+ *
+ */
+public interface TransactionLedger {
+
+	int MAX_PAGE_SIZE = 1000;
+
+	/**
+	 * Append a transaction to the ledger of an account.
+	 *
+	 * @param accountNO   Account number.
+	 * @param transaction The transaction.
+	 * @throws IOException If the ledger could not be written.
+	 */
+	void append(long accountNO, Transaction transaction) throws IOException;
+
+	/**
+	 * Append transactions to the ledger of an account with a single write.
+	 *
+	 * @param accountNO    Account number.
+	 * @param transactions The transactions, oldest first.
+	 * @throws IOException If the ledger could not be written.
+	 */
+	void append(long accountNO, List<Transaction> transactions) throws IOException;
+
+	/**
+	 * Create the ledger of an account from the transactions that used to be
+	 * embedded in the account document. The ledger appears atomically, so an
+	 * interrupted import is simply repeated.
+	 *
+	 * @param accountNO    Account number.
+	 * @param transactions The embedded transactions.
+	 * @return False if the account already has a ledger.
+	 * @throws IOException If the ledger could not be written.
+	 */
+	boolean importTransactions(long accountNO, List<Transaction> transactions) throws IOException;
+
+	/**
+	 * Sequence number of the last transaction in the ledger of an account.
+	 *
+	 * @param accountNO Account number.
+	 * @return The sequence number, 0 if the ledger is empty.
+	 * @throws IOException If the ledger could not be read.
+	 */
+	long lastSequence(long accountNO) throws IOException;
+
+	/**
+	 * Read the transactions of an account following the cursor.
+	 *
+	 * @param accountNO Account number.
+	 * @param cursor    Cursor returned with the previous page, 0 for the first
+	 *                  page.
+	 * @param limit     Maximum number of transactions to return.
+	 * @return The page, empty if there are no transactions after the cursor.
+	 * @throws IOException If the ledger could not be read.
+	 */
+	TransactionPage readPage(long accountNO, long cursor, int limit) throws IOException;
+
+	/**
+	 * Force appended transactions of an account to disk.
+	 *
+	 * @param accountNO Account number.
+	 * @throws IOException If the ledger could not be synced.
+	 */
+	void force(long accountNO) throws IOException;
+}
@@ -4,6 +4,8 @@ import java.util.List;
 
 import org.springframework.stereotype.Component;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import io.jsondb.annotation.Document;
 import io.jsondb.annotation.Id;
 
@@ -24,8 +26,14 @@ public class Account {
 
 	private boolean isChecqueBookIssued;
 
+	// Transactions embedded by earlier versions, moved to the TransactionLedger
+	// on startup and null afterwards.
+	@JsonInclude(JsonInclude.Include.NON_NULL)
 	private List<Transaction> transactions;
 
+	// Sequence number of the last operation-services journal record applied.
+	private long lastJournalSequence;
+
 	public String getUserID() {
 		return userID;
 	}
@@ -82,4 +90,12 @@ public class Account {
 		this.transactions = transactions;
 	}
 
+	public long getLastJournalSequence() {
+		return lastJournalSequence;
+	}
+
+	public void setLastJournalSequence(long lastJournalSequence) {
+		this.lastJournalSequence = lastJournalSequence;
+	}
+
 }
@@ -0,0 +1,60 @@
+package com.nagp.microservices.operationservices.model;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * One item of a batch of operations: a deposit, a withdrawal or a transfer.
+ *
+ * @author vinodgodara
+ *
+ */
+@Component
+public class Operation {
+
+	public static final String DEPOSIT = "Deposit";
+
+	public static final String WITHDRAW = "Withdraw";
+
+	public static final String TRANSFER = "Transfer";
+
+	private String operationType;
+
+	private long accountNO;
+
+	// Only for transfers.
+	private long toAccountNO;
+
+	private long amount;
+
+	public String getOperationType() {
+		return operationType;
+	}
+
+	public void setOperationType(String operationType) {
+		this.operationType = operationType;
+	}
+
+	public long getAccountNO() {
+		return accountNO;
+	}
+
+	public void setAccountNO(long accountNO) {
+		this.accountNO = accountNO;
+	}
+
+	public long getToAccountNO() {
+		return toAccountNO;
+	}
+
+	public void setToAccountNO(long toAccountNO) {
+		this.toAccountNO = toAccountNO;
+	}
+
+	public long getAmount() {
+		return amount;
+	}
+
+	public void setAmount(long amount) {
+		this.amount = amount;
+	}
+}
@@ -9,6 +9,11 @@ public class Transaction {
 
 	private String transactionType;
 
+	// Sequence number of the journal record that produced the transaction.
+	private long sequence;
+
+	private long timestamp;
+
 	public long getAmmount() {
 		return ammount;
 	}
@@ -25,4 +30,20 @@ public class Transaction {
 		this.transactionType = transactionType;
 	}
 
+	public long getSequence() {
+		return sequence;
+	}
+
+	public void setSequence(long sequence) {
+		this.sequence = sequence;
+	}
+
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	public void setTimestamp(long timestamp) {
+		this.timestamp = timestamp;
+	}
+
 }
@@ -0,0 +1,33 @@
+package com.nagp.microservices.operationservices.model;
+
+import java.util.List;
+
+/**
+ * One page of an account's transaction ledger.
+ * 
+ * @author vinodgodara
+ *
+ */
+public class TransactionPage {
+
+	private List<Transaction> transactions;
+
+	// Cursor to pass to get the transactions following this page.
+	private long nextCursor;
+
+	public List<Transaction> getTransactions() {
+		return transactions;
+	}
+
+	public void setTransactions(List<Transaction> transactions) {
+		this.transactions = transactions;
+	}
+
+	public long getNextCursor() {
+		return nextCursor;
+	}
+
+	public void setNextCursor(long nextCursor) {
+		this.nextCursor = nextCursor;
+	}
+}
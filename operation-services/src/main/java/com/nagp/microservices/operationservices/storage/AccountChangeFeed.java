@@ -0,0 +1,118 @@
+package com.nagp.microservices.operationservices.storage;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Numbered notifications of account changes, so that services caching
+ * accounts can follow the {@link AccountStore}. The most recent changes are
+ * kept in a ring; a reader that falls further behind is told to drop its cache
+ * instead. Sequence numbers start over with every run of the service, so every
+ * run has its own epoch and readers of another epoch drop their cache too.
+ *
+ * @author vinodgodara
+ *
+ */
+@Component
+public class AccountChangeFeed {
+
+	private final long[] ring;
+
+	private final List<Runnable> waiters = new ArrayList<>();
+
+	// Identifies this run of the service.
+	private final String epoch = UUID.randomUUID().toString();
+
+	private long lastSequence;
+
+	public AccountChangeFeed(@Value("${account-store.change-feed.capacity:4096}") final int capacity) {
+		ring = new long[capacity];
+	}
+
+	/**
+	 * Record a change and wake up everybody waiting for one.
+	 *
+	 * @param accountNO Account number of the changed account.
+	 */
+	public void publish(final long accountNO) {
+		final List<Runnable> woken;
+
+		synchronized (this) {
+			ring[(int) (++lastSequence % ring.length)] = accountNO;
+			woken = new ArrayList<>(waiters);
+			waiters.clear();
+		}
+
+		for (final Runnable waiter : woken) {
+			waiter.run();
+		}
+	}
+
+	/**
+	 * @return Identifier of this run of the service, sequence numbers of other
+	 *         epochs are meaningless.
+	 */
+	public String getEpoch() {
+		return epoch;
+	}
+
+	/**
+	 * Sequence number of the last change.
+	 *
+	 * @return The sequence number, 0 before the first change.
+	 */
+	public synchronized long lastSequence() {
+		return lastSequence;
+	}
+
+	/**
+	 * Accounts changed after a sequence number, each listed once.
+	 *
+	 * @param sequence Last sequence number the reader has seen.
+	 * @return The account numbers, null if some of the changes are no longer
+	 *         kept.
+	 */
+	public synchronized Set<Long> changedAfter(final long sequence) {
+		if (lastSequence - sequence > ring.length || sequence > lastSequence) {
+			return null;
+		}
+
+		final Set<Long> changed = new LinkedHashSet<>();
+		for (long next = sequence + 1; next <= lastSequence; next++) {
+			changed.add(ring[(int) (next % ring.length)]);
+		}
+		return changed;
+	}
+
+	/**
+	 * Run a callback once there is a change after the sequence number, right away
+	 * if there already is one.
+	 *
+	 * @param sequence Last sequence number the reader has seen.
+	 * @param waiter   Callback, run on the thread publishing the change.
+	 */
+	public void await(final long sequence, final Runnable waiter) {
+		synchronized (this) {
+			if (lastSequence <= sequence) {
+				waiters.add(waiter);
+				return;
+			}
+		}
+		waiter.run();
+	}
+
+	/**
+	 * Stop waiting, e.g. when the reader gave up.
+	 *
+	 * @param waiter Callback passed to {@link #await(long, Runnable)}.
+	 */
+	public synchronized void cancel(final Runnable waiter) {
+		waiters.remove(waiter);
+	}
+}
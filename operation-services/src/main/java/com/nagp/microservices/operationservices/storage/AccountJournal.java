@@ -0,0 +1,334 @@
+package com.nagp.microservices.operationservices.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only log of balance mutations. Callers enqueue mutations without
+ * blocking; a single writer thread numbers them, appends them to the active
+ * segment in batches and forces each batch to disk once (group commit). The
+ * future returned for every append completes when its batch is durable, so all
+ * callers of a batch are acknowledged together. The log is split into
+ * segment files and closed segments are handed to the caller by
+ * {@link #rotate()} so they can be folded into a checkpoint and deleted.
+ *
+ * @author vinodgodara
+ *
+ */
+public class AccountJournal implements Closeable {
+	private static final Logger LOGGER = LoggerFactory.getLogger(AccountJournal.class);
+
+	private static final String SEGMENT_PREFIX = "accounts-";
+
+	private static final String SEGMENT_SUFFIX = ".journal";
+
+	// How long the writer sleeps when there is nothing to write.
+	private static final long IDLE_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	/**
+	 * Notified by the writer thread with every batch forced to disk, before the
+	 * segment holding it can be rotated and before the appends of the batch are
+	 * acknowledged. A failed call is repeated with the same records until it
+	 * succeeds, so records handled before the failure must be skipped.
+	 */
+	public interface Listener {
+		void written(List<JournalRecord> records) throws IOException;
+	}
+
+	private final Path directory;
+
+	private final Listener listener;
+
+	// Most records forced to disk by one batch.
+	private final int maxBatchSize;
+
+	// How long the writer holds a batch open for more appends.
+	private final long maxBatchDelayNanos;
+
+	// Appends not yet written; records enqueued together are written together.
+	private final ConcurrentLinkedQueue<Commit> queue = new ConcurrentLinkedQueue<>();
+
+	private final Thread writer;
+
+	private volatile boolean running = true;
+
+	private FileChannel activeSegment;
+
+	private long segmentNumber;
+
+	private long lastSequence;
+
+	/**
+	 * Mutations of one append and the future acknowledging them.
+	 */
+	private static final class Commit {
+		private final JournalRecord[] mutations;
+
+		private final long enqueuedNanos = System.nanoTime();
+
+		private final CompletableFuture<Void> durable = new CompletableFuture<>();
+
+		private Commit(final JournalRecord[] mutations) {
+			this.mutations = mutations;
+		}
+	}
+
+	/**
+	 * @param directory          Directory holding the segment files.
+	 * @param listener           Notified with every batch forced to disk.
+	 * @param maxBatchSize       Most records forced to disk by one batch; appends
+	 *                           are never split, so a batch may exceed it by the
+	 *                           size of its last append.
+	 * @param maxBatchDelayNanos How long the writer waits for further appends
+	 *                           after the first one of a batch, 0 to write
+	 *                           whatever is queued right away.
+	 * @throws IOException If the existing segments could not be read.
+	 */
+	public AccountJournal(final Path directory, final Listener listener, final int maxBatchSize,
+			final long maxBatchDelayNanos) throws IOException {
+		this.directory = directory;
+		this.listener = listener;
+		this.maxBatchSize = Math.max(1, maxBatchSize);
+		this.maxBatchDelayNanos = Math.max(0, maxBatchDelayNanos);
+		Files.createDirectories(directory);
+
+		// Continue numbering after whatever a previous run left behind.
+		for (final Path segment : segments()) {
+			segmentNumber = Math.max(segmentNumber, segmentNumber(segment));
+			for (final JournalRecord record : read(segment)) {
+				lastSequence = Math.max(lastSequence, record.getSequence());
+			}
+		}
+
+		writer = new Thread(this::writeLoop, "account-journal-writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	 * Continue numbering after a sequence that is part of a checkpoint. The
+	 * segments holding it are deleted, so they cannot tell where numbering left
+	 * off. Called before the first append.
+	 *
+	 * @param sequence Last sequence number folded into the checkpoint.
+	 */
+	public synchronized void continueAfter(final long sequence) {
+		lastSequence = Math.max(lastSequence, sequence);
+	}
+
+	/**
+	 * Enqueue mutations for the writer thread. The mutations are written in the
+	 * same batch; this call returns before they reach the disk.
+	 *
+	 * @param mutations Records without sequence numbers.
+	 * @return Completes once the mutations are forced to disk.
+	 */
+	public CompletableFuture<Void> append(final JournalRecord... mutations) {
+		final Commit commit = new Commit(mutations);
+		queue.offer(commit);
+		LockSupport.unpark(writer);
+		return commit.durable;
+	}
+
+	/**
+	 * Close the active segment so that the next batch starts a new one.
+	 *
+	 * @return All closed segments, oldest first.
+	 * @throws IOException If the active segment could not be closed.
+	 */
+	public synchronized List<Path> rotate() throws IOException {
+		if (activeSegment != null) {
+			activeSegment.close();
+			activeSegment = null;
+		}
+		return segments();
+	}
+
+	/**
+	 * Read every complete record of a segment. A partially written record at the
+	 * end of the segment (crash during append) is ignored.
+	 *
+	 * @param segment Segment file.
+	 * @return Records in append order.
+	 * @throws IOException If the segment could not be read.
+	 */
+	public List<JournalRecord> read(final Path segment) throws IOException {
+		final ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(segment));
+		final List<JournalRecord> records = new ArrayList<>(content.remaining() / JournalRecord.SIZE);
+
+		while (content.remaining() >= JournalRecord.SIZE) {
+			records.add(JournalRecord.readFrom(content));
+		}
+		return records;
+	}
+
+	/**
+	 * Delete a segment once its records are part of a checkpoint.
+	 *
+	 * @param segment Segment file.
+	 * @throws IOException If the segment could not be deleted.
+	 */
+	public void delete(final Path segment) throws IOException {
+		Files.deleteIfExists(segment);
+	}
+
+	/**
+	 * Write everything still queued and stop the writer thread.
+	 */
+	@Override
+	public void close() throws IOException {
+		running = false;
+		LockSupport.unpark(writer);
+
+		try {
+			writer.join();
+		} catch (InterruptedException exc) {
+			Thread.currentThread().interrupt();
+		}
+
+		synchronized (this) {
+			if (activeSegment != null) {
+				activeSegment.close();
+				activeSegment = null;
+			}
+		}
+	}
+
+	private void writeLoop() {
+		final List<Commit> batch = new ArrayList<>();
+		int size = 0;
+
+		while (running || !queue.isEmpty() || !batch.isEmpty()) {
+			Commit commit;
+
+			while (size < maxBatchSize && (commit = queue.poll()) != null) {
+				batch.add(commit);
+				size += commit.mutations.length;
+			}
+
+			if (batch.isEmpty()) {
+				LockSupport.parkNanos(this, IDLE_WAIT_NANOS);
+				continue;
+			}
+
+			// Hold the batch open for concurrent appends until it is full or the oldest
+			// append has waited long enough; every append wakes the writer up again.
+			final long waited = System.nanoTime() - batch.get(0).enqueuedNanos;
+			if (running && size < maxBatchSize && waited < maxBatchDelayNanos) {
+				LockSupport.parkNanos(this, maxBatchDelayNanos - waited);
+				continue;
+			}
+
+			final boolean notified;
+			try {
+				notified = write(batch, size);
+			} catch (IOException exc) {
+				// Keep the batch and try again, the mutations are already applied in memory.
+				LOGGER.error("Could not write account journal, retrying.", exc);
+				LockSupport.parkNanos(this, TimeUnit.SECONDS.toNanos(1));
+				continue;
+			}
+
+			for (final Commit written : batch) {
+				if (notified) {
+					written.durable.complete(null);
+				} else {
+					written.durable.completeExceptionally(
+							new IOException("Journal listener failed, the batch is only in the journal."));
+				}
+			}
+			batch.clear();
+			size = 0;
+		}
+	}
+
+	/**
+	 * Force a batch to disk and notify the listener, holding the lock so that the
+	 * segment is not rotated before the listener has seen the batch.
+	 *
+	 * @return False if the listener still failed when the journal was closed.
+	 */
+	private synchronized boolean write(final List<Commit> batch, final int size) throws IOException {
+		if (activeSegment == null) {
+			activeSegment = FileChannel.open(directory.resolve(SEGMENT_PREFIX + (++segmentNumber) + SEGMENT_SUFFIX),
+					StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+		}
+
+		final long position = activeSegment.size();
+		final List<JournalRecord> records = new ArrayList<>(size);
+		final ByteBuffer buffer = ByteBuffer.allocate(size * JournalRecord.SIZE);
+		long sequence = lastSequence;
+
+		for (final Commit commit : batch) {
+			for (final JournalRecord mutation : commit.mutations) {
+				final JournalRecord record = mutation.withSequence(++sequence);
+				record.writeTo(buffer);
+				records.add(record);
+			}
+		}
+		buffer.flip();
+
+		try {
+			activeSegment.position(position);
+			while (buffer.hasRemaining()) {
+				activeSegment.write(buffer);
+			}
+			activeSegment.force(false);
+		} catch (IOException exc) {
+			// Drop a partially written batch so that the retry starts on a record boundary.
+			activeSegment.truncate(position);
+			throw exc;
+		}
+
+		lastSequence = sequence;
+
+		// The batch is durable, only the listener is repeated. Records it misses when
+		// the journal is closed are restored from the segment by the next compaction.
+		while (true) {
+			try {
+				listener.written(records);
+				return true;
+			} catch (IOException | RuntimeException exc) {
+				if (!running) {
+					LOGGER.error("Journal listener failed for sequences up to {}, giving up on close.", sequence,
+							exc);
+					return false;
+				}
+				LOGGER.error("Journal listener failed for sequences up to {}, retrying.", sequence, exc);
+				LockSupport.parkNanos(this, TimeUnit.SECONDS.toNanos(1));
+			}
+		}
+	}
+
+	private List<Path> segments() throws IOException {
+		final List<Path> segments = new ArrayList<>();
+
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+				SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+			stream.forEach(segments::add);
+		}
+		segments.sort(Comparator.comparingLong(AccountJournal::segmentNumber));
+		return segments;
+	}
+
+	private static long segmentNumber(final Path segment) {
+		final String name = segment.getFileName().toString();
+		return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+	}
+}
@@ -0,0 +1,740 @@
+package com.nagp.microservices.operationservices.storage;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.nagp.microservices.common.storage.DocumentJournal;
+import com.nagp.microservices.common.storage.SnapshotFile;
+import com.nagp.microservices.operationservices.ledger.TransactionLedger;
+import com.nagp.microservices.operationservices.model.Account;
+import com.nagp.microservices.operationservices.model.Transaction;
+
+import io.jsondb.InvalidJsonDbApiUsageException;
+import io.jsondb.JsonDBTemplate;
+
+/**
+ * Journaled storage for accounts. Balances are decided in memory by the
+ * {@link BalanceEngine}; every mutation is then enqueued on the
+ * {@link AccountJournal}, whose writer appends it to disk and its transaction
+ * to the {@link TransactionLedger}. Concurrent mutations share one forced write
+ * (group commit) and each call returns only once its mutation is durable. A
+ * background task periodically folds the journal into the account documents
+ * (the checkpoint) and writes them as a binary {@link SnapshotFile}, so the
+ * cost of an operation does not depend on how many accounts there are.
+ * <p>
+ * This store owns the accounts: account-services and miscellaneous-services
+ * read and change them through {@code AccountStoreService} and follow the
+ * {@link AccountChangeFeed} to keep their caches coherent. Changes other than
+ * balances are appended to a {@link DocumentJournal} before they are applied.
+ * <p>
+ * Startup reads the snapshot and replays only the journals written since. The
+ * JSON DB collection is read once to create the first snapshot.
+ *
+ * @author vinodgodara
+ *
+ */
+@Component
+public class AccountStore {
+	private static final Logger LOGGER = LoggerFactory.getLogger(AccountStore.class);
+
+	// Actual location on disk for database files, process should have read-write
+	// permissions to this folder
+	private final String dbFilesLocation;
+
+	// Java package name where POJO's are present
+	private final String baseScanPackage = "com.nagp.microservices.operationservices.model";
+
+	// Account documents, with balances as of the last checkpoint.
+	private final Map<Long, Account> accounts = new ConcurrentHashMap<>();
+
+	private final SnapshotFile<Account> snapshot;
+
+	// Accounts created, updated, closed or with a new cheque book state.
+	private final DocumentJournal<Account> documentJournal;
+
+	private final AccountChangeFeed changeFeed;
+
+	// Live balances, ahead of the checkpoint by whatever is in the journal.
+	private final BalanceEngine balanceEngine = new BalanceEngine();
+
+	private final ScheduledExecutorService compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		final Thread thread = new Thread(runnable, "account-journal-compactor");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final AccountJournal journal;
+
+	// Held by one compaction at a time, the store lock only while it rotates the
+	// journals and copies the accounts.
+	private final Object compaction = new Object();
+
+	private final TransactionLedger ledger;
+
+	// Set by the journal writer when a ledger append failed, so that the repeated
+	// call skips the transactions appended before the failure.
+	private boolean ledgerAppendFailed;
+
+	public AccountStore(final TransactionLedger ledger, final AccountChangeFeed changeFeed,
+			@Value("${journal.compaction-interval-ms:5000}") final long compactionIntervalMillis,
+			@Value("${journal.group-commit.max-batch-size:4096}") final int maxBatchSize,
+			@Value("${journal.group-commit.max-delay-micros:0}") final long maxBatchDelayMicros,
+			@Value("${db.files-location:C:\\}") final String dbFilesLocation) throws IOException {
+		this.dbFilesLocation = dbFilesLocation;
+		this.ledger = ledger;
+		this.changeFeed = changeFeed;
+
+		final long start = System.nanoTime();
+		final Path snapshotDirectory = Paths.get(dbFilesLocation, "snapshots");
+		Files.createDirectories(snapshotDirectory);
+		snapshot = new SnapshotFile<>(snapshotDirectory.resolve("accounts.snapshot"), new AccountCodec());
+
+		journal = new AccountJournal(Paths.get(dbFilesLocation, "journal"), this::appendToLedger, maxBatchSize,
+				TimeUnit.MICROSECONDS.toNanos(maxBatchDelayMicros));
+		documentJournal = new DocumentJournal<>(Paths.get(dbFilesLocation, "journal"), "account-documents",
+				new AccountCodec());
+
+		long lastDocumentSegment = 0;
+
+		if (snapshot.exists()) {
+			lastDocumentSegment = snapshot.read(account -> accounts.put(account.getAccountNO(), account));
+			documentJournal.continueAfter(lastDocumentSegment);
+		} else {
+			importCollection();
+		}
+
+		// Segments already checkpointed are deleted, continue numbering after the
+		// last sequence the snapshot holds.
+		long lastJournalSequence = 0;
+		for (final Account account : accounts.values()) {
+			lastJournalSequence = Math.max(lastJournalSequence, account.getLastJournalSequence());
+		}
+		journal.continueAfter(lastJournalSequence);
+
+		for (final Path segment : documentJournal.rotate()) {
+			// Segments up to the snapshot were not deleted before the process stopped.
+			if (documentJournal.segmentNumber(segment) > lastDocumentSegment) {
+				documentJournal.read(segment, this::replayDocument);
+			}
+		}
+
+		// Fold whatever a previous run left in the journal before serving requests.
+		compact();
+
+		for (final Account account : accounts.values()) {
+			register(account);
+		}
+
+		LOGGER.info("Loaded {} accounts in {} ms.", accounts.size(),
+				TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+		compactor.scheduleWithFixedDelay(this::compactQuietly, compactionIntervalMillis, compactionIntervalMillis,
+				TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Whether the account exists and is open.
+	 *
+	 * @param accountNO Account number.
+	 * @return True if money can be moved in or out of the account.
+	 */
+	public boolean isActive(final long accountNO) {
+		return balanceEngine.isActive(accountNO);
+	}
+
+	/**
+	 * Find an account.
+	 *
+	 * @param accountNO Account number.
+	 * @return A copy of the account with its current balance, null if there is no
+	 *         such account.
+	 */
+	public Account find(final long accountNO) {
+		final Account account = accounts.get(accountNO);
+
+		if (Objects.isNull(account)) {
+			return null;
+		}
+
+		final Account copy = copy(account);
+		copy.setBalance(balanceEngine.balance(accountNO));
+		return copy;
+	}
+
+	/**
+	 * Create an account with its opening balance.
+	 *
+	 * @param account The account.
+	 * @return False if the account number is taken.
+	 */
+	public synchronized boolean create(final Account account) {
+		if (accounts.containsKey(account.getAccountNO())) {
+			return false;
+		}
+
+		final Account created = copy(account);
+		created.setLastJournalSequence(0);
+		saveDocument(created);
+		register(created);
+		changeFeed.publish(created.getAccountNO());
+		return true;
+	}
+
+	/**
+	 * Update user ID and branch of an active account. Balances only change
+	 * through operations.
+	 *
+	 * @param account The account with the new information.
+	 * @return False if there is no such active account.
+	 */
+	public synchronized boolean update(final Account account) {
+		final Account existing = accounts.get(account.getAccountNO());
+
+		if (Objects.isNull(existing) || !existing.isActive()) {
+			return false;
+		}
+
+		final Account updated = copy(existing);
+		updated.setUserID(account.getUserID());
+		updated.setBranch(account.getBranch());
+		saveDocument(updated);
+		changeFeed.publish(updated.getAccountNO());
+		return true;
+	}
+
+	/**
+	 * Close an active account.
+	 *
+	 * @param accountNO Account number.
+	 * @return False if there is no such active account.
+	 */
+	public synchronized boolean close(final long accountNO) {
+		final Account existing = accounts.get(accountNO);
+
+		if (Objects.isNull(existing) || !existing.isActive()) {
+			return false;
+		}
+
+		final Account closed = copy(existing);
+		closed.setActive(false);
+		saveDocument(closed);
+		balanceEngine.setActive(accountNO, false);
+		changeFeed.publish(accountNO);
+		return true;
+	}
+
+	/**
+	 * Record whether a cheque book is issued for an active account.
+	 *
+	 * @param accountNO Account number.
+	 * @param issued    True for an issued, false for a blocked cheque book.
+	 * @return False if there is no such active account.
+	 */
+	public synchronized boolean setChequeBookIssued(final long accountNO, final boolean issued) {
+		final Account existing = accounts.get(accountNO);
+
+		if (Objects.isNull(existing) || !existing.isActive()) {
+			return false;
+		}
+
+		final Account changed = copy(existing);
+		changed.setInChecqueBookIssued(issued);
+		saveDocument(changed);
+		changeFeed.publish(accountNO);
+		return true;
+	}
+
+	/**
+	 * Withdraw an amount from an active account and journal it. Returns once the
+	 * withdrawal is on disk.
+	 *
+	 * @param accountNO      Account number of an active account.
+	 * @param amount         Amount to withdraw.
+	 * @param minimumBalance Lowest balance the account may be left with.
+	 * @return False if the balance is insufficient.
+	 */
+	public boolean debit(final long accountNO, final long amount, final long minimumBalance) {
+		return debitAsync(accountNO, amount, minimumBalance).join();
+	}
+
+	/**
+	 * Withdraw an amount from an active account and journal it without waiting
+	 * for the disk.
+	 *
+	 * @param accountNO      Account number of an active account.
+	 * @param amount         Amount to withdraw.
+	 * @param minimumBalance Lowest balance the account may be left with.
+	 * @return Completes with false if the balance is insufficient, with true once
+	 *         the withdrawal is on disk.
+	 */
+	public CompletableFuture<Boolean> debitAsync(final long accountNO, final long amount, final long minimumBalance) {
+		if (!balanceEngine.tryDebit(accountNO, amount, minimumBalance)) {
+			return CompletableFuture.completedFuture(false);
+		}
+
+		return journal.append(mutation(accountNO, JournalRecord.DEBIT, amount)).thenApply(durable -> true);
+	}
+
+	/**
+	 * Deposit an amount to an active account and journal it. Returns once the
+	 * deposit is on disk.
+	 *
+	 * @param accountNO Account number of an active account.
+	 * @param amount    Amount to deposit.
+	 */
+	public void credit(final long accountNO, final long amount) {
+		creditAsync(accountNO, amount).join();
+	}
+
+	/**
+	 * Deposit an amount to an active account and journal it without waiting for
+	 * the disk.
+	 *
+	 * @param accountNO Account number of an active account.
+	 * @param amount    Amount to deposit.
+	 * @return Completes once the deposit is on disk.
+	 */
+	public CompletableFuture<Void> creditAsync(final long accountNO, final long amount) {
+		balanceEngine.credit(accountNO, amount);
+		return journal.append(mutation(accountNO, JournalRecord.CREDIT, amount));
+	}
+
+	/**
+	 * Move an amount between two active accounts and journal both sides together.
+	 * Returns once the transfer is on disk.
+	 *
+	 * @param fromAccountNO  Account number to withdraw from.
+	 * @param toAccountNO    Account number to deposit to.
+	 * @param amount         Amount to move.
+	 * @param minimumBalance Lowest balance the source account may be left with.
+	 * @return False if the balance of the source account is insufficient.
+	 */
+	public boolean transfer(final long fromAccountNO, final long toAccountNO, final long amount,
+			final long minimumBalance) {
+		return transferAsync(fromAccountNO, toAccountNO, amount, minimumBalance).join();
+	}
+
+	/**
+	 * Move an amount between two active accounts and journal both sides together
+	 * without waiting for the disk.
+	 *
+	 * @param fromAccountNO  Account number to withdraw from.
+	 * @param toAccountNO    Account number to deposit to.
+	 * @param amount         Amount to move.
+	 * @param minimumBalance Lowest balance the source account may be left with.
+	 * @return Completes with false if the balance of the source account is
+	 *         insufficient, with true once the transfer is on disk.
+	 */
+	public CompletableFuture<Boolean> transferAsync(final long fromAccountNO, final long toAccountNO,
+			final long amount, final long minimumBalance) {
+		if (!balanceEngine.tryDebit(fromAccountNO, amount, minimumBalance)) {
+			return CompletableFuture.completedFuture(false);
+		}
+		balanceEngine.credit(toAccountNO, amount);
+
+		return journal.append(mutation(fromAccountNO, JournalRecord.DEBIT, amount),
+				mutation(toAccountNO, JournalRecord.CREDIT, amount)).thenApply(durable -> true);
+	}
+
+	/**
+	 * Start a batch of balance mutations that are journaled together.
+	 *
+	 * @return An empty batch.
+	 */
+	public Batch batch() {
+		return new Batch();
+	}
+
+	/**
+	 * Balance mutations decided one at a time like {@link AccountStore#debit},
+	 * {@link AccountStore#credit} and {@link AccountStore#transfer}, but enqueued on
+	 * the journal with a single append once the batch is committed, so that all of
+	 * them share one forced write. Every batch that decided a mutation has to be
+	 * committed. Not thread safe.
+	 */
+	public final class Batch {
+
+		private final List<JournalRecord> mutations = new ArrayList<>();
+
+		private Batch() {
+		}
+
+		/**
+		 * Withdraw an amount from an active account.
+		 *
+		 * @param accountNO      Account number of an active account.
+		 * @param amount         Amount to withdraw.
+		 * @param minimumBalance Lowest balance the account may be left with.
+		 * @return False if the balance is insufficient.
+		 */
+		public boolean debit(final long accountNO, final long amount, final long minimumBalance) {
+			if (!balanceEngine.tryDebit(accountNO, amount, minimumBalance)) {
+				return false;
+			}
+			mutations.add(mutation(accountNO, JournalRecord.DEBIT, amount));
+			return true;
+		}
+
+		/**
+		 * Deposit an amount to an active account.
+		 *
+		 * @param accountNO Account number of an active account.
+		 * @param amount    Amount to deposit.
+		 */
+		public void credit(final long accountNO, final long amount) {
+			balanceEngine.credit(accountNO, amount);
+			mutations.add(mutation(accountNO, JournalRecord.CREDIT, amount));
+		}
+
+		/**
+		 * Move an amount between two active accounts.
+		 *
+		 * @param fromAccountNO  Account number to withdraw from.
+		 * @param toAccountNO    Account number to deposit to.
+		 * @param amount         Amount to move.
+		 * @param minimumBalance Lowest balance the source account may be left with.
+		 * @return False if the balance of the source account is insufficient.
+		 */
+		public boolean transfer(final long fromAccountNO, final long toAccountNO, final long amount,
+				final long minimumBalance) {
+			if (!balanceEngine.tryDebit(fromAccountNO, amount, minimumBalance)) {
+				return false;
+			}
+			balanceEngine.credit(toAccountNO, amount);
+			mutations.add(mutation(fromAccountNO, JournalRecord.DEBIT, amount));
+			mutations.add(mutation(toAccountNO, JournalRecord.CREDIT, amount));
+			return true;
+		}
+
+		/**
+		 * Enqueue the mutations decided so far on the journal.
+		 *
+		 * @return Completes once the mutations are forced to disk.
+		 */
+		public CompletableFuture<Void> commit() {
+			if (mutations.isEmpty()) {
+				return CompletableFuture.completedFuture(null);
+			}
+
+			final CompletableFuture<Void> durable = journal.append(mutations.toArray(new JournalRecord[0]));
+			mutations.clear();
+			return durable;
+		}
+	}
+
+	/**
+	 * Fold all closed journal segments into the account documents, write the
+	 * snapshot and delete the segments of both journals. Only rotating the
+	 * journals and copying the accounts hold the store lock; segments are read,
+	 * ledgers forced and the snapshot written while operations go on. Ledger
+	 * entries missing for a record, left by a previous run or by a journal closed
+	 * while its ledger appends failed, are appended before the segment goes away.
+	 *
+	 * @throws IOException If the journal could not be read.
+	 */
+	void compact() throws IOException {
+		synchronized (compaction) {
+			final List<Path> segments;
+			final List<Path> documentSegments;
+			final long lastDocumentSegment;
+			final Map<Long, Account> checkpoint = new HashMap<>();
+
+			synchronized (this) {
+				segments = journal.rotate();
+
+				// Document changes hold the same lock, so the copies hold every document of
+				// the closed segments and nothing later.
+				documentSegments = documentJournal.rotate();
+				lastDocumentSegment = documentJournal.lastSegmentNumber();
+
+				if (segments.isEmpty() && documentSegments.isEmpty() && snapshot.exists()) {
+					return;
+				}
+
+				for (final Account account : accounts.values()) {
+					checkpoint.put(account.getAccountNO(), copy(account));
+				}
+			}
+
+			final Map<Long, Long> ledgerSequences = new HashMap<>();
+			final Set<Long> changed = new HashSet<>();
+			long lastSequence = 0;
+
+			for (final Path segment : segments) {
+				for (final JournalRecord record : journal.read(segment)) {
+					lastSequence = record.getSequence();
+
+					final Account account = checkpoint.get(record.getAccountNO());
+
+					if (Objects.isNull(account)) {
+						LOGGER.warn("Skipping journal record for unknown account {}.", record.getAccountNO());
+						continue;
+					}
+
+					// Already part of an earlier checkpoint, the process stopped before the
+					// segment was deleted.
+					if (record.getSequence() <= account.getLastJournalSequence()) {
+						continue;
+					}
+
+					restoreLedgerEntry(record, ledgerSequences);
+
+					final long balance = Objects.nonNull(account.getBalance()) ? account.getBalance() : 0;
+					account.setBalance(balance + record.getDelta());
+					account.setLastJournalSequence(record.getSequence());
+					changed.add(record.getAccountNO());
+				}
+			}
+
+			// Ledger entries must be on disk before the journal records go away.
+			for (final Long accountNO : changed) {
+				ledger.force(accountNO);
+			}
+
+			snapshot.write(lastDocumentSegment, checkpoint.values());
+
+			for (final Path segment : segments) {
+				journal.delete(segment);
+			}
+			for (final Path segment : documentSegments) {
+				documentJournal.delete(segment);
+			}
+
+			// Later document changes copy the checkpointed balance from here.
+			synchronized (this) {
+				for (final Long accountNO : changed) {
+					final Account folded = checkpoint.get(accountNO);
+					final Account current = accounts.get(accountNO);
+
+					if (Objects.nonNull(current)
+							&& current.getLastJournalSequence() < folded.getLastJournalSequence()) {
+						final Account updated = copy(current);
+						updated.setBalance(folded.getBalance());
+						updated.setLastJournalSequence(folded.getLastJournalSequence());
+						accounts.put(accountNO, updated);
+					}
+				}
+			}
+
+			LOGGER.debug("Checkpointed {} accounts up to journal sequence {}.", changed.size(), lastSequence);
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() throws IOException {
+		compactor.shutdown();
+		// Close the journal first, the last compaction restores whatever ledger
+		// appends it gave up on.
+		journal.close();
+		compact();
+		documentJournal.close();
+	}
+
+	/**
+	 * Journal a changed document and replace the stored one. Callers hold the
+	 * store lock.
+	 */
+	private void saveDocument(final Account account) {
+		try {
+			documentJournal.append(account);
+		} catch (IOException exc) {
+			LOGGER.error("Account could not be journaled.", exc);
+			throw new RuntimeException("Account could not be saved.", exc);
+		}
+		accounts.put(account.getAccountNO(), account);
+	}
+
+	/**
+	 * Apply a journaled document change on startup. Balances of accounts that
+	 * are already known come from the balance journal, not from the document.
+	 */
+	private void replayDocument(final Account account) {
+		final Account existing = accounts.get(account.getAccountNO());
+
+		if (Objects.nonNull(existing)) {
+			account.setBalance(existing.getBalance());
+			account.setLastJournalSequence(existing.getLastJournalSequence());
+		}
+		accounts.put(account.getAccountNO(), account);
+	}
+
+	/**
+	 * Append a journaled transaction to the ledger unless the process stopped
+	 * after doing so.
+	 */
+	private void restoreLedgerEntry(final JournalRecord record, final Map<Long, Long> ledgerSequences)
+			throws IOException {
+		Long ledgerSequence = ledgerSequences.get(record.getAccountNO());
+
+		if (Objects.isNull(ledgerSequence)) {
+			ledgerSequence = ledger.lastSequence(record.getAccountNO());
+		}
+
+		if (record.getSequence() > ledgerSequence) {
+			ledger.append(record.getAccountNO(), toTransaction(record));
+			ledgerSequence = record.getSequence();
+		}
+		ledgerSequences.put(record.getAccountNO(), ledgerSequence);
+	}
+
+	/**
+	 * Append the transactions of a journal batch to the ledgers, one write per
+	 * account. Called by the journal writer thread, again with the same records
+	 * after a failure.
+	 */
+	private void appendToLedger(final List<JournalRecord> records) throws IOException {
+		final Map<Long, List<Transaction>> transactions = new LinkedHashMap<>();
+
+		for (final JournalRecord record : records) {
+			transactions.computeIfAbsent(record.getAccountNO(), accountNO -> new ArrayList<>())
+					.add(toTransaction(record));
+		}
+
+		for (final Map.Entry<Long, List<Transaction>> entry : transactions.entrySet()) {
+			final List<Transaction> missing = entry.getValue();
+
+			if (ledgerAppendFailed) {
+				final long ledgerSequence = ledger.lastSequence(entry.getKey());
+				missing.removeIf(transaction -> transaction.getSequence() <= ledgerSequence);
+				if (missing.isEmpty()) {
+					continue;
+				}
+			}
+
+			try {
+				ledger.append(entry.getKey(), missing);
+			} catch (IOException | RuntimeException exc) {
+				ledgerAppendFailed = true;
+				throw exc;
+			}
+		}
+		ledgerAppendFailed = false;
+	}
+
+	/**
+	 * Read the accounts of the JSON DB collection, once, before the first
+	 * snapshot, and move transactions still embedded in account documents into
+	 * the ledger, leaving only balance and metadata in the collection.
+	 */
+	private void importCollection() throws IOException {
+		final JsonDBTemplate jsonDBTemplate = new JsonDBTemplate(dbFilesLocation, baseScanPackage, null);
+		int migrated = 0;
+
+		try {
+			jsonDBTemplate.createCollection(Account.class);
+		} catch (InvalidJsonDbApiUsageException exc) {
+			LOGGER.warn("Collection already exists.");
+		}
+
+		for (final Account account : jsonDBTemplate.findAll(Account.class)) {
+			if (Objects.nonNull(account.getTransactions())) {
+				if (!account.getTransactions().isEmpty()) {
+					ledger.importTransactions(account.getAccountNO(), account.getTransactions());
+				}
+				account.setTransactions(null);
+				migrated++;
+			}
+			accounts.put(account.getAccountNO(), account);
+		}
+
+		LOGGER.info("Imported {} accounts from the JSON DB collection.", accounts.size());
+		if (migrated > 0) {
+			LOGGER.info("Moved embedded transactions of {} accounts to the ledger.", migrated);
+		}
+	}
+
+	private void register(final Account account) {
+		final long balance = Objects.nonNull(account.getBalance()) ? account.getBalance() : 0;
+		balanceEngine.register(account.getAccountNO(), balance, account.isActive());
+	}
+
+	private static JournalRecord mutation(final long accountNO, final byte type, final long amount) {
+		return new JournalRecord(0, accountNO, type, amount, System.currentTimeMillis());
+	}
+
+	private static Transaction toTransaction(final JournalRecord record) {
+		final Transaction transaction = new Transaction();
+		transaction.setAmmount(record.getAmount());
+		transaction.setTransactionType(record.getTransactionType());
+		transaction.setSequence(record.getSequence());
+		transaction.setTimestamp(record.getTimestamp());
+		return transaction;
+	}
+
+	private void compactQuietly() {
+		try {
+			compact();
+		} catch (Exception exc) {
+			LOGGER.error("Account journal compaction failed.", exc);
+		}
+	}
+
+	private static Account copy(final Account account) {
+		final Account copy = new Account();
+		copy.setAccountNO(account.getAccountNO());
+		copy.setUserID(account.getUserID());
+		copy.setBranch(account.getBranch());
+		copy.setActive(account.isActive());
+		copy.setInChecqueBookIssued(account.isInChecqueBookIssued());
+		copy.setBalance(account.getBalance());
+		copy.setLastJournalSequence(account.getLastJournalSequence());
+		return copy;
+	}
+
+	/**
+	 * Binary encoding of an account for snapshots, without embedded transactions.
+	 */
+	private static final class AccountCodec implements SnapshotFile.Codec<Account> {
+		@Override
+		public void write(final DataOutputStream output, final Account account) throws IOException {
+			output.writeLong(account.getAccountNO());
+			SnapshotFile.writeNullable(output, account.getUserID());
+			SnapshotFile.writeNullable(output, account.getBranch());
+			output.writeBoolean(account.isActive());
+			output.writeBoolean(account.isInChecqueBookIssued());
+			output.writeBoolean(Objects.nonNull(account.getBalance()));
+			output.writeLong(Objects.nonNull(account.getBalance()) ? account.getBalance() : 0);
+			output.writeLong(account.getLastJournalSequence());
+		}
+
+		@Override
+		public Account read(final DataInputStream input) throws IOException {
+			final Account account = new Account();
+			account.setAccountNO(input.readLong());
+			account.setUserID(SnapshotFile.readNullable(input));
+			account.setBranch(SnapshotFile.readNullable(input));
+			account.setActive(input.readBoolean());
+			account.setInChecqueBookIssued(input.readBoolean());
+
+			final boolean hasBalance = input.readBoolean();
+			final long balance = input.readLong();
+			account.setBalance(hasBalance ? balance : null);
+			account.setLastJournalSequence(input.readLong());
+			return account;
+		}
+	}
+}
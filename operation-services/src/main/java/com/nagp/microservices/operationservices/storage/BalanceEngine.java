@@ -0,0 +1,217 @@
+package com.nagp.microservices.operationservices.storage;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory balances of all accounts, keyed by primitive account number.
+ * Balances are updated with compare-and-set loops, so an operation never waits
+ * for an operation on another account. Only registering a new account takes a
+ * lock.
+ * <p>
+ * Account numbers map to slots through an open-addressing table; balances live
+ * in fixed-size chunks indexed by slot that never move, so a reader holding a
+ * table that is being replaced still updates the right balance.
+ *
+ * @author vinodgodara
+ *
+ */
+public class BalanceEngine {
+
+	private static final int CHUNK_BITS = 14;
+
+	private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+	// Account number 0 is never valid and marks an empty table entry.
+	private static final long EMPTY = 0;
+
+	private static final class Table {
+		private final AtomicLongArray keys;
+
+		private final int[] slots;
+
+		private final int mask;
+
+		private Table(final int capacity) {
+			keys = new AtomicLongArray(capacity);
+			slots = new int[capacity];
+			mask = capacity - 1;
+		}
+	}
+
+	private volatile Table table = new Table(CHUNK_SIZE);
+
+	private volatile AtomicLongArray[] balances = new AtomicLongArray[] { new AtomicLongArray(CHUNK_SIZE) };
+
+	private volatile AtomicIntegerArray[] activeFlags = new AtomicIntegerArray[] {
+			new AtomicIntegerArray(CHUNK_SIZE) };
+
+	private int size;
+
+	/**
+	 * Add an account unless it is already known.
+	 *
+	 * @param accountNO Account number.
+	 * @param balance   Balance of the account.
+	 * @param active    Whether the account is open.
+	 */
+	public synchronized void register(final long accountNO, final long balance, final boolean active) {
+		if (slot(accountNO) >= 0) {
+			return;
+		}
+
+		final int slot = size++;
+
+		if ((slot >>> CHUNK_BITS) == balances.length) {
+			final AtomicLongArray[] grownBalances = new AtomicLongArray[balances.length + 1];
+			final AtomicIntegerArray[] grownFlags = new AtomicIntegerArray[activeFlags.length + 1];
+			System.arraycopy(balances, 0, grownBalances, 0, balances.length);
+			System.arraycopy(activeFlags, 0, grownFlags, 0, activeFlags.length);
+			grownBalances[balances.length] = new AtomicLongArray(CHUNK_SIZE);
+			grownFlags[activeFlags.length] = new AtomicIntegerArray(CHUNK_SIZE);
+			balances = grownBalances;
+			activeFlags = grownFlags;
+		}
+
+		balances[slot >>> CHUNK_BITS].set(slot & CHUNK_MASK, balance);
+		activeFlags[slot >>> CHUNK_BITS].set(slot & CHUNK_MASK, active ? 1 : 0);
+
+		// Keep the table at most half full.
+		if (size * 2 > table.slots.length) {
+			final Table grown = new Table(table.slots.length * 2);
+			for (int i = 0; i < table.slots.length; i++) {
+				final long key = table.keys.get(i);
+				if (key != EMPTY) {
+					insert(grown, key, table.slots[i]);
+				}
+			}
+			insert(grown, accountNO, slot);
+			table = grown;
+		} else {
+			insert(table, accountNO, slot);
+		}
+	}
+
+	/**
+	 * Whether the account is known.
+	 *
+	 * @param accountNO Account number.
+	 * @return True if the account was registered.
+	 */
+	public boolean contains(final long accountNO) {
+		return slot(accountNO) >= 0;
+	}
+
+	/**
+	 * Whether the account is known and open.
+	 *
+	 * @param accountNO Account number.
+	 * @return True if operations on the account are allowed.
+	 */
+	public boolean isActive(final long accountNO) {
+		final int slot = slot(accountNO);
+		return slot >= 0 && activeFlags[slot >>> CHUNK_BITS].get(slot & CHUNK_MASK) == 1;
+	}
+
+	/**
+	 * Open or close an account.
+	 *
+	 * @param accountNO Account number of a registered account.
+	 * @param active    Whether the account is open.
+	 */
+	public void setActive(final long accountNO, final boolean active) {
+		final int slot = requireSlot(accountNO);
+		activeFlags[slot >>> CHUNK_BITS].set(slot & CHUNK_MASK, active ? 1 : 0);
+	}
+
+	/**
+	 * Current balance of an account.
+	 *
+	 * @param accountNO Account number of a registered account.
+	 * @return The balance.
+	 */
+	public long balance(final long accountNO) {
+		final int slot = requireSlot(accountNO);
+		return balances[slot >>> CHUNK_BITS].get(slot & CHUNK_MASK);
+	}
+
+	/**
+	 * Subtract an amount unless the balance would drop below the minimum.
+	 *
+	 * @param accountNO      Account number of a registered account.
+	 * @param amount         Amount to subtract.
+	 * @param minimumBalance Lowest balance allowed after the debit.
+	 * @return False if the balance is insufficient.
+	 */
+	public boolean tryDebit(final long accountNO, final long amount, final long minimumBalance) {
+		final int slot = requireSlot(accountNO);
+		final AtomicLongArray chunk = balances[slot >>> CHUNK_BITS];
+		final int index = slot & CHUNK_MASK;
+
+		while (true) {
+			final long balance = chunk.get(index);
+
+			if (balance - amount < minimumBalance) {
+				return false;
+			}
+			if (chunk.compareAndSet(index, balance, balance - amount)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Add an amount to the balance.
+	 *
+	 * @param accountNO Account number of a registered account.
+	 * @param amount    Amount to add.
+	 */
+	public void credit(final long accountNO, final long amount) {
+		final int slot = requireSlot(accountNO);
+		balances[slot >>> CHUNK_BITS].addAndGet(slot & CHUNK_MASK, amount);
+	}
+
+	private int requireSlot(final long accountNO) {
+		final int slot = slot(accountNO);
+
+		if (slot < 0) {
+			throw new IllegalStateException("Account " + accountNO + " is not registered.");
+		}
+		return slot;
+	}
+
+	private int slot(final long accountNO) {
+		final Table current = table;
+		int index = hash(accountNO) & current.mask;
+
+		while (true) {
+			// The volatile read of the key publishes the slot written before it.
+			final long key = current.keys.get(index);
+
+			if (key == accountNO) {
+				return current.slots[index];
+			}
+			if (key == EMPTY) {
+				return -1;
+			}
+			index = (index + 1) & current.mask;
+		}
+	}
+
+	private static void insert(final Table target, final long accountNO, final int slot) {
+		int index = hash(accountNO) & target.mask;
+
+		while (target.keys.get(index) != EMPTY) {
+			index = (index + 1) & target.mask;
+		}
+		target.slots[index] = slot;
+		target.keys.set(index, accountNO);
+	}
+
+	private static int hash(final long accountNO) {
+		final long hash = accountNO * 0x9E3779B97F4A7C15L;
+		return (int) (hash ^ (hash >>> 32));
+	}
+}
@@ -0,0 +1,111 @@
+package com.nagp.microservices.operationservices.storage;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A single balance mutation as it is written to the {@link AccountJournal}.
+ * Records are fixed width so that appending one never depends on the size of
+ * the account it belongs to.
+ *
+ * @author vinodgodara
+ *
+ */
+public class JournalRecord {
+
+	public static final byte DEBIT = 'D';
+
+	public static final byte CREDIT = 'C';
+
+	// sequence + account number + type + amount + timestamp.
+	public static final int SIZE = Long.BYTES + Long.BYTES + Byte.BYTES + Long.BYTES + Long.BYTES;
+
+	private final long sequence;
+
+	private final long accountNO;
+
+	private final byte type;
+
+	private final long amount;
+
+	private final long timestamp;
+
+	public JournalRecord(final long sequence, final long accountNO, final byte type, final long amount,
+			final long timestamp) {
+		this.sequence = sequence;
+		this.accountNO = accountNO;
+		this.type = type;
+		this.amount = amount;
+		this.timestamp = timestamp;
+	}
+
+	public long getSequence() {
+		return sequence;
+	}
+
+	public long getAccountNO() {
+		return accountNO;
+	}
+
+	public byte getType() {
+		return type;
+	}
+
+	public long getAmount() {
+		return amount;
+	}
+
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	/**
+	 * Copy of this record with the sequence number assigned when it is written.
+	 *
+	 * @param sequence Sequence number.
+	 * @return The numbered record.
+	 */
+	public JournalRecord withSequence(final long sequence) {
+		return new JournalRecord(sequence, accountNO, type, amount, timestamp);
+	}
+
+	/**
+	 * Signed change this record makes to the balance of its account.
+	 *
+	 * @return Negative amount for debits, positive amount for credits.
+	 */
+	public long getDelta() {
+		return type == DEBIT ? -amount : amount;
+	}
+
+	/**
+	 * Transaction type as stored on the account document.
+	 *
+	 * @return "Debit" or "Credit".
+	 */
+	public String getTransactionType() {
+		return type == DEBIT ? "Debit" : "Credit";
+	}
+
+	/**
+	 * Write this record at the current position of the buffer.
+	 *
+	 * @param buffer Buffer with at least {@link #SIZE} bytes remaining.
+	 */
+	public void writeTo(final ByteBuffer buffer) {
+		buffer.putLong(sequence);
+		buffer.putLong(accountNO);
+		buffer.put(type);
+		buffer.putLong(amount);
+		buffer.putLong(timestamp);
+	}
+
+	/**
+	 * Read a record from the current position of the buffer.
+	 *
+	 * @param buffer Buffer with at least {@link #SIZE} bytes remaining.
+	 * @return The record.
+	 */
+	public static JournalRecord readFrom(final ByteBuffer buffer) {
+		return new JournalRecord(buffer.getLong(), buffer.getLong(), buffer.get(), buffer.getLong(), buffer.getLong());
+	}
+}
@@ -0,0 +1,155 @@
+package com.nagp.microservices.operationservices.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nagp.microservices.operationservices.ledger.TransactionLedger;
+import com.nagp.microservices.operationservices.model.Account;
+import com.nagp.microservices.operationservices.model.Transaction;
+import com.nagp.microservices.operationservices.model.TransactionPage;
+import com.nagp.microservices.operationservices.storage.AccountChangeFeed;
+import com.nagp.microservices.operationservices.storage.AccountStore;
+
+class BatchOperationServiceTest {
+
+	private static final String DEPOSIT = "{\"operationType\":\"Deposit\",\"accountNO\":1,\"amount\":10}";
+
+	@TempDir
+	Path directory;
+
+	private AccountStore store;
+
+	private final BatchOperationService service = new BatchOperationService();
+
+	@BeforeEach
+	void open() throws IOException {
+		store = new AccountStore(new DiscardingLedger(), new AccountChangeFeed(64), 60_000, 64, 0,
+				directory.toString());
+		store.create(account(1, 100));
+		store.create(account(2, 100));
+
+		ReflectionTestUtils.setField(service, "accountStore", store);
+		ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper());
+		ReflectionTestUtils.setField(service, "chunkSize", 2);
+	}
+
+	@AfterEach
+	void close() throws IOException {
+		store.shutdown();
+	}
+
+	@Test
+	void answersEveryOperationInOrder() throws IOException {
+		assertEquals("[\"Success.\",\"Success.\",\"Success.\",\"Insufficient Balance.\","
+				+ "\"Account does not exist.\",\"Invalid account number.\",\"Invalid operation.\"]",
+				post("[" + DEPOSIT + ",{\"operationType\":\"Withdraw\",\"accountNO\":1,\"amount\":50},"
+						+ "{\"operationType\":\"Transfer\",\"accountNO\":1,\"toAccountNO\":2,\"amount\":60},"
+						+ "{\"operationType\":\"Withdraw\",\"accountNO\":1,\"amount\":100},"
+						+ "{\"operationType\":\"Deposit\",\"accountNO\":3,\"amount\":10},"
+						+ "{\"operationType\":\"Deposit\",\"accountNO\":0,\"amount\":10},"
+						+ "{\"operationType\":\"Interest\",\"accountNO\":1,\"amount\":10}]"));
+
+		assertEquals(Long.valueOf(0), store.find(1).getBalance());
+		assertEquals(Long.valueOf(160), store.find(2).getBalance());
+	}
+
+	@Test
+	void answersAnEmptyBatch() throws IOException {
+		assertEquals("[]", post("[]"));
+	}
+
+	@Test
+	void refusesABodyThatIsNotAnArray() throws IOException {
+		assertEquals("[\"Invalid request.\"]", post(DEPOSIT));
+		assertEquals(Long.valueOf(100), store.find(1).getBalance());
+	}
+
+	@Test
+	void stopsAtAnItemThatIsNotAnOperation() throws IOException {
+		assertEquals("[\"Success.\",\"Success.\",\"Success.\",\"Invalid operation.\"]",
+				post("[" + DEPOSIT + "," + DEPOSIT + "," + DEPOSIT + ",5," + DEPOSIT + "]"));
+		assertEquals(Long.valueOf(130), store.find(1).getBalance());
+	}
+
+	@Test
+	void keepsTheOperationsBeforeATruncatedItem() throws IOException {
+		assertEquals("[\"Success.\",\"Invalid operation.\"]", post("[" + DEPOSIT + ",{\"accountNO\":"));
+		assertEquals(Long.valueOf(110), store.find(1).getBalance());
+	}
+
+	@Test
+	void stopsAtAnItemOfTheWrongShape() throws IOException {
+		assertEquals("[\"Success.\",\"Invalid operation.\"]",
+				post("[" + DEPOSIT + ",{\"operationType\":\"Deposit\",\"accountNO\":\"one\",\"amount\":10}]"));
+		assertEquals(Long.valueOf(110), store.find(1).getBalance());
+	}
+
+	private String post(final String body) throws IOException {
+		final MockHttpServletRequest request = new MockHttpServletRequest("POST", "/batchOperations");
+		request.setContent(body.getBytes(StandardCharsets.UTF_8));
+		final MockHttpServletResponse response = new MockHttpServletResponse();
+
+		service.batchOperations(request, response);
+		return response.getContentAsString();
+	}
+
+	private static Account account(final long accountNO, final long balance) {
+		final Account account = new Account();
+		account.setAccountNO(accountNO);
+		account.setUserID("user");
+		account.setBranch("branch");
+		account.setActive(true);
+		account.setBalance(balance);
+		return account;
+	}
+
+	/**
+	 * Ledger keeping nothing, only balances are checked.
+	 */
+	private static final class DiscardingLedger implements TransactionLedger {
+
+		@Override
+		public void append(final long accountNO, final Transaction transaction) {
+		}
+
+		@Override
+		public void append(final long accountNO, final List<Transaction> transactions) {
+		}
+
+		@Override
+		public boolean importTransactions(final long accountNO, final List<Transaction> transactions) {
+			return true;
+		}
+
+		@Override
+		public long lastSequence(final long accountNO) {
+			return 0;
+		}
+
+		@Override
+		public TransactionPage readPage(final long accountNO, final long cursor, final int limit) {
+			final TransactionPage page = new TransactionPage();
+			page.setTransactions(new ArrayList<>());
+			page.setNextCursor(cursor);
+			return page;
+		}
+
+		@Override
+		public void force(final long accountNO) {
+		}
+	}
+}
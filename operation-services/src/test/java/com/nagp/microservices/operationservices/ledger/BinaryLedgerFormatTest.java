@@ -0,0 +1,30 @@
+package com.nagp.microservices.operationservices.ledger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class BinaryLedgerFormatTest {
+
+	@Test
+	void segmentsGrowFromTheFirstSizeToTheMaximum() {
+		assertEquals(BinaryLedgerFormat.FIRST_SEGMENT_RECORDS, BinaryLedgerFormat.segmentRecords(0));
+		assertEquals(2 * BinaryLedgerFormat.FIRST_SEGMENT_RECORDS, BinaryLedgerFormat.segmentRecords(1));
+		assertEquals(BinaryLedgerFormat.MAX_SEGMENT_RECORDS, BinaryLedgerFormat.segmentRecords(6));
+		assertEquals(BinaryLedgerFormat.MAX_SEGMENT_RECORDS, BinaryLedgerFormat.segmentRecords(100));
+	}
+
+	@Test
+	void everyRecordLiesInTheSegmentStartingBeforeIt() {
+		long first = 0;
+
+		for (int segment = 0; segment < 20; segment++) {
+			assertEquals(first, BinaryLedgerFormat.firstRecord(segment));
+
+			for (long record = first; record < first + BinaryLedgerFormat.segmentRecords(segment); record++) {
+				assertEquals(segment, BinaryLedgerFormat.segmentOf(record));
+			}
+			first += BinaryLedgerFormat.segmentRecords(segment);
+		}
+	}
+}
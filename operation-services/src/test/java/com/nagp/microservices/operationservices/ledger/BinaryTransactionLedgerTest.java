@@ -0,0 +1,94 @@
+package com.nagp.microservices.operationservices.ledger;
+
+import static com.nagp.microservices.operationservices.ledger.JsonTransactionLedgerTest.readAll;
+import static com.nagp.microservices.operationservices.ledger.JsonTransactionLedgerTest.sequences;
+import static com.nagp.microservices.operationservices.ledger.JsonTransactionLedgerTest.transaction;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.nagp.microservices.operationservices.model.Transaction;
+
+class BinaryTransactionLedgerTest {
+
+	@TempDir
+	Path directory;
+
+	private BinaryTransactionLedger ledger;
+
+	@BeforeEach
+	void open() throws IOException {
+		ledger = new BinaryTransactionLedger(directory.toString());
+	}
+
+	@Test
+	void pagesThroughSegmentsInOrder() throws IOException {
+		// Spans the first three segments of 16, 32 and 64 records.
+		final List<Transaction> transactions = new ArrayList<>();
+		for (int i = 1; i <= 100; i++) {
+			transactions.add(transaction(i));
+		}
+		ledger.append(1, transactions);
+
+		assertTrue(Files.exists(BinaryLedgerFormat.segmentFile(directory.resolve("ledger"), 1, 2)));
+		assertEquals(sequences(1, 100), readAll(ledger, 1, 7));
+		assertEquals(100, ledger.lastSequence(1));
+	}
+
+	@Test
+	void readsTheLedgerAgainAfterARestart() throws IOException {
+		for (int i = 1; i <= 20; i++) {
+			ledger.append(1, transaction(i));
+		}
+		ledger.force(1);
+
+		final BinaryTransactionLedger restarted = new BinaryTransactionLedger(directory.toString());
+		assertEquals(20, restarted.lastSequence(1));
+		restarted.append(1, transaction(21));
+		assertEquals(sequences(1, 21), readAll(restarted, 1, 1000));
+	}
+
+	@Test
+	void scansTheRecordsFollowingTheCursor() throws IOException {
+		for (int i = 1; i <= 40; i++) {
+			ledger.append(1, transaction(i));
+		}
+
+		final List<Long> visited = new ArrayList<>();
+		assertEquals(30, ledger.scan(1, 10, 20, (sequence, type, amount, timestamp) -> visited.add(sequence)));
+		assertEquals(sequences(11, 30), visited);
+	}
+
+	@Test
+	void keepsAppendingToAJsonLedgerWrittenBefore() throws IOException {
+		new JsonTransactionLedger(directory.toString()).append(1, transaction(1));
+
+		ledger.append(1, transaction(2));
+
+		assertFalse(Files.exists(BinaryLedgerFormat.segmentFile(directory.resolve("ledger"), 1, 0)));
+		assertEquals(sequences(1, 2), readAll(ledger, 1, 10));
+		assertFalse(ledger.importTransactions(1, new ArrayList<>()));
+	}
+
+	@Test
+	void importsAHistorySpanningSegments() throws IOException {
+		final List<Transaction> transactions = new ArrayList<>();
+		for (int i = 1; i <= 50; i++) {
+			transactions.add(transaction(i));
+		}
+
+		assertTrue(ledger.importTransactions(1, transactions));
+		assertEquals(sequences(1, 50), readAll(ledger, 1, 1000));
+		assertEquals(50, ledger.lastSequence(1));
+	}
+}
@@ -0,0 +1,122 @@
+package com.nagp.microservices.operationservices.ledger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.nagp.microservices.operationservices.model.Transaction;
+import com.nagp.microservices.operationservices.model.TransactionPage;
+
+class JsonTransactionLedgerTest {
+
+	@TempDir
+	Path directory;
+
+	private JsonTransactionLedger ledger;
+
+	@BeforeEach
+	void open() throws IOException {
+		ledger = new JsonTransactionLedger(directory.toString());
+	}
+
+	@Test
+	void keepsTheLedgerInTheConfiguredLocation() throws IOException {
+		ledger.append(1, transaction(1));
+		assertTrue(Files.exists(directory.resolve("ledger").resolve("1.ledger")));
+	}
+
+	@Test
+	void pagesThroughTheLedgerInOrder() throws IOException {
+		for (int i = 1; i <= 25; i++) {
+			ledger.append(1, transaction(i));
+		}
+
+		assertEquals(sequences(1, 25), readAll(ledger, 1, 10));
+		assertEquals(25, ledger.lastSequence(1));
+	}
+
+	@Test
+	void answersAnEmptyPageForAnAccountWithoutLedger() throws IOException {
+		final TransactionPage page = ledger.readPage(2, 0, 10);
+
+		assertTrue(page.getTransactions().isEmpty());
+		assertEquals(0, page.getNextCursor());
+	}
+
+	@Test
+	void leavesALineStillBeingAppendedForTheNextPage() throws IOException {
+		ledger.append(1, transaction(1));
+		final Path ledgerFile = directory.resolve("ledger").resolve("1.ledger");
+		Files.write(ledgerFile, "{\"sequence\":2".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+		final TransactionPage page = ledger.readPage(1, 0, 10);
+		assertEquals(1, page.getTransactions().size());
+		assertEquals(1, ledger.lastSequence(1));
+
+		final TransactionPage next = ledger.readPage(1, page.getNextCursor(), 10);
+		assertTrue(next.getTransactions().isEmpty());
+		assertEquals(page.getNextCursor(), next.getNextCursor());
+	}
+
+	@Test
+	void importsOnlyIntoAnAccountWithoutLedger() throws IOException {
+		assertTrue(ledger.importTransactions(1, Arrays.asList(transaction(1), transaction(2))));
+		assertFalse(ledger.importTransactions(1, Arrays.asList(transaction(3))));
+		assertEquals(sequences(1, 2), readAll(ledger, 1, 10));
+	}
+
+	static Transaction transaction(final long sequence) {
+		final Transaction transaction = new Transaction();
+		transaction.setAmmount(sequence * 10);
+		transaction.setTransactionType(sequence % 2 == 0 ? "Debit" : "Credit");
+		transaction.setSequence(sequence);
+		transaction.setTimestamp(1_570_000_000_000L + sequence);
+		return transaction;
+	}
+
+	static List<Long> sequences(final long first, final long last) {
+		final List<Long> sequences = new ArrayList<>();
+		for (long sequence = first; sequence <= last; sequence++) {
+			sequences.add(sequence);
+		}
+		return sequences;
+	}
+
+	/**
+	 * Sequences of every transaction of the account, read a page at a time.
+	 */
+	static List<Long> readAll(final TransactionLedger ledger, final long accountNO, final int limit)
+			throws IOException {
+		final List<Long> sequences = new ArrayList<>();
+		long cursor = 0;
+
+		while (true) {
+			final TransactionPage page = ledger.readPage(accountNO, cursor, limit);
+			assertTrue(page.getTransactions().size() <= limit);
+
+			for (final Transaction transaction : page.getTransactions()) {
+				assertEquals(transaction.getSequence() * 10, transaction.getAmmount());
+				assertEquals(transaction.getSequence() % 2 == 0 ? "Debit" : "Credit",
+						transaction.getTransactionType());
+				sequences.add(transaction.getSequence());
+			}
+			if (page.getNextCursor() == cursor) {
+				return sequences;
+			}
+			cursor = page.getNextCursor();
+		}
+	}
+}
@@ -0,0 +1,127 @@
+package com.nagp.microservices.operationservices.ledger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nagp.microservices.operationservices.model.Transaction;
+
+/**
+ * Storage size and read cost of the JSON and the binary ledger format. Writes
+ * the same history to a temporary account in both formats, then pages through
+ * it with {@link JsonTransactionLedger} and {@link BinaryTransactionLedger} and
+ * scans it with {@link BinaryTransactionLedger#scan}. Run with
+ * {@code java -cp target/classes:target/test-classes ...LedgerFormatBenchmark [transactions] [rounds]}.
+ *
+ * @author vinodgodara
+ *
+ */
+public class LedgerFormatBenchmark {
+
+	// Far away from real account numbers.
+	private static final long ACCOUNT_NO = Long.MAX_VALUE - 1;
+
+	public static void main(final String[] args) throws IOException {
+		final int count = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+		final int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+		final Path dbFiles = Files.createTempDirectory("ledger-format");
+		final Path directory = Files.createDirectories(dbFiles.resolve("ledger"));
+
+		final Path jsonFile = directory.resolve(ACCOUNT_NO + ".ledger");
+		final ObjectMapper objectMapper = new ObjectMapper();
+		final ByteArrayOutputStream lines = new ByteArrayOutputStream();
+		final int segments = BinaryLedgerFormat.segmentOf(count - 1) + 1;
+		final ByteBuffer binary = ByteBuffer.allocate(
+				(int) BinaryLedgerFormat.firstRecord(segments) * BinaryLedgerFormat.RECORD_SIZE);
+
+		for (int i = 0; i < count; i++) {
+			final Transaction transaction = new Transaction();
+			transaction.setAmmount(1 + i % 5000);
+			transaction.setTransactionType(i % 2 == 0 ? "Credit" : "Debit");
+			transaction.setSequence(i + 1);
+			transaction.setTimestamp(1_570_000_000_000L + i);
+			lines.write(objectMapper.writeValueAsBytes(transaction));
+			lines.write('\n');
+
+			final int offset = i * BinaryLedgerFormat.RECORD_SIZE;
+			binary.putLong(offset + BinaryLedgerFormat.SEQUENCE_OFFSET, transaction.getSequence());
+			binary.putLong(offset + BinaryLedgerFormat.TIMESTAMP_OFFSET, transaction.getTimestamp());
+			binary.putLong(offset + BinaryLedgerFormat.AMOUNT_OFFSET, transaction.getAmmount());
+			binary.put(offset + BinaryLedgerFormat.TYPE_OFFSET,
+					i % 2 == 0 ? BinaryLedgerFormat.CREDIT : BinaryLedgerFormat.DEBIT);
+		}
+
+		Files.write(jsonFile, lines.toByteArray());
+		final long jsonSize = Files.size(jsonFile);
+
+		// Page through the JSON ledger before the binary segments shadow it.
+		final double jsonMillis = time(rounds, () -> pageThrough(new JsonTransactionLedger(dbFiles.toString())));
+		Files.delete(jsonFile);
+
+		long binarySize = 0;
+		for (int segment = 0; segment < segments; segment++) {
+			final Path segmentFile = BinaryLedgerFormat.segmentFile(directory, ACCOUNT_NO, segment);
+			final int start = (int) BinaryLedgerFormat.firstRecord(segment) * BinaryLedgerFormat.RECORD_SIZE;
+			Files.write(segmentFile,
+					Arrays.copyOfRange(binary.array(), start, start + BinaryLedgerFormat.segmentSize(segment)));
+			binarySize += Files.size(segmentFile);
+		}
+
+		final BinaryTransactionLedger binaryLedger = new BinaryTransactionLedger(dbFiles.toString());
+		final double binaryMillis = time(rounds, () -> pageThrough(binaryLedger));
+		final long[] balance = new long[1];
+		final double scanMillis = time(rounds, () -> binaryLedger.scan(ACCOUNT_NO, 0, Integer.MAX_VALUE,
+				(sequence, type, amount, timestamp) -> balance[0] += type == BinaryLedgerFormat.DEBIT ? -amount
+						: amount));
+
+		for (int segment = 0; segment < segments; segment++) {
+			Files.delete(BinaryLedgerFormat.segmentFile(directory, ACCOUNT_NO, segment));
+		}
+
+		System.out.printf("%,d transactions%n", count);
+		System.out.printf("%-16s %12s %14s%n", "format", "bytes", "ms per read");
+		System.out.printf("%-16s %,12d %14.2f%n", "json pages", jsonSize, jsonMillis);
+		System.out.printf("%-16s %,12d %14.2f%n", "binary pages", binarySize, binaryMillis);
+		System.out.printf("%-16s %,12d %14.2f%n", "binary scan", binarySize, scanMillis);
+		System.out.printf("scanned balance %,d%n", balance[0]);
+	}
+
+	private static void pageThrough(final TransactionLedger ledger) throws IOException {
+		long cursor = 0;
+
+		while (true) {
+			final long next = ledger.readPage(ACCOUNT_NO, cursor, TransactionLedger.MAX_PAGE_SIZE).getNextCursor();
+
+			if (next == cursor) {
+				return;
+			}
+			cursor = next;
+		}
+	}
+
+	/**
+	 * Read of a ledger, which may fail like the ledger does.
+	 */
+	private interface Read {
+		void run() throws IOException;
+	}
+
+	/**
+	 * Average milliseconds of a read after as many warm-up rounds.
+	 */
+	private static double time(final int rounds, final Read read) throws IOException {
+		for (int i = 0; i < rounds; i++) {
+			read.run();
+		}
+
+		final long start = System.nanoTime();
+		for (int i = 0; i < rounds; i++) {
+			read.run();
+		}
+		return (System.nanoTime() - start) / 1e6 / rounds;
+	}
+}
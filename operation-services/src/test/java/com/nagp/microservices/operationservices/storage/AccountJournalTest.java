@@ -0,0 +1,69 @@
+package com.nagp.microservices.operationservices.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AccountJournalTest {
+
+	@TempDir
+	Path directory;
+
+	private final List<List<JournalRecord>> notified = new CopyOnWriteArrayList<>();
+
+	@Test
+	void acknowledgesABatchOnlyOnceTheListenerSucceeded() throws Exception {
+		final AtomicBoolean failing = new AtomicBoolean(true);
+		final AccountJournal journal = new AccountJournal(directory, records -> {
+			notified.add(records);
+			if (failing.get()) {
+				throw new IOException("ledger is full");
+			}
+		}, 64, 0);
+
+		// An append may cut the pause between retries short, the listener fails
+		// until the ledger is given room again.
+		final CompletableFuture<Void> durable = journal.append(credit(1, 10));
+		Thread.sleep(200);
+		assertFalse(durable.isDone(), "acknowledged before the listener succeeded");
+
+		failing.set(false);
+		durable.get(5, TimeUnit.SECONDS);
+		assertTrue(notified.size() >= 2);
+		assertEquals(notified.get(0), notified.get(notified.size() - 1));
+
+		// The batch is on disk once, only the listener is repeated.
+		final List<Path> segments = journal.rotate();
+		assertEquals(1, segments.size());
+		assertEquals(1, journal.read(segments.get(0)).size());
+		journal.close();
+	}
+
+	@Test
+	void failsTheBatchWhenClosedWhileTheListenerFails() throws Exception {
+		final AccountJournal journal = new AccountJournal(directory, records -> {
+			throw new IOException("ledger is gone");
+		}, 64, 0);
+
+		final CompletableFuture<Void> durable = journal.append(credit(1, 10));
+		Thread.sleep(100);
+		journal.close();
+
+		assertTrue(durable.isCompletedExceptionally());
+	}
+
+	private static JournalRecord credit(final long accountNO, final long amount) {
+		return new JournalRecord(0, accountNO, JournalRecord.CREDIT, amount, 0);
+	}
+}
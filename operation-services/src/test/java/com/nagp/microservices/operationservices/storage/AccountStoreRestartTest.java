@@ -0,0 +1,194 @@
+package com.nagp.microservices.operationservices.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.nagp.microservices.operationservices.ledger.TransactionLedger;
+import com.nagp.microservices.operationservices.model.Account;
+import com.nagp.microservices.operationservices.model.Transaction;
+import com.nagp.microservices.operationservices.model.TransactionPage;
+
+class AccountStoreRestartTest {
+
+	@TempDir
+	Path directory;
+
+	private final InMemoryLedger ledger = new InMemoryLedger();
+
+	@Test
+	void keepsBalancesAcrossRestarts() throws IOException {
+		AccountStore store = open();
+		assertTrue(store.create(account(1, 100)));
+		store.credit(1, 10);
+		store.shutdown();
+
+		store = open();
+		assertEquals(Long.valueOf(110), store.find(1).getBalance());
+		store.credit(1, 20);
+		assertTrue(store.debit(1, 5, 0));
+		store.shutdown();
+
+		store = open();
+		assertEquals(Long.valueOf(125), store.find(1).getBalance());
+		store.credit(1, 1);
+		store.shutdown();
+
+		store = open();
+		assertEquals(Long.valueOf(126), store.find(1).getBalance());
+		store.shutdown();
+	}
+
+	@Test
+	void numbersJournalRecordsAfterTheCheckpoint() throws IOException {
+		AccountStore store = open();
+		store.create(account(1, 0));
+		store.credit(1, 1);
+		store.credit(1, 2);
+		store.shutdown();
+
+		store = open();
+		store.credit(1, 3);
+		store.shutdown();
+
+		final List<Transaction> transactions = ledger.transactions.get(1L);
+		assertEquals(3, transactions.size());
+		for (int i = 1; i < transactions.size(); i++) {
+			assertTrue(transactions.get(i).getSequence() > transactions.get(i - 1).getSequence(),
+					"ledger sequences must keep increasing across restarts");
+		}
+	}
+
+	@Test
+	void compactsWhileOperationsGoOn() throws Exception {
+		final AccountStore store = open();
+		store.create(account(1, 0));
+
+		final Thread crediting = new Thread(() -> {
+			for (int i = 0; i < 2000; i++) {
+				store.credit(1, 1);
+			}
+		});
+		crediting.start();
+		while (crediting.isAlive()) {
+			store.compact();
+		}
+		crediting.join();
+		store.shutdown();
+
+		final AccountStore reopened = open();
+		assertEquals(Long.valueOf(2000), reopened.find(1).getBalance());
+		assertEquals(2000, ledger.transactions.get(1L).size());
+		reopened.shutdown();
+	}
+
+	@Test
+	void appendsEveryTransactionOnceWhenTheLedgerFailedHalfWay() throws IOException {
+		final AccountStore store = open();
+		store.create(account(1, 100));
+		store.create(account(2, 0));
+
+		// The first account of the batch is appended, the second fails once.
+		ledger.failures.put(2L, 1);
+		assertTrue(store.transfer(1, 2, 10, 0));
+		store.shutdown();
+
+		assertEquals(1, ledger.transactions.get(1L).size());
+		assertEquals(1, ledger.transactions.get(2L).size());
+	}
+
+	@Test
+	void restoresLedgerEntriesTheJournalGaveUpOn() throws Exception {
+		final AccountStore store = open();
+		store.create(account(1, 0));
+
+		// Appends of the journal writer keep failing, single appends of the compaction
+		// do not.
+		ledger.failures.put(1L, Integer.MAX_VALUE);
+		final CompletableFuture<Void> credited = store.creditAsync(1, 10);
+		Thread.sleep(100);
+		store.shutdown();
+
+		assertTrue(credited.isCompletedExceptionally());
+		assertEquals(1, ledger.transactions.get(1L).size());
+
+		final AccountStore reopened = open();
+		assertEquals(Long.valueOf(10), reopened.find(1).getBalance());
+		reopened.shutdown();
+		assertEquals(1, ledger.transactions.get(1L).size());
+	}
+
+	private AccountStore open() throws IOException {
+		return new AccountStore(ledger, new AccountChangeFeed(64), 60_000, 64, 0, directory.toString());
+	}
+
+	private static Account account(final long accountNO, final long balance) {
+		final Account account = new Account();
+		account.setAccountNO(accountNO);
+		account.setUserID("user");
+		account.setBranch("branch");
+		account.setActive(true);
+		account.setBalance(balance);
+		return account;
+	}
+
+	/**
+	 * Ledger kept in memory across restarts of the store.
+	 */
+	private static final class InMemoryLedger implements TransactionLedger {
+
+		private final Map<Long, List<Transaction>> transactions = new HashMap<>();
+
+		// Batched appends to fail per account.
+		private final Map<Long, Integer> failures = new HashMap<>();
+
+		@Override
+		public synchronized void append(final long accountNO, final Transaction transaction) {
+			transactions.computeIfAbsent(accountNO, unused -> new ArrayList<>()).add(transaction);
+		}
+
+		@Override
+		public synchronized void append(final long accountNO, final List<Transaction> appended) throws IOException {
+			if (failures.getOrDefault(accountNO, 0) > 0) {
+				failures.merge(accountNO, -1, Integer::sum);
+				throw new IOException("ledger is full");
+			}
+			transactions.computeIfAbsent(accountNO, unused -> new ArrayList<>()).addAll(appended);
+		}
+
+		@Override
+		public synchronized boolean importTransactions(final long accountNO, final List<Transaction> imported) {
+			return transactions.putIfAbsent(accountNO, new ArrayList<>(imported)) == null;
+		}
+
+		@Override
+		public synchronized long lastSequence(final long accountNO) {
+			final List<Transaction> list = transactions.get(accountNO);
+			return list == null || list.isEmpty() ? 0 : list.get(list.size() - 1).getSequence();
+		}
+
+		@Override
+		public synchronized TransactionPage readPage(final long accountNO, final long cursor, final int limit) {
+			final List<Transaction> list = transactions.getOrDefault(accountNO, new ArrayList<>());
+			final int end = (int) Math.min(list.size(), cursor + limit);
+			final TransactionPage page = new TransactionPage();
+			page.setTransactions(new ArrayList<>(list.subList((int) Math.min(cursor, end), end)));
+			page.setNextCursor(end);
+			return page;
+		}
+
+		@Override
+		public void force(final long accountNO) {
+		}
+	}
+}
@@ -0,0 +1,125 @@
+package com.nagp.microservices.operationservices.storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.nagp.microservices.operationservices.ledger.JsonTransactionLedger;
+import com.nagp.microservices.operationservices.model.Account;
+
+/**
+ * Latency and throughput of deposits under many concurrent clients with
+ * blocking controllers against asynchronous ones. A fixed pool stands in for
+ * the Tomcat request threads (200 by default): a blocking controller holds its
+ * request thread until the deposit is on disk, an asynchronous one releases it
+ * and answers from the journal writer. Run with
+ * {@code java -cp target/classes:target/test-classes ...AsyncControllerBenchmark [clients] [seconds] [request threads]}.
+ *
+ * @author vinodgodara
+ *
+ */
+public class AsyncControllerBenchmark {
+
+	// Far away from real account numbers.
+	private static final long FIRST_ACCOUNT_NO = Long.MAX_VALUE - 1_000;
+
+	private static final int ACCOUNTS = 100;
+
+	private static final int MAX_SAMPLES_PER_CLIENT = 4096;
+
+	public static void main(final String[] args) throws IOException, InterruptedException {
+		final int clients = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+		final long seconds = args.length > 1 ? Long.parseLong(args[1]) : 5;
+		final int requestThreads = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+		final String dbFilesLocation = Files.createTempDirectory("async-controller").toString();
+		final AccountStore store = new AccountStore(new JsonTransactionLedger(dbFilesLocation),
+				new AccountChangeFeed(4096), 60_000, 4096, 0, dbFilesLocation);
+
+		for (int i = 0; i < ACCOUNTS; i++) {
+			final Account account = new Account();
+			account.setAccountNO(FIRST_ACCOUNT_NO + i);
+			account.setUserID("benchmark");
+			account.setActive(true);
+			account.setBalance(0L);
+			store.create(account);
+		}
+
+		System.out.printf("%,d clients, %d request threads%n", clients, requestThreads);
+		System.out.printf("%-10s %12s %10s %10s %10s%n", "mode", "ops/s", "p50 ms", "p99 ms", "max ms");
+		for (final boolean async : new boolean[] { false, true, false, true }) {
+			run(store, async, clients, seconds, requestThreads);
+		}
+
+		for (int i = 0; i < ACCOUNTS; i++) {
+			store.close(FIRST_ACCOUNT_NO + i);
+		}
+		store.shutdown();
+	}
+
+	private static void run(final AccountStore store, final boolean async, final int clients, final long seconds,
+			final int requestThreads) throws InterruptedException {
+		final ExecutorService requestPool = Executors.newFixedThreadPool(requestThreads);
+		final long[][] samples = new long[clients][MAX_SAMPLES_PER_CLIENT];
+		final int[] sampleCounts = new int[clients];
+		final long[] operations = new long[clients];
+		final CountDownLatch done = new CountDownLatch(clients);
+		final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+
+		for (int i = 0; i < clients; i++) {
+			final int client = i;
+			final long accountNO = FIRST_ACCOUNT_NO + i % ACCOUNTS;
+
+			final Thread thread = new Thread(() -> {
+				while (System.nanoTime() < deadline) {
+					final long start = System.nanoTime();
+					final CompletableFuture<String> response = new CompletableFuture<>();
+
+					requestPool.execute(() -> {
+						if (async) {
+							store.creditAsync(accountNO, 1).thenApply(durable -> "Success.")
+									.thenAccept(response::complete);
+						} else {
+							store.credit(accountNO, 1);
+							response.complete("Success.");
+						}
+					});
+					response.join();
+
+					samples[client][sampleCounts[client]++ % MAX_SAMPLES_PER_CLIENT] = System.nanoTime() - start;
+					operations[client]++;
+				}
+				done.countDown();
+			}, "client-" + i);
+			thread.setDaemon(true);
+			thread.start();
+		}
+
+		done.await();
+		requestPool.shutdown();
+
+		long total = 0;
+		int sampleTotal = 0;
+		for (int i = 0; i < clients; i++) {
+			total += operations[i];
+			sampleTotal += Math.min(sampleCounts[i], MAX_SAMPLES_PER_CLIENT);
+		}
+
+		final long[] latencies = new long[sampleTotal];
+		int next = 0;
+		for (int i = 0; i < clients; i++) {
+			final int count = Math.min(sampleCounts[i], MAX_SAMPLES_PER_CLIENT);
+			System.arraycopy(samples[i], 0, latencies, next, count);
+			next += count;
+		}
+		Arrays.sort(latencies);
+
+		System.out.printf("%-10s %,12.0f %10.2f %10.2f %10.2f%n", async ? "async" : "blocking",
+				total / (double) seconds, latencies[latencies.length / 2] / 1e6,
+				latencies[(int) (latencies.length * 0.99)] / 1e6, latencies[latencies.length - 1] / 1e6);
+	}
+}
@@ -0,0 +1,155 @@
+package com.nagp.microservices.operationservices.storage;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Contention benchmark comparing the compare-and-set updates of
+ * {@link BalanceEngine} with a balance map guarded by a single global lock.
+ * Every thread runs a mix of withdrawals and deposits (80%) and transfers
+ * (20%) against random accounts. Run with
+ * {@code java -cp target/classes:target/test-classes ...BalanceEngineBenchmark [accounts] [seconds]}.
+ *
+ * @author vinodgodara
+ *
+ */
+public class BalanceEngineBenchmark {
+
+	private static final long INITIAL_BALANCE = 1_000_000_000L;
+
+	private interface Balances {
+		boolean tryDebit(long accountNO, long amount);
+
+		void credit(long accountNO, long amount);
+
+		boolean transfer(long fromAccountNO, long toAccountNO, long amount);
+	}
+
+	public static void main(final String[] args) throws InterruptedException {
+		final int accounts = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+		final long seconds = args.length > 1 ? Long.parseLong(args[1]) : 2;
+		final int maxThreads = Runtime.getRuntime().availableProcessors() * 2;
+
+		final Map<Long, Long> lockedBalances = new HashMap<>();
+		final ReentrantLock global = new ReentrantLock();
+		final Balances globalLock = new Balances() {
+			@Override
+			public boolean tryDebit(final long accountNO, final long amount) {
+				global.lock();
+				try {
+					final long balance = lockedBalances.get(accountNO);
+
+					if (balance < amount) {
+						return false;
+					}
+					lockedBalances.put(accountNO, balance - amount);
+					return true;
+				} finally {
+					global.unlock();
+				}
+			}
+
+			@Override
+			public void credit(final long accountNO, final long amount) {
+				global.lock();
+				try {
+					lockedBalances.put(accountNO, lockedBalances.get(accountNO) + amount);
+				} finally {
+					global.unlock();
+				}
+			}
+
+			@Override
+			public boolean transfer(final long fromAccountNO, final long toAccountNO, final long amount) {
+				global.lock();
+				try {
+					if (tryDebit(fromAccountNO, amount)) {
+						credit(toAccountNO, amount);
+						return true;
+					}
+					return false;
+				} finally {
+					global.unlock();
+				}
+			}
+		};
+
+		final BalanceEngine engine = new BalanceEngine();
+		final Balances casEngine = new Balances() {
+			@Override
+			public boolean tryDebit(final long accountNO, final long amount) {
+				return engine.tryDebit(accountNO, amount, 0);
+			}
+
+			@Override
+			public void credit(final long accountNO, final long amount) {
+				engine.credit(accountNO, amount);
+			}
+
+			@Override
+			public boolean transfer(final long fromAccountNO, final long toAccountNO, final long amount) {
+				if (engine.tryDebit(fromAccountNO, amount, 0)) {
+					engine.credit(toAccountNO, amount);
+					return true;
+				}
+				return false;
+			}
+		};
+
+		// Account numbers start at 1, 0 is never a valid account.
+		for (int accountNO = 1; accountNO <= accounts; accountNO++) {
+			lockedBalances.put((long) accountNO, INITIAL_BALANCE);
+			engine.register(accountNO, INITIAL_BALANCE, true);
+		}
+
+		// Warm up both paths before measuring.
+		run(globalLock, accounts, maxThreads, 1);
+		run(casEngine, accounts, maxThreads, 1);
+
+		System.out.printf("%-8s %15s %15s %8s%n", "threads", "global ops/s", "engine ops/s", "speedup");
+		for (int threads = 1; threads <= maxThreads; threads *= 2) {
+			final double globalThroughput = run(globalLock, accounts, threads, seconds);
+			final double engineThroughput = run(casEngine, accounts, threads, seconds);
+			System.out.printf("%-8d %15.0f %15.0f %7.2fx%n", threads, globalThroughput, engineThroughput,
+					engineThroughput / globalThroughput);
+		}
+	}
+
+	private static double run(final Balances balances, final int accounts, final int threads, final long seconds)
+			throws InterruptedException {
+		final LongAdder operations = new LongAdder();
+		final CountDownLatch done = new CountDownLatch(threads);
+		final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+
+		for (int i = 0; i < threads; i++) {
+			new Thread(() -> {
+				final ThreadLocalRandom random = ThreadLocalRandom.current();
+				long count = 0;
+
+				while (System.nanoTime() < deadline) {
+					final long accountNO = 1 + random.nextInt(accounts);
+					final int operation = random.nextInt(10);
+
+					if (operation < 2) {
+						balances.transfer(accountNO, 1 + random.nextInt(accounts), 1);
+					} else if (operation < 6) {
+						balances.tryDebit(accountNO, 1);
+					} else {
+						balances.credit(accountNO, 1);
+					}
+					count++;
+				}
+				operations.add(count);
+				done.countDown();
+			}).start();
+		}
+
+		done.await();
+		return operations.sum() / (double) seconds;
+	}
+}
@@ -0,0 +1,127 @@
+package com.nagp.microservices.operationservices.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class BalanceEngineTest {
+
+	private static final int THREADS = 8;
+
+	@Test
+	void neverDebitsBelowTheMinimumUnderContention() throws InterruptedException {
+		final BalanceEngine engine = new BalanceEngine();
+		engine.register(1, 1000, true);
+		final AtomicInteger debited = new AtomicInteger();
+
+		runConcurrently(() -> {
+			for (int i = 0; i < 1000; i++) {
+				if (engine.tryDebit(1, 1, 0)) {
+					debited.incrementAndGet();
+				}
+			}
+		});
+
+		assertEquals(1000, debited.get());
+		assertEquals(0, engine.balance(1));
+		assertFalse(engine.tryDebit(1, 1, 0));
+	}
+
+	@Test
+	void keepsEveryCreditAndDebitUnderContention() throws InterruptedException {
+		final BalanceEngine engine = new BalanceEngine();
+		engine.register(1, 0, true);
+
+		runConcurrently(() -> {
+			for (int i = 0; i < 10_000; i++) {
+				engine.credit(1, 3);
+				assertTrue(engine.tryDebit(1, 2, Long.MIN_VALUE));
+			}
+		});
+
+		assertEquals(THREADS * 10_000L, engine.balance(1));
+	}
+
+	@Test
+	void keepsBalancesWhileTheTableGrows() throws InterruptedException {
+		final BalanceEngine engine = new BalanceEngine();
+		engine.register(1, 0, true);
+		final CountDownLatch registered = new CountDownLatch(1);
+
+		final Thread registering = new Thread(() -> {
+			// More than one chunk, the table is replaced several times.
+			for (long accountNO = 2; accountNO <= 50_000; accountNO++) {
+				engine.register(accountNO, accountNO, accountNO % 2 == 0);
+			}
+			registered.countDown();
+		});
+		registering.start();
+
+		long credits = 0;
+		while (registered.getCount() > 0) {
+			engine.credit(1, 1);
+			credits++;
+		}
+		registering.join();
+
+		assertEquals(credits, engine.balance(1));
+		for (long accountNO = 2; accountNO <= 50_000; accountNO++) {
+			assertEquals(accountNO, engine.balance(accountNO));
+			assertEquals(accountNO % 2 == 0, engine.isActive(accountNO));
+		}
+	}
+
+	@Test
+	void registersAnAccountOnlyOnce() {
+		final BalanceEngine engine = new BalanceEngine();
+		engine.register(1, 100, true);
+		engine.register(1, 5, false);
+
+		assertEquals(100, engine.balance(1));
+		assertTrue(engine.isActive(1));
+	}
+
+	@Test
+	void rejectsUnknownAccounts() {
+		final BalanceEngine engine = new BalanceEngine();
+
+		assertFalse(engine.contains(1));
+		assertFalse(engine.isActive(1));
+		assertThrows(IllegalStateException.class, () -> engine.credit(1, 1));
+	}
+
+	private static void runConcurrently(final Runnable task) throws InterruptedException {
+		final CountDownLatch start = new CountDownLatch(1);
+		final List<Thread> threads = new ArrayList<>();
+		final List<Throwable> failures = new ArrayList<>();
+
+		for (int i = 0; i < THREADS; i++) {
+			final Thread thread = new Thread(() -> {
+				try {
+					start.await();
+					task.run();
+				} catch (Throwable exc) {
+					synchronized (failures) {
+						failures.add(exc);
+					}
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+
+		start.countDown();
+		for (final Thread thread : threads) {
+			thread.join();
+		}
+		assertTrue(failures.isEmpty(), "Failed: " + failures);
+	}
+}
@@ -0,0 +1,98 @@
+package com.nagp.microservices.operationservices.storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.CompletableFuture;
+
+import com.nagp.microservices.operationservices.ledger.JsonTransactionLedger;
+import com.nagp.microservices.operationservices.model.Account;
+
+/**
+ * Durable operations per second of a settlement job calling the
+ * {@link AccountStore} one operation at a time, like the per-call APIs, against
+ * {@link AccountStore.Batch} chunks, like {@code /batchOperations}. HTTP round
+ * trips, which the batch API saves as well, are not included. Run with
+ * {@code java -cp target/classes:target/test-classes ...BatchOperationsBenchmark [operations] [chunk size]}.
+ *
+ * @author vinodgodara
+ *
+ */
+public class BatchOperationsBenchmark {
+
+	// Far away from real account numbers.
+	private static final long FIRST_ACCOUNT_NO = Long.MAX_VALUE - 1_000;
+
+	private static final int ACCOUNTS = 100;
+
+	public static void main(final String[] args) throws IOException {
+		final int operations = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+		final int chunkSize = args.length > 1 ? Integer.parseInt(args[1]) : 4096;
+		final String dbFilesLocation = Files.createTempDirectory("batch-operations").toString();
+		final AccountStore store = new AccountStore(new JsonTransactionLedger(dbFilesLocation),
+				new AccountChangeFeed(4096), 60_000, 4096, 0, dbFilesLocation);
+
+		for (int i = 0; i < ACCOUNTS; i++) {
+			final Account account = new Account();
+			account.setAccountNO(FIRST_ACCOUNT_NO + i);
+			account.setUserID("benchmark");
+			account.setActive(true);
+			account.setBalance(1_000_000_000L);
+			store.create(account);
+		}
+
+		long start = System.nanoTime();
+		for (int i = 0; i < operations; i++) {
+			final long accountNO = FIRST_ACCOUNT_NO + i % ACCOUNTS;
+
+			switch (i % 3) {
+			case 0:
+				store.credit(accountNO, 10);
+				break;
+			case 1:
+				store.debit(accountNO, 5, 1);
+				break;
+			default:
+				store.transfer(accountNO, FIRST_ACCOUNT_NO + (i + 1) % ACCOUNTS, 1, 0);
+			}
+		}
+		final double single = operations / ((System.nanoTime() - start) / 1e9);
+
+		start = System.nanoTime();
+		AccountStore.Batch batch = store.batch();
+		CompletableFuture<Void> previous = CompletableFuture.completedFuture(null);
+		for (int i = 0; i < operations; i++) {
+			final long accountNO = FIRST_ACCOUNT_NO + i % ACCOUNTS;
+
+			switch (i % 3) {
+			case 0:
+				batch.credit(accountNO, 10);
+				break;
+			case 1:
+				batch.debit(accountNO, 5, 1);
+				break;
+			default:
+				batch.transfer(accountNO, FIRST_ACCOUNT_NO + (i + 1) % ACCOUNTS, 1, 0);
+			}
+
+			if ((i + 1) % chunkSize == 0) {
+				final CompletableFuture<Void> chunk = batch.commit();
+				previous.join();
+				previous = chunk;
+			}
+		}
+		previous.join();
+		batch.commit().join();
+		final double batched = operations / ((System.nanoTime() - start) / 1e9);
+
+		for (int i = 0; i < ACCOUNTS; i++) {
+			store.close(FIRST_ACCOUNT_NO + i);
+		}
+		store.shutdown();
+
+		System.out.printf("%,d operations, chunks of %,d%n", operations, chunkSize);
+		System.out.printf("%-10s %12s%n", "api", "ops/s");
+		System.out.printf("%-10s %,12.0f%n", "per call", single);
+		System.out.printf("%-10s %,12.0f%n", "batch", batched);
+		System.out.printf("speedup %.1fx%n", batched / single);
+	}
+}
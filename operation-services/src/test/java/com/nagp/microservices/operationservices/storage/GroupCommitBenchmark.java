@@ -0,0 +1,69 @@
+package com.nagp.microservices.operationservices.storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Durable write throughput of the {@link AccountJournal} with one forced write
+ * per append against group commit. Every thread appends a deposit and waits
+ * until it is on disk, like a request thread of the operation service. Run
+ * with
+ * {@code java -cp target/classes:target/test-classes ...GroupCommitBenchmark [max threads] [seconds] [max delay micros]}.
+ *
+ * @author vinodgodara
+ *
+ */
+public class GroupCommitBenchmark {
+
+	public static void main(final String[] args) throws IOException, InterruptedException {
+		final int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+		final long seconds = args.length > 1 ? Long.parseLong(args[1]) : 2;
+		final long maxDelayNanos = TimeUnit.MICROSECONDS.toNanos(args.length > 2 ? Long.parseLong(args[2]) : 0);
+
+		System.out.printf("%-8s %15s %15s %8s%n", "threads", "single ops/s", "group ops/s", "speedup");
+		for (int threads = 1; threads <= maxThreads; threads *= 4) {
+			// A batch size of one forces the disk once per append.
+			final double single = run(threads, seconds, 1, 0);
+			final double group = run(threads, seconds, 4096, maxDelayNanos);
+			System.out.printf("%-8d %15.0f %15.0f %7.2fx%n", threads, single, group, group / single);
+		}
+	}
+
+	private static double run(final int threads, final long seconds, final int maxBatchSize,
+			final long maxBatchDelayNanos) throws IOException, InterruptedException {
+		final Path directory = Files.createTempDirectory("group-commit");
+		final AccountJournal journal = new AccountJournal(directory, records -> {
+		}, maxBatchSize, maxBatchDelayNanos);
+		final LongAdder operations = new LongAdder();
+		final CountDownLatch done = new CountDownLatch(threads);
+		final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+
+		for (int i = 0; i < threads; i++) {
+			final long accountNO = i + 1;
+
+			new Thread(() -> {
+				long count = 0;
+
+				while (System.nanoTime() < deadline) {
+					journal.append(new JournalRecord(0, accountNO, JournalRecord.CREDIT, 1, System.currentTimeMillis()))
+							.join();
+					count++;
+				}
+				operations.add(count);
+				done.countDown();
+			}).start();
+		}
+
+		done.await();
+		journal.close();
+		for (final Path segment : journal.rotate()) {
+			journal.delete(segment);
+		}
+		Files.delete(directory);
+		return operations.sum() / (double) seconds;
+	}
+}
@@ -0,0 +1,110 @@
+package com.nagp.microservices.operationservices.storage;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nagp.microservices.common.storage.SnapshotFile;
+import com.nagp.microservices.operationservices.model.Account;
+
+/**
+ * Time to load all accounts from a JSON collection file, one document per
+ * line like the JSON DB collection, against reading a binary
+ * {@link SnapshotFile}. Run with
+ * {@code java -cp target/classes:target/test-classes ...SnapshotStartupBenchmark [accounts]}.
+ *
+ * @author vinodgodara
+ *
+ */
+public class SnapshotStartupBenchmark {
+
+	public static void main(final String[] args) throws IOException {
+		final int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+		final Path directory = Files.createTempDirectory("snapshot-startup");
+		final Path collection = directory.resolve("accounts.json");
+		final ObjectMapper objectMapper = new ObjectMapper();
+		final List<Account> accounts = new ArrayList<>(count);
+
+		for (int i = 1; i <= count; i++) {
+			final Account account = new Account();
+			account.setAccountNO(i);
+			account.setUserID("user" + (i % 50_000));
+			account.setBranch("Branch " + (i % 200));
+			account.setActive(true);
+			account.setBalance(1_000L + i);
+			account.setLastJournalSequence(i);
+			accounts.add(account);
+		}
+
+		try (BufferedWriter writer = Files.newBufferedWriter(collection, StandardCharsets.UTF_8)) {
+			for (final Account account : accounts) {
+				writer.write(objectMapper.writeValueAsString(account));
+				writer.newLine();
+			}
+		}
+
+		final SnapshotFile<Account> snapshot = new SnapshotFile<>(directory.resolve("accounts.snapshot"),
+				new SnapshotFile.Codec<Account>() {
+					@Override
+					public void write(final DataOutputStream output, final Account account) throws IOException {
+						output.writeLong(account.getAccountNO());
+						SnapshotFile.writeNullable(output, account.getUserID());
+						SnapshotFile.writeNullable(output, account.getBranch());
+						output.writeBoolean(account.isActive());
+						output.writeLong(account.getBalance());
+						output.writeLong(account.getLastJournalSequence());
+					}
+
+					@Override
+					public Account read(final DataInputStream input) throws IOException {
+						final Account account = new Account();
+						account.setAccountNO(input.readLong());
+						account.setUserID(SnapshotFile.readNullable(input));
+						account.setBranch(SnapshotFile.readNullable(input));
+						account.setActive(input.readBoolean());
+						account.setBalance(input.readLong());
+						account.setLastJournalSequence(input.readLong());
+						return account;
+					}
+				});
+		snapshot.write(count, accounts);
+		accounts.clear();
+
+		System.out.printf("%,d accounts%n", count);
+		System.out.printf("%-10s %14s %10s%n", "source", "bytes", "load ms");
+		for (int round = 0; round < 3; round++) {
+			final List<Account> loaded = new ArrayList<>(count);
+
+			long start = System.nanoTime();
+			try (BufferedReader reader = Files.newBufferedReader(collection, StandardCharsets.UTF_8)) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					loaded.add(objectMapper.readValue(line, Account.class));
+				}
+			}
+			final long jsonMillis = (System.nanoTime() - start) / 1_000_000;
+			loaded.clear();
+
+			start = System.nanoTime();
+			snapshot.read(loaded::add);
+			final long snapshotMillis = (System.nanoTime() - start) / 1_000_000;
+			loaded.clear();
+
+			System.out.printf("%-10s %,14d %10d%n", "json", Files.size(collection), jsonMillis);
+			System.out.printf("%-10s %,14d %10d%n", "snapshot", Files.size(directory.resolve("accounts.snapshot")),
+					snapshotMillis);
+		}
+
+		Files.delete(collection);
+		Files.delete(directory.resolve("accounts.snapshot"));
+		Files.delete(directory);
+	}
+}
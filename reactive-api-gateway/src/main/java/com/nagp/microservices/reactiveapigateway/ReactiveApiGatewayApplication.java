@@ -0,0 +1,34 @@
+package com.nagp.microservices.reactiveapigateway;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+import brave.sampler.Sampler;
+
+import com.nagp.microservices.common.accesslog.AccessLog;
+
+/**
+ * Non-blocking build of the API gateway, Spring Cloud Gateway on Netty. It
+ * serves the routes of zuul-api-gateway, {@code /<service-id>/**} for every
+ * service registered in Eureka, without holding a thread per proxied request.
+ *
+ * @author vinodgodara
+ *
+ */
+@SpringBootApplication
+@Import(AccessLog.class)
+@EnableDiscoveryClient
+public class ReactiveApiGatewayApplication {
+
+	public static void main(String[] args) {
+		SpringApplication.run(ReactiveApiGatewayApplication.class, args);
+	}
+
+	@Bean
+	public Sampler defaultSampler() {
+		return Sampler.ALWAYS_SAMPLE;
+	}
+}
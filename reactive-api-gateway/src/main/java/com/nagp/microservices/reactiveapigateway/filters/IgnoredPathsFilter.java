@@ -0,0 +1,48 @@
+package com.nagp.microservices.reactiveapigateway.filters;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.server.ServerWebExchange;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Answers 404 for paths of {@code gateway.ignored-patterns}, the endpoints
+ * services only offer to each other, like {@code zuul.ignored-patterns} in
+ * zuul-api-gateway. The discovery locator would route them otherwise. Runs
+ * right after the {@link LoggingFilter}, so refused requests are logged.
+ *
+ * @author vinodgodara
+ *
+ */
+@Component
+public class IgnoredPathsFilter implements GlobalFilter, Ordered {
+
+	private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+	@Value("${gateway.ignored-patterns:}")
+	private String[] ignoredPatterns;
+
+	@Override
+	public Mono<Void> filter(final ServerWebExchange exchange, final GatewayFilterChain chain) {
+		final String path = exchange.getRequest().getURI().getRawPath();
+
+		for (final String pattern : ignoredPatterns) {
+			if (!pattern.trim().isEmpty() && pathMatcher.match(pattern.trim(), path)) {
+				exchange.getResponse().setStatusCode(HttpStatus.NOT_FOUND);
+				return exchange.getResponse().setComplete();
+			}
+		}
+		return chain.filter(exchange);
+	}
+
+	@Override
+	public int getOrder() {
+		return Ordered.HIGHEST_PRECEDENCE + 1;
+	}
+}
@@ -0,0 +1,163 @@
+package com.nagp.microservices.reactiveapigateway.filters;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.context.config.annotation.RefreshScope;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.nagp.microservices.common.accesslog.AccessLog;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Handles gateway exceptions and writes the access log, like
+ * ZuulLoggingFilter in zuul-api-gateway. Successful requests are sampled per
+ * route with {@code access-log.sample-rates}, e.g.
+ * {@code user-services:0.1,account-services:0.5}, and
+ * {@code access-log.sample-rate} for the other routes. Requests answered with
+ * {@code access-log.error-status} (400 by default) or above, and exceptions,
+ * are always logged with their query, client and error. Runs first, so it
+ * sees every filter's exception and the time until the response is written.
+ *
+ * @author vinodgodara
+ *
+ */
+@RefreshScope
+@Component
+public class LoggingFilter implements GlobalFilter, Ordered {
+
+	// Exchange attribute of the message of the exception handled.
+	private static final String ERROR_KEY = "accessLogError";
+
+	private static final byte[] ERROR_BODY = "Exception caught by gateway.".getBytes(StandardCharsets.UTF_8);
+
+	Logger logger = LoggerFactory.getLogger(this.getClass());
+
+	@Autowired
+	private AccessLog accessLog;
+
+	@Value("${access-log.sample-rate:1.0}")
+	private double defaultSampleRate;
+
+	@Value("${access-log.sample-rates:}")
+	private String sampleRates;
+
+	@Value("${access-log.error-status:400}")
+	private int errorStatus;
+
+	private final Map<String, Double> routeSampleRates = new HashMap<>();
+
+	@PostConstruct
+	public void init() {
+		for (final String entry : sampleRates.split(",")) {
+			if (entry.trim().isEmpty()) {
+				continue;
+			}
+
+			final String[] routeAndRate = entry.split(":");
+			if (routeAndRate.length != 2) {
+				throw new IllegalArgumentException("Invalid access log sample rate: " + entry);
+			}
+			routeSampleRates.put(routeAndRate[0].trim(), Double.parseDouble(routeAndRate[1].trim()));
+		}
+	}
+
+	@Override
+	public Mono<Void> filter(final ServerWebExchange exchange, final GatewayFilterChain chain) {
+		final long startNanos = System.nanoTime();
+
+		return chain.filter(exchange).onErrorResume(throwable -> handleError(exchange, throwable))
+				.doFinally(signal -> log(exchange, startNanos));
+	}
+
+	@Override
+	public int getOrder() {
+		return Ordered.HIGHEST_PRECEDENCE;
+	}
+
+	private Mono<Void> handleError(final ServerWebExchange exchange, final Throwable throwable) {
+		// Handle exception.
+		logger.error("Exception caught by gateway filter: " + throwable.getMessage());
+		exchange.getAttributes().put(ERROR_KEY, String.valueOf(throwable.getMessage()));
+
+		final ServerHttpResponse response = exchange.getResponse();
+		if (response.isCommitted()) {
+			return Mono.error(throwable);
+		}
+
+		response.setStatusCode(HttpStatus.INTERNAL_SERVER_ERROR);
+		response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+		return response.writeWith(Mono.just(response.bufferFactory().wrap(ERROR_BODY)));
+	}
+
+	private void log(final ServerWebExchange exchange, final long startNanos) {
+		final HttpStatus httpStatus = exchange.getResponse().getStatusCode();
+		final int status = Objects.nonNull(httpStatus) ? httpStatus.value() : 200;
+		final String error = exchange.getAttribute(ERROR_KEY);
+		final String route = route(exchange);
+		final boolean failed = Objects.nonNull(error) || status >= errorStatus;
+
+		if (!failed && !sampled(route)) {
+			return;
+		}
+
+		final long durationMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+		final long timestampMillis = System.currentTimeMillis() - durationMicros / 1000;
+		final ServerHttpRequest request = exchange.getRequest();
+
+		if (failed) {
+			final InetSocketAddress client = request.getRemoteAddress();
+			accessLog.recordFull(timestampMillis, durationMicros, status, request.getMethodValue(),
+					request.getURI().getRawPath(), route, request.getURI().getRawQuery(),
+					Objects.nonNull(client) ? client.getAddress().getHostAddress() : null, error);
+		} else {
+			accessLog.record(timestampMillis, durationMicros, status, request.getMethodValue(),
+					request.getURI().getRawPath(), route);
+		}
+	}
+
+	/**
+	 * Name of the route of a request, the service ID for routes to a service
+	 * found in Eureka, as in Zuul.
+	 */
+	private static String route(final ServerWebExchange exchange) {
+		final Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+
+		if (Objects.isNull(route)) {
+			return null;
+		}
+
+		final URI uri = route.getUri();
+		return "lb".equals(uri.getScheme()) ? uri.getHost().toLowerCase() : route.getId();
+	}
+
+	private boolean sampled(final String route) {
+		final Double routeRate = Objects.nonNull(route) ? routeSampleRates.get(route) : null;
+		final double rate = Objects.nonNull(routeRate) ? routeRate : defaultSampleRate;
+		return rate >= 1 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate);
+	}
+
+}
@@ -0,0 +1,196 @@
+package com.nagp.microservices.reactiveapigateway;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Throughput of zuul-api-gateway against reactive-api-gateway as the number
+ * of connections held open grows, in front of a backend that takes
+ * {@code delay-ms} to answer. The backend is started by the benchmark, on port
+ * 9099, and answers from a timer, so it never runs out of threads itself.
+ * {@code direct} is the backend without a gateway, the ceiling. Only targets
+ * that answer are measured, so results are for gateways actually running.
+ * <p>
+ * Both gateways need a static route to the backend, e.g. in the config
+ * repository:
+ * <ul>
+ * <li>zuul-api-gateway: {@code zuul.routes.slow.path=/slow/**},
+ * {@code zuul.routes.slow.url=http://localhost:9099} and
+ * {@code zuul.host.max-total-connections}/{@code max-per-route-connections}
+ * above the highest level, so Zuul's connection pool is not what is
+ * measured.</li>
+ * <li>reactive-api-gateway:
+ * {@code spring.cloud.gateway.routes[0].uri=http://localhost:9099},
+ * {@code predicates[0]=Path=/slow/**} and
+ * {@code filters[0]=StripPrefix=1}.</li>
+ * </ul>
+ * Run with
+ * {@code java -cp target/test-classes ...GatewayBenchmark [levels] [seconds] [delay-ms] [name=url ...]},
+ * e.g. {@code 100,400,1600 10 200 zuul=http://localhost:8765/slow}. Gateways
+ * that do not answer are skipped.
+ *
+ * @author vinodgodara
+ *
+ */
+public class GatewayBenchmark {
+
+	private static final int BACKEND_PORT = 9099;
+
+	private static final int MAX_SAMPLES_PER_CLIENT = 4096;
+
+	public static void main(final String[] args) throws IOException, InterruptedException {
+		final int[] levels = Arrays.stream((args.length > 0 ? args[0] : "50,200,800,1600").split(","))
+				.mapToInt(Integer::parseInt).toArray();
+		final long seconds = args.length > 1 ? Long.parseLong(args[1]) : 10;
+		final long delayMillis = args.length > 2 ? Long.parseLong(args[2]) : 200;
+
+		final Map<String, String> targets = new LinkedHashMap<>();
+		targets.put("direct", "http://127.0.0.1:" + BACKEND_PORT);
+		if (args.length > 3) {
+			for (int i = 3; i < args.length; i++) {
+				final String[] nameAndUrl = args[i].split("=", 2);
+				targets.put(nameAndUrl[0], nameAndUrl[1]);
+			}
+		} else {
+			targets.put("zuul", "http://localhost:8765/slow");
+			targets.put("reactive", "http://localhost:8766/slow");
+		}
+
+		// Keep a connection per client thread alive between requests.
+		final int maxLevel = Arrays.stream(levels).max().getAsInt();
+		System.setProperty("http.maxConnections", String.valueOf(maxLevel));
+
+		final ScheduledExecutorService timer = Executors.newScheduledThreadPool(2);
+		final HttpServer backend = HttpServer.create(new InetSocketAddress("127.0.0.1", BACKEND_PORT), 4096);
+		final byte[] body = "Success".getBytes(StandardCharsets.UTF_8);
+		backend.createContext("/", exchange -> timer.schedule(() -> respond(exchange, body), delayMillis,
+				TimeUnit.MILLISECONDS));
+		backend.setExecutor(Executors.newFixedThreadPool(4));
+		backend.start();
+
+		System.out.printf("backend delay %d ms, %d s per run%n", delayMillis, seconds);
+		System.out.printf("%-10s %12s %10s %10s %10s %10s%n", "gateway", "connections", "calls/s", "p50 ms",
+				"p99 ms", "errors");
+
+		for (final Map.Entry<String, String> target : targets.entrySet()) {
+			try {
+				get(target.getValue() + "/benchmark");
+			} catch (IOException exc) {
+				System.out.printf("%-10s skipped, %s does not answer: %s%n", target.getKey(), target.getValue(),
+						exc.getMessage());
+				continue;
+			}
+
+			for (final int level : levels) {
+				run(target.getKey(), target.getValue() + "/benchmark", level, seconds);
+			}
+		}
+
+		backend.stop(0);
+		timer.shutdownNow();
+		System.exit(0);
+	}
+
+	private static void run(final String name, final String url, final int connections, final long seconds)
+			throws InterruptedException {
+		final long[][] samples = new long[connections][MAX_SAMPLES_PER_CLIENT];
+		final int[] sampleCounts = new int[connections];
+		final AtomicLong calls = new AtomicLong();
+		final AtomicLong errors = new AtomicLong();
+		final CountDownLatch done = new CountDownLatch(connections);
+		final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+
+		for (int i = 0; i < connections; i++) {
+			final int client = i;
+
+			final Thread thread = new Thread(() -> {
+				while (System.nanoTime() < deadline) {
+					final long start = System.nanoTime();
+					try {
+						get(url);
+						samples[client][sampleCounts[client]++ % MAX_SAMPLES_PER_CLIENT] = System.nanoTime() - start;
+						calls.incrementAndGet();
+					} catch (IOException exc) {
+						errors.incrementAndGet();
+					}
+				}
+				done.countDown();
+			}, "client-" + i);
+			thread.setDaemon(true);
+			thread.start();
+		}
+
+		done.await();
+
+		int sampleTotal = 0;
+		for (int i = 0; i < connections; i++) {
+			sampleTotal += Math.min(sampleCounts[i], MAX_SAMPLES_PER_CLIENT);
+		}
+
+		final long[] latencies = new long[sampleTotal];
+		int next = 0;
+		for (int i = 0; i < connections; i++) {
+			final int count = Math.min(sampleCounts[i], MAX_SAMPLES_PER_CLIENT);
+			System.arraycopy(samples[i], 0, latencies, next, count);
+			next += count;
+		}
+		Arrays.sort(latencies);
+
+		System.out.printf("%-10s %12d %,10.0f %10.1f %10.1f %10d%n", name, connections, calls.get() / (double) seconds,
+				latencies.length > 0 ? latencies[latencies.length / 2] / 1e6 : 0,
+				latencies.length > 0 ? latencies[(int) (latencies.length * 0.99)] / 1e6 : 0, errors.get());
+	}
+
+	/**
+	 * GET over a keep-alive connection.
+	 */
+	private static byte[] get(final String url) throws IOException {
+		final HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+		connection.setConnectTimeout(10000);
+		connection.setReadTimeout(30000);
+
+		try (InputStream input = connection.getInputStream()) {
+			return drain(input);
+		}
+	}
+
+	private static void respond(final HttpExchange exchange, final byte[] body) {
+		try {
+			drain(exchange.getRequestBody());
+			exchange.getResponseHeaders().set("Content-Type", "application/json");
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream output = exchange.getResponseBody()) {
+				output.write(body);
+			}
+		} catch (IOException exc) {
+			exchange.close();
+		}
+	}
+
+	private static byte[] drain(final InputStream input) throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final byte[] buffer = new byte[4096];
+
+		for (int read = input.read(buffer); read >= 0; read = input.read(buffer)) {
+			bytes.write(buffer, 0, read);
+		}
+		return bytes.toByteArray();
+	}
+}
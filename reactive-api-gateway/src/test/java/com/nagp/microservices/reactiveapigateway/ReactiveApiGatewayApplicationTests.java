@@ -0,0 +1,13 @@
+package com.nagp.microservices.reactiveapigateway;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest
+class ReactiveApiGatewayApplicationTests {
+
+	@Test
+	void contextLoads() {
+	}
+
+}
@@ -4,8 +4,13 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 	import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 import org.springframework.cloud.netflix.hystrix.EnableHystrix;
+import org.springframework.context.annotation.Import;
+
+import com.nagp.microservices.common.config.VirtualThreadConfiguration;
+import com.nagp.microservices.common.idempotency.IdempotencyConfiguration;
 
 @SpringBootApplication
+@Import({ IdempotencyConfiguration.class, VirtualThreadConfiguration.class })
 @EnableDiscoveryClient
 @EnableHystrix
 public class UserServicesApplication {
@@ -1,27 +1,31 @@
 package com.nagp.microservices.userservices.controllers;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.context.config.annotation.RefreshScope;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.nagp.microservices.userservices.model.AccountLink;
 import com.nagp.microservices.userservices.model.User;
+import com.nagp.microservices.userservices.storage.UserCache;
 import com.nagp.microservices.userservices.util.UserConstants;
 import com.nagp.microservices.userservices.util.UserUtil;
 import com.netflix.hystrix.contrib.javanica.annotation.HystrixCommand;
 
-import io.jsondb.InvalidJsonDbApiUsageException;
-import io.jsondb.JsonDBTemplate;
-
 /**
  * Controller for REST APIs related to user operations register new user, get
  * account list for a user, update user info etc.
@@ -35,23 +39,12 @@ public class UserService {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(UserService.class);
 
-	// Actual location on disk for database files, process should have read-write
-	// permissions to this folder
-	private String dbFilesLocation = "C:\\";
-
-	// Java package name where POJO's are present
-	private final String baseScanPackage = "com.nagp.microservices.userservices.model";
-
-	// JSON DB template.
-	private final JsonDBTemplate jsonDBTemplate = new JsonDBTemplate(dbFilesLocation, baseScanPackage, null);
+	// Most changes accepted by updateAccounts.
+	public static final int MAX_BATCH_SIZE = 10_000;
 
-	public UserService() {
-		try {
-			jsonDBTemplate.createCollection(User.class);
-		} catch (InvalidJsonDbApiUsageException exc) {
-			LOGGER.warn("DB already exists.");
-		}
-	}
+	// Cached, snapshot and journal backed user storage.
+	@Autowired
+	private UserCache userCache;
 
 	/**
 	 * API to register new customer.
@@ -67,17 +60,11 @@ public class UserService {
 		// Check if user is valid or not.
 		if (UserUtil.isUserValid(user)) {
 
-			// Fetch existing user from DB.
-			final User existingUser = jsonDBTemplate.findById(user.getUserID(), User.class);
-
-			// If user already exists, throw exception.
-			if (Objects.nonNull(existingUser)) {
+			// Insert user in DB, if user already exists, throw exception.
+			if (!userCache.insert(user)) {
 				LOGGER.error("User already exists.");
 				throw new RuntimeException("User already exists.");
 			}
-
-			// Inser user in DB.
-			jsonDBTemplate.insert(user);
 			return UserConstants.SUCCESS;
 		} else {
 			LOGGER.error("Input User is invalid.");
@@ -100,7 +87,7 @@ public class UserService {
 		if (UserUtil.isUserValid(user)) {
 
 			// Fetch existing user from DB.
-			final Object existingUser = jsonDBTemplate.findById(user.getUserID(), User.class);
+			final Object existingUser = userCache.findById(user.getUserID());
 
 			// If user with user ID does not exist, throw exception.
 			if (Objects.isNull(existingUser)) {
@@ -109,7 +96,7 @@ public class UserService {
 			} else {
 
 				// Update user in DB.
-				jsonDBTemplate.upsert(user);
+				userCache.upsert(user);
 				return UserConstants.SUCCESS;
 			}
 
@@ -127,18 +114,18 @@ public class UserService {
 	 */
 	@GetMapping(path = "/getAccountsList/{userID}")
 	@HystrixCommand(fallbackMethod = "getAccountsListFallBackMethod")
-	public List<Long> getAccountsList(@PathVariable String userID) {
+	public ResponseEntity<List<Long>> getAccountsList(@PathVariable String userID) {
 		LOGGER.debug("Entering method: getAccountsList");
 
 		// Check that user ID is not empty or null.
 		if (StringUtils.isNotBlank(userID)) {
 
 			// Fetch user from DB.
-			final User user = jsonDBTemplate.findById(userID, User.class);
+			final User user = userCache.findById(userID);
 
 			// If user with user ID does not exist, throw exception.
 			if (Objects.nonNull(user) && Objects.nonNull((user).getUserAccounts())) {
-				return user.getUserAccounts();
+				return ResponseEntity.ok(user.getUserAccounts());
 			} else {
 				LOGGER.error("User with input user ID does not exist.");
 				throw new RuntimeException("User does not exist.");
@@ -149,6 +136,37 @@ public class UserService {
 		}
 	}
 
+	/**
+	 * API to get the user owning an account.
+	 * 
+	 * @param accountNo The account number.
+	 * @return User ID of the owner.
+	 */
+	@GetMapping(path = "/getAccountOwner/{accountNo}")
+	@HystrixCommand(fallbackMethod = "getAccountOwnerFallBackMethod")
+	public String getAccountOwner(@PathVariable String accountNo) {
+		LOGGER.debug("Entering method: getAccountOwner");
+
+		final long accountNumber = Long.parseLong(accountNo);
+
+		// If account number is 0, throw exception.
+		if (accountNumber != 0) {
+
+			// Look up the owner in the reverse index.
+			final String userID = userCache.findOwner(accountNumber);
+
+			if (Objects.nonNull(userID)) {
+				return userID;
+			} else {
+				LOGGER.error("No user owns the account.");
+				throw new RuntimeException("Account owner does not exist.");
+			}
+		} else {
+			LOGGER.error("Input account number is invalid.");
+			throw new RuntimeException("Invalid account number.");
+		}
+	}
+
 	/**
 	 * API to add account for a user.
 	 * 
@@ -166,28 +184,17 @@ public class UserService {
 		// If either user ID or account number is either empty or null, throw exception.
 		if (Objects.nonNull(accountNumber) && accountNumber != 0 && Objects.nonNull(userID)) {
 
-			// Fetch existing user from DB.
-			final User existingUser = jsonDBTemplate.findById(userID, User.class);
+			final AccountLink link = new AccountLink();
+			link.setUserID(userID);
+			link.setAccountNO(accountNumber);
+			link.setUnlink(false);
 
-			// If user with user ID does not exist, throw exception.
-			if (Objects.isNull(existingUser)) {
+			// Update user in DB, under the store lock.
+			if (userCache.updateAccounts(Collections.singletonList(link)).isEmpty()) {
 				LOGGER.error("User does not exist.");
 				throw new RuntimeException("User does not exist.");
-			} else {
-
-				List<Long> accounts = existingUser.getUserAccounts();
-
-				if (Objects.isNull(accounts)) {
-					accounts = new ArrayList<>();
-					existingUser.setUserAccounts(accounts);
-				}
-
-				accounts.add(accountNumber);
-
-				// Update user in DB.
-				jsonDBTemplate.upsert(existingUser);
-				return UserConstants.SUCCESS;
 			}
+			return UserConstants.SUCCESS;
 
 		} else {
 			LOGGER.error("Input User is invalid.");
@@ -212,35 +219,65 @@ public class UserService {
 		// If either user ID or account number is either empty or null, throw exception.
 		if (Objects.nonNull(accountNumber) && accountNumber != 0 && Objects.nonNull(userID)) {
 
-			// Fetch existing user from DB.
-			final User existingUser = jsonDBTemplate.findById(userID, User.class);
+			final AccountLink link = new AccountLink();
+			link.setUserID(userID);
+			link.setAccountNO(accountNumber);
+			link.setUnlink(true);
 
-			// If user with user ID does not exist, throw exception.
-			if (Objects.isNull(existingUser)) {
+			// Update user in DB, under the store lock.
+			if (userCache.updateAccounts(Collections.singletonList(link)).isEmpty()) {
 				LOGGER.error("User does not exist.");
 				throw new RuntimeException("User does not exist.");
-			} else {
+			}
+			return UserConstants.SUCCESS;
 
-				List<Long> accounts = existingUser.getUserAccounts();
+		} else {
+			LOGGER.error("Input User is invalid.");
+			throw new RuntimeException("Invalid user");
+		}
+	}
 
-				if (Objects.isNull(accounts)) {
-					accounts = new ArrayList<>();
-					existingUser.setUserAccounts(accounts);
-				}
+	/**
+	 * API to add accounts to users and remove them in one request. Changes for the
+	 * same user are applied in order, and all changed users are journaled with
+	 * one write.
+	 * 
+	 * @param links The changes, at most {@link UserService#MAX_BATCH_SIZE}.
+	 * @return Success or error string for every change, in the same order.
+	 */
+	@PostMapping(path = "/updateAccounts", consumes = "application/json", produces = "application/json")
+	@HystrixCommand(fallbackMethod = "updateAccountsFallBackMethod")
+	public List<String> updateAccounts(@RequestBody List<AccountLink> links) {
+		LOGGER.debug("Entering method: updateAccounts");
+
+		if (Objects.isNull(links) || links.size() > MAX_BATCH_SIZE) {
+			LOGGER.error("Input account links are invalid.");
+			throw new RuntimeException("Invalid account links.");
+		}
 
-				if (accounts.contains(accountNumber)) {
-					accounts.remove(accountNumber);
-				}
+		final List<AccountLink> valid = new ArrayList<>(links.size());
 
-				// Update user in DB.
-				jsonDBTemplate.upsert(existingUser);
-				return UserConstants.SUCCESS;
+		for (final AccountLink link : links) {
+			// If either user ID or account number is either empty or null, skip it.
+			if (Objects.nonNull(link) && link.getAccountNO() != 0 && Objects.nonNull(link.getUserID())) {
+				valid.add(link);
 			}
+		}
 
-		} else {
-			LOGGER.error("Input User is invalid.");
-			throw new RuntimeException("Invalid user");
+		// Update users in DB, under the store lock.
+		final Map<String, User> changed = userCache.updateAccounts(valid);
+		final List<String> results = new ArrayList<>(links.size());
+
+		for (final AccountLink link : links) {
+			if (Objects.isNull(link) || link.getAccountNO() == 0 || Objects.isNull(link.getUserID())) {
+				results.add("Invalid user");
+			} else if (!changed.containsKey(link.getUserID())) {
+				results.add("User does not exist.");
+			} else {
+				results.add(UserConstants.SUCCESS);
+			}
 		}
+		return results;
 	}
 
 	/**
@@ -267,11 +304,21 @@ public class UserService {
 	 * Fallback method for {@link UserService#getAccountsList(String)}.
 	 * 
 	 * @param userID User ID.
-	 * @return List of transactions for provided e=user ID.
+	 * @return Empty list, with a 503 so the gateway does not cache it.
 	 */
-	public List<Long> getAccountsListFallBackMethod(final String userID) {
+	public ResponseEntity<List<Long>> getAccountsListFallBackMethod(final String userID) {
 		final List<Long> errors = new ArrayList<>();
-		return errors;
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(errors);
+	}
+
+	/**
+	 * Fallback method for {@link UserService#getAccountOwner(String)}.
+	 * 
+	 * @param accountNo Account number.
+	 * @return Error message.
+	 */
+	public String getAccountOwnerFallBackMethod(String accountNo) {
+		return UserConstants.ACCOUNT_OWNER_DOES_NOT_EXIST;
 	}
 
 	/**
@@ -285,6 +332,17 @@ public class UserService {
 		return UserConstants.USER_ID_DOES_NOT_EXIST;
 	}
 
+	/**
+	 * Fallback method for {@link UserService#updateAccounts(List)}.
+	 * 
+	 * @param links The changes.
+	 * @return Error message for every change.
+	 */
+	public List<String> updateAccountsFallBackMethod(List<AccountLink> links) {
+		return new ArrayList<>(Collections.nCopies(Objects.nonNull(links) ? links.size() : 0,
+				UserConstants.USER_ID_DOES_NOT_EXIST));
+	}
+
 	/**
 	 * Fallback method for {@link UserService#removeAccount(String, String)}.
 	 * 
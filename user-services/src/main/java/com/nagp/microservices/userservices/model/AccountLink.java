@@ -0,0 +1,42 @@
+package com.nagp.microservices.userservices.model;
+
+/**
+ * Adding an account to the account list of a user, or removing it, as one
+ * entry of a batch.
+ *
+ * @author vinodgodara
+ *
+ */
+public class AccountLink {
+
+	private String userID;
+
+	private long accountNO;
+
+	// True to remove the account from the user, false to add it.
+	private boolean unlink;
+
+	public String getUserID() {
+		return userID;
+	}
+
+	public void setUserID(String userID) {
+		this.userID = userID;
+	}
+
+	public long getAccountNO() {
+		return accountNO;
+	}
+
+	public void setAccountNO(long accountNO) {
+		this.accountNO = accountNO;
+	}
+
+	public boolean isUnlink() {
+		return unlink;
+	}
+
+	public void setUnlink(boolean unlink) {
+		this.unlink = unlink;
+	}
+}
@@ -1,9 +1,14 @@
 package com.nagp.microservices.userservices.model;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 import org.springframework.stereotype.Component;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.nagp.microservices.userservices.util.LongHashSet;
+
 import io.jsondb.annotation.Document;
 import io.jsondb.annotation.Id;
 
@@ -18,7 +23,8 @@ public class User {
 
 	private String userEmail;
 
-	private List<Long> userAccounts;
+	// Primitive set, exposed as a list in JSON.
+	private LongHashSet userAccounts;
 
 	public String getUserID() {
 		return userID;
@@ -45,10 +51,39 @@ public class User {
 	}
 
 	public List<Long> getUserAccounts() {
-		return userAccounts;
+		if (Objects.isNull(userAccounts)) {
+			return null;
+		}
+
+		final long[] accounts = userAccounts.toSortedArray();
+		final List<Long> list = new ArrayList<>(accounts.length);
+		for (final long accountNO : accounts) {
+			list.add(accountNO);
+		}
+		return list;
 	}
 
 	public void setUserAccounts(List<Long> userAccounts) {
+		if (Objects.isNull(userAccounts)) {
+			this.userAccounts = null;
+			return;
+		}
+
+		this.userAccounts = new LongHashSet(userAccounts.size());
+		for (final Long accountNO : userAccounts) {
+			if (Objects.nonNull(accountNO)) {
+				this.userAccounts.add(accountNO);
+			}
+		}
+	}
+
+	@JsonIgnore
+	public LongHashSet getAccountSet() {
+		return userAccounts;
+	}
+
+	@JsonIgnore
+	public void setAccountSet(LongHashSet userAccounts) {
 		this.userAccounts = userAccounts;
 	}
 }
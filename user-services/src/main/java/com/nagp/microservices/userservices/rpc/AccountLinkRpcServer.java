@@ -0,0 +1,213 @@
+package com.nagp.microservices.userservices.rpc;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Collections;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.nagp.microservices.common.rpc.FrameWriter;
+import com.nagp.microservices.common.rpc.RpcProtocol;
+import com.nagp.microservices.userservices.controllers.UserService;
+import com.netflix.appinfo.ApplicationInfoManager;
+
+/**
+ * Binary channel serving addAccount and removeAccount to account-services,
+ * enabled with {@code user-services.rpc.enabled=true}. A client keeps one
+ * connection open and sends many requests on it without waiting; each request
+ * is handled like its REST API and answered as soon as it is done. When the
+ * client stops sending, the requests still being handled are answered and the
+ * queued answers written before the connection is closed. The port is
+ * published in the Eureka metadata of the instance.
+ *
+ * @author vinodgodara
+ *
+ */
+@Component
+@ConditionalOnProperty(name = "user-services.rpc.enabled", havingValue = "true")
+public class AccountLinkRpcServer {
+	private static final Logger LOGGER = LoggerFactory.getLogger(AccountLinkRpcServer.class);
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private ApplicationInfoManager applicationInfoManager;
+
+	@Value("${user-services.rpc.port:9001}")
+	private int port;
+
+	@Value("${user-services.rpc.threads:16}")
+	private int threads;
+
+	@Value("${user-services.rpc.queue-capacity:10000}")
+	private int queueCapacity;
+
+	private ServerSocket serverSocket;
+
+	private ExecutorService workers;
+
+	private volatile boolean running = true;
+
+	@PostConstruct
+	public void start() throws IOException {
+		final AtomicInteger count = new AtomicInteger();
+		workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+					final Thread thread = new Thread(runnable, "rpc-worker-" + count.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}, new ThreadPoolExecutor.AbortPolicy());
+
+		serverSocket = new ServerSocket();
+		serverSocket.bind(new InetSocketAddress(port));
+
+		final Thread acceptor = new Thread(this::accept, "rpc-acceptor");
+		acceptor.setDaemon(true);
+		acceptor.start();
+
+		applicationInfoManager
+				.registerAppMetadata(Collections.singletonMap(RpcProtocol.RPC_PORT, Integer.toString(port)));
+		LOGGER.info("Serving account links over RPC on port {}.", port);
+	}
+
+	@PreDestroy
+	public void shutdown() throws IOException {
+		running = false;
+		serverSocket.close();
+		workers.shutdown();
+	}
+
+	private void accept() {
+		while (running) {
+			try {
+				final Socket socket = serverSocket.accept();
+				socket.setTcpNoDelay(true);
+
+				final Thread reader = new Thread(() -> serve(socket), "rpc-connection-" + socket.getPort());
+				reader.setDaemon(true);
+				reader.start();
+			} catch (IOException exc) {
+				if (running) {
+					LOGGER.error("RPC connection could not be accepted.", exc);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Read the requests of a connection until it is closed.
+	 */
+	void serve(final Socket socket) {
+		try (Socket connection = socket) {
+			final DataInputStream input = new DataInputStream(new BufferedInputStream(connection.getInputStream()));
+			final FrameWriter writer = new FrameWriter(connection.getOutputStream(), () -> close(connection));
+			final Thread writerThread = new Thread(writer, "rpc-writer-" + connection.getPort());
+			writerThread.setDaemon(true);
+			writerThread.start();
+
+			// Requests read but not answered yet.
+			final AtomicInteger inFlight = new AtomicInteger();
+
+			try {
+				for (DataInputStream frame = RpcProtocol.readFrame(input); frame != null; frame = RpcProtocol
+						.readFrame(input)) {
+					final long id = frame.readLong();
+					final byte method = frame.readByte();
+					final String userID = frame.readUTF();
+					final long accountNo = frame.readLong();
+
+					inFlight.incrementAndGet();
+					try {
+						workers.execute(() -> {
+							try {
+								writer.write(handle(id, method, userID, accountNo));
+							} finally {
+								answered(inFlight);
+							}
+						});
+					} catch (RejectedExecutionException exc) {
+						answered(inFlight);
+						writer.write(RpcProtocol.response(id, RpcProtocol.FAILED, "Too many requests."));
+					}
+				}
+			} finally {
+				// Closing the socket drops whatever is not written yet.
+				awaitAnswers(inFlight);
+				writer.close();
+				writerThread.join();
+			}
+		} catch (IOException exc) {
+			LOGGER.warn("RPC connection closed.", exc);
+		} catch (InterruptedException exc) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void answered(final AtomicInteger inFlight) {
+		if (inFlight.decrementAndGet() == 0) {
+			synchronized (inFlight) {
+				inFlight.notifyAll();
+			}
+		}
+	}
+
+	private static void awaitAnswers(final AtomicInteger inFlight) throws InterruptedException {
+		synchronized (inFlight) {
+			while (inFlight.get() > 0) {
+				inFlight.wait();
+			}
+		}
+	}
+
+	private byte[] handle(final long id, final byte method, final String userID, final long accountNo) {
+		byte status = RpcProtocol.OK;
+		String message;
+
+		try {
+			if (method == RpcProtocol.ADD_ACCOUNT) {
+				message = userService.addAccount(userID, Long.toString(accountNo));
+			} else if (method == RpcProtocol.REMOVE_ACCOUNT) {
+				message = userService.removeAccount(userID, Long.toString(accountNo));
+			} else {
+				status = RpcProtocol.FAILED;
+				message = "Unknown method.";
+			}
+		} catch (RuntimeException exc) {
+			status = RpcProtocol.FAILED;
+			message = String.valueOf(exc.getMessage());
+		}
+
+		try {
+			return RpcProtocol.response(id, status, message);
+		} catch (IOException exc) {
+			throw new RuntimeException("Response could not be encoded.", exc);
+		}
+	}
+
+	private static void close(final Socket socket) {
+		try {
+			socket.close();
+		} catch (IOException exc) {
+			// Already closed.
+		}
+	}
+}
@@ -0,0 +1,117 @@
+package com.nagp.microservices.userservices.storage;
+
+import java.util.Objects;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.nagp.microservices.userservices.util.LongHashSet;
+import com.nagp.microservices.userservices.util.LongObjectHashMap;
+
+/**
+ * Reverse index from account number to the ID of the user owning the account,
+ * kept by the {@link UserStore} as users are written.
+ *
+ * @author vinodgodara
+ *
+ */
+public class AccountOwnerIndex {
+
+	private final LongObjectHashMap<String> owners = new LongObjectHashMap<>();
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/**
+	 * Find the owner of an account.
+	 *
+	 * @param accountNO Account number.
+	 * @return User ID, null if no user has the account.
+	 */
+	public String owner(final long accountNO) {
+		lock.readLock().lock();
+		try {
+			return owners.get(accountNO);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Replace the accounts of a user.
+	 *
+	 * @param userID   User ID.
+	 * @param previous Accounts of the stored user, may be null.
+	 * @param current  Accounts of the user being stored, may be null.
+	 */
+	public void update(final String userID, final LongHashSet previous, final LongHashSet current) {
+		lock.writeLock().lock();
+		try {
+			if (Objects.nonNull(previous)) {
+				previous.forEach(accountNO -> {
+					if (Objects.isNull(current) || !current.contains(accountNO)) {
+						removeOwner(userID, accountNO);
+					}
+				});
+			}
+			if (Objects.nonNull(current)) {
+				current.forEach(accountNO -> {
+					if (accountNO != 0) {
+						owners.put(accountNO, userID);
+					}
+				});
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Record that a user owns an account.
+	 *
+	 * @param userID    User ID.
+	 * @param accountNO Account number added to the user.
+	 */
+	public void link(final String userID, final long accountNO) {
+		lock.writeLock().lock();
+		try {
+			owners.put(accountNO, userID);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Record that a user no longer owns an account.
+	 *
+	 * @param userID    User ID.
+	 * @param accountNO Account number removed from the user.
+	 */
+	public void unlink(final String userID, final long accountNO) {
+		lock.writeLock().lock();
+		try {
+			removeOwner(userID, accountNO);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Number of accounts with an owner.
+	 *
+	 * @return The number of accounts.
+	 */
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return owners.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private void removeOwner(final String userID, final long accountNO) {
+		// Leave accounts another user has taken over.
+		if (userID.equals(owners.get(accountNO))) {
+			owners.remove(accountNO);
+		}
+	}
+}
@@ -0,0 +1,448 @@
+package com.nagp.microservices.userservices.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+import com.nagp.microservices.common.storage.SnapshotFile;
+
+/**
+ * Documents kept in memory-mapped files instead of on the heap, so that the
+ * operating system pages them in and out and the heap does not grow with the
+ * collection. Documents are written to a data file in extents of a power of two
+ * bytes; a hash index file maps the key of each document to its latest copy.
+ * The extent of a replaced copy goes to a free list of its size and is reused
+ * for the next copy that fits, unless a {@link View} of the documents is open,
+ * which may still read it. Both files are scratch space, they are truncated on
+ * open and rebuilt from the snapshot and journal.
+ *
+ * @param <T> Document type.
+ *
+ * @author vinodgodara
+ *
+ */
+public class DocumentFile<T> implements Closeable {
+
+	// Records never span two regions.
+	private static final int REGION_SIZE = 64 << 20;
+
+	// Slot: 64-bit key hash, data position plus one (0 for an empty slot).
+	private static final int SLOT_SIZE = 16;
+
+	private static final int INITIAL_SLOTS = 1 << 16;
+
+	// Largest index whose offsets fit into a mapped buffer.
+	private static final int MAX_SLOTS = 1 << 26;
+
+	// Smallest extent of a record, length prefix included.
+	private static final int MIN_EXTENT = 32;
+
+	private static final String INDEX_SUFFIX = ".index";
+
+	private final Path directory;
+
+	private final String name;
+
+	private final SnapshotFile.Codec<T> codec;
+
+	private final Function<T, String> key;
+
+	private final FileChannel data;
+
+	private final List<MappedByteBuffer> regions = new ArrayList<>();
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	// Free extents by the binary logarithm of their size.
+	@SuppressWarnings("unchecked")
+	private final ArrayDeque<Long>[] free = new ArrayDeque[Integer.SIZE];
+
+	// Extents freed while views were open, free once the last one is closed.
+	private final List<Long> retired = new ArrayList<>();
+
+	private int openViews;
+
+	private FileChannel indexChannel;
+
+	private MappedByteBuffer index;
+
+	private int slots;
+
+	private int size;
+
+	private long end;
+
+	public DocumentFile(final Path directory, final String name, final SnapshotFile.Codec<T> codec,
+			final Function<T, String> key) throws IOException {
+		this.directory = directory;
+		this.name = name;
+		this.codec = codec;
+		this.key = key;
+		Files.createDirectories(directory);
+
+		// Index files of an earlier run.
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, name + "-*" + INDEX_SUFFIX)) {
+			for (final Path file : stream) {
+				Files.deleteIfExists(file);
+			}
+		}
+
+		data = FileChannel.open(directory.resolve(name + ".data"), StandardOpenOption.CREATE,
+				StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		openIndex(INITIAL_SLOTS);
+	}
+
+	/**
+	 * Find a document.
+	 *
+	 * @param documentKey Key of the document.
+	 * @return A new copy of the document, null if there is none.
+	 */
+	public T get(final String documentKey) {
+		lock.readLock().lock();
+		try {
+			final long hash = hash(documentKey);
+
+			for (int slot = slotOf(hash);; slot = (slot + 1) & (slots - 1)) {
+				final long location = index.getLong(offset(slot) + Long.BYTES);
+
+				if (location == 0) {
+					return null;
+				}
+				if (index.getLong(offset(slot)) == hash) {
+					final T document = read(location - 1);
+
+					if (documentKey.equals(key.apply(document))) {
+						return document;
+					}
+				}
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Store a copy of a document, replacing the copy with the same key.
+	 *
+	 * @param document The document.
+	 * @throws IOException If the files could not be grown.
+	 */
+	public void put(final T document) throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		codec.write(new DataOutputStream(bytes), document);
+		final byte[] record = bytes.toByteArray();
+		final String documentKey = key.apply(document);
+		final long hash = hash(documentKey);
+
+		if (record.length > REGION_SIZE - Integer.BYTES) {
+			throw new IOException("Document too large: " + documentKey);
+		}
+
+		lock.writeLock().lock();
+		try {
+			int slot = slotOf(hash);
+			long existing;
+
+			for (;; slot = (slot + 1) & (slots - 1)) {
+				existing = index.getLong(offset(slot) + Long.BYTES);
+
+				if (existing == 0) {
+					if (slots == MAX_SLOTS && (size + 1) * 4L > slots * 3L) {
+						throw new IOException("Document file is full: " + documentKey);
+					}
+					size++;
+					break;
+				}
+				if (index.getLong(offset(slot)) == hash && documentKey.equals(key.apply(read(existing - 1)))) {
+					break;
+				}
+			}
+
+			// Written before the old copy is freed, it never takes its extent.
+			final long location = write(record);
+			if (existing != 0) {
+				release(existing - 1);
+			}
+
+			index.putLong(offset(slot), hash);
+			index.putLong(offset(slot) + Long.BYTES, location + 1);
+
+			if (size * 4L > slots * 3L && slots < MAX_SLOTS) {
+				resize();
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Number of documents.
+	 *
+	 * @return The number of distinct keys stored.
+	 */
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return size;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Read-only list of the documents as of {@link DocumentFile#values()}.
+	 * Documents are only decoded when the list is iterated, later writes are not
+	 * seen. Extents of replaced copies are not reused until the view is closed.
+	 *
+	 * @param <T> Document type.
+	 */
+	public static final class View<T> extends AbstractList<T> implements Closeable {
+
+		private final DocumentFile<T> file;
+
+		private final long[] locations;
+
+		private boolean closed;
+
+		private View(final DocumentFile<T> file, final long[] locations) {
+			this.file = file;
+			this.locations = locations;
+		}
+
+		@Override
+		public T get(final int position) {
+			// Regions may be added meanwhile.
+			file.lock.readLock().lock();
+			try {
+				return file.read(locations[position]);
+			} finally {
+				file.lock.readLock().unlock();
+			}
+		}
+
+		@Override
+		public int size() {
+			return locations.length;
+		}
+
+		@Override
+		public void close() {
+			file.lock.writeLock().lock();
+			try {
+				if (!closed) {
+					closed = true;
+					file.closeView();
+				}
+			} finally {
+				file.lock.writeLock().unlock();
+			}
+		}
+	}
+
+	/**
+	 * The documents as of now, to be closed once read.
+	 *
+	 * @return Read-only view of the documents.
+	 */
+	public View<T> values() {
+		// The write lock, views are counted.
+		lock.writeLock().lock();
+		try {
+			final long[] locations = new long[size];
+			int next = 0;
+
+			for (int slot = 0; slot < slots; slot++) {
+				final long location = index.getLong(offset(slot) + Long.BYTES);
+
+				if (location != 0) {
+					locations[next++] = location - 1;
+				}
+			}
+
+			openViews++;
+			return new View<>(this, locations);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		lock.writeLock().lock();
+		try {
+			indexChannel.close();
+			data.close();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Write a record into a free extent of its size, or append one, starting a new
+	 * region if it does not fit into the last one.
+	 */
+	private long write(final byte[] record) throws IOException {
+		final int sizeClass = sizeClass(Integer.BYTES + record.length);
+		final ArrayDeque<Long> extents = free[sizeClass];
+		final long location;
+
+		if (Objects.nonNull(extents) && !extents.isEmpty()) {
+			location = extents.pop();
+		} else {
+			final int extent = 1 << sizeClass;
+
+			if (end + extent > (long) regions.size() * REGION_SIZE) {
+				end = (long) regions.size() * REGION_SIZE;
+				regions.add(data.map(FileChannel.MapMode.READ_WRITE, end, REGION_SIZE));
+			}
+			location = end;
+			end += extent;
+		}
+
+		final ByteBuffer region = regions.get((int) (location / REGION_SIZE)).duplicate();
+		region.position((int) (location % REGION_SIZE));
+		region.putInt(record.length);
+		region.put(record);
+		return location;
+	}
+
+	/**
+	 * Free the extent of a replaced record, or retire it while views may read it.
+	 */
+	private void release(final long location) {
+		if (openViews > 0) {
+			retired.add(location);
+		} else {
+			free(location);
+		}
+	}
+
+	private void free(final long location) {
+		final int length = regions.get((int) (location / REGION_SIZE)).getInt((int) (location % REGION_SIZE));
+		final int sizeClass = sizeClass(Integer.BYTES + length);
+
+		if (Objects.isNull(free[sizeClass])) {
+			free[sizeClass] = new ArrayDeque<>();
+		}
+		free[sizeClass].push(location);
+	}
+
+	private void closeView() {
+		if (--openViews == 0) {
+			for (final long location : retired) {
+				free(location);
+			}
+			retired.clear();
+		}
+	}
+
+	/**
+	 * Binary logarithm of the extent holding a record of the given length.
+	 */
+	private static int sizeClass(final int length) {
+		return Integer.SIZE - Integer.numberOfLeadingZeros(Math.max(length, MIN_EXTENT) - 1);
+	}
+
+	private T read(final long location) {
+		final ByteBuffer region = regions.get((int) (location / REGION_SIZE)).duplicate();
+		region.position((int) (location % REGION_SIZE));
+		final byte[] record = new byte[region.getInt()];
+		region.get(record);
+
+		try {
+			return codec.read(new DataInputStream(new ByteArrayInputStream(record)));
+		} catch (IOException exc) {
+			throw new RuntimeException("Document could not be read.", exc);
+		}
+	}
+
+	/**
+	 * Move the index to a file with twice the slots.
+	 */
+	private void resize() throws IOException {
+		final FileChannel oldChannel = indexChannel;
+		final MappedByteBuffer oldIndex = index;
+		final int oldSlots = slots;
+		final Path oldFile = indexFile(oldSlots);
+
+		openIndex(oldSlots * 2);
+
+		for (int slot = 0; slot < oldSlots; slot++) {
+			final long location = oldIndex.getLong(offset(slot) + Long.BYTES);
+
+			if (location != 0) {
+				final long hash = oldIndex.getLong(offset(slot));
+				int target = slotOf(hash);
+
+				while (index.getLong(offset(target) + Long.BYTES) != 0) {
+					target = (target + 1) & (slots - 1);
+				}
+				index.putLong(offset(target), hash);
+				index.putLong(offset(target) + Long.BYTES, location);
+			}
+		}
+
+		oldChannel.close();
+		try {
+			Files.deleteIfExists(oldFile);
+		} catch (IOException exc) {
+			// Still mapped on some platforms, removed on the next start.
+		}
+	}
+
+	private void openIndex(final int slotCount) throws IOException {
+		indexChannel = FileChannel.open(indexFile(slotCount), StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, (long) slotCount * SLOT_SIZE);
+		slots = slotCount;
+	}
+
+	private Path indexFile(final int slotCount) {
+		return directory.resolve(name + "-" + slotCount + INDEX_SUFFIX);
+	}
+
+	/**
+	 * Offset of a slot in the index, computed in longs: past 2^27 slots the int
+	 * product would wrap around.
+	 */
+	private static int offset(final int slot) {
+		return Math.toIntExact((long) slot * SLOT_SIZE);
+	}
+
+	private int slotOf(final long hash) {
+		return (int) (hash ^ (hash >>> 32)) & (slots - 1);
+	}
+
+	/**
+	 * 64-bit FNV-1a hash of the UTF-8 bytes of a key.
+	 */
+	private static long hash(final String documentKey) {
+		long hash = 0xcbf29ce484222325L;
+
+		for (final byte b : Objects.requireNonNull(documentKey).getBytes(StandardCharsets.UTF_8)) {
+			hash ^= b & 0xff;
+			hash *= 0x100000001b3L;
+		}
+		return hash;
+	}
+}
@@ -0,0 +1,127 @@
+package com.nagp.microservices.userservices.storage;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nagp.microservices.userservices.model.AccountLink;
+import com.nagp.microservices.userservices.model.User;
+import com.nagp.microservices.userservices.util.LongHashSet;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Read-through, write-through cache of users in front of the {@link UserStore}.
+ * The cache is bounded by the estimated heap size of the cached users and
+ * evicts with W-TinyLFU, so frequently read users stay in memory while the
+ * rest of the users are read from the store. Hits, misses and evictions are
+ * published as the {@code cache.*} metrics of the {@code users} cache.
+ *
+ * @author vinodgodara
+ *
+ */
+@Component
+public class UserCache {
+
+	private final UserStore userStore;
+
+	private final Cache<String, User> users;
+
+	public UserCache(final UserStore userStore, final MeterRegistry meterRegistry,
+			@Value("${user-cache.max-weight-bytes:67108864}") final long maxWeightBytes) {
+		this.userStore = userStore;
+		this.users = Caffeine.newBuilder().maximumWeight(maxWeightBytes).weigher(UserCache::weigh).recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, users, "users");
+	}
+
+	/**
+	 * Find a user, from the store if it is not cached.
+	 *
+	 * @param userID User ID.
+	 * @return A copy of the user, null if there is no such user.
+	 */
+	public User findById(final String userID) {
+		final User user = users.get(userID, userStore::findById);
+		return Objects.nonNull(user) ? copy(user) : null;
+	}
+
+	/**
+	 * Find the user owning an account.
+	 *
+	 * @param accountNO Account number.
+	 * @return User ID, null if no user has the account.
+	 */
+	public String findOwner(final long accountNO) {
+		return userStore.findOwner(accountNO);
+	}
+
+	/**
+	 * Insert a user unless the user ID is taken.
+	 *
+	 * @param user The user.
+	 * @return False if a user with the same ID exists.
+	 */
+	public synchronized boolean insert(final User user) {
+		if (!userStore.insert(user)) {
+			return false;
+		}
+		users.put(user.getUserID(), copy(user));
+		return true;
+	}
+
+	/**
+	 * Insert or replace a user in the store and the cache.
+	 *
+	 * @param user The user.
+	 */
+	public synchronized void upsert(final User user) {
+		userStore.upsert(user);
+		users.put(user.getUserID(), copy(user));
+	}
+
+	/**
+	 * Add accounts to users and remove them in the store, and replace the changed
+	 * users in the cache.
+	 *
+	 * @param links The changes.
+	 * @return The changed users by user ID, without the user IDs that do not
+	 *         exist.
+	 */
+	public synchronized Map<String, User> updateAccounts(final List<AccountLink> links) {
+		final Map<String, User> changed = userStore.updateAccounts(links);
+		for (final User user : changed.values()) {
+			users.put(user.getUserID(), copy(user));
+		}
+		return changed;
+	}
+
+	/**
+	 * Rough heap size of a cache entry in bytes: entry, key, user, its strings and
+	 * its account list.
+	 */
+	private static int weigh(final String userID, final User user) {
+		final LongHashSet accounts = user.getAccountSet();
+		return 72 + size(userID) + size(user.getUserID()) + size(user.getUserAddress()) + size(user.getUserEmail())
+				+ (Objects.nonNull(accounts) ? 48 + accounts.capacity() * 8 : 0);
+	}
+
+	private static int size(final String value) {
+		return Objects.nonNull(value) ? 40 + value.length() * 2 : 0;
+	}
+
+	private static User copy(final User user) {
+		final User copy = new User();
+		copy.setUserID(user.getUserID());
+		copy.setUserAddress(user.getUserAddress());
+		copy.setUserEmail(user.getUserEmail());
+		copy.setAccountSet(Objects.nonNull(user.getAccountSet()) ? new LongHashSet(user.getAccountSet()) : null);
+		return copy;
+	}
+}
@@ -0,0 +1,347 @@
+package com.nagp.microservices.userservices.storage;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.nagp.microservices.common.storage.DocumentJournal;
+import com.nagp.microservices.common.storage.SnapshotFile;
+import com.nagp.microservices.userservices.model.AccountLink;
+import com.nagp.microservices.userservices.model.User;
+import com.nagp.microservices.userservices.util.LongHashSet;
+
+import io.jsondb.InvalidJsonDbApiUsageException;
+import io.jsondb.JsonDBTemplate;
+
+/**
+ * Storage for users. Users are held off the heap in a {@link DocumentFile};
+ * every write is appended to a {@link DocumentJournal} and a background task periodically writes a binary
+ * {@link SnapshotFile} of all users and drops the journal segments it covers.
+ * Startup reads the snapshot and replays only the journal written since, so it
+ * takes time in proportion to recent writes rather than to the JSON DB
+ * collection, which is only read once to create the first snapshot.
+ *
+ * @author vinodgodara
+ *
+ */
+@Component
+public class UserStore {
+	private static final Logger LOGGER = LoggerFactory.getLogger(UserStore.class);
+
+	// Actual location on disk for database files, process should have read-write
+	// permissions to this folder
+	private final String dbFilesLocation;
+
+	// Java package name where POJO's are present
+	private final String baseScanPackage = "com.nagp.microservices.userservices.model";
+
+	private final DocumentFile<User> users;
+
+	private final AccountOwnerIndex owners = new AccountOwnerIndex();
+
+	private final SnapshotFile<User> snapshot;
+
+	private final DocumentJournal<User> journal;
+
+	private final ScheduledExecutorService snapshotter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		final Thread thread = new Thread(runnable, "user-snapshot-writer");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	public UserStore(@Value("${snapshot.interval-ms:60000}") final long snapshotIntervalMillis,
+			@Value("${db.files-location:C:\\}") final String dbFilesLocation) throws IOException {
+		this.dbFilesLocation = dbFilesLocation;
+		final long start = System.nanoTime();
+		final Path snapshotDirectory = Paths.get(dbFilesLocation, "snapshots");
+		Files.createDirectories(snapshotDirectory);
+
+		snapshot = new SnapshotFile<>(snapshotDirectory.resolve("users.snapshot"), new UserCodec());
+		journal = new DocumentJournal<>(Paths.get(dbFilesLocation, "journal"), "users", new UserCodec());
+		users = new DocumentFile<>(Paths.get(dbFilesLocation, "resident"), "users", new UserCodec(), User::getUserID);
+
+		long lastSegment = 0;
+		int replayed = 0;
+
+		if (snapshot.exists()) {
+			lastSegment = snapshot.read(this::load);
+			journal.continueAfter(lastSegment);
+		} else {
+			importCollection();
+		}
+
+		for (final Path segment : journal.rotate()) {
+			// Segments up to the snapshot were not deleted before the process stopped.
+			if (journal.segmentNumber(segment) > lastSegment) {
+				replayed += journal.read(segment, this::load);
+			}
+		}
+
+		try (DocumentFile.View<User> all = users.values()) {
+			for (final User user : all) {
+				owners.update(user.getUserID(), null, user.getAccountSet());
+			}
+		}
+
+		LOGGER.info("Loaded {} users ({} replayed from the journal) with {} accounts in {} ms.", users.size(),
+				replayed, owners.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+		writeSnapshot();
+		snapshotter.scheduleWithFixedDelay(this::writeSnapshotQuietly, snapshotIntervalMillis, snapshotIntervalMillis,
+				TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Find a user.
+	 *
+	 * @param userID User ID.
+	 * @return A copy of the user, null if there is no such user.
+	 */
+	public User findById(final String userID) {
+		return users.get(userID);
+	}
+
+	/**
+	 * Find the user owning an account.
+	 *
+	 * @param accountNO Account number.
+	 * @return User ID, null if no user has the account.
+	 */
+	public String findOwner(final long accountNO) {
+		return owners.owner(accountNO);
+	}
+
+	/**
+	 * Insert a user unless the user ID is taken, and journal it.
+	 *
+	 * @param user The user.
+	 * @return False if a user with the same ID exists.
+	 */
+	public synchronized boolean insert(final User user) {
+		if (Objects.nonNull(users.get(user.getUserID()))) {
+			return false;
+		}
+		upsert(user);
+		return true;
+	}
+
+	/**
+	 * Insert or replace a user and journal it.
+	 *
+	 * @param user The user.
+	 */
+	public synchronized void upsert(final User user) {
+		final User previous = users.get(user.getUserID());
+
+		try {
+			journal.append(user);
+			users.put(user);
+		} catch (IOException exc) {
+			LOGGER.error("User could not be journaled.", exc);
+			throw new RuntimeException("User could not be saved.", exc);
+		}
+		owners.update(user.getUserID(), Objects.nonNull(previous) ? previous.getAccountSet() : null,
+				user.getAccountSet());
+	}
+
+	/**
+	 * Add accounts to users and remove them. The users are read and written
+	 * under the store lock, so concurrent changes of the same user are not lost.
+	 * Changes for the same user are applied in order and all changed users are
+	 * journaled with one forced write.
+	 *
+	 * @param links The changes.
+	 * @return The changed users by user ID, without the user IDs that do not
+	 *         exist.
+	 */
+	public synchronized Map<String, User> updateAccounts(final List<AccountLink> links) {
+		final Map<String, User> changed = new LinkedHashMap<>();
+		final Set<String> missing = new HashSet<>();
+
+		for (final AccountLink link : links) {
+			User user = changed.get(link.getUserID());
+
+			if (Objects.isNull(user)) {
+				if (missing.contains(link.getUserID())) {
+					continue;
+				}
+
+				user = users.get(link.getUserID());
+				if (Objects.isNull(user)) {
+					missing.add(link.getUserID());
+					continue;
+				}
+
+				if (Objects.isNull(user.getAccountSet())) {
+					user.setAccountSet(new LongHashSet());
+				}
+				changed.put(user.getUserID(), user);
+			}
+
+			if (link.isUnlink()) {
+				user.getAccountSet().remove(link.getAccountNO());
+			} else {
+				user.getAccountSet().add(link.getAccountNO());
+			}
+		}
+
+		if (changed.isEmpty()) {
+			return changed;
+		}
+
+		try {
+			journal.appendAll(new ArrayList<>(changed.values()));
+			for (final User user : changed.values()) {
+				users.put(user);
+			}
+		} catch (IOException exc) {
+			LOGGER.error("Users could not be journaled.", exc);
+			throw new RuntimeException("Users could not be saved.", exc);
+		}
+
+		// Only the accounts that moved change owner.
+		for (final AccountLink link : links) {
+			if (changed.containsKey(link.getUserID())) {
+				if (link.isUnlink()) {
+					owners.unlink(link.getUserID(), link.getAccountNO());
+				} else {
+					owners.link(link.getUserID(), link.getAccountNO());
+				}
+			}
+		}
+		return changed;
+	}
+
+	/**
+	 * Write a snapshot of all users and delete the journal segments it covers.
+	 *
+	 * @throws IOException If the snapshot could not be written.
+	 */
+	void writeSnapshot() throws IOException {
+		synchronized (snapshot) {
+			final List<Path> segments;
+			final long lastSegment;
+
+			// Every write journaled in the closed segments is stored once the lock is
+			// held; later writes go to the next segment and may also end up in the
+			// snapshot, which is harmless.
+			synchronized (this) {
+				segments = journal.rotate();
+				lastSegment = journal.lastSegmentNumber();
+			}
+
+			// Nothing was written since the last snapshot.
+			if (segments.isEmpty() && snapshot.exists()) {
+				return;
+			}
+
+			try (DocumentFile.View<User> all = users.values()) {
+				snapshot.write(lastSegment, all);
+			}
+
+			for (final Path segment : segments) {
+				journal.delete(segment);
+			}
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() throws IOException {
+		snapshotter.shutdown();
+		writeSnapshot();
+		journal.close();
+		users.close();
+	}
+
+	/**
+	 * Read the users of the JSON DB collection, once, before the first snapshot.
+	 */
+	private void importCollection() {
+		final JsonDBTemplate jsonDBTemplate = new JsonDBTemplate(dbFilesLocation, baseScanPackage, null);
+
+		try {
+			jsonDBTemplate.createCollection(User.class);
+		} catch (InvalidJsonDbApiUsageException exc) {
+			LOGGER.warn("DB already exists.");
+		}
+
+		for (final User user : jsonDBTemplate.findAll(User.class)) {
+			load(user);
+		}
+		LOGGER.info("Imported {} users from the JSON DB collection.", users.size());
+	}
+
+	private void load(final User user) {
+		try {
+			users.put(user);
+		} catch (IOException exc) {
+			throw new RuntimeException("User could not be loaded.", exc);
+		}
+	}
+
+	private void writeSnapshotQuietly() {
+		try {
+			writeSnapshot();
+		} catch (Exception exc) {
+			LOGGER.error("User snapshot could not be written.", exc);
+		}
+	}
+
+	/**
+	 * Binary encoding of a user for snapshots and the journal.
+	 */
+	private static final class UserCodec implements SnapshotFile.Codec<User> {
+		@Override
+		public void write(final DataOutputStream output, final User user) throws IOException {
+			output.writeUTF(user.getUserID());
+			SnapshotFile.writeNullable(output, user.getUserAddress());
+			SnapshotFile.writeNullable(output, user.getUserEmail());
+
+			final LongHashSet accounts = user.getAccountSet();
+			output.writeInt(Objects.nonNull(accounts) ? accounts.size() : -1);
+			if (Objects.nonNull(accounts)) {
+				for (final long accountNO : accounts.toSortedArray()) {
+					output.writeLong(accountNO);
+				}
+			}
+		}
+
+		@Override
+		public User read(final DataInputStream input) throws IOException {
+			final User user = new User();
+			user.setUserID(input.readUTF());
+			user.setUserAddress(SnapshotFile.readNullable(input));
+			user.setUserEmail(SnapshotFile.readNullable(input));
+
+			final int count = input.readInt();
+			if (count >= 0) {
+				final LongHashSet accounts = new LongHashSet(count);
+				for (int i = 0; i < count; i++) {
+					accounts.add(input.readLong());
+				}
+				user.setAccountSet(accounts);
+			}
+			return user;
+		}
+	}
+}
@@ -0,0 +1,205 @@
+package com.nagp.microservices.userservices.util;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Set of primitive longs with open addressing and linear probing, so that
+ * membership checks, additions and removals take constant time without boxing.
+ * Not thread safe.
+ * 
+ * @author vinodgodara
+ *
+ */
+public class LongHashSet {
+
+	private static final int MIN_CAPACITY = 4;
+
+	// 0 marks a free slot, the value 0 itself is kept aside.
+	private long[] slots;
+
+	private boolean containsZero;
+
+	private int size;
+
+	public LongHashSet() {
+		this(MIN_CAPACITY);
+	}
+
+	public LongHashSet(final int expectedSize) {
+		slots = new long[capacityFor(expectedSize)];
+	}
+
+	public LongHashSet(final LongHashSet other) {
+		slots = other.slots.clone();
+		containsZero = other.containsZero;
+		size = other.size;
+	}
+
+	public boolean contains(final long value) {
+		if (value == 0) {
+			return containsZero;
+		}
+
+		for (int slot = slotOf(value, slots.length);; slot = (slot + 1) & (slots.length - 1)) {
+			if (slots[slot] == value) {
+				return true;
+			}
+			if (slots[slot] == 0) {
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * Add a value.
+	 * 
+	 * @param value The value.
+	 * @return False if the value was already in the set.
+	 */
+	public boolean add(final long value) {
+		if (value == 0) {
+			if (containsZero) {
+				return false;
+			}
+			containsZero = true;
+			size++;
+			return true;
+		}
+
+		int slot = slotOf(value, slots.length);
+		while (slots[slot] != 0) {
+			if (slots[slot] == value) {
+				return false;
+			}
+			slot = (slot + 1) & (slots.length - 1);
+		}
+		slots[slot] = value;
+		size++;
+
+		if (size * 4 > slots.length * 3) {
+			rehash(slots.length * 2);
+		}
+		return true;
+	}
+
+	/**
+	 * Remove a value.
+	 * 
+	 * @param value The value.
+	 * @return False if the value was not in the set.
+	 */
+	public boolean remove(final long value) {
+		if (value == 0) {
+			if (!containsZero) {
+				return false;
+			}
+			containsZero = false;
+			size--;
+			return true;
+		}
+
+		int slot = slotOf(value, slots.length);
+		while (slots[slot] != value) {
+			if (slots[slot] == 0) {
+				return false;
+			}
+			slot = (slot + 1) & (slots.length - 1);
+		}
+
+		// Move later entries of the probe sequence back into the gap.
+		int gap = slot;
+		for (int next = (gap + 1) & (slots.length - 1); slots[next] != 0; next = (next + 1) & (slots.length - 1)) {
+			final int home = slotOf(slots[next], slots.length);
+
+			if (((next - home) & (slots.length - 1)) >= ((next - gap) & (slots.length - 1))) {
+				slots[gap] = slots[next];
+				gap = next;
+			}
+		}
+		slots[gap] = 0;
+		size--;
+		return true;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Number of slots, for estimating the memory held by the set.
+	 * 
+	 * @return The number of slots.
+	 */
+	public int capacity() {
+		return slots.length;
+	}
+
+	/**
+	 * Pass every value to an action, in no particular order.
+	 * 
+	 * @param action The action.
+	 */
+	public void forEach(final LongConsumer action) {
+		if (containsZero) {
+			action.accept(0);
+		}
+		for (final long value : slots) {
+			if (value != 0) {
+				action.accept(value);
+			}
+		}
+	}
+
+	/**
+	 * The values in ascending order.
+	 * 
+	 * @return A new array of the values.
+	 */
+	public long[] toSortedArray() {
+		final long[] values = new long[size];
+		int next = 0;
+
+		if (containsZero) {
+			values[next++] = 0;
+		}
+		for (final long value : slots) {
+			if (value != 0) {
+				values[next++] = value;
+			}
+		}
+		Arrays.sort(values);
+		return values;
+	}
+
+	private void rehash(final int capacity) {
+		final long[] old = slots;
+		slots = new long[capacity];
+
+		for (final long value : old) {
+			if (value != 0) {
+				int slot = slotOf(value, capacity);
+				while (slots[slot] != 0) {
+					slot = (slot + 1) & (capacity - 1);
+				}
+				slots[slot] = value;
+			}
+		}
+	}
+
+	private static int capacityFor(final int expectedSize) {
+		int capacity = MIN_CAPACITY;
+		while (capacity * 3 < expectedSize * 4) {
+			capacity *= 2;
+		}
+		return capacity;
+	}
+
+	/**
+	 * Spread account numbers, which are often consecutive, over the slots.
+	 */
+	static int slotOf(final long value, final int capacity) {
+		final long mixed = value * 0x9E3779B97F4A7C15L;
+		return (int) (mixed ^ (mixed >>> 32)) & (capacity - 1);
+	}
+}
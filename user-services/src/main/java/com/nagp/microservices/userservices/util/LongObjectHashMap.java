@@ -0,0 +1,122 @@
+package com.nagp.microservices.userservices.util;
+
+/**
+ * Map from primitive long keys to objects with open addressing and linear
+ * probing, so that lookups do not box the key. The key 0 is not supported. Not
+ * thread safe.
+ * 
+ * @param <V> Value type.
+ * 
+ * @author vinodgodara
+ *
+ */
+public class LongObjectHashMap<V> {
+
+	private static final int MIN_CAPACITY = 16;
+
+	// 0 marks a free slot.
+	private long[] keys = new long[MIN_CAPACITY];
+
+	private Object[] values = new Object[MIN_CAPACITY];
+
+	private int size;
+
+	@SuppressWarnings("unchecked")
+	public V get(final long key) {
+		for (int slot = LongHashSet.slotOf(key, keys.length);; slot = (slot + 1) & (keys.length - 1)) {
+			if (keys[slot] == key) {
+				return (V) values[slot];
+			}
+			if (keys[slot] == 0) {
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * Associate a value with a key.
+	 * 
+	 * @param key   Key, not 0.
+	 * @param value The value.
+	 */
+	public void put(final long key, final V value) {
+		if (key == 0) {
+			throw new IllegalArgumentException("Key 0 is not supported.");
+		}
+
+		int slot = LongHashSet.slotOf(key, keys.length);
+		while (keys[slot] != 0 && keys[slot] != key) {
+			slot = (slot + 1) & (keys.length - 1);
+		}
+		if (keys[slot] == 0) {
+			keys[slot] = key;
+			size++;
+		}
+		values[slot] = value;
+
+		if (size * 4 > keys.length * 3) {
+			rehash(keys.length * 2);
+		}
+	}
+
+	/**
+	 * Remove a key.
+	 * 
+	 * @param key The key.
+	 * @return The value it had, null if there was none.
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(final long key) {
+		// 0 would match a free slot.
+		if (key == 0) {
+			return null;
+		}
+
+		int slot = LongHashSet.slotOf(key, keys.length);
+		while (keys[slot] != key) {
+			if (keys[slot] == 0) {
+				return null;
+			}
+			slot = (slot + 1) & (keys.length - 1);
+		}
+		final V removed = (V) values[slot];
+
+		// Move later entries of the probe sequence back into the gap.
+		int gap = slot;
+		for (int next = (gap + 1) & (keys.length - 1); keys[next] != 0; next = (next + 1) & (keys.length - 1)) {
+			final int home = LongHashSet.slotOf(keys[next], keys.length);
+
+			if (((next - home) & (keys.length - 1)) >= ((next - gap) & (keys.length - 1))) {
+				keys[gap] = keys[next];
+				values[gap] = values[next];
+				gap = next;
+			}
+		}
+		keys[gap] = 0;
+		values[gap] = null;
+		size--;
+		return removed;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	private void rehash(final int capacity) {
+		final long[] oldKeys = keys;
+		final Object[] oldValues = values;
+		keys = new long[capacity];
+		values = new Object[capacity];
+
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != 0) {
+				int slot = LongHashSet.slotOf(oldKeys[i], capacity);
+				while (keys[slot] != 0) {
+					slot = (slot + 1) & (capacity - 1);
+				}
+				keys[slot] = oldKeys[i];
+				values[slot] = oldValues[i];
+			}
+		}
+	}
+}
@@ -14,6 +14,8 @@ public class UserConstants {
 
 	public static String USER_ID_DOES_NOT_EXIST = "User with ID does not exist.";
 
+	public static String ACCOUNT_OWNER_DOES_NOT_EXIST = "No user owns the account.";
+
 	public static String SUCCESS = "Success";
 
 }
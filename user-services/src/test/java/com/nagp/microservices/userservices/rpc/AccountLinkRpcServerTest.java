@@ -0,0 +1,102 @@
+package com.nagp.microservices.userservices.rpc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.nagp.microservices.common.rpc.RpcProtocol;
+import com.nagp.microservices.userservices.controllers.UserService;
+
+class AccountLinkRpcServerTest {
+
+	private final ExecutorService workers = Executors.newFixedThreadPool(4);
+
+	private final AccountLinkRpcServer rpcServer = new AccountLinkRpcServer();
+
+	private ServerSocket listener;
+
+	@BeforeEach
+	void start() throws IOException {
+		ReflectionTestUtils.setField(rpcServer, "workers", workers);
+		ReflectionTestUtils.setField(rpcServer, "userService", new UserService() {
+			@Override
+			public String addAccount(final String userID, final String accountNo) {
+				// Slow enough that the client is done sending before the answers.
+				try {
+					Thread.sleep(50);
+				} catch (InterruptedException exc) {
+					Thread.currentThread().interrupt();
+				}
+				return "added " + userID + '/' + accountNo;
+			}
+
+			@Override
+			public String removeAccount(final String userID, final String accountNo) {
+				throw new RuntimeException("User does not exist.");
+			}
+		});
+		listener = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+	}
+
+	@AfterEach
+	void stop() throws IOException {
+		workers.shutdownNow();
+		listener.close();
+	}
+
+	@Test
+	void answersEveryRequestBeforeClosingTheConnection() throws Exception {
+		try (Socket client = new Socket(InetAddress.getLoopbackAddress(), listener.getLocalPort())) {
+			final Socket accepted = listener.accept();
+			final Thread connection = new Thread(() -> rpcServer.serve(accepted), "test-connection");
+			connection.start();
+
+			final OutputStream output = client.getOutputStream();
+			for (long id = 1; id <= 20; id++) {
+				output.write(RpcProtocol.request(id, id == 20 ? RpcProtocol.REMOVE_ACCOUNT : RpcProtocol.ADD_ACCOUNT,
+						"alice", id));
+			}
+			output.flush();
+			// Done sending, the server reads the end of the stream while still working.
+			client.shutdownOutput();
+
+			final DataInputStream input = new DataInputStream(new BufferedInputStream(client.getInputStream()));
+			final Set<Long> answered = new HashSet<>();
+			for (int i = 0; i < 20; i++) {
+				final DataInputStream frame = RpcProtocol.readFrame(input);
+				final long id = frame.readLong();
+				final byte status = frame.readByte();
+				final String message = frame.readUTF();
+
+				if (id == 20) {
+					assertEquals(RpcProtocol.FAILED, status);
+					assertEquals("User does not exist.", message);
+				} else {
+					assertEquals(RpcProtocol.OK, status);
+					assertEquals("added alice/" + id, message);
+				}
+				answered.add(id);
+			}
+
+			assertEquals(20, answered.size());
+			assertNull(RpcProtocol.readFrame(input));
+			connection.join(5000);
+		}
+	}
+}
@@ -0,0 +1,50 @@
+package com.nagp.microservices.userservices.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+import com.nagp.microservices.userservices.util.LongHashSet;
+
+class AccountOwnerIndexTest {
+
+	private final AccountOwnerIndex index = new AccountOwnerIndex();
+
+	@Test
+	void linksAndUnlinksSingleAccounts() {
+		index.link("alice", 1);
+		index.link("alice", 2);
+		index.unlink("alice", 1);
+
+		assertNull(index.owner(1));
+		assertEquals("alice", index.owner(2));
+		assertEquals(1, index.size());
+	}
+
+	@Test
+	void leavesAccountsTakenOverByAnotherUser() {
+		index.link("alice", 1);
+		index.link("bob", 1);
+		index.unlink("alice", 1);
+
+		assertEquals("bob", index.owner(1));
+	}
+
+	@Test
+	void replacesTheAccountsOfAUser() {
+		final LongHashSet previous = new LongHashSet();
+		previous.add(1);
+		previous.add(2);
+		index.update("alice", null, previous);
+
+		final LongHashSet current = new LongHashSet();
+		current.add(2);
+		current.add(3);
+		index.update("alice", previous, current);
+
+		assertNull(index.owner(1));
+		assertEquals("alice", index.owner(2));
+		assertEquals("alice", index.owner(3));
+	}
+}
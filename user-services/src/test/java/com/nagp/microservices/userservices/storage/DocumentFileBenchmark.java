@@ -0,0 +1,139 @@
+package com.nagp.microservices.userservices.storage;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+import com.nagp.microservices.common.storage.SnapshotFile;
+import com.nagp.microservices.userservices.model.User;
+
+/**
+ * Heap held by all users in a {@link HashMap}, the way the store kept them
+ * before, against a {@link DocumentFile}, and the cost of a lookup in each.
+ * Run with
+ * {@code java -Xmx1g -cp target/classes:target/test-classes ...DocumentFileBenchmark [users]}.
+ *
+ * @author vinodgodara
+ *
+ */
+public class DocumentFileBenchmark {
+
+	public static void main(final String[] args) throws IOException {
+		final int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+		final Path directory = Files.createTempDirectory("document-file");
+		final SnapshotFile.Codec<User> codec = new SnapshotFile.Codec<User>() {
+			@Override
+			public void write(final DataOutputStream output, final User user) throws IOException {
+				output.writeUTF(user.getUserID());
+				output.writeUTF(user.getUserAddress());
+				output.writeUTF(user.getUserEmail());
+				output.writeInt(user.getUserAccounts().size());
+				for (final Long accountNO : user.getUserAccounts()) {
+					output.writeLong(accountNO);
+				}
+			}
+
+			@Override
+			public User read(final DataInputStream input) throws IOException {
+				final User user = new User();
+				user.setUserID(input.readUTF());
+				user.setUserAddress(input.readUTF());
+				user.setUserEmail(input.readUTF());
+				final int accounts = input.readInt();
+				user.setUserAccounts(new ArrayList<>(accounts));
+				for (int i = 0; i < accounts; i++) {
+					user.getUserAccounts().add(input.readLong());
+				}
+				return user;
+			}
+		};
+
+		final double[] map = hashMap(count);
+
+		final long fileBaseline = usedHeap();
+		final DocumentFile<User> file = new DocumentFile<>(directory, "users", codec, User::getUserID);
+		for (int i = 0; i < count; i++) {
+			file.put(user(i));
+		}
+		final long fileHeap = usedHeap() - fileBaseline;
+		final double fileNanos = lookups(count, file::get);
+		file.close();
+
+		System.out.printf("%,d users%n", count);
+		System.out.printf("%-14s %14s %12s%n", "storage", "heap bytes", "ns/lookup");
+		System.out.printf("%-14s %,14.0f %12.0f%n", "hash map", map[0], map[1]);
+		System.out.printf("%-14s %,14d %12.0f%n", "document file", fileHeap, fileNanos);
+
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+			for (final Path path : stream) {
+				Files.delete(path);
+			}
+		}
+		Files.delete(directory);
+	}
+
+	/**
+	 * Heap bytes and lookup nanoseconds of a hash map, which is garbage once this
+	 * returns.
+	 */
+	private static double[] hashMap(final int count) {
+		final long baseline = usedHeap();
+		final Map<String, User> map = new HashMap<>();
+		for (int i = 0; i < count; i++) {
+			final User user = user(i);
+			map.put(user.getUserID(), user);
+		}
+		final long heap = usedHeap() - baseline;
+		return new double[] { heap, lookups(count, map::get) };
+	}
+
+	private static User user(final int i) {
+		final User user = new User();
+		user.setUserID("user" + i);
+		user.setUserAddress(i + " Main Street, Gurgaon");
+		user.setUserEmail("user" + i + "@example.com");
+		user.setUserAccounts(new ArrayList<>(Arrays.asList(1_000_000L + i, 2_000_000L + i)));
+		return user;
+	}
+
+	private static double lookups(final int count, final Function<String, User> lookup) {
+		final Random random = new Random(7);
+		final List<String> keys = new ArrayList<>();
+		for (int i = 0; i < 1_000_000; i++) {
+			keys.add("user" + random.nextInt(count));
+		}
+
+		long found = 0;
+		for (int round = 0; round < 2; round++) {
+			final long start = System.nanoTime();
+			for (final String key : keys) {
+				found += lookup.apply(key) != null ? 1 : 0;
+			}
+			if (round == 1) {
+				if (found != 2L * keys.size()) {
+					throw new IllegalStateException("Missing users.");
+				}
+				return (System.nanoTime() - start) / (double) keys.size();
+			}
+		}
+		return 0;
+	}
+
+	private static long usedHeap() {
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		final Runtime runtime = Runtime.getRuntime();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -0,0 +1,136 @@
+package com.nagp.microservices.userservices.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.nagp.microservices.common.storage.SnapshotFile;
+
+class DocumentFileTest {
+
+	// Documents are "key=value" strings.
+	private static final SnapshotFile.Codec<String> CODEC = new SnapshotFile.Codec<String>() {
+		@Override
+		public void write(final DataOutputStream output, final String document) throws IOException {
+			output.writeUTF(document);
+		}
+
+		@Override
+		public String read(final DataInputStream input) throws IOException {
+			return input.readUTF();
+		}
+	};
+
+	@TempDir
+	Path directory;
+
+	private DocumentFile<String> file;
+
+	@BeforeEach
+	void open() throws IOException {
+		file = new DocumentFile<>(directory, "documents", CODEC, document -> document.split("=")[0]);
+	}
+
+	@AfterEach
+	void close() throws IOException {
+		file.close();
+	}
+
+	@Test
+	void replacesTheCopyWithTheSameKey() throws IOException {
+		file.put("a=1");
+		file.put("b=2");
+		file.put("a=3");
+
+		assertEquals("a=3", file.get("a"));
+		assertEquals("b=2", file.get("b"));
+		assertNull(file.get("c"));
+		assertEquals(2, file.size());
+	}
+
+	@Test
+	void findsEveryDocumentAfterTheIndexGrew() throws IOException {
+		for (int i = 0; i < 100_000; i++) {
+			file.put(i + "=" + i);
+		}
+
+		assertEquals(100_000, file.size());
+		for (int i = 0; i < 100_000; i++) {
+			assertEquals(i + "=" + i, file.get(String.valueOf(i)));
+		}
+		try (DocumentFile.View<String> all = file.values()) {
+			assertEquals(100_000, all.size());
+		}
+	}
+
+	@Test
+	void reusesTheExtentOfAReplacedCopy() throws IOException {
+		file.put("a=1");
+		file.put("b=2");
+		// A copy is written before the one it replaces is freed, so a takes turns
+		// between two extents.
+		file.put("a=2");
+		final long end = end();
+
+		for (int i = 0; i < 1000; i++) {
+			file.put("a=" + i % 10);
+		}
+		assertEquals(end, end());
+		assertEquals("a=9", file.get("a"));
+		assertEquals("b=2", file.get("b"));
+	}
+
+	@Test
+	void movesAGrownDocumentAndReusesItsOldExtent() throws IOException {
+		file.put("a=1");
+		file.put("a=" + String.join("", Collections.nCopies(100, "x")));
+		final long end = end();
+
+		// Fits into the extent the small copy of a left behind.
+		file.put("b=2");
+		assertEquals(end, end());
+		assertEquals(100, file.get("a").length() - 2);
+	}
+
+	@Test
+	void keepsReplacedCopiesForAnOpenView() throws IOException {
+		file.put("a=1");
+		file.put("b=2");
+
+		final List<String> seen = new ArrayList<>();
+		final long end;
+		try (DocumentFile.View<String> all = file.values()) {
+			file.put("a=3");
+			file.put("b=4");
+			file.put("a=5");
+			end = end();
+			seen.addAll(all);
+		}
+		Collections.sort(seen);
+		assertEquals("[a=1, b=2]", seen.toString());
+
+		// Free again once the view is closed.
+		file.put("a=6");
+		file.put("b=7");
+		assertEquals(end, end());
+		assertEquals("a=6", file.get("a"));
+		assertEquals("b=7", file.get("b"));
+	}
+
+	private long end() {
+		return (long) ReflectionTestUtils.getField(file, "end");
+	}
+}
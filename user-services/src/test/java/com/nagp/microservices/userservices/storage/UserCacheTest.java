@@ -0,0 +1,116 @@
+package com.nagp.microservices.userservices.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.nagp.microservices.userservices.model.AccountLink;
+import com.nagp.microservices.userservices.model.User;
+import com.nagp.microservices.userservices.util.LongHashSet;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class UserCacheTest {
+
+	@TempDir
+	Path directory;
+
+	private UserStore store;
+
+	private UserCache cache;
+
+	@BeforeEach
+	void open() throws IOException {
+		store = new UserStore(60_000, directory.toString());
+		cache = new UserCache(store, new SimpleMeterRegistry(), 1 << 20);
+	}
+
+	@AfterEach
+	void close() throws IOException {
+		store.shutdown();
+	}
+
+	@Test
+	void insertsAUserOnce() {
+		assertTrue(cache.insert(user("alice", 1)));
+		assertFalse(cache.insert(user("alice", 2)));
+
+		assertTrue(cache.findById("alice").getAccountSet().contains(1));
+		assertNull(cache.findById("bob"));
+	}
+
+	@Test
+	void answersCopiesTheCallerMayChange() {
+		cache.insert(user("alice", 1));
+
+		final User found = cache.findById("alice");
+		found.getAccountSet().add(2);
+		found.setUserEmail("changed");
+
+		final User again = cache.findById("alice");
+		assertFalse(again.getAccountSet().contains(2));
+		assertEquals("alice@example.com", again.getUserEmail());
+	}
+
+	@Test
+	void writesThroughToTheStore() throws IOException {
+		cache.insert(user("alice", 1));
+		cache.upsert(user("alice", 2));
+
+		assertTrue(store.findById("alice").getAccountSet().contains(2));
+		assertEquals("alice", cache.findOwner(2));
+		assertNull(cache.findOwner(1));
+
+		// A new cache in front of the reopened store reads the user back.
+		store.shutdown();
+		store = new UserStore(60_000, directory.toString());
+		cache = new UserCache(store, new SimpleMeterRegistry(), 1 << 20);
+		assertTrue(cache.findById("alice").getAccountSet().contains(2));
+	}
+
+	@Test
+	void replacesTheUsersChangedByAccountLinks() {
+		cache.insert(user("alice", 1));
+		// Cached before the change.
+		cache.findById("alice");
+
+		final Map<String, User> changed = cache.updateAccounts(
+				Arrays.asList(link("alice", 2, false), link("alice", 1, true), link("nobody", 3, false)));
+
+		assertEquals(1, changed.size());
+		final LongHashSet accounts = cache.findById("alice").getAccountSet();
+		assertEquals(1, accounts.size());
+		assertTrue(accounts.contains(2));
+		assertEquals("alice", cache.findOwner(2));
+	}
+
+	private static User user(final String userID, final long accountNO) {
+		final User user = new User();
+		user.setUserID(userID);
+		user.setUserAddress("address");
+		user.setUserEmail(userID + "@example.com");
+		final LongHashSet accounts = new LongHashSet();
+		accounts.add(accountNO);
+		user.setAccountSet(accounts);
+		return user;
+	}
+
+	private static AccountLink link(final String userID, final long accountNO, final boolean unlink) {
+		final AccountLink link = new AccountLink();
+		link.setUserID(userID);
+		link.setAccountNO(accountNO);
+		link.setUnlink(unlink);
+		return link;
+	}
+}
@@ -0,0 +1,179 @@
+package com.nagp.microservices.userservices.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class LongHashSetTest {
+
+	// Holds up to 12 values without growing.
+	private static final int CAPACITY = 16;
+
+	@Test
+	void addsAndRemovesEachValueOnce() {
+		final LongHashSet set = new LongHashSet();
+
+		assertTrue(set.add(7));
+		assertFalse(set.add(7));
+		assertTrue(set.contains(7));
+		assertTrue(set.remove(7));
+		assertFalse(set.remove(7));
+		assertFalse(set.contains(7));
+		assertEquals(0, set.size());
+	}
+
+	@Test
+	void keepsZeroAside() {
+		final LongHashSet set = new LongHashSet();
+
+		assertTrue(set.add(0));
+		assertFalse(set.add(0));
+		assertTrue(set.add(5));
+		assertArrayEquals(new long[] { 0, 5 }, set.toSortedArray());
+		assertTrue(set.remove(0));
+		assertFalse(set.contains(0));
+		assertTrue(set.contains(5));
+		assertEquals(1, set.size());
+	}
+
+	@Test
+	void growsBeyondThreeQuartersFull() {
+		final LongHashSet set = new LongHashSet();
+
+		for (long value = 1; value <= 1000; value++) {
+			set.add(value);
+		}
+		assertEquals(1000, set.size());
+		assertTrue(set.capacity() >= 1000 * 4 / 3);
+		for (long value = 1; value <= 1000; value++) {
+			assertTrue(set.contains(value));
+		}
+	}
+
+	@Test
+	void shiftsBackTheEntriesAfterARemovedOne() {
+		final LongHashSet set = new LongHashSet(12);
+		final long[] home3 = valuesAt(3, 3);
+		final long[] home4 = valuesAt(4, 1);
+
+		// Slots 3 to 6: 3a, 3b, 3c, 4a.
+		for (final long value : new long[] { home3[0], home3[1], home3[2], home4[0] }) {
+			set.add(value);
+		}
+		assertEquals(CAPACITY, set.capacity());
+
+		set.remove(home3[0]);
+
+		assertTrue(set.contains(home3[1]));
+		assertTrue(set.contains(home3[2]));
+		assertTrue(set.contains(home4[0]));
+		assertFalse(set.contains(home3[0]));
+		assertEquals(3, set.size());
+	}
+
+	@Test
+	void shiftsBackAcrossTheEndOfTheSlots() {
+		final LongHashSet set = new LongHashSet(12);
+		final long[] home15 = valuesAt(15, 3);
+		final long[] home0 = valuesAt(0, 1);
+		final long[] home1 = valuesAt(1, 1);
+
+		// Slots 15, 0 and 1 hold the values of slot 15, then follow those of 0 and 1
+		// in slots 2 and 3.
+		for (final long value : new long[] { home15[0], home15[1], home15[2], home0[0], home1[0] }) {
+			set.add(value);
+		}
+		assertEquals(CAPACITY, set.capacity());
+
+		// The gap in slot 15 is filled from slot 0, the one in slot 0 from slot 1,
+		// and so on around the end.
+		set.remove(home15[0]);
+		for (final long value : new long[] { home15[1], home15[2], home0[0], home1[0] }) {
+			assertTrue(set.contains(value));
+		}
+
+		set.remove(home15[1]);
+		set.remove(home0[0]);
+		assertTrue(set.contains(home15[2]));
+		assertTrue(set.contains(home1[0]));
+		assertEquals(2, set.size());
+
+		// Nothing is left behind a free slot: re-adding finds no duplicate.
+		assertFalse(set.add(home15[2]));
+		assertFalse(set.add(home1[0]));
+	}
+
+	@Test
+	void neverMovesAnEntryBeforeItsOwnSlot() {
+		final LongHashSet set = new LongHashSet(12);
+		final long[] home14 = valuesAt(14, 2);
+		final long[] home15 = valuesAt(15, 1);
+
+		// Slot 14: 14a, slot 15: 14b, slot 0: 15a.
+		for (final long value : new long[] { home14[0], home14[1], home15[0] }) {
+			set.add(value);
+		}
+
+		// 15a may fill the gap in slot 15, but not one in slot 14.
+		set.remove(home14[0]);
+		set.remove(home14[1]);
+		assertTrue(set.contains(home15[0]));
+		assertEquals(1, set.size());
+	}
+
+	@Test
+	void agreesWithAHashSetUnderRandomChanges() {
+		final Random random = new Random(42);
+		final LongHashSet set = new LongHashSet();
+		final Set<Long> expected = new HashSet<>();
+
+		for (int i = 0; i < 100_000; i++) {
+			// Few distinct values, so that clusters form and wrap around.
+			final long value = random.nextInt(64);
+
+			if (random.nextBoolean()) {
+				assertEquals(expected.add(value), set.add(value));
+			} else {
+				assertEquals(expected.remove(value), set.remove(value));
+			}
+			assertEquals(expected.size(), set.size());
+		}
+		for (long value = 0; value < 64; value++) {
+			assertEquals(expected.contains(value), set.contains(value));
+		}
+	}
+
+	@Test
+	void copiesIndependently() {
+		final LongHashSet set = new LongHashSet();
+		set.add(1);
+		final LongHashSet copy = new LongHashSet(set);
+
+		copy.add(2);
+		set.remove(1);
+		assertArrayEquals(new long[] {}, set.toSortedArray());
+		assertArrayEquals(new long[] { 1, 2 }, copy.toSortedArray());
+	}
+
+	/**
+	 * Non-zero values whose probe sequence starts at a slot of a 16-slot set.
+	 */
+	static long[] valuesAt(final int slot, final int count) {
+		final long[] values = new long[count];
+		int found = 0;
+
+		for (long value = 1; found < count; value++) {
+			if (LongHashSet.slotOf(value, CAPACITY) == slot) {
+				values[found++] = value;
+			}
+		}
+		return values;
+	}
+}
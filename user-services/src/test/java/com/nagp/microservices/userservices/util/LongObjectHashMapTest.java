@@ -0,0 +1,82 @@
+package com.nagp.microservices.userservices.util;
+
+import static com.nagp.microservices.userservices.util.LongHashSetTest.valuesAt;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class LongObjectHashMapTest {
+
+	@Test
+	void replacesTheValueOfAKey() {
+		final LongObjectHashMap<String> map = new LongObjectHashMap<>();
+
+		map.put(1, "a");
+		map.put(1, "b");
+		assertEquals("b", map.get(1));
+		assertEquals(1, map.size());
+		assertEquals("b", map.remove(1));
+		assertNull(map.get(1));
+		assertNull(map.remove(1));
+		assertEquals(0, map.size());
+	}
+
+	@Test
+	void refusesTheKeyZero() {
+		final LongObjectHashMap<String> map = new LongObjectHashMap<>();
+		map.put(1, "a");
+
+		assertThrows(IllegalArgumentException.class, () -> map.put(0, "zero"));
+		assertNull(map.get(0));
+		assertNull(map.remove(0));
+		assertEquals(1, map.size());
+		assertEquals("a", map.get(1));
+	}
+
+	@Test
+	void shiftsKeysAndValuesBackAcrossTheEndOfTheSlots() {
+		// A new map has 16 slots.
+		final LongObjectHashMap<String> map = new LongObjectHashMap<>();
+		final long[] home15 = valuesAt(15, 3);
+		final long[] home0 = valuesAt(0, 1);
+
+		for (final long key : new long[] { home15[0], home15[1], home15[2], home0[0] }) {
+			map.put(key, "value " + key);
+		}
+
+		assertEquals("value " + home15[0], map.remove(home15[0]));
+		for (final long key : new long[] { home15[1], home15[2], home0[0] }) {
+			assertEquals("value " + key, map.get(key));
+		}
+		assertNull(map.get(home15[0]));
+		assertEquals(3, map.size());
+	}
+
+	@Test
+	void agreesWithAHashMapUnderRandomChanges() {
+		final Random random = new Random(42);
+		final LongObjectHashMap<Integer> map = new LongObjectHashMap<>();
+		final Map<Long, Integer> expected = new HashMap<>();
+
+		for (int i = 0; i < 100_000; i++) {
+			final long key = 1 + random.nextInt(64);
+
+			if (random.nextBoolean()) {
+				map.put(key, i);
+				expected.put(key, i);
+			} else {
+				assertEquals(expected.remove(key), map.remove(key));
+			}
+			assertEquals(expected.size(), map.size());
+		}
+		for (long key = 1; key <= 64; key++) {
+			assertEquals(expected.get(key), map.get(key));
+		}
+	}
+}
@@ -5,10 +5,14 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 import org.springframework.cloud.netflix.zuul.EnableZuulProxy;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
 
 import brave.sampler.Sampler;
 
+import com.nagp.microservices.common.accesslog.AccessLog;
+
 @SpringBootApplication
+@Import(AccessLog.class)
 @EnableDiscoveryClient
 @EnableZuulProxy
 public class ZuulApiGatewayApplication {
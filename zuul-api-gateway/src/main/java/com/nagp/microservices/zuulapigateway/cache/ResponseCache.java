@@ -0,0 +1,392 @@
+package com.nagp.microservices.zuulapigateway.cache;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded cache of successful GET responses at the gateway, least recently
+ * used entries are evicted first. Which paths are cached and for how long is
+ * set by {@code response-cache.rules}, a list of {@code prefix=ttl-ms}. The
+ * first path segment after the prefix is the resource of an entry, e.g. the
+ * account number, and all entries of a resource (every page, every query)
+ * are dropped together. Only 200 responses are cached: error responses, e.g.
+ * a 503 from a Hystrix fallback, are never cached.
+ * <p>
+ * {@code response-cache.invalidations} lists {@code post-prefix>rule-prefix}:
+ * a POST under the first prefix drops the entries of the rule whose resource
+ * is one of its path segments after the prefix, or all entries of the rule if
+ * the rule prefix ends with {@code *}. Changes made without going through the
+ * gateway, e.g. between services, are only seen once the entry expires.
+ *
+ * @author vinodgodara
+ *
+ */
+@Component
+public class ResponseCache {
+
+	private static final int GENERATION_SLOTS = 1024;
+
+	/**
+	 * Paths cached for the same time.
+	 */
+	public static final class Rule {
+
+		private final String prefix;
+
+		private final long ttlMillis;
+
+		// Incremented by every invalidation of all entries of the rule, and of
+		// the resources hashed to a slot, to discard responses read before it.
+		// Resources sharing a slot only discard each other's responses.
+		private long generation;
+
+		private final long[] resourceGenerations = new long[GENERATION_SLOTS];
+
+		private Rule(final String prefix, final long ttlMillis) {
+			this.prefix = prefix;
+			this.ttlMillis = ttlMillis;
+		}
+
+		private long generation(final String resource) {
+			return generation + resourceGenerations[slot(resource)];
+		}
+
+		private void invalidate(final String resource) {
+			resourceGenerations[slot(resource)]++;
+		}
+
+		private static int slot(final String resource) {
+			return (resource.hashCode() & Integer.MAX_VALUE) % GENERATION_SLOTS;
+		}
+	}
+
+	/**
+	 * A cached response.
+	 */
+	public static final class Entry {
+
+		private final byte[] body;
+
+		private final String contentType;
+
+		private final boolean gzipped;
+
+		private final String etag;
+
+		private final long expiresAtMillis;
+
+		private final String resource;
+
+		private Entry(final byte[] body, final String contentType, final boolean gzipped, final String etag,
+				final long expiresAtMillis, final String resource) {
+			this.body = body;
+			this.contentType = contentType;
+			this.gzipped = gzipped;
+			this.etag = etag;
+			this.expiresAtMillis = expiresAtMillis;
+			this.resource = resource;
+		}
+
+		public byte[] getBody() {
+			return body;
+		}
+
+		public String getContentType() {
+			return contentType;
+		}
+
+		public boolean isGzipped() {
+			return gzipped;
+		}
+
+		public String getEtag() {
+			return etag;
+		}
+	}
+
+	private static final class Invalidation {
+
+		private final String postPrefix;
+
+		private final Rule rule;
+
+		private final boolean all;
+
+		private Invalidation(final String postPrefix, final Rule rule, final boolean all) {
+			this.postPrefix = postPrefix;
+			this.rule = rule;
+			this.all = all;
+		}
+	}
+
+	private final List<Rule> rules = new ArrayList<>();
+
+	private final List<Invalidation> invalidations = new ArrayList<>();
+
+	private final int maxEntries;
+
+	private final int maxBodyBytes;
+
+	// Access ordered, the least recently used entry comes first.
+	private final Map<String, Entry> entries;
+
+	// Keys of the entries of every resource.
+	private final Map<String, Set<String>> resources = new HashMap<>();
+
+	public ResponseCache(
+			@Value("${response-cache.rules:/account-services/getTransactionSummary/=5000,/user-services/getAccountsList/=30000}") final String rules,
+			@Value("${response-cache.invalidations:"
+					+ "/operation-services/depositMoney/>/account-services/getTransactionSummary/,"
+					+ "/operation-services/withdrawMoney/>/account-services/getTransactionSummary/,"
+					+ "/operation-services/transferMoney/>/account-services/getTransactionSummary/,"
+					+ "/operation-services/batchOperations>/account-services/getTransactionSummary/*,"
+					+ "/account-services/closeAccount/>/account-services/getTransactionSummary/,"
+					+ "/account-services/closeAccount/>/user-services/getAccountsList/*,"
+					+ "/account-services/createNewAccount>/user-services/getAccountsList/*,"
+					+ "/user-services/addAccount/>/user-services/getAccountsList/,"
+					+ "/user-services/removeAccount/>/user-services/getAccountsList/,"
+					+ "/user-services/updateAccounts>/user-services/getAccountsList/*}") final String invalidations,
+			@Value("${response-cache.max-entries:10000}") final int maxEntries,
+			@Value("${response-cache.max-body-bytes:65536}") final int maxBodyBytes) {
+		this.maxEntries = maxEntries;
+		this.maxBodyBytes = maxBodyBytes;
+		this.entries = new LinkedHashMap<>(16, 0.75f, true);
+
+		for (final String entry : split(rules)) {
+			final int separator = entry.lastIndexOf('=');
+
+			if (separator <= 0) {
+				throw new IllegalArgumentException("Invalid response cache rule: " + entry);
+			}
+			this.rules.add(new Rule(entry.substring(0, separator).trim(),
+					Long.parseLong(entry.substring(separator + 1).trim())));
+		}
+
+		for (final String entry : split(invalidations)) {
+			final String[] postAndRule = entry.split(">");
+
+			if (postAndRule.length != 2) {
+				throw new IllegalArgumentException("Invalid response cache invalidation: " + entry);
+			}
+
+			final String target = postAndRule[1].trim();
+			final boolean all = target.endsWith("*");
+			final String prefix = all ? target.substring(0, target.length() - 1) : target;
+			final Rule rule = this.rules.stream().filter(candidate -> candidate.prefix.equals(prefix)).findFirst()
+					.orElse(null);
+
+			if (Objects.isNull(rule)) {
+				throw new IllegalArgumentException("No response cache rule for invalidation: " + entry);
+			}
+			this.invalidations.add(new Invalidation(postAndRule[0].trim(), rule, all));
+		}
+	}
+
+	public int getMaxBodyBytes() {
+		return maxBodyBytes;
+	}
+
+	/**
+	 * Rule caching a path.
+	 *
+	 * @param path Request path.
+	 * @return The rule, null if the path is not cached.
+	 */
+	public Rule ruleFor(final String path) {
+		for (final Rule rule : rules) {
+			if (path.startsWith(rule.prefix) && path.length() > rule.prefix.length()) {
+				return rule;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Generation of the resource of a path, to be read before routing the
+	 * request and passed to {@link #store}.
+	 *
+	 * @param rule Rule caching the path.
+	 * @param path Request path.
+	 * @return The generation.
+	 */
+	public synchronized long generation(final Rule rule, final String path) {
+		return rule.generation(resource(rule, path));
+	}
+
+	/**
+	 * Find a response that has not expired.
+	 *
+	 * @param key Cache key, path and query.
+	 * @return The entry, null if there is none.
+	 */
+	public synchronized Entry find(final String key) {
+		final Entry entry = entries.get(key);
+
+		if (Objects.isNull(entry)) {
+			return null;
+		}
+		if (entry.expiresAtMillis <= System.currentTimeMillis()) {
+			remove(key);
+			return null;
+		}
+		return entry;
+	}
+
+	/**
+	 * Cache a response unless its resource was invalidated since it was
+	 * requested.
+	 *
+	 * @param rule        Rule caching the path.
+	 * @param path        Request path.
+	 * @param key         Cache key, path and query.
+	 * @param generation  Generation of the resource when the request was
+	 *                    received.
+	 * @param body        Response body.
+	 * @param contentType Content type of the response.
+	 * @param gzipped     Whether the body is gzipped.
+	 * @return The entry, null if the response is too large or may be stale.
+	 */
+	public synchronized Entry store(final Rule rule, final String path, final String key, final long generation,
+			final byte[] body, final String contentType, final boolean gzipped) {
+		final String resource = resource(rule, path);
+
+		if (body.length > maxBodyBytes || rule.generation(resource) != generation) {
+			return null;
+		}
+
+		final Entry entry = new Entry(body, contentType, gzipped, etag(body),
+				System.currentTimeMillis() + rule.ttlMillis, resource);
+
+		remove(key);
+		entries.put(key, entry);
+		resources.computeIfAbsent(resource, unused -> new HashSet<>()).add(key);
+
+		while (entries.size() > maxEntries) {
+			remove(entries.keySet().iterator().next());
+		}
+		return entry;
+	}
+
+	/**
+	 * Drop the entries a POST may have changed.
+	 *
+	 * @param path Request path of the POST.
+	 */
+	public synchronized void invalidate(final String path) {
+		for (final Invalidation invalidation : invalidations) {
+			if (!path.startsWith(invalidation.postPrefix)) {
+				continue;
+			}
+
+			final Rule rule = invalidation.rule;
+
+			if (invalidation.all) {
+				rule.generation++;
+
+				final List<String> dropped = new ArrayList<>();
+				for (final Map.Entry<String, Entry> entry : entries.entrySet()) {
+					if (entry.getValue().resource.startsWith(rule.prefix)) {
+						dropped.add(entry.getKey());
+					}
+				}
+				dropped.forEach(this::remove);
+			} else {
+				for (final String segment : split(path.substring(invalidation.postPrefix.length()), '/')) {
+					final String resource = rule.prefix + segment;
+					rule.invalidate(resource);
+
+					final Set<String> keys = resources.get(resource);
+
+					if (Objects.nonNull(keys)) {
+						new ArrayList<>(keys).forEach(this::remove);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Strong ETag of a body.
+	 *
+	 * @param body The body.
+	 * @return The quoted ETag.
+	 */
+	public static String etag(final byte[] body) {
+		try {
+			final byte[] digest = MessageDigest.getInstance("MD5").digest(body);
+			final StringBuilder etag = new StringBuilder(34).append('"');
+
+			for (final byte b : digest) {
+				etag.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+			}
+			return etag.append('"').toString();
+		} catch (NoSuchAlgorithmException exc) {
+			throw new RuntimeException("MD5 is not available.", exc);
+		}
+	}
+
+	/**
+	 * Whether an If-None-Match header matches an ETag.
+	 *
+	 * @param ifNoneMatch Header value, may be null.
+	 * @param etag        ETag of the current response.
+	 * @return True if the client already has the response.
+	 */
+	public static boolean matches(final String ifNoneMatch, final String etag) {
+		if (Objects.isNull(ifNoneMatch)) {
+			return false;
+		}
+
+		for (final String candidate : ifNoneMatch.split(",")) {
+			final String trimmed = candidate.trim();
+
+			if (trimmed.equals("*") || trimmed.equals(etag) || trimmed.equals("W/" + etag)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void remove(final String key) {
+		final Entry entry = entries.remove(key);
+
+		if (Objects.nonNull(entry)) {
+			final Set<String> keys = resources.get(entry.resource);
+
+			if (Objects.nonNull(keys) && keys.remove(key) && keys.isEmpty()) {
+				resources.remove(entry.resource);
+			}
+		}
+	}
+
+	private static String resource(final Rule rule, final String path) {
+		final int end = path.indexOf('/', rule.prefix.length());
+		return end < 0 ? path : path.substring(0, end);
+	}
+
+	private static List<String> split(final String list) {
+		return split(list, ',');
+	}
+
+	private static List<String> split(final String list, final char separator) {
+		final List<String> parts = new ArrayList<>();
+
+		for (final String part : list.split(String.valueOf(separator))) {
+			if (!part.trim().isEmpty()) {
+				parts.add(part.trim());
+			}
+		}
+		return parts;
+	}
+}
@@ -0,0 +1,134 @@
+package com.nagp.microservices.zuulapigateway.concurrency;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrency limit of one route, adjusted with AIMD from the round trip time
+ * of its requests. The lowest RTT seen in a window is taken as the RTT of the
+ * service without queuing. A request slower than {@code tolerance} times that
+ * RTT, or failed, means requests are queuing downstream: the limit is cut by
+ * {@code backoff}, at most once per RTT so that one burst of slow responses
+ * counts once. Any other request grows the limit by one while at least half of
+ * it is in use. The baseline RTT is taken again every window, so a service
+ * that became slower for good is not throttled forever.
+ *
+ * @author vinodgodara
+ *
+ */
+public class AdaptiveLimit {
+
+	private final int minLimit;
+
+	private final int maxLimit;
+
+	private final double backoff;
+
+	private final double tolerance;
+
+	private final long windowNanos;
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+
+	private final LongAdder rejected = new LongAdder();
+
+	// Only changed while holding the monitor, read without it.
+	private volatile int limit;
+
+	private long minRttNanos = Long.MAX_VALUE;
+
+	private long windowMinRttNanos = Long.MAX_VALUE;
+
+	private long windowStartNanos = System.nanoTime();
+
+	private long lastDecreaseNanos;
+
+	private volatile long lastRttNanos;
+
+	public AdaptiveLimit(final int initialLimit, final int minLimit, final int maxLimit, final double backoff,
+			final double tolerance, final long windowNanos) {
+		this.limit = initialLimit;
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.backoff = backoff;
+		this.tolerance = tolerance;
+		this.windowNanos = windowNanos;
+		this.lastDecreaseNanos = System.nanoTime();
+	}
+
+	/**
+	 * Start a request if the route is under its limit.
+	 *
+	 * @return The number of requests in flight before this one, -1 if the
+	 *         request has to be shed.
+	 */
+	public int tryAcquire() {
+		while (true) {
+			final int current = inFlight.get();
+
+			if (current >= limit) {
+				rejected.increment();
+				return -1;
+			}
+			if (inFlight.compareAndSet(current, current + 1)) {
+				return current;
+			}
+		}
+	}
+
+	/**
+	 * Finish a request started with {@link #tryAcquire()} and adjust the limit.
+	 *
+	 * @param startNanos     System.nanoTime() when the request was started.
+	 * @param inFlightBefore Value returned by {@link #tryAcquire()}.
+	 * @param failed         Whether the request failed or timed out.
+	 */
+	public void release(final long startNanos, final int inFlightBefore, final boolean failed) {
+		inFlight.decrementAndGet();
+
+		final long now = System.nanoTime();
+		final long rttNanos = now - startNanos;
+		lastRttNanos = rttNanos;
+
+		synchronized (this) {
+			if (!failed) {
+				windowMinRttNanos = Math.min(windowMinRttNanos, rttNanos);
+				minRttNanos = Math.min(minRttNanos, rttNanos);
+			}
+			if (now - windowStartNanos > windowNanos && windowMinRttNanos != Long.MAX_VALUE) {
+				minRttNanos = windowMinRttNanos;
+				windowMinRttNanos = Long.MAX_VALUE;
+				windowStartNanos = now;
+			}
+
+			if (failed || rttNanos > tolerance * minRttNanos) {
+				if (now - lastDecreaseNanos > Math.min(minRttNanos, windowNanos)) {
+					limit = Math.max(minLimit, (int) (limit * backoff));
+					lastDecreaseNanos = now;
+				}
+			} else if (inFlightBefore * 2 >= limit) {
+				limit = Math.min(maxLimit, limit + 1);
+			}
+		}
+	}
+
+	public int getLimit() {
+		return limit;
+	}
+
+	public int getInFlight() {
+		return inFlight.get();
+	}
+
+	public long getRejected() {
+		return rejected.sum();
+	}
+
+	public synchronized long getMinRttNanos() {
+		return minRttNanos;
+	}
+
+	public long getLastRttNanos() {
+		return lastRttNanos;
+	}
+}
@@ -0,0 +1,107 @@
+package com.nagp.microservices.zuulapigateway.concurrency;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@link AdaptiveLimit} of every route, created on its first request. All
+ * routes share {@code concurrency-limit.initial}, {@code min} and {@code max},
+ * the {@code backoff} applied on congestion, the RTT {@code tolerance} over
+ * the baseline and the {@code window-ms} after which the baseline is taken
+ * again.
+ * <p>
+ * Endpoints much slower than the rest of their route, e.g. batches and long
+ * polls, would make every request of the route look congested. They get a
+ * limit of their own, keyed {@code route:class}, from
+ * {@code concurrency-limit.endpoint-classes}, a list of
+ * {@code path-prefix=class}.
+ *
+ * @author vinodgodara
+ *
+ */
+@Component
+@ConditionalOnProperty(name = "concurrency-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimits {
+
+	private final ConcurrentMap<String, AdaptiveLimit> limits = new ConcurrentHashMap<>();
+
+	@Value("${concurrency-limit.initial:20}")
+	private int initialLimit;
+
+	@Value("${concurrency-limit.min:4}")
+	private int minLimit;
+
+	@Value("${concurrency-limit.max:200}")
+	private int maxLimit;
+
+	@Value("${concurrency-limit.backoff:0.9}")
+	private double backoff;
+
+	@Value("${concurrency-limit.tolerance:2.0}")
+	private double tolerance;
+
+	@Value("${concurrency-limit.window-ms:30000}")
+	private long windowMillis;
+
+	@Value("${concurrency-limit.endpoint-classes:"
+			+ "/operation-services/batchOperations=batch,"
+			+ "/user-services/updateAccounts=batch,"
+			+ "/operation-services/accountStore/changes=poll}")
+	private String endpointClasses;
+
+	// Class of the paths under every prefix, in the order configured.
+	private final Map<String, String> classes = new LinkedHashMap<>();
+
+	@PostConstruct
+	public void init() {
+		for (final String entry : endpointClasses.split(",")) {
+			if (entry.trim().isEmpty()) {
+				continue;
+			}
+
+			final String[] prefixAndClass = entry.split("=");
+			if (prefixAndClass.length != 2) {
+				throw new IllegalArgumentException("Invalid concurrency limit endpoint class: " + entry);
+			}
+			classes.put(prefixAndClass[0].trim(), prefixAndClass[1].trim());
+		}
+	}
+
+	/**
+	 * Limit of a request.
+	 *
+	 * @param route Route ID.
+	 * @param path  Request path.
+	 * @return The limit of the route, or of the class of the path in the route.
+	 */
+	public AdaptiveLimit forRoute(final String route, final String path) {
+		final String key = key(route, path);
+		final AdaptiveLimit limit = limits.get(key);
+		return Objects.nonNull(limit) ? limit
+				: limits.computeIfAbsent(key, unused -> new AdaptiveLimit(initialLimit, minLimit, maxLimit, backoff,
+						tolerance, TimeUnit.MILLISECONDS.toNanos(windowMillis)));
+	}
+
+	public Map<String, AdaptiveLimit> getLimits() {
+		return limits;
+	}
+
+	private String key(final String route, final String path) {
+		for (final Map.Entry<String, String> entry : classes.entrySet()) {
+			if (path.startsWith(entry.getKey())) {
+				return route + ':' + entry.getValue();
+			}
+		}
+		return route;
+	}
+}
@@ -0,0 +1,54 @@
+package com.nagp.microservices.zuulapigateway.concurrency;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Current concurrency limit of every route and endpoint class, at
+ * {@code /actuator/concurrencylimits} once included in
+ * {@code management.endpoints.web.exposure.include}.
+ *
+ * @author vinodgodara
+ *
+ */
+@Component
+@Endpoint(id = "concurrencylimits")
+@ConditionalOnProperty(name = "concurrency-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitsEndpoint {
+
+	private final ConcurrencyLimits concurrencyLimits;
+
+	public ConcurrencyLimitsEndpoint(final ConcurrencyLimits concurrencyLimits) {
+		this.concurrencyLimits = concurrencyLimits;
+	}
+
+	@ReadOperation
+	public Map<String, Map<String, Object>> limits() {
+		final Map<String, Map<String, Object>> routes = new TreeMap<>();
+
+		// Keyed by route, or route:class.
+		concurrencyLimits.getLimits().forEach((route, limit) -> {
+			final long minRttNanos = limit.getMinRttNanos();
+			final Map<String, Object> state = new LinkedHashMap<>();
+
+			state.put("limit", limit.getLimit());
+			state.put("inFlight", limit.getInFlight());
+			state.put("rejected", limit.getRejected());
+			state.put("minRttMs", minRttNanos == Long.MAX_VALUE ? null : millis(minRttNanos));
+			state.put("lastRttMs", millis(limit.getLastRttNanos()));
+			routes.put(route, state);
+		});
+		return routes;
+	}
+
+	private static double millis(final long nanos) {
+		return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+	}
+}
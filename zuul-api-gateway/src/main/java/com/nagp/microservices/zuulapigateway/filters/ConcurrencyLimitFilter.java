@@ -0,0 +1,78 @@
+package com.nagp.microservices.zuulapigateway.filters;
+
+import java.util.Objects;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.netflix.zuul.filters.support.FilterConstants;
+import org.springframework.stereotype.Component;
+
+import com.nagp.microservices.zuulapigateway.concurrency.AdaptiveLimit;
+import com.nagp.microservices.zuulapigateway.concurrency.ConcurrencyLimits;
+import com.netflix.zuul.ZuulFilter;
+import com.netflix.zuul.context.RequestContext;
+
+/**
+ * Sheds requests to a route, or to a class of its endpoints, at its
+ * {@link AdaptiveLimit} with 503 right away, instead of queuing them in front
+ * of a slow service. Requests let through
+ * are finished by {@link ConcurrencyReleaseFilter}.
+ *
+ * @author vinodgodara
+ *
+ */
+@Component
+@ConditionalOnProperty(name = "concurrency-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitFilter extends ZuulFilter {
+
+	// Request context keys.
+	public static final String LIMIT_KEY = "concurrencyLimit";
+
+	public static final String START_NANOS_KEY = "concurrencyLimitStartNanos";
+
+	public static final String IN_FLIGHT_KEY = "concurrencyLimitInFlight";
+
+	@Autowired
+	private ConcurrencyLimits concurrencyLimits;
+
+	@Override
+	public boolean shouldFilter() {
+		// Requests already answered, by the rate limit or the cache, do not reach the service.
+		final RequestContext context = RequestContext.getCurrentContext();
+		return context.sendZuulResponse() && Objects.nonNull(context.get(FilterConstants.PROXY_KEY));
+	}
+
+	@Override
+	public Object run() {
+		final RequestContext context = RequestContext.getCurrentContext();
+		final AdaptiveLimit limit = concurrencyLimits.forRoute((String) context.get(FilterConstants.PROXY_KEY),
+				context.getRequest().getRequestURI());
+		final int inFlight = limit.tryAcquire();
+
+		if (inFlight < 0) {
+			context.setSendZuulResponse(false);
+			context.setResponseStatusCode(503);
+			context.addZuulResponseHeader("Retry-After", "1");
+			context.setResponseBody("Service overloaded.");
+			context.getResponse().setContentType("text/plain");
+			return null;
+		}
+
+		context.set(LIMIT_KEY, limit);
+		context.set(IN_FLIGHT_KEY, inFlight);
+		context.set(START_NANOS_KEY, System.nanoTime());
+		return null;
+	}
+
+	@Override
+	public String filterType() {
+		return FilterConstants.PRE_TYPE;
+	}
+
+	@Override
+	public int filterOrder() {
+		// Last of the pre filters, the measured time is then mostly the service's.
+		return FilterConstants.PRE_DECORATION_FILTER_ORDER + 3;
+	}
+
+}
@@ -0,0 +1,55 @@
+package com.nagp.microservices.zuulapigateway.filters;
+
+import java.util.Objects;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.netflix.zuul.filters.support.FilterConstants;
+import org.springframework.stereotype.Component;
+
+import com.nagp.microservices.zuulapigateway.concurrency.AdaptiveLimit;
+import com.netflix.zuul.ZuulFilter;
+import com.netflix.zuul.context.RequestContext;
+
+/**
+ * Finishes the requests let through by {@link ConcurrencyLimitFilter} once the
+ * service answered, feeding their round trip time, and whether they failed,
+ * into the limit of their route.
+ *
+ * @author vinodgodara
+ *
+ */
+@Component
+@ConditionalOnProperty(name = "concurrency-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyReleaseFilter extends ZuulFilter {
+
+	@Override
+	public boolean shouldFilter() {
+		return RequestContext.getCurrentContext().containsKey(ConcurrencyLimitFilter.LIMIT_KEY);
+	}
+
+	@Override
+	public Object run() {
+		final RequestContext context = RequestContext.getCurrentContext();
+		final AdaptiveLimit limit = (AdaptiveLimit) context.remove(ConcurrencyLimitFilter.LIMIT_KEY);
+
+		if (Objects.nonNull(limit)) {
+			// Errors and timeouts of the route are the strongest sign of congestion.
+			final boolean failed = Objects.nonNull(context.getThrowable()) || context.getResponseStatusCode() >= 500;
+			limit.release((Long) context.get(ConcurrencyLimitFilter.START_NANOS_KEY),
+					(Integer) context.get(ConcurrencyLimitFilter.IN_FLIGHT_KEY), failed);
+		}
+		return null;
+	}
+
+	@Override
+	public String filterType() {
+		return FilterConstants.POST_TYPE;
+	}
+
+	@Override
+	public int filterOrder() {
+		// Before the other post filters, none of them can skip the release.
+		return 0;
+	}
+
+}
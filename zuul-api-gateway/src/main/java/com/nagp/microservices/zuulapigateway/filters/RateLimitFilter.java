@@ -0,0 +1,72 @@
+package com.nagp.microservices.zuulapigateway.filters;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.netflix.zuul.filters.support.FilterConstants;
+import org.springframework.stereotype.Component;
+
+import com.nagp.microservices.zuulapigateway.ratelimit.RateLimiter;
+import com.netflix.zuul.ZuulFilter;
+import com.netflix.zuul.context.RequestContext;
+
+/**
+ * Refuses requests over the limits of the {@link RateLimiter} with 429 and a
+ * Retry-After header, before they are routed. The API key is read from the
+ * {@code rate-limit.api-key-header} header.
+ *
+ * @author vinodgodara
+ *
+ */
+@Component
+@ConditionalOnProperty(name = "rate-limit.enabled", havingValue = "true")
+public class RateLimitFilter extends ZuulFilter {
+
+	@Autowired
+	private RateLimiter rateLimiter;
+
+	@Value("${rate-limit.api-key-header:X-API-Key}")
+	private String apiKeyHeader;
+
+	@Override
+	public boolean shouldFilter() {
+		return true;
+	}
+
+	@Override
+	public Object run() {
+		final RequestContext context = RequestContext.getCurrentContext();
+		final HttpServletRequest request = context.getRequest();
+		final long waitNanos = rateLimiter.acquire(request.getHeader(apiKeyHeader), request.getRemoteAddr(),
+				(String) context.get(FilterConstants.PROXY_KEY));
+
+		if (waitNanos > 0) {
+			// Retry-After is in whole seconds, round up.
+			final long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1)
+					/ TimeUnit.SECONDS.toNanos(1));
+
+			context.setSendZuulResponse(false);
+			context.setResponseStatusCode(429);
+			context.addZuulResponseHeader("Retry-After", String.valueOf(retryAfterSeconds));
+			context.setResponseBody("Too many requests.");
+			context.getResponse().setContentType("text/plain");
+		}
+		return null;
+	}
+
+	@Override
+	public String filterType() {
+		return FilterConstants.PRE_TYPE;
+	}
+
+	@Override
+	public int filterOrder() {
+		// After the route is known, before anything is answered from the cache.
+		return FilterConstants.PRE_DECORATION_FILTER_ORDER + 1;
+	}
+
+}
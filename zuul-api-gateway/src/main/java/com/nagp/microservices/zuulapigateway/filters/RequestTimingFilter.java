@@ -0,0 +1,43 @@
+package com.nagp.microservices.zuulapigateway.filters;
+
+import org.springframework.cloud.netflix.zuul.filters.support.FilterConstants;
+import org.springframework.stereotype.Component;
+
+import com.netflix.zuul.ZuulFilter;
+import com.netflix.zuul.context.RequestContext;
+
+/**
+ * Notes when a request was received, before any other filter runs, for the
+ * access log written by {@link ZuulLoggingFilter}.
+ * 
+ * @author vinodgodara
+ *
+ */
+@Component
+public class RequestTimingFilter extends ZuulFilter {
+
+	// Request context key of System.nanoTime() when the request was received.
+	public static final String START_NANOS_KEY = "accessLogStartNanos";
+
+	@Override
+	public boolean shouldFilter() {
+		return true;
+	}
+
+	@Override
+	public Object run() {
+		RequestContext.getCurrentContext().set(START_NANOS_KEY, System.nanoTime());
+		return null;
+	}
+
+	@Override
+	public String filterType() {
+		return FilterConstants.PRE_TYPE;
+	}
+
+	@Override
+	public int filterOrder() {
+		return FilterConstants.SERVLET_DETECTION_FILTER_ORDER - 1;
+	}
+
+}
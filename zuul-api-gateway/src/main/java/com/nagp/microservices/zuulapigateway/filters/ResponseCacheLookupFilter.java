@@ -0,0 +1,104 @@
+package com.nagp.microservices.zuulapigateway.filters;
+
+import java.io.ByteArrayInputStream;
+import java.util.Objects;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.netflix.zuul.filters.support.FilterConstants;
+import org.springframework.stereotype.Component;
+
+import com.nagp.microservices.zuulapigateway.cache.ResponseCache;
+import com.netflix.zuul.ZuulFilter;
+import com.netflix.zuul.context.RequestContext;
+
+/**
+ * Answers GET requests for cached paths from the {@link ResponseCache} without
+ * routing them, with 304 if the client sent the ETag of the cached response in
+ * If-None-Match. On a miss, notes the rule for {@link ResponseCacheUpdateFilter}
+ * to cache the response.
+ *
+ * @author vinodgodara
+ *
+ */
+@Component
+public class ResponseCacheLookupFilter extends ZuulFilter {
+
+	// Request context keys.
+	public static final String RULE_KEY = "responseCacheRule";
+
+	public static final String GENERATION_KEY = "responseCacheGeneration";
+
+	public static final String HIT_KEY = "responseCacheHit";
+
+	@Autowired
+	private ResponseCache responseCache;
+
+	@Override
+	public boolean shouldFilter() {
+		// Requests already answered, e.g. refused by the rate limit, are left alone.
+		final RequestContext context = RequestContext.getCurrentContext();
+		return context.sendZuulResponse() && "GET".equals(context.getRequest().getMethod());
+	}
+
+	@Override
+	public Object run() {
+		final RequestContext context = RequestContext.getCurrentContext();
+		final HttpServletRequest request = context.getRequest();
+		final String path = request.getRequestURI();
+		final ResponseCache.Rule rule = responseCache.ruleFor(path);
+
+		if (Objects.isNull(rule)) {
+			return null;
+		}
+
+		final ResponseCache.Entry entry = responseCache.find(key(request));
+
+		if (Objects.isNull(entry)) {
+			// Read the generation before routing, a POST handled meanwhile discards the response.
+			context.set(RULE_KEY, rule);
+			context.set(GENERATION_KEY, responseCache.generation(rule, path));
+			return null;
+		}
+
+		context.set(HIT_KEY, Boolean.TRUE);
+		context.setSendZuulResponse(false);
+		context.addZuulResponseHeader("ETag", entry.getEtag());
+
+		if (ResponseCache.matches(request.getHeader("If-None-Match"), entry.getEtag())) {
+			context.setResponseStatusCode(304);
+			return null;
+		}
+
+		context.setResponseStatusCode(200);
+		if (Objects.nonNull(entry.getContentType())) {
+			context.addZuulResponseHeader("Content-Type", entry.getContentType());
+		}
+		context.setResponseGZipped(entry.isGzipped());
+		context.setResponseDataStream(new ByteArrayInputStream(entry.getBody()));
+		return null;
+	}
+
+	@Override
+	public String filterType() {
+		return FilterConstants.PRE_TYPE;
+	}
+
+	@Override
+	public int filterOrder() {
+		return FilterConstants.PRE_DECORATION_FILTER_ORDER + 2;
+	}
+
+	/**
+	 * Cache key of a request, its path and query.
+	 *
+	 * @param request The request.
+	 * @return The key.
+	 */
+	static String key(final HttpServletRequest request) {
+		final String query = request.getQueryString();
+		return Objects.isNull(query) ? request.getRequestURI() : request.getRequestURI() + '?' + query;
+	}
+
+}
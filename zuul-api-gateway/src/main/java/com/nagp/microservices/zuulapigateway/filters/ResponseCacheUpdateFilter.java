@@ -0,0 +1,150 @@
+package com.nagp.microservices.zuulapigateway.filters;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.Arrays;
+import java.util.Objects;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.netflix.zuul.filters.support.FilterConstants;
+import org.springframework.stereotype.Component;
+
+import com.nagp.microservices.zuulapigateway.cache.ResponseCache;
+import com.netflix.util.Pair;
+import com.netflix.zuul.ZuulFilter;
+import com.netflix.zuul.context.RequestContext;
+
+/**
+ * Caches successful responses to the GET requests missed by
+ * {@link ResponseCacheLookupFilter} and tags them with their ETag, answering
+ * 304 if the client already has the response. Drops the cached responses a
+ * successful POST may have changed.
+ *
+ * @author vinodgodara
+ *
+ */
+@Component
+public class ResponseCacheUpdateFilter extends ZuulFilter {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ResponseCacheUpdateFilter.class);
+
+	@Autowired
+	private ResponseCache responseCache;
+
+	@Override
+	public boolean shouldFilter() {
+		final RequestContext context = RequestContext.getCurrentContext();
+		return !context.containsKey(ResponseCacheLookupFilter.HIT_KEY) && Objects.isNull(context.getThrowable())
+				&& (context.containsKey(ResponseCacheLookupFilter.RULE_KEY)
+						|| "POST".equals(context.getRequest().getMethod()));
+	}
+
+	@Override
+	public Object run() {
+		final RequestContext context = RequestContext.getCurrentContext();
+		final HttpServletRequest request = context.getRequest();
+		final int status = context.getResponseStatusCode();
+
+		if ("POST".equals(request.getMethod())) {
+			// Failed POSTs may still have changed something.
+			if (status < 400 || status >= 500) {
+				responseCache.invalidate(request.getRequestURI());
+			}
+			return null;
+		}
+
+		if (status != 200 || Objects.nonNull(context.getResponseBody())
+				|| Objects.isNull(context.getResponseDataStream())) {
+			return null;
+		}
+
+		final InputStream stream = context.getResponseDataStream();
+		final byte[] body;
+
+		try {
+			body = readAtMost(stream, responseCache.getMaxBodyBytes() + 1);
+		} catch (IOException exc) {
+			LOGGER.warn("Response could not be read for caching.", exc);
+			context.setResponseDataStream(null);
+			context.setResponseStatusCode(502);
+			return null;
+		}
+
+		if (body.length > responseCache.getMaxBodyBytes()) {
+			// Too large to cache, pass it on with the rest of the stream.
+			context.setResponseDataStream(new SequenceInputStream(new ByteArrayInputStream(body), stream));
+			return null;
+		}
+		closeQuietly(stream);
+
+		final ResponseCache.Rule rule = (ResponseCache.Rule) context.get(ResponseCacheLookupFilter.RULE_KEY);
+		final long generation = (Long) context.get(ResponseCacheLookupFilter.GENERATION_KEY);
+		final ResponseCache.Entry entry = responseCache.store(rule, request.getRequestURI(),
+				ResponseCacheLookupFilter.key(request), generation, body, contentType(context),
+				context.getResponseGZipped());
+		final String etag = Objects.nonNull(entry) ? entry.getEtag() : ResponseCache.etag(body);
+
+		context.addZuulResponseHeader("ETag", etag);
+
+		if (ResponseCache.matches(request.getHeader("If-None-Match"), etag)) {
+			context.setResponseStatusCode(304);
+			context.setResponseDataStream(null);
+			context.remove("originContentLength");
+		} else {
+			context.setResponseDataStream(new ByteArrayInputStream(body));
+		}
+		return null;
+	}
+
+	@Override
+	public String filterType() {
+		return FilterConstants.POST_TYPE;
+	}
+
+	@Override
+	public int filterOrder() {
+		// Before ZuulLoggingFilter, which logs the response as sent.
+		return FilterConstants.SEND_RESPONSE_FILTER_ORDER - 2;
+	}
+
+	private static String contentType(final RequestContext context) {
+		for (final Pair<String, String> header : context.getZuulResponseHeaders()) {
+			if ("Content-Type".equalsIgnoreCase(header.first())) {
+				return header.second();
+			}
+		}
+		return null;
+	}
+
+	private static byte[] readAtMost(final InputStream stream, final int limit) throws IOException {
+		byte[] buffer = new byte[Math.min(limit, 8192)];
+		int length = 0;
+
+		while (length < limit) {
+			if (length == buffer.length) {
+				buffer = Arrays.copyOf(buffer, Math.min(limit, buffer.length * 2));
+			}
+
+			final int read = stream.read(buffer, length, buffer.length - length);
+			if (read < 0) {
+				break;
+			}
+			length += read;
+		}
+		return length == buffer.length ? buffer : Arrays.copyOf(buffer, length);
+	}
+
+	private static void closeQuietly(final InputStream stream) {
+		try {
+			stream.close();
+		} catch (IOException exc) {
+			LOGGER.debug("Response stream could not be closed.", exc);
+		}
+	}
+
+}
@@ -1,22 +1,73 @@
 package com.nagp.microservices.zuulapigateway.filters;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
 import javax.servlet.http.HttpServletRequest;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.context.config.annotation.RefreshScope;
+import org.springframework.cloud.netflix.zuul.filters.support.FilterConstants;
 import org.springframework.stereotype.Component;
 
+import com.nagp.microservices.common.accesslog.AccessLog;
 import com.netflix.zuul.ZuulFilter;
 import com.netflix.zuul.context.RequestContext;
 import com.netflix.zuul.exception.ZuulException;
 
+/**
+ * Handles Zuul exceptions and writes the access log. Successful requests are
+ * sampled per route with {@code access-log.sample-rates}, e.g.
+ * {@code user-services:0.1,account-services:0.5}, and
+ * {@code access-log.sample-rate} for the other routes. Requests answered with
+ * {@code access-log.error-status} (400 by default) or above, and Zuul
+ * exceptions, are always logged with their query, client and error.
+ *
+ * @author vinodgodara
+ *
+ */
 @RefreshScope
 @Component
 public class ZuulLoggingFilter extends ZuulFilter {
 
 	Logger logger = LoggerFactory.getLogger(this.getClass());
 
+	@Autowired
+	private AccessLog accessLog;
+
+	@Value("${access-log.sample-rate:1.0}")
+	private double defaultSampleRate;
+
+	@Value("${access-log.sample-rates:}")
+	private String sampleRates;
+
+	@Value("${access-log.error-status:400}")
+	private int errorStatus;
+
+	private final Map<String, Double> routeSampleRates = new HashMap<>();
+
+	@PostConstruct
+	public void init() {
+		for (final String entry : sampleRates.split(",")) {
+			if (entry.trim().isEmpty()) {
+				continue;
+			}
+
+			final String[] routeAndRate = entry.split(":");
+			if (routeAndRate.length != 2) {
+				throw new IllegalArgumentException("Invalid access log sample rate: " + entry);
+			}
+			routeSampleRates.put(routeAndRate[0].trim(), Double.parseDouble(routeAndRate[1].trim()));
+		}
+	}
+
 	@Override
 	public boolean shouldFilter() {
 		return true;
@@ -24,16 +75,15 @@ public class ZuulLoggingFilter extends ZuulFilter {
 
 	@Override
 	public Object run() throws ZuulException {
-		HttpServletRequest httpServletRequest = RequestContext.getCurrentContext().getRequest();
-		logger.info("Request received {}, Request URI: {}", httpServletRequest, httpServletRequest.getRequestURI());
-
 		// Handle exception.
 		final RequestContext context = RequestContext.getCurrentContext();
 		final Object throwable = context.get("error.exception");
+		String error = null;
 
 		if (throwable instanceof ZuulException) {
 			final ZuulException zuulException = (ZuulException) throwable;
 			logger.error("Exception caught by Zuul filter: " + zuulException.getMessage());
+			error = zuulException.getMessage();
 
 			context.remove("error.exception");
 			context.setResponseBody("Exception caught by Zuul.");
@@ -41,6 +91,29 @@ public class ZuulLoggingFilter extends ZuulFilter {
 			context.setResponseStatusCode(500);
 		}
 
+		final int status = context.getResponseStatusCode();
+		final String route = (String) context.get(FilterConstants.PROXY_KEY);
+		final boolean failed = Objects.nonNull(error) || status >= errorStatus;
+
+		if (!failed && !sampled(route)) {
+			return null;
+		}
+
+		final Object startNanos = context.get(RequestTimingFilter.START_NANOS_KEY);
+		final long durationMicros = startNanos instanceof Long
+				? TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - (Long) startNanos)
+				: 0;
+		final long timestampMillis = System.currentTimeMillis() - durationMicros / 1000;
+		final HttpServletRequest request = context.getRequest();
+
+		if (failed) {
+			accessLog.recordFull(timestampMillis, durationMicros, status, request.getMethod(),
+					request.getRequestURI(), route, request.getQueryString(), request.getRemoteAddr(), error);
+		} else {
+			accessLog.record(timestampMillis, durationMicros, status, request.getMethod(), request.getRequestURI(),
+					route);
+		}
+
 		return null;
 	}
 
@@ -51,7 +124,15 @@ public class ZuulLoggingFilter extends ZuulFilter {
 
 	@Override
 	public int filterOrder() {
-		return 1;
+		// After the other post filters, which may still change the status, and
+		// before SendResponseFilter sends the response.
+		return FilterConstants.SEND_RESPONSE_FILTER_ORDER - 1;
+	}
+
+	private boolean sampled(final String route) {
+		final Double routeRate = Objects.nonNull(route) ? routeSampleRates.get(route) : null;
+		final double rate = Objects.nonNull(routeRate) ? routeRate : defaultSampleRate;
+		return rate >= 1 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate);
 	}
 
 }
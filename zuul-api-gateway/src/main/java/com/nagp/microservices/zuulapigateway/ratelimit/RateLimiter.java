@@ -0,0 +1,212 @@
+package com.nagp.microservices.zuulapigateway.ratelimit;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * Token bucket limits per API key, per client address and per route, enabled
+ * with {@code rate-limit.enabled=true}. A request takes a token from each
+ * bucket that applies to it and is refused if any of them is empty, giving
+ * back the tokens already taken. Limits are set as {@code rate:burst}, tokens
+ * per second and bucket capacity, by {@code rate-limit.api-key} and
+ * {@code rate-limit.client-ip}, and per route by {@code rate-limit.routes},
+ * e.g. {@code operation-services:200:400}; no route is limited by default. An
+ * empty limit turns that bucket off.
+ * <p>
+ * Buckets of keys and addresses are created on first use and kept in caches
+ * of at most {@code rate-limit.max-clients} entries each. A bucket not used
+ * for a refill period is full and expires; when a cache is full, the buckets
+ * of the least frequent clients are evicted first. Every decision is counted
+ * in {@code gateway.rate-limit}, tagged with the route, the result and the
+ * bucket that refused the request.
+ *
+ * @author vinodgodara
+ *
+ */
+@Component
+@ConditionalOnProperty(name = "rate-limit.enabled", havingValue = "true")
+public class RateLimiter {
+
+	public static final String API_KEY = "api-key";
+
+	public static final String CLIENT_IP = "client-ip";
+
+	public static final String ROUTE = "route";
+
+	/**
+	 * Counters of one route.
+	 */
+	private static final class RouteCounters {
+
+		private final Counter allowed;
+
+		private final Counter apiKeyRejected;
+
+		private final Counter clientIpRejected;
+
+		private final Counter routeRejected;
+
+		private RouteCounters(final MeterRegistry meterRegistry, final String route) {
+			allowed = meterRegistry.counter("gateway.rate-limit", "route", route, "result", "allowed", "bucket",
+					"none");
+			apiKeyRejected = rejected(meterRegistry, route, API_KEY);
+			clientIpRejected = rejected(meterRegistry, route, CLIENT_IP);
+			routeRejected = rejected(meterRegistry, route, ROUTE);
+		}
+
+		private static Counter rejected(final MeterRegistry meterRegistry, final String route, final String bucket) {
+			return meterRegistry.counter("gateway.rate-limit", "route", route, "result", "rejected", "bucket", bucket);
+		}
+	}
+
+	private final MeterRegistry meterRegistry;
+
+	private final double[] apiKeyLimit;
+
+	private final double[] clientIpLimit;
+
+	private final Map<String, TokenBucket> routeBuckets = new HashMap<>();
+
+	private final Cache<String, TokenBucket> apiKeyBuckets;
+
+	private final Cache<String, TokenBucket> clientIpBuckets;
+
+	private final ConcurrentMap<String, RouteCounters> counters = new ConcurrentHashMap<>();
+
+	public RateLimiter(final MeterRegistry meterRegistry, @Value("${rate-limit.api-key:100:200}") final String apiKey,
+			@Value("${rate-limit.client-ip:50:100}") final String clientIp,
+			@Value("${rate-limit.routes:}") final String routes,
+			@Value("${rate-limit.max-clients:100000}") final long maxClients) {
+		this.meterRegistry = meterRegistry;
+		this.apiKeyLimit = parseLimit(apiKey);
+		this.clientIpLimit = parseLimit(clientIp);
+		this.apiKeyBuckets = buckets(apiKeyLimit, maxClients);
+		this.clientIpBuckets = buckets(clientIpLimit, maxClients);
+
+		for (final String entry : routes.split(",")) {
+			if (entry.trim().isEmpty()) {
+				continue;
+			}
+
+			final int separator = entry.indexOf(':');
+			final double[] limit = separator > 0 ? parseLimit(entry.substring(separator + 1)) : null;
+			if (Objects.isNull(limit)) {
+				throw new IllegalArgumentException("Invalid route rate limit: " + entry);
+			}
+			routeBuckets.put(entry.substring(0, separator).trim(), new TokenBucket(limit[0], (int) limit[1]));
+		}
+
+		meterRegistry.gauge("gateway.rate-limit.buckets", Tags.of("bucket", API_KEY), apiKeyBuckets,
+				Cache::estimatedSize);
+		meterRegistry.gauge("gateway.rate-limit.buckets", Tags.of("bucket", CLIENT_IP), clientIpBuckets,
+				Cache::estimatedSize);
+	}
+
+	/**
+	 * Take a token for a request from every bucket that applies to it.
+	 *
+	 * @param apiKey   API key sent by the client, may be null.
+	 * @param clientIp Address of the client.
+	 * @param route    Route of the request, may be null.
+	 * @return 0 if the request is allowed, otherwise nanoseconds until it would
+	 *         be.
+	 */
+	public long acquire(final String apiKey, final String clientIp, final String route) {
+		final long now = System.nanoTime();
+		final RouteCounters routeCounters = counters(Objects.nonNull(route) ? route : "none");
+
+		final TokenBucket routeBucket = Objects.nonNull(route) ? routeBuckets.get(route) : null;
+		final TokenBucket apiKeyBucket = Objects.nonNull(apiKey) ? bucket(apiKeyBuckets, apiKeyLimit, apiKey) : null;
+		final TokenBucket clientIpBucket = bucket(clientIpBuckets, clientIpLimit, clientIp);
+
+		// Most specific first, a client over its own limit does not use up the route's.
+		long wait = take(apiKeyBucket, now);
+		if (wait > 0) {
+			routeCounters.apiKeyRejected.increment();
+			return wait;
+		}
+
+		wait = take(clientIpBucket, now);
+		if (wait > 0) {
+			giveBack(apiKeyBucket);
+			routeCounters.clientIpRejected.increment();
+			return wait;
+		}
+
+		wait = take(routeBucket, now);
+		if (wait > 0) {
+			giveBack(apiKeyBucket);
+			giveBack(clientIpBucket);
+			routeCounters.routeRejected.increment();
+			return wait;
+		}
+
+		routeCounters.allowed.increment();
+		return 0;
+	}
+
+	/**
+	 * Cache of the buckets of a client limit. A bucket idle for a whole refill
+	 * period is full, a new one would be the same.
+	 */
+	private static Cache<String, TokenBucket> buckets(final double[] limit, final long maxClients) {
+		final Caffeine<Object, Object> builder = Caffeine.newBuilder().maximumSize(maxClients);
+
+		if (Objects.nonNull(limit)) {
+			builder.expireAfterAccess(Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) * limit[1] / limit[0])),
+					TimeUnit.NANOSECONDS);
+		}
+		return builder.build();
+	}
+
+	private RouteCounters counters(final String route) {
+		final RouteCounters routeCounters = counters.get(route);
+		return Objects.nonNull(routeCounters) ? routeCounters
+				: counters.computeIfAbsent(route, name -> new RouteCounters(meterRegistry, name));
+	}
+
+	private static TokenBucket bucket(final Cache<String, TokenBucket> buckets, final double[] limit,
+			final String key) {
+		if (Objects.isNull(limit) || Objects.isNull(key)) {
+			return null;
+		}
+		return buckets.get(key, unused -> new TokenBucket(limit[0], (int) limit[1]));
+	}
+
+	private static long take(final TokenBucket bucket, final long now) {
+		return Objects.nonNull(bucket) ? bucket.tryTake(now) : 0;
+	}
+
+	private static void giveBack(final TokenBucket bucket) {
+		if (Objects.nonNull(bucket)) {
+			bucket.giveBack();
+		}
+	}
+
+	private static double[] parseLimit(final String limit) {
+		if (limit.trim().isEmpty()) {
+			return null;
+		}
+
+		final String[] rateAndBurst = limit.split(":");
+		if (rateAndBurst.length != 2) {
+			throw new IllegalArgumentException("Invalid rate limit: " + limit);
+		}
+		return new double[] { Double.parseDouble(rateAndBurst[0].trim()), Integer.parseInt(rateAndBurst[1].trim()) };
+	}
+}
@@ -0,0 +1,79 @@
+package com.nagp.microservices.zuulapigateway.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket refilled at a fixed rate, taken from without locks. Instead of
+ * a token count and a refill time, the bucket keeps a single timestamp: when
+ * it will be full again. Taking a token moves that time one token interval
+ * forward, and is refused if it would be further ahead of now than the whole
+ * bucket takes to refill. One compare-and-set per request, and the time to
+ * wait for the next token falls out of the same comparison.
+ *
+ * @author vinodgodara
+ *
+ */
+public class TokenBucket {
+
+	// Nanoseconds to refill one token.
+	private final long intervalNanos;
+
+	// Nanoseconds to refill the whole bucket.
+	private final long capacityNanos;
+
+	// System.nanoTime() when the bucket is full again.
+	private final AtomicLong fullAt;
+
+	/**
+	 * @param tokensPerSecond Refill rate.
+	 * @param capacity        Most tokens taken at once, the allowed burst.
+	 */
+	public TokenBucket(final double tokensPerSecond, final int capacity) {
+		if (tokensPerSecond <= 0 || capacity <= 0) {
+			throw new IllegalArgumentException("Token bucket rate and capacity must be positive.");
+		}
+		intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / tokensPerSecond));
+		capacityNanos = intervalNanos * capacity;
+		fullAt = new AtomicLong(System.nanoTime());
+	}
+
+	/**
+	 * Take a token.
+	 *
+	 * @param nowNanos System.nanoTime().
+	 * @return 0 if a token was taken, otherwise nanoseconds until one is
+	 *         available.
+	 */
+	public long tryTake(final long nowNanos) {
+		while (true) {
+			final long current = fullAt.get();
+			final long next = Math.max(current - nowNanos, 0) + nowNanos + intervalNanos;
+			final long ahead = next - nowNanos;
+
+			if (ahead > capacityNanos) {
+				return ahead - capacityNanos;
+			}
+			if (fullAt.compareAndSet(current, next)) {
+				return 0;
+			}
+		}
+	}
+
+	/**
+	 * Give back a token taken for a request refused by another bucket.
+	 */
+	public void giveBack() {
+		fullAt.addAndGet(-intervalNanos);
+	}
+
+	/**
+	 * Whether the bucket is full, i.e. it would behave like a new one.
+	 *
+	 * @param nowNanos System.nanoTime().
+	 * @return True if no token was taken for a full refill period.
+	 */
+	public boolean isFull(final long nowNanos) {
+		return fullAt.get() - nowNanos <= 0;
+	}
+}
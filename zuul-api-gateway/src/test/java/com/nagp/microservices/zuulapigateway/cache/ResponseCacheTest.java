@@ -0,0 +1,143 @@
+package com.nagp.microservices.zuulapigateway.cache;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+class ResponseCacheTest {
+
+	private static final String SUMMARY = "/account-services/getTransactionSummary/";
+
+	private static final String ACCOUNTS = "/user-services/getAccountsList/";
+
+	private final ResponseCache cache = new ResponseCache(SUMMARY + "=60000," + ACCOUNTS + "=1",
+			"/operation-services/depositMoney/>" + SUMMARY + ",/operation-services/batchOperations>" + SUMMARY
+					+ "*",
+			3, 16);
+
+	@Test
+	void findsAStoredResponse() {
+		final ResponseCache.Entry stored = store(SUMMARY + "1", "page");
+		final ResponseCache.Entry found = cache.find(SUMMARY + "1");
+
+		assertNotNull(found);
+		assertArrayEquals(body("page"), found.getBody());
+		assertEquals("application/json", found.getContentType());
+		assertEquals(stored.getEtag(), found.getEtag());
+		assertNull(cache.find(SUMMARY + "2"));
+	}
+
+	@Test
+	void onlyCachesConfiguredPaths() {
+		assertNotNull(cache.ruleFor(SUMMARY + "1"));
+		assertNull(cache.ruleFor(SUMMARY));
+		assertNull(cache.ruleFor("/account-services/closeAccount/1"));
+	}
+
+	@Test
+	void dropsExpiredResponses() throws InterruptedException {
+		store(ACCOUNTS + "user", "[1]");
+		Thread.sleep(5);
+
+		assertNull(cache.find(ACCOUNTS + "user"));
+	}
+
+	@Test
+	void doesNotStoreLargeResponses() {
+		assertNull(store(SUMMARY + "1", "a body longer than sixteen bytes"));
+		assertNull(cache.find(SUMMARY + "1"));
+	}
+
+	@Test
+	void evictsTheLeastRecentlyUsedResponse() {
+		store(SUMMARY + "1", "1");
+		store(SUMMARY + "2", "2");
+		store(SUMMARY + "3", "3");
+		cache.find(SUMMARY + "1");
+		store(SUMMARY + "4", "4");
+
+		assertNotNull(cache.find(SUMMARY + "1"));
+		assertNull(cache.find(SUMMARY + "2"));
+	}
+
+	@Test
+	void dropsEveryPageOfTheChangedResourceOnly() {
+		store(SUMMARY + "1", "first");
+		store(SUMMARY + "1?cursor=5", "second");
+		store(SUMMARY + "2", "other");
+
+		cache.invalidate("/operation-services/depositMoney/1/100");
+
+		assertNull(cache.find(SUMMARY + "1"));
+		assertNull(cache.find(SUMMARY + "1?cursor=5"));
+		assertNotNull(cache.find(SUMMARY + "2"));
+	}
+
+	@Test
+	void discardsAResponseOfAResourceChangedWhileItWasFetched() {
+		final ResponseCache.Rule rule = cache.ruleFor(SUMMARY + "1");
+		final long changed = cache.generation(rule, SUMMARY + "1");
+		final long unchanged = cache.generation(rule, SUMMARY + "2");
+
+		cache.invalidate("/operation-services/depositMoney/1/100");
+
+		assertNull(cache.store(rule, SUMMARY + "1", SUMMARY + "1", changed, body("stale"), null, false));
+		assertNotNull(cache.store(rule, SUMMARY + "2", SUMMARY + "2", unchanged, body("fresh"), null, false));
+	}
+
+	@Test
+	void dropsAndDiscardsEveryResourceOfTheRule() {
+		final ResponseCache.Rule rule = cache.ruleFor(SUMMARY + "2");
+		final long generation = cache.generation(rule, SUMMARY + "2");
+		store(SUMMARY + "1", "1");
+
+		cache.invalidate("/operation-services/batchOperations");
+
+		assertNull(cache.find(SUMMARY + "1"));
+		assertNull(cache.store(rule, SUMMARY + "2", SUMMARY + "2", generation, body("2"), null, false));
+	}
+
+	@Test
+	void tagsEqualBodiesAlike() {
+		assertEquals(ResponseCache.etag(body("page")), ResponseCache.etag(body("page")));
+		assertNotEquals(ResponseCache.etag(body("page")), ResponseCache.etag(body("other")));
+		assertTrue(ResponseCache.etag(body("page")).startsWith("\""));
+	}
+
+	@Test
+	void matchesIfNoneMatch() {
+		final String etag = ResponseCache.etag(body("page"));
+
+		assertTrue(ResponseCache.matches(etag, etag));
+		assertTrue(ResponseCache.matches("\"other\", " + etag, etag));
+		assertTrue(ResponseCache.matches("W/" + etag, etag));
+		assertTrue(ResponseCache.matches("*", etag));
+		assertFalse(ResponseCache.matches("\"other\"", etag));
+		assertFalse(ResponseCache.matches(null, etag));
+	}
+
+	@Test
+	void rejectsInvalidationsWithoutARule() {
+		assertThrows(IllegalArgumentException.class,
+				() -> new ResponseCache(SUMMARY + "=1000", "/operation-services/depositMoney/>/other/", 10, 10));
+	}
+
+	private ResponseCache.Entry store(final String key, final String body) {
+		final ResponseCache.Rule rule = cache.ruleFor(key);
+		final String path = key.contains("?") ? key.substring(0, key.indexOf('?')) : key;
+		return cache.store(rule, path, key, cache.generation(rule, path), body(body), "application/json", false);
+	}
+
+	private static byte[] body(final String body) {
+		return body.getBytes(StandardCharsets.UTF_8);
+	}
+}
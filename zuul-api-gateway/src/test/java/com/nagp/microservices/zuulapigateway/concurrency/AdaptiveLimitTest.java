@@ -0,0 +1,100 @@
+package com.nagp.microservices.zuulapigateway.concurrency;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class AdaptiveLimitTest {
+
+	private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+	@Test
+	void shedsRequestsOverTheLimit() {
+		final AdaptiveLimit limit = new AdaptiveLimit(2, 1, 10, 0.5, 2.0, WINDOW_NANOS);
+
+		assertEquals(0, limit.tryAcquire());
+		assertEquals(1, limit.tryAcquire());
+		assertEquals(-1, limit.tryAcquire());
+		assertEquals(2, limit.getInFlight());
+		assertEquals(1, limit.getRejected());
+
+		limit.release(System.nanoTime(), 1, false);
+		assertEquals(1, limit.getInFlight());
+	}
+
+	@Test
+	void growsOnlyWhileHalfOfTheLimitIsInUse() {
+		final AdaptiveLimit limit = new AdaptiveLimit(4, 1, 10, 0.5, 2.0, WINDOW_NANOS);
+
+		release(limit, 1, 0, false);
+		assertEquals(4, limit.getLimit());
+
+		release(limit, 1, 2, false);
+		assertEquals(5, limit.getLimit());
+	}
+
+	@Test
+	void neverGrowsOverTheMaximum() {
+		final AdaptiveLimit limit = new AdaptiveLimit(10, 1, 10, 0.5, 2.0, WINDOW_NANOS);
+
+		release(limit, 1, 10, false);
+		assertEquals(10, limit.getLimit());
+	}
+
+	@Test
+	void cutsTheLimitWhenTheRttGrows() throws InterruptedException {
+		final AdaptiveLimit limit = new AdaptiveLimit(10, 1, 20, 0.5, 2.0, WINDOW_NANOS);
+
+		release(limit, 1, 0, false);
+		Thread.sleep(5);
+		release(limit, 100, 0, false);
+		assertEquals(5, limit.getLimit());
+	}
+
+	@Test
+	void cutsOncePerRttForABurstOfFailures() throws InterruptedException {
+		final AdaptiveLimit limit = new AdaptiveLimit(10, 1, 20, 0.5, 2.0, WINDOW_NANOS);
+
+		release(limit, 50, 0, false);
+		Thread.sleep(60);
+		release(limit, 1, 0, true);
+		release(limit, 1, 0, true);
+		assertEquals(5, limit.getLimit());
+	}
+
+	@Test
+	void neverCutsUnderTheMinimum() throws InterruptedException {
+		final AdaptiveLimit limit = new AdaptiveLimit(3, 2, 20, 0.5, 2.0, WINDOW_NANOS);
+
+		release(limit, 1, 0, false);
+		Thread.sleep(5);
+		release(limit, 1, 0, true);
+		assertEquals(2, limit.getLimit());
+	}
+
+	@Test
+	void takesTheBaselineAgainEveryWindow() throws InterruptedException {
+		final AdaptiveLimit limit = new AdaptiveLimit(10, 1, 20, 0.5, 2.0, TimeUnit.MILLISECONDS.toNanos(10));
+
+		release(limit, 1, 0, false);
+		Thread.sleep(20);
+		release(limit, 30, 0, false);
+		Thread.sleep(20);
+		release(limit, 30, 0, false);
+
+		// The service became slower for good, its new RTT is the baseline.
+		assertTrue(limit.getMinRttNanos() >= TimeUnit.MILLISECONDS.toNanos(30));
+		final int settled = limit.getLimit();
+		release(limit, 40, 0, false);
+		assertEquals(settled, limit.getLimit());
+	}
+
+	private static void release(final AdaptiveLimit limit, final long rttMillis, final int inFlightBefore,
+			final boolean failed) {
+		limit.tryAcquire();
+		limit.release(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(rttMillis), inFlightBefore, failed);
+	}
+}
@@ -0,0 +1,43 @@
+package com.nagp.microservices.zuulapigateway.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RateLimiterTest {
+
+	@Test
+	void limitsNoRouteByDefault() {
+		final RateLimiter limiter = new RateLimiter(new SimpleMeterRegistry(), "", "", "", 100);
+
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(0, limiter.acquire("key", "10.0.0.1", "operation-services"));
+		}
+	}
+
+	@Test
+	void refusesAClientOverItsOwnLimitOnly() {
+		final RateLimiter limiter = new RateLimiter(new SimpleMeterRegistry(), "1:2", "", "", 100);
+
+		assertEquals(0, limiter.acquire("key", "10.0.0.1", "operation-services"));
+		assertEquals(0, limiter.acquire("key", "10.0.0.1", "operation-services"));
+		assertTrue(limiter.acquire("key", "10.0.0.1", "operation-services") > 0);
+		assertEquals(0, limiter.acquire("other", "10.0.0.1", "operation-services"));
+	}
+
+	@Test
+	void givesBackTheTokensOfARefusedRequest() {
+		final RateLimiter limiter = new RateLimiter(new SimpleMeterRegistry(), "1:2", "",
+				"operation-services:1:1", 100);
+
+		assertEquals(0, limiter.acquire("key", "10.0.0.1", "operation-services"));
+		assertTrue(limiter.acquire("key", "10.0.0.1", "operation-services") > 0);
+
+		// The refusal by the route did not use up the key's second token.
+		assertEquals(0, limiter.acquire("key", "10.0.0.1", "user-services"));
+		assertTrue(limiter.acquire("key", "10.0.0.1", "user-services") > 0);
+	}
+}
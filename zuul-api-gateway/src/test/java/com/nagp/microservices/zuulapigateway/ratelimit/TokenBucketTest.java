@@ -0,0 +1,111 @@
+package com.nagp.microservices.zuulapigateway.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class TokenBucketTest {
+
+	private static final long INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+	@Test
+	void allowsABurstOfTheCapacity() {
+		final TokenBucket bucket = new TokenBucket(10, 5);
+		final long now = System.nanoTime();
+
+		for (int i = 0; i < 5; i++) {
+			assertEquals(0, bucket.tryTake(now));
+		}
+		assertEquals(INTERVAL_NANOS, bucket.tryTake(now));
+	}
+
+	@Test
+	void refillsAtTheRate() {
+		final TokenBucket bucket = new TokenBucket(10, 1);
+		final long now = System.nanoTime();
+
+		assertEquals(0, bucket.tryTake(now));
+		assertEquals(INTERVAL_NANOS / 2, bucket.tryTake(now + INTERVAL_NANOS / 2));
+		assertEquals(0, bucket.tryTake(now + INTERVAL_NANOS));
+		assertEquals(INTERVAL_NANOS, bucket.tryTake(now + INTERVAL_NANOS));
+	}
+
+	@Test
+	void doesNotSaveMoreThanTheCapacity() {
+		final TokenBucket bucket = new TokenBucket(10, 2);
+		final long later = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+
+		assertEquals(0, bucket.tryTake(later));
+		assertEquals(0, bucket.tryTake(later));
+		assertTrue(bucket.tryTake(later) > 0);
+	}
+
+	@Test
+	void takesBackAGivenBackToken() {
+		final TokenBucket bucket = new TokenBucket(10, 1);
+		final long now = System.nanoTime();
+
+		assertEquals(0, bucket.tryTake(now));
+		bucket.giveBack();
+		assertEquals(0, bucket.tryTake(now));
+	}
+
+	@Test
+	void isFullOnceRefilled() {
+		final TokenBucket bucket = new TokenBucket(10, 3);
+		final long now = System.nanoTime();
+
+		assertTrue(bucket.isFull(now));
+		bucket.tryTake(now);
+		bucket.tryTake(now);
+		assertFalse(bucket.isFull(now + INTERVAL_NANOS));
+		assertTrue(bucket.isFull(now + 2 * INTERVAL_NANOS));
+	}
+
+	@Test
+	void handsOutTheCapacityExactlyOnceUnderContention() throws InterruptedException {
+		final TokenBucket bucket = new TokenBucket(1, 1000);
+		final long now = System.nanoTime();
+		final AtomicInteger taken = new AtomicInteger();
+		final CountDownLatch start = new CountDownLatch(1);
+		final List<Thread> threads = new ArrayList<>();
+
+		for (int i = 0; i < 8; i++) {
+			final Thread thread = new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException exc) {
+					return;
+				}
+				for (int j = 0; j < 500; j++) {
+					if (bucket.tryTake(now) == 0) {
+						taken.incrementAndGet();
+					}
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+
+		start.countDown();
+		for (final Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(1000, taken.get());
+	}
+
+	@Test
+	void rejectsARateOrCapacityOfZero() {
+		assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 1));
+		assertThrows(IllegalArgumentException.class, () -> new TokenBucket(1, 0));
+	}
+}